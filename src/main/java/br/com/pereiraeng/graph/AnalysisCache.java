@@ -0,0 +1,371 @@
+package br.com.pereiraeng.graph;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import br.com.pereiraeng.graph.numbered.GraphN;
+
+/**
+ * Classe do objeto que guarda os resultados de algoritmos executados sobre um
+ * mesmo grafo, indexados pelo nome do algoritmo e pelos seus parâmetros. Toda
+ * consulta compara a época atual do grafo (ver {@link GraphN#getEpoch()} e
+ * {@link GraphEpoch}) com aquela em que os resultados foram guardados: se o
+ * grafo tiver sido alterado no intervalo, o cache inteiro é descartado.
+ * <p>
+ * O número de resultados guardados é limitado; ao ser atingido o limite, o
+ * resultado usado há mais tempo ({@link Policy#LRU}) ou com menos acessos
+ * ({@link Policy#LFU}) é descartado.
+ * <p>
+ * Os resultados são compartilhados entre as consultas, de modo que não devem
+ * ser alterados por quem os recebe.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public class AnalysisCache {
+
+	/**
+	 * Política de descarte quando o cache está cheio
+	 */
+	public enum Policy {
+		/**
+		 * Descarta o resultado usado há mais tempo
+		 */
+		LRU,
+		/**
+		 * Descarta o resultado com menos acessos (em caso de empate, o guardado há
+		 * mais tempo)
+		 */
+		LFU;
+	}
+
+	private final LongSupplier epochSource;
+
+	private final int capacity;
+
+	private final Policy policy;
+
+	private final LinkedHashMap<Key, Entry0> entries;
+
+	private long epoch;
+
+	private long hits, misses, evictions, invalidations;
+
+	/**
+	 * Construtor do cache
+	 *
+	 * @param epochSource função que retorna a época atual do grafo
+	 * @param capacity    número máximo de resultados guardados
+	 * @param policy      política de descarte
+	 */
+	public AnalysisCache(LongSupplier epochSource, int capacity, Policy policy) {
+		if (epochSource == null || policy == null)
+			throw new IllegalArgumentException("nenhum dos args pode ser null");
+		if (capacity < 1)
+			throw new IllegalArgumentException("A capacidade deve ser positiva");
+		this.epochSource = epochSource;
+		this.capacity = capacity;
+		this.policy = policy;
+		// na política LRU a própria ordem de acesso do mapa indica quem descartar
+		this.entries = new LinkedHashMap<>(16, 0.75f, policy == Policy.LRU);
+		this.epoch = epochSource.getAsLong();
+	}
+
+	/**
+	 * Função que cria um cache para um grafo numerado
+	 *
+	 * @param g        grafo
+	 * @param capacity número máximo de resultados guardados
+	 * @param policy   política de descarte
+	 * @return cache invalidado a cada alteração do grafo
+	 */
+	public static AnalysisCache forGraph(GraphN g, int capacity, Policy policy) {
+		if (g == null)
+			throw new IllegalArgumentException("Grafo não pode ser nulo");
+		return new AnalysisCache(g::getEpoch, capacity, policy);
+	}
+
+	/**
+	 * Função que cria um cache para um grafo formado por {@link VertexObject
+	 * vértices} e {@link EdgeObject arestas}, invalidado somente pelas alterações
+	 * das arestas dos seus vértices ou do conteúdo da coleção (ver
+	 * {@link GraphEpoch#of(Collection)}). A
+	 * época é calculada a cada consulta, em tempo proporcional ao número de
+	 * vértices
+	 *
+	 * @param graph    vértices do grafo (a coleção não deve ser substituída)
+	 * @param capacity número máximo de resultados guardados
+	 * @param policy   política de descarte
+	 * @return cache
+	 */
+	public static AnalysisCache forObjectGraph(Collection<? extends Vertex> graph, int capacity, Policy policy) {
+		if (graph == null)
+			throw new IllegalArgumentException("Grafo não pode ser nulo");
+		return new AnalysisCache(() -> GraphEpoch.of(graph), capacity, policy);
+	}
+
+	/**
+	 * Função que cria um cache para grafos formados por {@link VertexObject
+	 * vértices} e {@link EdgeObject arestas} quaisquer. O cache é invalidado a
+	 * cada alteração de qualquer um deles, em qualquer grafo (ver
+	 * {@link GraphEpoch#current()}); se os grafos analisados forem conhecidos, é
+	 * preferível {@link #forObjectGraph(Collection, int, Policy)}
+	 *
+	 * @param capacity número máximo de resultados guardados
+	 * @param policy   política de descarte
+	 * @return cache
+	 */
+	public static AnalysisCache forObjectGraphs(int capacity, Policy policy) {
+		return new AnalysisCache(GraphEpoch::current, capacity, policy);
+	}
+
+	/**
+	 * Função que retorna o resultado de um algoritmo, calculando-o somente se não
+	 * houver resultado válido guardado. Os parâmetros são comparados pelos seus
+	 * métodos {@link Object#equals(Object) equals} (vetores são comparados
+	 * elemento a elemento); para comparar pela referência, usar
+	 * {@link #identity(Object)}
+	 *
+	 * @param <T>       tipo do resultado
+	 * @param algorithm nome do algoritmo
+	 * @param compute   função que executa o algoritmo
+	 * @param params    parâmetros do algoritmo
+	 * @return resultado (compartilhado, não deve ser alterado)
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T get(String algorithm, Supplier<T> compute, Object... params) {
+		if (algorithm == null || compute == null)
+			throw new IllegalArgumentException("nenhum dos args pode ser null");
+		Key key = new Key(algorithm, params);
+		long start;
+		synchronized (this) {
+			validate();
+			Entry0 e = entries.get(key);
+			if (e != null) {
+				hits++;
+				e.count++;
+				return (T) e.value;
+			}
+			misses++;
+			start = epoch;
+		}
+		// o cálculo é feito fora da trava, para não bloquear as demais consultas
+		T value = compute.get();
+		synchronized (this) {
+			validate();
+			// o grafo foi alterado durante o cálculo: o resultado não é guardado
+			if (epoch != start)
+				return value;
+			// outra thread pode ter calculado o mesmo resultado no intervalo
+			if (!entries.containsKey(key)) {
+				if (entries.size() >= capacity)
+					evict();
+				entries.put(key, new Entry0(value));
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Função que envolve um parâmetro de modo que ele seja comparado pela sua
+	 * referência, e não pelo seu conteúdo (útil para vértices e coleções, cuja
+	 * comparação pelo conteúdo é custosa). Atenção: alterações de uma coleção
+	 * passada desse modo que não alterem o grafo não invalidam o cache
+	 *
+	 * @param o parâmetro
+	 * @return parâmetro envolvido
+	 */
+	public static Object identity(Object o) {
+		return new Identity(o);
+	}
+
+	// -------------- algoritmos --------------
+
+	/**
+	 * Função que retorna o conjunto de vértices alcançáveis a partir de um vértice
+	 *
+	 * @param v vértice de partida
+	 * @return resultado de {@link GraphUtils#bfs(Vertex)}
+	 */
+	public Set<Vertex> bfs(Vertex v) {
+		return get("bfs", () -> GraphUtils.bfs(v), identity(v));
+	}
+
+	/**
+	 * Função que retorna as raízes das árvores de um grafo
+	 *
+	 * @param graph grafo
+	 * @return resultado de {@link TreeUtils#getRoots(Collection)}
+	 */
+	public Collection<Vertex> getRoots(Collection<? extends Vertex> graph) {
+		return get("getRoots", () -> TreeUtils.getRoots(graph), identity(graph));
+	}
+
+	/**
+	 * Função que retorna os cortes obtidos a partir da subtração de um subgrafo
+	 *
+	 * @param graph  grafo
+	 * @param outter subgrafo a ser removido
+	 * @return resultado de {@link Cut#getOrderedCuts(Collection, Set)}
+	 */
+	public Map<Cut, Collection<Vertex>> getOrderedCuts(Collection<? extends Vertex> graph, Set<Vertex> outter) {
+		return get("getOrderedCuts", () -> Cut.getOrderedCuts(graph, outter), identity(graph), identity(outter));
+	}
+
+	// -------------- getter's --------------
+
+	public synchronized int size() {
+		validate();
+		return entries.size();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public Policy getPolicy() {
+		return policy;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return número de resultados descartados por falta de espaço
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * @return número de vezes em que o cache foi descartado por alteração do grafo
+	 */
+	public synchronized long getInvalidations() {
+		return invalidations;
+	}
+
+	/**
+	 * @return fração das consultas atendidas sem executar o algoritmo
+	 */
+	public synchronized double getHitRate() {
+		long total = hits + misses;
+		return total == 0 ? 0. : (double) hits / total;
+	}
+
+	/**
+	 * Função que descarta todos os resultados (os contadores são mantidos)
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		epoch = epochSource.getAsLong();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("%s[%d/%d, hits=%d, misses=%d, evictions=%d, invalidations=%d]", policy, entries.size(),
+				capacity, hits, misses, evictions, invalidations);
+	}
+
+	// ---------------- AUXILIAR ----------------
+
+	private void validate() {
+		long now = epochSource.getAsLong();
+		if (now != epoch) {
+			if (!entries.isEmpty()) {
+				entries.clear();
+				invalidations++;
+			}
+			epoch = now;
+		}
+	}
+
+	private void evict() {
+		Iterator<Entry<Key, Entry0>> it = entries.entrySet().iterator();
+		if (policy == Policy.LRU) {
+			it.next();
+			it.remove();
+		} else {
+			// a ordem de inserção desempata: o mais antigo é descartado
+			Key victim = null;
+			long min = Long.MAX_VALUE;
+			while (it.hasNext()) {
+				Entry<Key, Entry0> e = it.next();
+				if (e.getValue().count < min) {
+					min = e.getValue().count;
+					victim = e.getKey();
+				}
+			}
+			entries.remove(victim);
+		}
+		evictions++;
+	}
+
+	private static class Entry0 {
+		private final Object value;
+
+		private long count;
+
+		private Entry0(Object value) {
+			this.value = value;
+		}
+	}
+
+	private static class Key {
+		private final String algorithm;
+
+		private final Object[] params;
+
+		private final int hash;
+
+		private Key(String algorithm, Object[] params) {
+			this.algorithm = algorithm;
+			this.params = params == null ? new Object[0] : params;
+			this.hash = 31 * algorithm.hashCode() + Arrays.deepHashCode(this.params);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return hash == other.hash && algorithm.equals(other.algorithm) && Arrays.deepEquals(params, other.params);
+		}
+	}
+
+	private static class Identity {
+		private final Object o;
+
+		private Identity(Object o) {
+			this.o = o;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(o);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Identity && ((Identity) obj).o == o;
+		}
+	}
+}
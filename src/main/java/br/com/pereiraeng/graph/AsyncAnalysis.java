@@ -0,0 +1,368 @@
+package br.com.pereiraeng.graph;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import br.com.pereiraeng.graph.numbered.AdjacencyN;
+import br.com.pereiraeng.graph.numbered.CompactGraphN;
+import br.com.pereiraeng.graph.numbered.CutN;
+import br.com.pereiraeng.graph.numbered.GraphN;
+import br.com.pereiraeng.graph.sparse.NodalOrdering;
+
+/**
+ * Classe do objeto que executa as análises de topologia de forma assíncrona,
+ * retornando {@link CompletableFuture futuros} em vez de bloquear a thread que
+ * as solicita.
+ * <p>
+ * Por padrão as análises são executadas num {@link ForkJoinPool} próprio (em
+ * modo assíncrono, i.e., com as filas em ordem de chegada), cujo paralelismo é
+ * configurável; os algoritmos paralelos chamados de dentro dele (e.g., fluxos
+ * paralelos) também usam esse conjunto, e não o comum. Nas versões do Java que
+ * possuem threads virtuais, {@link #virtualThreads()} cria um executor com uma
+ * thread virtual por consulta, de modo que muitas consultas simultâneas
+ * compartilham os núcleos sem ocupar threads do sistema enquanto esperam.
+ * <p>
+ * Cada análise recebe um {@link ExecutionContext contexto de execução} (criado
+ * se não for informado): o cancelamento do futuro retornado cancela o contexto,
+ * e o algoritmo é interrompido no passo seguinte. Os estágios derivados (e.g.,
+ * por {@link CompletableFuture#thenApply(Function) thenApply}) não propagam o
+ * cancelamento; ele deve ser feito no próprio futuro retornado.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public class AsyncAnalysis implements AutoCloseable {
+
+	private static final AtomicInteger POOLS = new AtomicInteger();
+
+	private final Executor executor;
+
+	/**
+	 * Executor criado por este objeto (encerrado por {@link #close()}), ou nulo
+	 */
+	private final ExecutorService owned;
+
+	/**
+	 * Construtor com um {@link ForkJoinPool} próprio com um nível de paralelismo
+	 * igual ao número de processadores
+	 */
+	public AsyncAnalysis() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Construtor com um {@link ForkJoinPool} próprio
+	 *
+	 * @param parallelism nível de paralelismo do conjunto
+	 */
+	public AsyncAnalysis(int parallelism) {
+		if (parallelism < 1)
+			throw new IllegalArgumentException("O paralelismo deve ser positivo");
+		int id = POOLS.incrementAndGet();
+		AtomicInteger workers = new AtomicInteger();
+		ForkJoinPool pool = new ForkJoinPool(parallelism, p -> {
+			ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+			t.setName("graph-analysis-" + id + "-" + workers.incrementAndGet());
+			return t;
+		}, null, true);
+		this.executor = pool;
+		this.owned = pool;
+	}
+
+	/**
+	 * Construtor com um executor externo (que não é encerrado por
+	 * {@link #close()})
+	 *
+	 * @param executor executor das análises
+	 */
+	public AsyncAnalysis(Executor executor) {
+		this(executor, false);
+	}
+
+	private AsyncAnalysis(Executor executor, boolean own) {
+		if (executor == null)
+			throw new IllegalArgumentException("Executor não pode ser nulo");
+		this.executor = executor;
+		this.owned = own ? (ExecutorService) executor : null;
+	}
+
+	/**
+	 * Função que verifica se a versão do Java em execução possui threads virtuais
+	 * (nas versões 19 e 20 elas são uma prévia, disponível somente com
+	 * <code>--enable-preview</code>). O executor é efetivamente criado na primeira
+	 * chamada
+	 *
+	 * @return <code>true</code> se {@link #virtualThreads()} puder ser usada
+	 */
+	public static boolean isVirtualThreadsSupported() {
+		return VirtualThreads.SUPPORTED;
+	}
+
+	/**
+	 * Função que cria o objeto com uma thread virtual por análise. O executor é
+	 * obtido por reflexão, de modo que a biblioteca continua compatível com as
+	 * versões do Java sem threads virtuais
+	 *
+	 * @return objeto (a ser encerrado por {@link #close()})
+	 * @throws UnsupportedOperationException se a versão do Java não possuir
+	 *                                       threads virtuais
+	 */
+	public static AsyncAnalysis virtualThreads() {
+		ExecutorService ex = newVirtualThreadExecutor();
+		if (ex == null)
+			throw new UnsupportedOperationException("Threads virtuais não disponíveis nesta versão do Java");
+		return new AsyncAnalysis(ex, true);
+	}
+
+	// -------------- análises --------------
+
+	/**
+	 * Função que executa uma análise qualquer
+	 *
+	 * @param <T>  tipo do resultado
+	 * @param task análise, que deve consultar o contexto recebido
+	 * @param ctx  contexto de execução (ou <code>null</code> para criar um novo)
+	 * @return futuro do resultado; o seu cancelamento cancela o contexto
+	 */
+	public <T> CompletableFuture<T> submit(Function<ExecutionContext, T> task, ExecutionContext ctx) {
+		if (task == null)
+			throw new IllegalArgumentException("Tarefa não pode ser nula");
+		ExecutionContext c = ctx == null ? new ExecutionContext() : ctx;
+		ContextFuture<T> f = new ContextFuture<>(c);
+		try {
+			executor.execute(() -> {
+				// cancelado antes de começar
+				if (f.isDone())
+					return;
+				try {
+					f.complete(task.apply(c));
+				} catch (Throwable t) {
+					f.completeExceptionally(t);
+				}
+			});
+		} catch (RuntimeException e) {
+			// executor encerrado ou saturado
+			f.completeExceptionally(e);
+		}
+		return f;
+	}
+
+	/**
+	 * Função que retorna as ilhas (componentes conexas) de um grafo
+	 *
+	 * @param graph vértices do grafo
+	 * @param ctx   contexto de execução (ou <code>null</code>)
+	 * @return futuro com os conjuntos de vértices de cada ilha
+	 */
+	public CompletableFuture<List<Set<Vertex>>> getIslands(Collection<? extends Vertex> graph, ExecutionContext ctx) {
+		return submit(c -> {
+			List<Set<Vertex>> out = new ArrayList<>();
+			Set<Vertex> seen = new HashSet<>();
+			long done = 0L;
+			for (Vertex v : graph) {
+				if (c.step())
+					return c.abort(out);
+				if (seen.contains(v))
+					continue;
+				Set<Vertex> island = GraphUtils.bfs(v);
+				seen.addAll(island);
+				done += island.size();
+				out.add(island);
+				if (c.progress(done, graph.size()))
+					return c.abort(out);
+			}
+			return out;
+		}, ctx);
+	}
+
+	/**
+	 * Função que retorna as componentes conexas de um grafo numerado
+	 *
+	 * @param graph grafo (compacto ou mapeado)
+	 * @param ctx   contexto de execução (ou <code>null</code>)
+	 * @return futuro com o número da componente de cada vértice (indexado pelo
+	 *         índice denso)
+	 */
+	public CompletableFuture<int[]> getComponents(AdjacencyN graph, ExecutionContext ctx) {
+		return submit(c -> {
+			int n = graph.getVertexCount();
+			int[] comp = new int[n], queue = new int[n];
+			Arrays.fill(comp, -1);
+			int count = 0;
+			for (int s = 0; s < n; s++) {
+				if (comp[s] >= 0)
+					continue;
+				comp[s] = count;
+				queue[0] = s;
+				int head = 0, tail = 1;
+				while (head < tail) {
+					if (c.step())
+						return c.abort(comp);
+					int u = queue[head++];
+					for (int k = 0, deg = graph.getDegree(u); k < deg; k++) {
+						int w = graph.getNeighbor(u, k);
+						if (comp[w] < 0) {
+							comp[w] = count;
+							queue[tail++] = w;
+						}
+					}
+				}
+				count++;
+			}
+			return comp;
+		}, ctx);
+	}
+
+	/**
+	 * @see GraphUtils#findCycles(Collection, ExecutionContext)
+	 */
+	public CompletableFuture<Set<GraphPath>> findCycles(Collection<? extends Vertex> graph, ExecutionContext ctx) {
+		return submit(c -> GraphUtils.findCycles(graph, c), ctx);
+	}
+
+	/**
+	 * @see GraphUtils#getMinCuts(Vertex, Vertex, ExecutionContext)
+	 */
+	public CompletableFuture<Set<Set<Edge>>> getMinCuts(Vertex v1, Vertex v2, ExecutionContext ctx) {
+		return submit(c -> GraphUtils.getMinCuts(v1, v2, c), ctx);
+	}
+
+	/**
+	 * Análise não interrompível: o contexto só é consultado antes e depois dela
+	 *
+	 * @see Cut#getOrderedCuts(Collection, Set)
+	 */
+	public CompletableFuture<Map<Cut, Collection<Vertex>>> getOrderedCuts(Collection<? extends Vertex> graph,
+			Set<Vertex> outter, ExecutionContext ctx) {
+		return submit(c -> uninterruptible(c, () -> Cut.getOrderedCuts(graph, outter)), ctx);
+	}
+
+	/**
+	 * Análise não interrompível: o contexto só é consultado antes e depois dela
+	 *
+	 * @see CutN#getOrderedCuts(GraphN, Set)
+	 */
+	public CompletableFuture<Map<CutN, GraphN>> getOrderedCuts(GraphN graph, Set<Integer> outter,
+			ExecutionContext ctx) {
+		return submit(c -> uninterruptible(c, () -> CutN.getOrderedCuts(graph, outter)), ctx);
+	}
+
+	/**
+	 * Análise não interrompível: o contexto só é consultado antes e depois dela
+	 *
+	 * @see TreeUtils#getRoots(Collection)
+	 */
+	public CompletableFuture<Collection<Vertex>> getRoots(Collection<? extends Vertex> graph, ExecutionContext ctx) {
+		return submit(c -> uninterruptible(c, () -> TreeUtils.getRoots(graph)), ctx);
+	}
+
+	/**
+	 * Análise não interrompível: o contexto só é consultado antes e depois dela
+	 *
+	 * @see NodalOrdering#compute(CompactGraphN, NodalOrdering.Method)
+	 */
+	public CompletableFuture<NodalOrdering> getOrdering(CompactGraphN graph, NodalOrdering.Method method,
+			ExecutionContext ctx) {
+		return submit(c -> uninterruptible(c, () -> NodalOrdering.compute(graph, method)), ctx);
+	}
+
+	// -------------- getter's --------------
+
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Função que encerra o executor criado por este objeto (as análises em curso
+	 * são concluídas)
+	 */
+	@Override
+	public void close() {
+		if (owned != null)
+			owned.shutdown();
+	}
+
+	// ---------------- AUXILIAR ----------------
+
+	/**
+	 * Função que executa um algoritmo que não consulta o contexto, verificando-o
+	 * antes (para não iniciar uma análise já cancelada) e depois (para que o
+	 * prazo e o cancelamento sejam respeitados também por essas análises)
+	 */
+	private static <T> T uninterruptible(ExecutionContext c, Supplier<T> task) {
+		if (c.check())
+			return c.abort(null);
+		T out = task.get();
+		if (c.check())
+			return c.abort(out);
+		return out;
+	}
+
+	/**
+	 * Função que cria o executor de threads virtuais por reflexão
+	 *
+	 * @return executor, ou <code>null</code> se a versão do Java não possuir
+	 *         threads virtuais ou se elas forem uma prévia não habilitada (Java 19
+	 *         e 20)
+	 */
+	private static ExecutorService newVirtualThreadExecutor() {
+		try {
+			Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) m.invoke(null);
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			return null;
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof UnsupportedOperationException)
+				return null;
+			throw new IllegalStateException("Não foi possível criar o executor de threads virtuais", e.getCause());
+		}
+	}
+
+	/**
+	 * Resultado (calculado uma única vez) da tentativa de criar o executor de
+	 * threads virtuais
+	 */
+	private static final class VirtualThreads {
+		private static final boolean SUPPORTED;
+
+		static {
+			ExecutorService ex = newVirtualThreadExecutor();
+			SUPPORTED = ex != null;
+			if (ex != null)
+				ex.shutdown();
+		}
+	}
+
+	/**
+	 * Futuro cujo cancelamento cancela o contexto de execução da análise
+	 */
+	private static class ContextFuture<T> extends CompletableFuture<T> {
+		private final ExecutionContext ctx;
+
+		private ContextFuture(ExecutionContext ctx) {
+			this.ctx = ctx;
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			ctx.cancel();
+			return super.cancel(mayInterruptIfRunning);
+		}
+	}
+}
@@ -41,9 +41,10 @@ public class EdgeObject implements OrderedEdge {
 	 * @param to   o outro vértice
 	 */
 	public EdgeObject(Object obj, Vertex from, Vertex to) {
+		// uma aresta nova não pertence a nenhum grafo até ser adicionada aos vértices
 		this.obj = obj;
-		this.setFrom(from);
-		this.setTo(to);
+		this.from = from;
+		this.to = to;
 	}
 
 	// ---------------- getter n' setters ----------------
@@ -54,7 +55,9 @@ public class EdgeObject implements OrderedEdge {
 	}
 
 	public void setFrom(Vertex from) {
+		Vertex old = this.from;
 		this.from = from;
+		GraphEpoch.touch(old, from);
 		// TODO se for VertexObject, from.add(this)
 	}
 
@@ -69,7 +72,9 @@ public class EdgeObject implements OrderedEdge {
 	 * @param to vértice a ser adicionado
 	 */
 	public void setTo(Vertex to) {
+		Vertex old = this.to;
 		this.to = to;
+		GraphEpoch.touch(old, to);
 		// TODO se for VertexObject, from.add(this)
 	}
 
@@ -112,10 +117,16 @@ public class EdgeObject implements OrderedEdge {
 	 * @param newV novo vértice
 	 */
 	public void replaceVertex(Vertex oldV, Vertex newV) {
-		if (oldV.equals(to))
+		Vertex old;
+		if (oldV.equals(to)) {
+			old = to;
 			this.to = newV;
-		else if (oldV.equals(from))
+		} else if (oldV.equals(from)) {
+			old = from;
 			this.from = newV;
+		} else
+			return;
+		GraphEpoch.touch(old, newV);
 	}
 
 	@Override
@@ -0,0 +1,56 @@
+package br.com.pereiraeng.graph;
+
+/**
+ * Exceção lançada quando um algoritmo é interrompido pelo seu
+ * {@link ExecutionContext contexto de execução} (cancelamento ou prazo
+ * esgotado). Ela carrega o resultado parcial obtido até a interrupção.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public class ExecutionAbortedException extends RuntimeException {
+	private static final long serialVersionUID = -3021915868823455727L;
+
+	/**
+	 * Motivo da interrupção
+	 */
+	public enum Reason {
+		/**
+		 * O contexto foi cancelado (ou a thread foi interrompida)
+		 */
+		CANCELLED,
+		/**
+		 * O prazo do contexto se esgotou
+		 */
+		TIMEOUT;
+	}
+
+	private final Reason reason;
+
+	private final transient Object partialResult;
+
+	public ExecutionAbortedException(Reason reason, Object partialResult) {
+		super(reason == Reason.TIMEOUT ? "Prazo de execução esgotado" : "Execução cancelada");
+		this.reason = reason;
+		this.partialResult = partialResult;
+	}
+
+	public Reason getReason() {
+		return reason;
+	}
+
+	public boolean isTimeout() {
+		return reason == Reason.TIMEOUT;
+	}
+
+	/**
+	 * Função que retorna o resultado obtido até a interrupção
+	 *
+	 * @param <T> tipo do resultado do algoritmo
+	 * @return resultado parcial (pode ser incompleto, mas não inválido)
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T getPartialResult() {
+		return (T) partialResult;
+	}
+}
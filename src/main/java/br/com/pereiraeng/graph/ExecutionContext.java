@@ -0,0 +1,235 @@
+package br.com.pereiraeng.graph;
+
+import java.util.concurrent.TimeUnit;
+
+import br.com.pereiraeng.graph.ExecutionAbortedException.Reason;
+
+/**
+ * Classe do objeto que controla a execução de algoritmos demorados: ele carrega
+ * um sinal de cancelamento, um prazo e uma função que recebe o progresso. Os
+ * algoritmos chamam {@link #step()} nos seus laços internos; o sinal de
+ * cancelamento é consultado a cada chamada, e o relógio e a interrupção da
+ * thread somente a cada {@value #CHECK_INTERVAL} chamadas, de modo que a
+ * verificação é barata.
+ * <p>
+ * Ao ser interrompido, o algoritmo retorna o resultado parcial obtido até então
+ * (ver {@link #setPartialResults(boolean)}) ou lança uma
+ * {@link ExecutionAbortedException} que o carrega.
+ * <p>
+ * Um mesmo contexto pode ser compartilhado por várias threads (e.g., para
+ * cancelar um lote inteiro); o contador de passos é então aproximado.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public class ExecutionContext {
+
+	/**
+	 * Número de passos entre duas consultas ao relógio
+	 */
+	public static final int CHECK_INTERVAL = 256;
+
+	/**
+	 * Interface da função que recebe o progresso de um algoritmo
+	 */
+	@FunctionalInterface
+	public interface ProgressListener {
+		/**
+		 * @param done  trabalho já realizado
+		 * @param total trabalho total, ou -1 se ele não for conhecido
+		 */
+		void progress(long done, long total);
+	}
+
+	private volatile boolean cancelled;
+
+	/**
+	 * Motivo da interrupção (nulo enquanto o algoritmo não tiver sido interrompido)
+	 */
+	private volatile Reason reason;
+
+	/**
+	 * Prazo, em {@link System#nanoTime()}
+	 */
+	private long deadline;
+
+	private boolean hasDeadline;
+
+	private boolean partialResults;
+
+	private ProgressListener listener;
+
+	private long steps;
+
+	public ExecutionContext() {
+	}
+
+	/**
+	 * Construtor do contexto com prazo
+	 *
+	 * @param timeout tempo máximo de execução, a partir de agora
+	 * @param unit    unidade do tempo
+	 */
+	public ExecutionContext(long timeout, TimeUnit unit) {
+		setTimeout(timeout, unit);
+	}
+
+	// -------------- getter's n setter's --------------
+
+	/**
+	 * Função que define o prazo de execução
+	 *
+	 * @param timeout tempo máximo de execução, a partir de agora
+	 * @param unit    unidade do tempo
+	 */
+	public void setTimeout(long timeout, TimeUnit unit) {
+		this.deadline = System.nanoTime() + unit.toNanos(timeout);
+		this.hasDeadline = true;
+	}
+
+	/**
+	 * Função que retorna o tempo restante até o prazo
+	 *
+	 * @param unit unidade do tempo
+	 * @return tempo restante (negativo se o prazo já se esgotou), ou
+	 *         {@link Long#MAX_VALUE} se não houver prazo
+	 */
+	public long getRemaining(TimeUnit unit) {
+		if (!hasDeadline)
+			return Long.MAX_VALUE;
+		return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+	}
+
+	public void setProgressListener(ProgressListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Função que define o comportamento dos algoritmos interrompidos
+	 *
+	 * @param partialResults <code>true</code> para retornar o resultado parcial,
+	 *                       <code>false</code> (padrão) para lançar uma
+	 *                       {@link ExecutionAbortedException}
+	 */
+	public void setPartialResults(boolean partialResults) {
+		this.partialResults = partialResults;
+	}
+
+	public boolean isPartialResults() {
+		return partialResults;
+	}
+
+	/**
+	 * Função que sinaliza o cancelamento (os algoritmos o percebem no próximo
+	 * passo)
+	 */
+	public void cancel() {
+		this.cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * @return <code>true</code> se algum algoritmo foi interrompido por este
+	 *         contexto
+	 */
+	public boolean isStopped() {
+		return reason != null;
+	}
+
+	/**
+	 * @return motivo da interrupção, ou <code>null</code> se não houve
+	 */
+	public Reason getStopReason() {
+		return reason;
+	}
+
+	/**
+	 * @return número (aproximado) de passos executados
+	 */
+	public long getSteps() {
+		return steps;
+	}
+
+	// -------------- verificações --------------
+
+	/**
+	 * Função chamada pelos algoritmos a cada passo dos laços internos
+	 *
+	 * @return <code>true</code> se o algoritmo deve parar
+	 */
+	public boolean step() {
+		if (reason != null)
+			return true;
+		if (cancelled) {
+			reason = Reason.CANCELLED;
+			return true;
+		}
+		if ((++steps & (CHECK_INTERVAL - 1)) != 0)
+			return false;
+		return check();
+	}
+
+	/**
+	 * Função que verifica imediatamente o cancelamento, o prazo e a interrupção da
+	 * thread
+	 *
+	 * @return <code>true</code> se o algoritmo deve parar
+	 */
+	public boolean check() {
+		if (reason != null)
+			return true;
+		if (cancelled || Thread.currentThread().isInterrupted())
+			reason = Reason.CANCELLED;
+		else if (hasDeadline && System.nanoTime() - deadline >= 0L)
+			reason = Reason.TIMEOUT;
+		return reason != null;
+	}
+
+	/**
+	 * Função chamada pelos algoritmos para informar o progresso
+	 *
+	 * @param done  trabalho já realizado
+	 * @param total trabalho total, ou -1 se ele não for conhecido
+	 * @return <code>true</code> se o algoritmo deve parar
+	 */
+	public boolean progress(long done, long total) {
+		ProgressListener l = this.listener;
+		if (l != null)
+			l.progress(done, total);
+		return check();
+	}
+
+	/**
+	 * Função chamada pelos algoritmos interrompidos
+	 *
+	 * @param <T>     tipo do resultado
+	 * @param partial resultado obtido até a interrupção
+	 * @return o próprio resultado parcial, se ele for aceito
+	 * @throws ExecutionAbortedException se o resultado parcial não for aceito
+	 */
+	public <T> T abort(T partial) {
+		if (partialResults)
+			return partial;
+		throw new ExecutionAbortedException(reason == null ? Reason.CANCELLED : reason, partial);
+	}
+
+	// ---------------- AUXILIAR ----------------
+
+	/**
+	 * Função que verifica se um algoritmo deve parar, admitindo a ausência de
+	 * contexto
+	 *
+	 * @param ctx contexto (ou <code>null</code>)
+	 * @return <code>true</code> se o algoritmo deve parar
+	 */
+	static boolean stop(ExecutionContext ctx) {
+		return ctx != null && ctx.step();
+	}
+
+	static boolean stopped(ExecutionContext ctx) {
+		return ctx != null && ctx.isStopped();
+	}
+}
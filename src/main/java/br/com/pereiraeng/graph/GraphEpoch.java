@@ -0,0 +1,88 @@
+package br.com.pereiraeng.graph;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Classe com os contadores de modificações dos grafos formados por
+ * {@link VertexObject vértices} e {@link EdgeObject arestas}. Como esses
+ * elementos não sabem a qual grafo pertencem, cada vértice conta as alterações
+ * das suas próprias arestas, e a época de um grafo é obtida a partir dos
+ * contadores dos seus vértices (ver {@link #of(Collection)}). Há ainda uma
+ * época global, incrementada por qualquer alteração de qualquer grafo.
+ * <p>
+ * Os resultados guardados numa época anterior (ver {@link AnalysisCache})
+ * deixam de valer.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public final class GraphEpoch {
+
+	private static final AtomicLong EPOCH = new AtomicLong();
+
+	private GraphEpoch() {
+	}
+
+	/**
+	 * Função que retorna a época atual
+	 *
+	 * @return número de modificações feitas até o momento
+	 */
+	public static long current() {
+		return EPOCH.get();
+	}
+
+	/**
+	 * Função que registra uma modificação
+	 */
+	public static void bump() {
+		EPOCH.incrementAndGet();
+	}
+
+	/**
+	 * Função que registra a modificação das arestas de vértices
+	 *
+	 * @param vs vértices alterados (se nenhum for {@link VertexObject}, somente a
+	 *           época global é incrementada)
+	 */
+	public static void touch(Vertex... vs) {
+		boolean any = false;
+		for (Vertex v : vs)
+			if (v instanceof VertexObject) {
+				((VertexObject) v).modified();
+				any = true;
+			}
+		if (!any)
+			bump();
+	}
+
+	/**
+	 * Função que retorna a época de um grafo, i.e., um número que muda sempre
+	 * que as arestas de algum dos seus vértices são alteradas ou que um vértice é
+	 * incluído, removido ou trocado por outro na coleção. Cada vértice contribui
+	 * com o espalhamento da sua identidade e da sua versão, e as contribuições
+	 * são somadas (a época não depende da ordem da coleção); duas coleções
+	 * distintas só têm a mesma época por uma colisão de 64 bits
+	 *
+	 * @param graph vértices do grafo
+	 * @return época do grafo
+	 */
+	public static long of(Collection<? extends Vertex> graph) {
+		long sum = 0L;
+		for (Vertex v : graph) {
+			long version = v instanceof VertexObject ? ((VertexObject) v).getVersion() : 0L;
+			sum += mix(((long) System.identityHashCode(v) << 32) ^ version);
+		}
+		return mix(sum + graph.size());
+	}
+
+	/**
+	 * Função de espalhamento de 64 bits (finalizador do SplitMix64)
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -1,18 +1,19 @@
 package br.com.pereiraeng.graph;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Queue;
 import java.util.Set;
 
-import br.com.pereiraeng.math.probability.CombinatoricsEnum;
+import br.com.pereiraeng.graph.numbered.CoreDecomposition;
 
 /**
  * Classe que reúne funções que trabalham sobre grafos
@@ -363,6 +364,28 @@ public class GraphUtils {
 	 * @return conjunto de caminhos até os vértices indicados
 	 */
 	public static Set<GraphPath> bfs(Vertex from, Collection<? extends Vertex> dests, Set<? extends Vertex> forbidden) {
+		return bfs(from, dests, forbidden, null);
+	}
+
+	/**
+	 * Função que retorna o conjunto de todos os caminhos de um vértice para outros,
+	 * sob o controle de um contexto de execução
+	 * 
+	 * @param from
+	 *            vértice de partida
+	 * @param dests
+	 *            destinos possíveis
+	 * @param forbidden
+	 *            vértice já visitados e que não o serão de novo
+	 * @param ctx
+	 *            contexto de execução (ou <code>null</code>)
+	 * @return conjunto de caminhos até os vértices indicados (parcial, se a
+	 *         execução for interrompida e o contexto aceitar resultados parciais)
+	 * @throws ExecutionAbortedException
+	 *             se a execução for interrompida
+	 */
+	public static Set<GraphPath> bfs(Vertex from, Collection<? extends Vertex> dests, Set<? extends Vertex> forbidden,
+			ExecutionContext ctx) {
 		// pré tratamento
 		Set<GraphPath> out = new HashSet<GraphPath>();
 
@@ -372,16 +395,18 @@ public class GraphUtils {
 		else
 			discovered = new HashSet<>(forbidden);
 
-		bfs(from, dests, discovered, new GraphPath(from), out);
-		return out;
+		bfs(from, dests, discovered, new GraphPath(from), out, ctx);
+		return ExecutionContext.stopped(ctx) ? ctx.abort(out) : out;
 	}
 
 	private static void bfs(Vertex from, Collection<? extends Vertex> dests, Set<Vertex> discovered, GraphPath trace,
-			Set<GraphPath> out) {
+			Set<GraphPath> out, ExecutionContext ctx) {
 		discovered.add(from);
 
 		Set<? extends Edge> edges = from.getEdges();
 		for (Edge e : edges) {
+			if (ExecutionContext.stop(ctx))
+				return;
 			Vertex v = e.getOpposite(from);
 
 			GraphPath newTrace = new GraphPath(trace);
@@ -394,7 +419,7 @@ public class GraphUtils {
 			if (!discovered.contains(v)) // ... continua procurando (mas antes
 											// deve-se ver se o vértice não é
 											// proibido)
-				bfs(v, dests, new HashSet<>(discovered), newTrace, out);
+				bfs(v, dests, new HashSet<>(discovered), newTrace, out, ctx);
 		}
 	}
 
@@ -412,11 +437,33 @@ public class GraphUtils {
 	 * @return conjunto de caminhos até os vértices indicados
 	 */
 	public static Set<GraphPath> bfs(Collection<? extends Vertex> dests, Vertex from, Set<? extends Edge> forbidden) {
+		return bfs(dests, from, forbidden, null);
+	}
+
+	/**
+	 * Função que retorna o conjunto de todos os caminhos de um vértice para outros,
+	 * sob o controle de um contexto de execução
+	 * 
+	 * @param dests
+	 *            destinos possíveis
+	 * @param from
+	 *            vértice de partida
+	 * @param forbidden
+	 *            arestas que não podem ser utilizadas
+	 * @param ctx
+	 *            contexto de execução (ou <code>null</code>)
+	 * @return conjunto de caminhos até os vértices indicados (parcial, se a
+	 *         execução for interrompida e o contexto aceitar resultados parciais)
+	 * @throws ExecutionAbortedException
+	 *             se a execução for interrompida
+	 */
+	public static Set<GraphPath> bfs(Collection<? extends Vertex> dests, Vertex from, Set<? extends Edge> forbidden,
+			ExecutionContext ctx) {
 		// pré tratamento
 		Set<GraphPath> out = new HashSet<GraphPath>();
 		bfs(from, dests, new HashSet<Vertex>(), new GraphPath(from),
-				forbidden == null ? new HashSet<Edge>() : forbidden, out, 10000);
-		return out;
+				forbidden == null ? new HashSet<Edge>() : forbidden, out, 10000, ctx);
+		return ExecutionContext.stopped(ctx) ? ctx.abort(out) : out;
 	}
 
 	/**
@@ -431,14 +478,16 @@ public class GraphUtils {
 	 *            número máximo de caminhos abertos entre os dois nós (em grafos
 	 *            fortemente conectados, este valor impede que um número
 	 *            combinatorial elevado de caminhos sejam produzidos)
+	 * @param ctx
+	 *            contexto de execução (ou <code>null</code>)
 	 */
 	private static void bfs(Vertex from, Collection<? extends Vertex> dests, Set<Vertex> discovered, GraphPath trace,
-			Set<? extends Edge> forbidden, Set<GraphPath> out, final int max) {
+			Set<? extends Edge> forbidden, Set<GraphPath> out, final int max, ExecutionContext ctx) {
 		discovered.add(from);
 
 		Set<? extends Edge> edges = from.getEdges();
 		for (Edge e : edges) {
-			if (out.size() > max)
+			if (out.size() > max || ExecutionContext.stop(ctx))
 				break;
 			if (!forbidden.contains(e)) {
 				Vertex v = e.getOpposite(from);
@@ -451,33 +500,173 @@ public class GraphUtils {
 				else // se não chegou...
 				if (!discovered.contains(v)) // ... continua procurando (mas antes deve-se ver se o vértice não é
 												// proibido)
-					bfs(v, dests, new HashSet<>(discovered), newTrace, forbidden, out, max);
+					bfs(v, dests, new HashSet<>(discovered), newTrace, forbidden, out, max, ctx);
 			}
 		}
 	}
 
 	// ------------------ REMOVER ARESTAS ISOLADAS ------------------
 
+	/**
+	 * Função que remove do grafo todos os vértices que não pertencem a nenhum
+	 * ciclo, i.e., que estão fora do {@link #getCore(Collection, int, boolean)
+	 * 2-núcleo} (as cadeias radiais são removidas por inteiro, e não só as suas
+	 * pontas). Os circuitos paralelos contam no grau, já que dois circuitos entre
+	 * as mesmas barras formam um ciclo (assim como em
+	 * {@link #findCycles(Collection)}). Os vértices em si não são alterados.
+	 * 
+	 * @param graph
+	 *            grafo
+	 */
 	public static void removeEndPoints(Collection<? extends Vertex> graph) {
-		Iterator<? extends Vertex> it = graph.iterator();
-		while (it.hasNext())
-			if (it.next().getEdges().size() < 2)
-				it.remove();
+		graph.retainAll(getCore(graph, 2, true));
+	}
+
+	/**
+	 * Função que retorna o número de núcleo de cada vértice do grafo (o maior k
+	 * para o qual o vértice pertence a um subgrafo em que todos os vértices têm
+	 * pelo menos k vizinhos). Arestas para vértices fora da coleção, circuitos
+	 * paralelos e laços não são considerados, assim como em
+	 * {@link CoreDecomposition#of(br.com.pereiraeng.graph.numbered.CompactGraphN)
+	 * CoreDecomposition.of}; para contar os circuitos paralelos (como em
+	 * {@link #removeEndPoints(Collection)}), ver
+	 * {@link #getCoreNumbers(Collection, boolean)}.
+	 * 
+	 * @param graph
+	 *            grafo
+	 * @return tabela de dispersão que associa para cada vértice o seu número de
+	 *         núcleo
+	 * @see CoreDecomposition
+	 */
+	public static Map<Vertex, Integer> getCoreNumbers(Collection<? extends Vertex> graph) {
+		return getCoreNumbers(graph, false);
+	}
+
+	/**
+	 * Função que retorna o número de núcleo de cada vértice do grafo. Arestas
+	 * para vértices fora da coleção e laços não são considerados.
+	 * 
+	 * @param graph
+	 *            grafo
+	 * @param parallel
+	 *            <code>true</code> para que cada circuito paralelo conte no grau
+	 *            (o k-núcleo passa a ser o do multigrafo), <code>false</code>
+	 *            para contar só os vizinhos distintos; equivale à opção de
+	 *            {@link CoreDecomposition#of(br.com.pereiraeng.graph.numbered.CompactGraphN, boolean)
+	 *            CoreDecomposition.of}
+	 * @return tabela de dispersão que associa para cada vértice o seu número de
+	 *         núcleo
+	 * @see CoreDecomposition
+	 */
+	public static Map<Vertex, Integer> getCoreNumbers(Collection<? extends Vertex> graph, boolean parallel) {
+		Map<Vertex, Integer> index = new HashMap<>(2 * graph.size());
+		Vertex[] vs = new Vertex[graph.size()];
+		for (Vertex v : graph)
+			if (!index.containsKey(v)) {
+				vs[index.size()] = v;
+				index.put(v, index.size());
+			}
+		int n = index.size();
+
+		// lista de adjacência (sem repetições, se os circuitos paralelos não
+		// contarem)
+		int[] xadj = new int[n + 1], mark = new int[n];
+		Arrays.fill(mark, -1);
+		int[] adj = new int[16];
+		int len = 0;
+		for (int i = 0; i < n; i++) {
+			mark[i] = i;
+			for (Edge e : vs[i].getEdges()) {
+				Integer j = index.get(e.getOpposite(vs[i]));
+				if (j != null && (parallel ? j != i : mark[j] != i)) {
+					mark[j] = i;
+					if (len == adj.length)
+						adj = Arrays.copyOf(adj, 2 * len);
+					adj[len++] = j;
+				}
+			}
+			xadj[i + 1] = len;
+		}
+
+		int[] core = CoreDecomposition.getCoreNumbers(xadj, adj);
+		Map<Vertex, Integer> out = new HashMap<>(2 * n);
+		for (int i = 0; i < n; i++)
+			out.put(vs[i], core[i]);
+		return out;
+	}
+
+	/**
+	 * Função que retorna os vértices do k-núcleo do grafo (para k = 2, a parte
+	 * malhada da rede, sem as cadeias radiais)
+	 * 
+	 * @param graph
+	 *            grafo
+	 * @param k
+	 *            ordem do núcleo
+	 * @return vértices cujo {@link #getCoreNumbers(Collection) número de núcleo}
+	 *         é maior ou igual a k
+	 */
+	public static Set<Vertex> getCore(Collection<? extends Vertex> graph, int k) {
+		return getCore(graph, k, false);
+	}
+
+	/**
+	 * Função que retorna os vértices do k-núcleo do grafo
+	 * 
+	 * @param graph
+	 *            grafo
+	 * @param k
+	 *            ordem do núcleo
+	 * @param parallel
+	 *            <code>true</code> para que cada circuito paralelo conte no grau
+	 * @return vértices cujo {@link #getCoreNumbers(Collection, boolean) número de
+	 *         núcleo} é maior ou igual a k
+	 */
+	public static Set<Vertex> getCore(Collection<? extends Vertex> graph, int k, boolean parallel) {
+		Map<Vertex, Integer> core = getCoreNumbers(graph, parallel);
+		Set<Vertex> out = new LinkedHashSet<>();
+		for (Vertex v : graph)
+			if (core.get(v) >= k)
+				out.add(v);
+		return out;
 	}
 
 	// =============================================================
 
 	public static Set<GraphPath> findCycles(Collection<? extends Vertex> graph) {
+		return findCycles(graph, null);
+	}
+
+	/**
+	 * Função que retorna os ciclos de um grafo, sob o controle de um contexto de
+	 * execução. O progresso é informado a cada vértice de partida
+	 * 
+	 * @param graph
+	 *            grafo
+	 * @param ctx
+	 *            contexto de execução (ou <code>null</code>)
+	 * @return ciclos (parcial, se a execução for interrompida e o contexto aceitar
+	 *         resultados parciais)
+	 * @throws ExecutionAbortedException
+	 *             se a execução for interrompida
+	 */
+	public static Set<GraphPath> findCycles(Collection<? extends Vertex> graph, ExecutionContext ctx) {
 		Set<GraphPath> cycles = new HashSet<>();
-		for (Vertex v : graph)
-			findCycles(v, new GraphPath(v), graph, cycles);
-		return cycles;
+		long done = 0L;
+		for (Vertex v : graph) {
+			if (ctx != null && ctx.progress(done++, graph.size()))
+				break;
+			findCycles(v, new GraphPath(v), graph, cycles, ctx);
+		}
+		return ExecutionContext.stopped(ctx) ? ctx.abort(cycles) : cycles;
 	}
 
 	private static void findCycles(Vertex current, GraphPath path, Collection<? extends Vertex> graph,
-			Set<GraphPath> cycles) {
+			Set<GraphPath> cycles, ExecutionContext ctx) {
 
 		for (Edge e : current.getEdges()) {
+			if (ExecutionContext.stop(ctx))
+				return;
 			// edge refers to the current node
 
 			Vertex op = e.getOpposite(current);
@@ -488,7 +677,7 @@ public class GraphUtils {
 					GraphPath extendedPath = new GraphPath(path);
 					extendedPath.add(e);
 					// explore extended path
-					findCycles(op, extendedPath, graph, cycles);
+					findCycles(op, extendedPath, graph, cycles, ctx);
 				} else if ((path.size() > 1) && (op.equals(path.getStart()))) {
 					// se há mais de uma aresta e se termina no começo
 					GraphPath cycle = new GraphPath(path);
@@ -502,57 +691,125 @@ public class GraphUtils {
 	// =============================================================
 
 	public static Set<Set<Edge>> getMinCuts(Vertex v1, Vertex v2) {
-		Set<GraphPath> paths = bfs(v1, new HashSet<>(Arrays.asList(v2)), null);
+		return getMinCuts(v1, v2, null);
+	}
+
+	/**
+	 * Função que retorna os cortes mínimos entre dois vértices, sob o controle de
+	 * um contexto de execução
+	 * 
+	 * @param v1
+	 *            um dos vértices
+	 * @param v2
+	 *            o outro vértice
+	 * @param ctx
+	 *            contexto de execução (ou <code>null</code>)
+	 * @return cortes, em ordem crescente de tamanho (parcial, se a execução for
+	 *         interrompida e o contexto aceitar resultados parciais; vazio se a
+	 *         interrupção ocorrer ainda na busca dos caminhos)
+	 * @throws ExecutionAbortedException
+	 *             se a execução for interrompida
+	 */
+	public static Set<Set<Edge>> getMinCuts(Vertex v1, Vertex v2, ExecutionContext ctx) {
+		Set<GraphPath> paths = new HashSet<>();
+		bfs(v1, new HashSet<>(Arrays.asList(v2)), new HashSet<>(), new GraphPath(v1), paths, ctx);
+		// com os caminhos incompletos, nenhum corte é garantido
+		if (ExecutionContext.stopped(ctx))
+			return ctx.abort(new LinkedHashSet<Set<Edge>>());
 		Set<Edge> edges = new HashSet<>();
 		for (GraphPath p : paths)
 			edges.addAll(p);
-		return getMinCuts(edges, paths);
+		return getMinCuts(edges, paths, ctx);
 	}
 
 	public static Set<Set<Edge>> getMinCuts(Set<Edge> edges, Set<GraphPath> paths) {
+		return getMinCuts(edges, paths, null);
+	}
+
+	/**
+	 * Função que retorna os cortes mínimos de um conjunto de caminhos, sob o
+	 * controle de um contexto de execução. O progresso é informado a cada ordem
+	 * de corte
+	 * 
+	 * @param edges
+	 *            arestas candidatas
+	 * @param paths
+	 *            caminhos a serem cortados
+	 * @param ctx
+	 *            contexto de execução (ou <code>null</code>)
+	 * @return cortes, em ordem crescente de tamanho (parcial, se a execução for
+	 *         interrompida e o contexto aceitar resultados parciais)
+	 * @throws ExecutionAbortedException
+	 *             se a execução for interrompida
+	 */
+	public static Set<Set<Edge>> getMinCuts(Set<Edge> edges, Set<GraphPath> paths, ExecutionContext ctx) {
 		Set<Set<Edge>> cuts = new LinkedHashSet<>();
-		int order = 1;
-		while (order <= edges.size()) {
-			// todas as permutações possíveis com as arestas
-			Set<Set<Edge>> perms = CombinatoricsEnum.getPerms(order, edges);
-
-			// remover as permutações que contem cortes de ordem inferior
-			Iterator<Set<Edge>> it = perms.iterator();
-			while (it.hasNext()) {
-				Set<Edge> perm = it.next();
-				for (Set<Edge> cut : cuts) {
-					if (perm.containsAll(cut)) {
-						it.remove();
+		List<Edge> list = new ArrayList<>(edges);
+		int m = list.size();
+		// cortes já encontrados, pelas posições das arestas na lista
+		List<int[]> found = new ArrayList<>();
+		boolean[] chosen = new boolean[m];
+		for (int order = 1; order <= m; order++) {
+			if (ctx != null && ctx.progress(order - 1, m))
+				return ctx.abort(cuts);
+			// combinações das arestas geradas uma a uma, em ordem lexicográfica
+			int[] comb = new int[order];
+			for (int i = 0; i < order; i++)
+				comb[i] = i;
+			while (true) {
+				if (ExecutionContext.stop(ctx))
+					return ctx.abort(cuts);
+				for (int i : comb)
+					chosen[i] = true;
+				// descartar as combinações que contêm cortes de ordem inferior
+				boolean contains = false;
+				for (int[] cut : found) {
+					contains = true;
+					for (int i : cut)
+						if (!chosen[i]) {
+							contains = false;
+							break;
+						}
+					if (contains)
 						break;
-					}
 				}
+				// se todos os caminhos existentes dependem desta(s) arestas(s)
+				if (!contains && checkEdges(paths, list, comb)) {
+					found.add(comb.clone());
+					Set<Edge> cut = new HashSet<>();
+					for (int i : comb)
+						cut.add(list.get(i));
+					cuts.add(cut);
+				}
+				for (int i : comb)
+					chosen[i] = false;
+
+				// próxima combinação
+				int k = order - 1;
+				while (k >= 0 && comb[k] == m - order + k)
+					k--;
+				if (k < 0)
+					break;
+				comb[k]++;
+				for (int i = k + 1; i < order; i++)
+					comb[i] = comb[i - 1] + 1;
 			}
-
-			for (Set<Edge> perm : perms)
-				if (checkEdges(paths, perm)) // se todos os caminhos existentes
-												// dependem desta(s) arestas(s)
-					cuts.add(perm);
-
-			order++;
 		}
 		return cuts;
 	}
 
-	private static boolean checkEdges(Set<GraphPath> ps, Set<Edge> cols) {
-		boolean b = true;
+	private static boolean checkEdges(Set<GraphPath> ps, List<Edge> edges, int[] comb) {
 		for (GraphPath p : ps) {
 			boolean pe = false;
-			for (Edge e : cols) {
-				pe = p.contains(e);
-				if (pe)
+			for (int i : comb)
+				if (p.contains(edges.get(i))) {
+					pe = true;
 					break;
-			}
-			if (!pe) {
-				b = false;
-				break;
-			}
+				}
+			if (!pe)
+				return false;
 		}
-		return b;
+		return true;
 	}
 
 	public static Set<GraphElement> copyGraph(Collection<GraphElement> network) {
@@ -8,7 +8,7 @@ public class HyperedgeObject extends EdgeObject implements Hyperedge {
 
 	private Set<Vertex> other;
 
-	private Set<Edge> innerEdges;
+	private Set<Edge> innerEdges = new HashSet<>();
 
 	public HyperedgeObject(Object obj, Vertex from, Vertex to, Vertex... other) {
 		super(obj, from, to);
@@ -21,15 +21,12 @@ public class HyperedgeObject extends EdgeObject implements Hyperedge {
 	}
 
 	@Override
-	public Set<Edge> getEdges(Vertex oposite) {
+	public Set<Edge> getEdges(Vertex v) {
 		Set<Edge> out = new HashSet<>();
-		Set<? extends Vertex> allVertices = getVertices();
-		for (Vertex v : allVertices) {
-			Set<? extends Edge> es = v.getEdges();
-			for (Edge e : es)
+		if (contains(v))
+			for (Edge e : v.getEdges())
 				if (!this.innerEdges.contains(e))
 					out.add(e);
-		}
 		return out;
 	}
 
@@ -50,6 +47,6 @@ public class HyperedgeObject extends EdgeObject implements Hyperedge {
 		Set<Vertex> out = new HashSet<>(other);
 		out.add(super.getFrom());
 		out.add(super.getTo());
-		return null;
+		return out;
 	}
 }
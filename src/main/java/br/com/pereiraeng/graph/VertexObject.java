@@ -2,6 +2,7 @@ package br.com.pereiraeng.graph;
 
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
 
 /**
@@ -15,6 +16,11 @@ public class VertexObject extends HashSet<Edge> implements Vertex {
 
 	protected Object obj;
 
+	/**
+	 * Contador de alterações das arestas deste vértice (ver {@link GraphEpoch})
+	 */
+	private transient long version;
+
 	public VertexObject(Object obj) {
 		this.obj = obj;
 	}
@@ -43,9 +49,12 @@ public class VertexObject extends HashSet<Edge> implements Vertex {
 
 	@Override
 	public boolean add(Edge edge) {
-		if (edge.contains(this))
-			return super.add(edge);
-		else
+		if (edge.contains(this)) {
+			boolean added = super.add(edge);
+			if (added)
+				modified();
+			return added;
+		} else
 			throw new IllegalArgumentException("Essa aresta não possui esse nó em uma de suas extremidades.");
 	}
 
@@ -73,6 +82,68 @@ public class VertexObject extends HashSet<Edge> implements Vertex {
 	 */
 	public void add(Object obj, Vertex otherVertex) {
 		super.add(new EdgeObject(obj, this, otherVertex));
+		modified();
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		boolean removed = super.remove(o);
+		if (removed)
+			modified();
+		return removed;
+	}
+
+	@Override
+	public void clear() {
+		if (!isEmpty()) {
+			super.clear();
+			modified();
+		}
+	}
+
+	/**
+	 * Iterador das arestas cuja remoção atualiza a época (é por ele que passam
+	 * também {@link #removeAll(java.util.Collection) removeAll},
+	 * {@link #retainAll(java.util.Collection) retainAll} e
+	 * {@link #removeIf(java.util.function.Predicate) removeIf})
+	 */
+	@Override
+	public Iterator<Edge> iterator() {
+		Iterator<Edge> it = super.iterator();
+		return new Iterator<Edge>() {
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public Edge next() {
+				return it.next();
+			}
+
+			@Override
+			public void remove() {
+				it.remove();
+				modified();
+			}
+		};
+	}
+
+	/**
+	 * Função que retorna o número de alterações das arestas deste vértice
+	 * 
+	 * @return versão do vértice
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Função que registra uma alteração das arestas deste vértice
+	 */
+	protected void modified() {
+		version++;
+		GraphEpoch.bump();
 	}
 
 	// ---------------- getter n' setters ----------------
@@ -139,6 +210,6 @@ public class VertexObject extends HashSet<Edge> implements Vertex {
 
 	@Override
 	public void remove(Edge e) {
-		super.remove(e);
+		remove((Object) e);
 	}
 }
@@ -0,0 +1,575 @@
+package br.com.pereiraeng.graph.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import br.com.pereiraeng.graph.numbered.CompactGraphN;
+import br.com.pereiraeng.graph.numbered.EdgeKeys;
+import br.com.pereiraeng.math.DuplaEmeio;
+
+/**
+ * Classe do objeto que monta um grafo numerado a partir de um fluxo de arestas
+ * de tamanho ilimitado, usando memória limitada. As arestas são acumuladas num
+ * vetor primitivo do tamanho do orçamento de memória; quando ele enche, é
+ * ordenado, as repetições são eliminadas e o resultado é gravado num arquivo
+ * temporário (corrida). Ao final, as corridas são intercaladas (em várias
+ * passadas, se forem muitas) e o grafo é gerado sem repetições, no formato
+ * {@link CompactGraphN compacto} ou {@link GraphFile gravado e mapeado}. O
+ * vetor de acumulação é liberado antes da intercalação final, de modo que o
+ * grafo só pode ser gerado uma vez por montador.
+ * <p>
+ * Assim como nas {@link DuplaEmeio trincas} do
+ * {@link br.com.pereiraeng.graph.numbered.GraphN grafo numerado}, duas arestas
+ * são iguais se ligam os mesmos vértices (em qualquer sentido) com o mesmo
+ * número de circuito.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public class ExternalGraphBuilder implements Closeable {
+
+	/**
+	 * Número máximo de corridas intercaladas numa passada
+	 */
+	public static final int FAN_IN = 64;
+
+	/**
+	 * Bytes de memória por registro (chave e circuito, este num
+	 * <code>long</code> para a {@link EdgeKeys#sort(long[], long[], int, boolean)
+	 * ordenação})
+	 */
+	private static final int RECORD = 16;
+
+	/**
+	 * Circuito dos registros que indicam apenas a existência de um vértice
+	 */
+	private static final int VERTEX = Integer.MIN_VALUE;
+
+	private final Path dir;
+
+	/**
+	 * Chave de cada registro (números dos vértices, o menor nos 32 bits mais
+	 * significativos) e circuito
+	 */
+	private long[] keys;
+
+	private long[] circs;
+
+	private int size;
+
+	private final List<Path> runs;
+
+	private long count;
+
+	private boolean closed;
+
+	/**
+	 * Construtor do montador
+	 *
+	 * @param memoryBudget memória máxima (em bytes) ocupada pelas arestas
+	 *                     acumuladas
+	 * @param tempDir      pasta onde serão criados os arquivos temporários (ou
+	 *                     <code>null</code> para a pasta temporária do sistema)
+	 * @throws IOException erro na criação da pasta dos arquivos temporários
+	 */
+	public ExternalGraphBuilder(long memoryBudget, Path tempDir) throws IOException {
+		long cap = memoryBudget / RECORD;
+		if (cap < 2)
+			throw new IllegalArgumentException("Orçamento de memória insuficiente: " + memoryBudget);
+		int c = (int) Math.min(cap, Integer.MAX_VALUE - 8);
+		this.keys = new long[c];
+		this.circs = new long[c];
+		this.runs = new ArrayList<>();
+		this.dir = tempDir == null ? Files.createTempDirectory("pgraph")
+				: Files.createTempDirectory(tempDir, "pgraph");
+	}
+
+	// ---------------- entrada ----------------
+
+	/**
+	 * Função que acrescenta uma aresta
+	 *
+	 * @param num1 número de um vértice
+	 * @param num2 número do outro vértice
+	 * @param circ número do circuito
+	 * @throws IOException erro na gravação de uma corrida
+	 */
+	public void add(int num1, int num2, int circ) throws IOException {
+		if (circ == VERTEX)
+			throw new IllegalArgumentException("Número de circuito inválido: " + circ);
+		put(EdgeKeys.key(Math.min(num1, num2), Math.max(num1, num2)), circ);
+	}
+
+	public void add(DuplaEmeio d) throws IOException {
+		add(d.get1(), d.get2(), d.get3());
+	}
+
+	/**
+	 * Função que acrescenta todas as arestas de um fluxo
+	 *
+	 * @param ens fluxo de arestas
+	 * @throws IOException erro na gravação de uma corrida
+	 */
+	public void addAll(Iterator<DuplaEmeio> ens) throws IOException {
+		while (ens.hasNext())
+			add(ens.next());
+	}
+
+	/**
+	 * Função que acrescenta um vértice (que pode ou não ter arestas)
+	 *
+	 * @param num número do vértice
+	 * @throws IOException erro na gravação de uma corrida
+	 */
+	public void addVertex(int num) throws IOException {
+		put(EdgeKeys.key(num, num), VERTEX);
+	}
+
+	/**
+	 * Função que retorna o número de registros recebidos (com repetições)
+	 *
+	 * @return número de arestas e vértices acrescentados
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Função que retorna o número de corridas gravadas até o momento
+	 *
+	 * @return número de arquivos temporários
+	 */
+	public int getRunCount() {
+		return runs.size();
+	}
+
+	// ---------------- saída ----------------
+
+	/**
+	 * Função que gera o grafo compacto com as arestas distintas recebidas
+	 *
+	 * @return grafo compacto
+	 * @throws IOException erro na leitura das corridas
+	 */
+	public CompactGraphN toCompactGraphN() throws IOException {
+		check();
+		Source s = merged();
+		// sem corridas, o número de registros já é conhecido
+		int cap = keys == null ? 1024 : Math.max(size, 1);
+		int[] n1 = new int[cap], n2 = new int[cap], c = new int[cap], iso = new int[64];
+		int m = 0, ni = 0;
+		try {
+			while (s.next()) {
+				int a = EdgeKeys.num1(s.key), b = EdgeKeys.num2(s.key);
+				if (s.circ == VERTEX) {
+					if (ni == iso.length)
+						iso = Arrays.copyOf(iso, 2 * ni);
+					iso[ni++] = a;
+				} else {
+					if (m == n1.length) {
+						n1 = Arrays.copyOf(n1, 2 * m);
+						n2 = Arrays.copyOf(n2, 2 * m);
+						c = Arrays.copyOf(c, 2 * m);
+					}
+					n1[m] = a;
+					n2[m] = b;
+					c[m++] = s.circ;
+				}
+			}
+		} finally {
+			s.close();
+			release();
+		}
+		return CompactGraphN.of(trim(n1, m), trim(n2, m), trim(c, m), Arrays.copyOf(iso, ni));
+	}
+
+	/**
+	 * Função que gera o grafo, grava-o no {@link GraphFile formato binário} e o
+	 * abre mapeado em memória. As arestas intercaladas são gravadas diretamente no
+	 * arquivo (ver {@link GraphFile#write(Path, int[], int[], GraphFile.EdgeStream)}),
+	 * de modo que o heap só guarda os vetores dos vértices
+	 *
+	 * @param file arquivo de destino
+	 * @return grafo mapeado
+	 * @throws IOException erro de leitura ou gravação
+	 */
+	public MappedGraphN toMappedGraphN(Path file) throws IOException {
+		check();
+		try {
+			// 1ª passada: fluxo intercalado reunido numa única corrida, que pode ser
+			// relida, e números dos vértices
+			Source s = merged();
+			Path all = runs.size() == 1 ? runs.get(0) : null;
+			Nums vs = new Nums();
+			try (DataOutputStream out = all != null || runs.isEmpty() ? null
+					: new DataOutputStream(new BufferedOutputStream(
+							Files.newOutputStream(all = Files.createTempFile(dir, "run", ".bin")), 1 << 16))) {
+				while (s.next()) {
+					if (out != null) {
+						out.writeLong(s.key);
+						out.writeInt(s.circ);
+					}
+					vs.add(EdgeKeys.num1(s.key));
+					if (s.circ != VERTEX)
+						vs.add(EdgeKeys.num2(s.key));
+				}
+			} finally {
+				s.close();
+			}
+			int[] nums = vs.toArray();
+
+			// 2ª passada: graus
+			int[] offsets = new int[nums.length + 1];
+			s = reopen(all);
+			try {
+				while (s.next())
+					if (s.circ != VERTEX) {
+						offsets[Arrays.binarySearch(nums, EdgeKeys.num1(s.key)) + 1]++;
+						offsets[Arrays.binarySearch(nums, EdgeKeys.num2(s.key)) + 1]++;
+					}
+			} finally {
+				s.close();
+			}
+			for (int v = 0; v < nums.length; v++)
+				if ((offsets[v + 1] += offsets[v]) < 0)
+					throw new IOException("Grafo grande demais para o formato");
+
+			// 3ª passada: arestas gravadas no arquivo
+			Source e = reopen(all);
+			try {
+				GraphFile.write(file, nums, offsets, edge -> {
+					while (e.next())
+						if (e.circ != VERTEX) {
+							edge[0] = Arrays.binarySearch(nums, EdgeKeys.num1(e.key));
+							edge[1] = Arrays.binarySearch(nums, EdgeKeys.num2(e.key));
+							edge[2] = e.circ;
+							return true;
+						}
+					return false;
+				});
+			} finally {
+				e.close();
+			}
+		} finally {
+			release();
+		}
+		return GraphFile.open(file);
+	}
+
+	/**
+	 * Função que apaga os arquivos temporários. O montador não pode mais ser usado
+	 * depois de fechado.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+			for (Path p : ds)
+				Files.deleteIfExists(p);
+		}
+		Files.deleteIfExists(dir);
+		runs.clear();
+	}
+
+	// ---------------- AUXILIAR ----------------
+
+	private void check() {
+		if (closed)
+			throw new IllegalStateException("Montador já fechado");
+		if (keys == null)
+			throw new IllegalStateException("Grafo já gerado por este montador");
+	}
+
+	/**
+	 * Função que libera o vetor de acumulação (o montador não recebe mais
+	 * registros)
+	 */
+	private void release() {
+		keys = null;
+		circs = null;
+		size = 0;
+	}
+
+	private static int[] trim(int[] a, int length) {
+		return a.length == length ? a : Arrays.copyOf(a, length);
+	}
+
+	/**
+	 * Função que abre novamente o fluxo ordenado e sem repetições de todos os
+	 * registros, depois de {@link #merged()}
+	 *
+	 * @param all corrida única com todos os registros (ou <code>null</code> se
+	 *            eles couberam no vetor de acumulação)
+	 */
+	private Source reopen(Path all) throws IOException {
+		return all == null ? new Memory(keys, circs, size) : new Run(all);
+	}
+
+	private void put(long key, int circ) throws IOException {
+		check();
+		if (size == keys.length)
+			spill();
+		keys[size] = key;
+		circs[size++] = circ;
+		count++;
+	}
+
+	/**
+	 * Função que ordena as arestas acumuladas e as grava numa corrida
+	 */
+	private void spill() throws IOException {
+		size = sortUnique(keys, circs, size);
+		Path run = Files.createTempFile(dir, "run", ".bin");
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(run), 1 << 16))) {
+			for (int i = 0; i < size; i++) {
+				out.writeLong(keys[i]);
+				out.writeInt((int) circs[i]);
+			}
+		}
+		runs.add(run);
+		size = 0;
+	}
+
+	/**
+	 * Função que retorna o fluxo ordenado e sem repetições de todos os registros.
+	 * Se houver corridas, o vetor de acumulação é liberado antes da intercalação
+	 */
+	private Source merged() throws IOException {
+		if (runs.isEmpty()) {
+			size = sortUnique(keys, circs, size);
+			return new Memory(keys, circs, size);
+		}
+		if (size > 0)
+			spill();
+		release();
+		// passadas intermediárias até restarem no máximo FAN_IN corridas
+		while (runs.size() > FAN_IN) {
+			List<Path> next = new ArrayList<>();
+			for (int i = 0; i < runs.size(); i += FAN_IN) {
+				List<Path> group = runs.subList(i, Math.min(i + FAN_IN, runs.size()));
+				if (group.size() == 1) {
+					next.add(group.get(0));
+					continue;
+				}
+				Path run = Files.createTempFile(dir, "run", ".bin");
+				Source s = new Merge(group);
+				try (DataOutputStream out = new DataOutputStream(
+						new BufferedOutputStream(Files.newOutputStream(run), 1 << 16))) {
+					while (s.next()) {
+						out.writeLong(s.key);
+						out.writeInt(s.circ);
+					}
+				} finally {
+					s.close();
+				}
+				for (Path p : group)
+					Files.delete(p);
+				next.add(run);
+			}
+			runs.clear();
+			runs.addAll(next);
+		}
+		return new Merge(runs);
+	}
+
+	/**
+	 * Função que ordena os registros pela chave e pelo circuito e elimina as
+	 * repetições
+	 *
+	 * @return número de registros distintos
+	 */
+	private static int sortUnique(long[] keys, long[] circs, int size) {
+		EdgeKeys.sort(keys, circs, size, false);
+		int u = 0;
+		for (int i = 0; i < size; i++)
+			if (u == 0 || keys[i] != keys[u - 1] || circs[i] != circs[u - 1]) {
+				keys[u] = keys[i];
+				circs[u++] = circs[i];
+			}
+		return u;
+	}
+
+	private static int compare(long k1, int c1, long k2, int c2) {
+		int c = Long.compare(k1, k2);
+		return c != 0 ? c : Integer.compare(c1, c2);
+	}
+
+	/**
+	 * Conjunto dos números dos vértices, compactado (ordenado e sem repetições)
+	 * sempre que enche
+	 */
+	private static class Nums {
+		private int[] a = new int[1024];
+		private int size, sorted;
+
+		private void add(int num) {
+			if (size > 0 && a[size - 1] == num)
+				return;
+			if (size == a.length) {
+				compact();
+				if (size > a.length / 2)
+					a = Arrays.copyOf(a, 2 * a.length);
+			}
+			a[size++] = num;
+		}
+
+		private void compact() {
+			if (sorted == size)
+				return;
+			Arrays.sort(a, 0, size);
+			int u = 0;
+			for (int i = 0; i < size; i++)
+				if (u == 0 || a[i] != a[u - 1])
+					a[u++] = a[i];
+			size = sorted = u;
+		}
+
+		private int[] toArray() {
+			compact();
+			return Arrays.copyOf(a, size);
+		}
+	}
+
+	/**
+	 * Fluxo ordenado de registros
+	 */
+	private static abstract class Source implements Closeable {
+		long key;
+		int circ;
+
+		abstract boolean next() throws IOException;
+
+		@Override
+		public void close() throws IOException {
+		}
+	}
+
+	private static class Memory extends Source {
+		private long[] keys;
+		private long[] circs;
+		private final int size;
+		private int i;
+
+		private Memory(long[] keys, long[] circs, int size) {
+			this.keys = keys;
+			this.circs = circs;
+			this.size = size;
+		}
+
+		@Override
+		boolean next() {
+			if (i == size)
+				return false;
+			key = keys[i];
+			circ = (int) circs[i++];
+			return true;
+		}
+
+		@Override
+		public void close() {
+			// para que o vetor de acumulação possa ser liberado pelo montador
+			keys = null;
+			circs = null;
+		}
+	}
+
+	private static class Run extends Source {
+		private final DataInputStream in;
+
+		private Run(Path p) throws IOException {
+			this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(p), 1 << 16));
+		}
+
+		@Override
+		boolean next() throws IOException {
+			try {
+				key = in.readLong();
+			} catch (EOFException e) {
+				return false;
+			}
+			circ = in.readInt();
+			return true;
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+	/**
+	 * Intercalação de várias corridas, sem repetições
+	 */
+	private static class Merge extends Source {
+		private final List<Run> open = new ArrayList<>();
+		private final PriorityQueue<Run> heap;
+		private boolean first = true;
+
+		private Merge(List<Path> paths) throws IOException {
+			this.heap = new PriorityQueue<>(paths.size(), (r1, r2) -> compare(r1.key, r1.circ, r2.key, r2.circ));
+			try {
+				for (Path p : paths) {
+					Run r = new Run(p);
+					open.add(r);
+					if (r.next())
+						heap.add(r);
+				}
+			} catch (IOException | RuntimeException e) {
+				close();
+				throw e;
+			}
+		}
+
+		@Override
+		boolean next() throws IOException {
+			while (!heap.isEmpty()) {
+				Run r = heap.poll();
+				long k = r.key;
+				int c = r.circ;
+				if (r.next())
+					heap.add(r);
+				if (first || k != key || c != circ) {
+					first = false;
+					key = k;
+					circ = c;
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public void close() throws IOException {
+			IOException err = null;
+			for (Run r : open)
+				try {
+					r.close();
+				} catch (IOException e) {
+					err = e;
+				}
+			if (err != null)
+				throw err;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "registros=" + count + ", corridas=" + runs.size();
+	}
+}
@@ -0,0 +1,642 @@
+package br.com.pereiraeng.graph.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import br.com.pereiraeng.graph.Edge;
+import br.com.pereiraeng.graph.EdgeObject;
+import br.com.pereiraeng.graph.HyperedgeObject;
+import br.com.pereiraeng.graph.MultiObjEdge;
+import br.com.pereiraeng.graph.MultiObjVertex;
+import br.com.pereiraeng.graph.Vertex;
+import br.com.pereiraeng.graph.VertexObject;
+import br.com.pereiraeng.graph.numbered.EdgeObjectN;
+import br.com.pereiraeng.graph.numbered.VertexObjectN;
+import br.com.pereiraeng.math.DuplaEmeio;
+
+/**
+ * Classe do objeto que grava e lê grafos descritos por {@link VertexObject
+ * vértices} e {@link EdgeObject arestas} num formato binário baseado em
+ * identificadores: primeiro a lista dos vértices (com seus objetos), depois a
+ * lista das arestas, cada uma com os identificadores dos seus extremos. Ao
+ * contrário da serialização padrão do Java, que percorre as referências entre
+ * os vértices recursivamente, a gravação e a leitura são lineares no tamanho do
+ * grafo.
+ * <p>
+ * O tipo de cada vértice ({@link VertexObject}, {@link MultiObjVertex} ou
+ * {@link VertexObjectN}) e de cada aresta ({@link EdgeObject},
+ * {@link MultiObjEdge}, {@link EdgeObjectN} ou {@link HyperedgeObject}, esta com
+ * os seus demais vértices) é gravado junto com ele e recriado na leitura.
+ * <p>
+ * Os objetos dos vértices e das arestas dos tipos básicos (números, textos,
+ * booleanos, vetores <code>int[]</code>, <code>double[]</code>,
+ * {@link DuplaEmeio trincas} e vetores de objetos, como os de
+ * {@link MultiObjVertex} e {@link MultiObjEdge}) são gravados diretamente; para
+ * os demais tipos podem ser {@link #register(Class, Encoder) registrados
+ * codificadores}. A serialização
+ * padrão do Java, que permite a criação de objetos de qualquer classe durante
+ * a leitura, só é usada se for {@link #setSerializationFilter(Predicate)
+ * habilitada} com um filtro das classes aceitas; caso contrário, os objetos
+ * sem codificador são rejeitados. Os vetores de objetos são lidos como
+ * <code>Object[]</code>. Os tamanhos lidos do fluxo não são usados para alocar
+ * memória antes que os dados correspondentes tenham sido de fato lidos, de
+ * modo que um fluxo truncado ou corrompido resulta numa {@link IOException}.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public class GraphCodec {
+
+	/**
+	 * Codificador do objeto de um vértice ou de uma aresta
+	 *
+	 * @param <T> tipo do objeto
+	 */
+	public static interface Encoder<T> {
+		void write(DataOutput out, T obj) throws IOException;
+
+		T read(DataInput in) throws IOException;
+	}
+
+	/**
+	 * "PGRC"
+	 */
+	public static final int MAGIC = 0x50475243;
+
+	/**
+	 * Versão gravada (a versão 1, sem os tipos numerados e hiperarestas, também é
+	 * lida)
+	 */
+	public static final int VERSION = 2;
+
+	private static final byte NULL = 0, INTEGER = 1, LONG = 2, DOUBLE = 3, FLOAT = 4, BOOLEAN = 5, STRING = 6,
+			ARRAY = 7, INTS = 8, DOUBLES = 9, SHORT = 10, BYTE = 11, CHAR = 12, SERIALIZED = 13, DUPLA = 14,
+			CUSTOM = 32;
+
+	private static final int MULTI = 1, IN_FROM = 2, IN_TO = 4, NUMBERED = 8, HYPER = 16;
+
+	/**
+	 * Número máximo de elementos alocados de uma vez na leitura de um vetor (os
+	 * vetores maiores crescem conforme os elementos são lidos)
+	 */
+	private static final int CHUNK = 1 << 16;
+
+	/**
+	 * Profundidade máxima dos vetores de objetos aninhados
+	 */
+	private static final int MAX_DEPTH = 64;
+
+	private final List<Class<?>> types;
+
+	private final List<Encoder<?>> encoders;
+
+	private final Map<Class<?>, Integer> tags;
+
+	/**
+	 * Filtro das classes que podem ser gravadas e lidas pela serialização padrão
+	 * do Java (nulo se ela não for permitida)
+	 */
+	private Predicate<Class<?>> serialization;
+
+	public GraphCodec() {
+		this.types = new ArrayList<>();
+		this.encoders = new ArrayList<>();
+		this.tags = new HashMap<>();
+	}
+
+	/**
+	 * Função que registra um codificador para os objetos de um tipo (e de seus
+	 * subtipos). A leitura deve ser feita por um codificador com os mesmos tipos
+	 * registrados na mesma ordem.
+	 *
+	 * @param type    tipo dos objetos
+	 * @param encoder codificador
+	 */
+	public <T> void register(Class<T> type, Encoder<T> encoder) {
+		if (tags.containsKey(type))
+			throw new IllegalArgumentException("Tipo já registrado: " + type.getName());
+		if (CUSTOM + types.size() > 0x7F)
+			throw new IllegalArgumentException("Número máximo de codificadores atingido");
+		tags.put(type, types.size());
+		types.add(type);
+		encoders.add(encoder);
+	}
+
+	/**
+	 * Função que habilita a serialização padrão do Java para os objetos sem
+	 * codificador registrado. Na leitura, o filtro é aplicado a todas as classes
+	 * encontradas no fluxo serializado (inclusive às dos campos dos objetos; no
+	 * caso dos vetores, ao tipo dos seus elementos), antes da criação de qualquer
+	 * objeto
+	 *
+	 * @param filter classes aceitas (ou <code>null</code> para desabilitar a
+	 *               serialização, que é o padrão)
+	 */
+	public void setSerializationFilter(Predicate<Class<?>> filter) {
+		this.serialization = filter;
+	}
+
+	// ---------------- gravação ----------------
+
+	/**
+	 * Função que grava um grafo. As arestas que levam a vértices fora da coleção
+	 * são gravadas sem esse extremo (e as hiperarestas, sem esses vértices).
+	 *
+	 * @param out      fluxo de saída (não é fechado)
+	 * @param vertices vértices do grafo
+	 * @throws IOException erro de gravação
+	 */
+	public void write(OutputStream out, Collection<? extends VertexObject> vertices) throws IOException {
+		Map<Vertex, Integer> ids = new IdentityHashMap<>(2 * vertices.size());
+		for (VertexObject v : vertices)
+			ids.put(v, ids.size());
+
+		// cada aresta uma única vez, na ordem de encontro, com os extremos que a
+		// contêm no seu conjunto de arestas
+		Map<Edge, Integer> seen = new IdentityHashMap<>(2 * vertices.size());
+		List<EdgeObject> edges = new ArrayList<>();
+		byte[] flags = new byte[64];
+		for (VertexObject v : vertices)
+			for (Edge e : v.getEdges()) {
+				if (!(e instanceof EdgeObject))
+					throw new IllegalArgumentException("Aresta não suportada: " + e.getClass().getName());
+				EdgeObject eo = (EdgeObject) e;
+				Integer k = seen.get(e);
+				if (k == null) {
+					k = edges.size();
+					seen.put(e, k);
+					edges.add(eo);
+					if (k == flags.length)
+						flags = Arrays.copyOf(flags, 2 * k);
+				}
+				if (eo.getFrom() == v)
+					flags[k] |= IN_FROM;
+				if (eo.getTo() == v)
+					flags[k] |= IN_TO;
+			}
+
+		BufOut buf = new BufOut(out);
+		DataOutputStream dos = new DataOutputStream(buf);
+		dos.writeInt(MAGIC);
+		dos.writeByte(VERSION);
+		dos.writeByte(types.size());
+		for (Class<?> c : types)
+			dos.writeUTF(c.getName());
+
+		VarInt.write(dos, vertices.size());
+		for (VertexObject v : vertices) {
+			dos.writeByte(v instanceof MultiObjVertex ? MULTI : v instanceof VertexObjectN ? NUMBERED : 0);
+			writeObject(dos, v.getUserObject());
+		}
+
+		VarInt.write(dos, edges.size());
+		for (int k = 0; k < edges.size(); k++) {
+			EdgeObject e = edges.get(k);
+			Vertex from = e.getFrom(), to = e.getTo();
+			Integer i1 = from == null ? null : ids.get(from), i2 = to == null ? null : ids.get(to);
+			dos.writeByte(flags[k] | (e instanceof MultiObjEdge ? MULTI : 0) | (e instanceof EdgeObjectN ? NUMBERED : 0)
+					| (e instanceof HyperedgeObject ? HYPER : 0));
+			VarInt.write(dos, i1 == null ? 0 : i1 + 1);
+			VarInt.write(dos, i2 == null ? 0 : i2 + 1);
+			if (e instanceof HyperedgeObject) {
+				// demais vértices, cada um indicando se contém a hiperaresta
+				List<Vertex> other = new ArrayList<>();
+				for (Vertex v : ((HyperedgeObject) e).getVertices())
+					if (v != from && v != to && ids.containsKey(v))
+						other.add(v);
+				VarInt.write(dos, other.size());
+				for (Vertex v : other) {
+					VarInt.write(dos, ids.get(v));
+					dos.writeBoolean(v.getEdges().contains(e));
+				}
+			}
+			writeObject(dos, e.getUserObject());
+		}
+		buf.flush();
+	}
+
+	// ---------------- leitura ----------------
+
+	/**
+	 * Função que lê um grafo
+	 *
+	 * @param in fluxo de entrada (não é fechado)
+	 * @return vértices do grafo, na ordem de gravação
+	 * @throws IOException erro de leitura ou de formato
+	 */
+	public List<VertexObject> read(InputStream in) throws IOException {
+		DataInputStream dis = new DataInputStream(new BufIn(in));
+		if (dis.readInt() != MAGIC)
+			throw new IOException("Arquivo não é um grafo codificado");
+		int version = dis.readUnsignedByte();
+		if (version < 1 || version > VERSION)
+			throw new IOException("Versão não suportada: " + version);
+		int nt = dis.readUnsignedByte();
+		if (nt != types.size())
+			throw new IOException("Codificadores registrados diferentes dos da gravação");
+		for (int i = 0; i < nt; i++) {
+			String name = dis.readUTF();
+			if (!name.equals(types.get(i).getName()))
+				throw new IOException("Codificador " + i + " diferente do da gravação: " + name);
+		}
+
+		int n = length(dis);
+		VertexObject[] vs = new VertexObject[Math.min(n, CHUNK)];
+		for (int i = 0; i < n; i++) {
+			int kind = dis.readUnsignedByte();
+			Object obj = readObject(dis, 0);
+			if (i == vs.length)
+				vs = Arrays.copyOf(vs, (int) Math.min(n, 2L * i));
+			if ((kind & MULTI) != 0) {
+				if (!(obj instanceof Object[]))
+					throw new IOException("Vértice " + i + " com vários objetos sem um vetor de objetos");
+				vs[i] = new MultiObjVertex((Object[]) obj);
+			} else if ((kind & NUMBERED) != 0) {
+				if (!(obj instanceof Integer))
+					throw new IOException("Vértice numerado " + i + " sem um número inteiro");
+				vs[i] = new VertexObjectN((Integer) obj);
+			} else
+				vs[i] = new VertexObject(obj);
+		}
+
+		int m = length(dis);
+		for (int k = 0; k < m; k++) {
+			int flags = dis.readUnsignedByte();
+			int i1 = VarInt.read(dis) - 1, i2 = VarInt.read(dis) - 1;
+			if (i1 < -1 || i1 >= n || i2 < -1 || i2 >= n || (flags & IN_FROM) != 0 && i1 < 0
+					|| (flags & IN_TO) != 0 && i2 < 0)
+				throw new IOException("Extremos inválidos na aresta " + k);
+			VertexObject[] other = null;
+			boolean[] inOther = null;
+			if ((flags & HYPER) != 0) {
+				int no = length(dis);
+				other = new VertexObject[Math.min(no, CHUNK)];
+				inOther = new boolean[other.length];
+				for (int j = 0; j < no; j++) {
+					int i = VarInt.read(dis);
+					if (i < 0 || i >= n)
+						throw new IOException("Vértice inválido na hiperaresta " + k);
+					if (j == other.length) {
+						other = Arrays.copyOf(other, (int) Math.min(no, 2L * j));
+						inOther = Arrays.copyOf(inOther, other.length);
+					}
+					other[j] = vs[i];
+					inOther[j] = dis.readBoolean();
+				}
+				other = Arrays.copyOf(other, no);
+			}
+			Object obj = readObject(dis, 0);
+			VertexObject from = i1 < 0 ? null : vs[i1], to = i2 < 0 ? null : vs[i2];
+			EdgeObject e;
+			if ((flags & MULTI) != 0) {
+				e = new MultiObjEdge(obj, from);
+				e.setTo(to);
+			} else if ((flags & NUMBERED) != 0) {
+				if (!(obj instanceof DuplaEmeio))
+					throw new IOException("Aresta numerada " + k + " sem uma trinca");
+				e = new EdgeObjectN((DuplaEmeio) obj, from, to);
+			} else if (other != null)
+				e = new HyperedgeObject(obj, from, to, other);
+			else
+				e = new EdgeObject(obj, from, to);
+			try {
+				if ((flags & IN_FROM) != 0)
+					from.add(e);
+				if ((flags & IN_TO) != 0)
+					to.add(e);
+				for (int j = 0; other != null && j < other.length; j++)
+					if (inOther[j])
+						other[j].add(e);
+			} catch (IllegalArgumentException ex) {
+				throw new IOException("Aresta " + k + " inconsistente com os seus vértices", ex);
+			}
+		}
+		return Arrays.asList(vs);
+	}
+
+	// ---------------- AUXILIAR ----------------
+
+	@SuppressWarnings("unchecked")
+	private void writeObject(DataOutputStream out, Object obj) throws IOException {
+		if (obj == null) {
+			out.writeByte(NULL);
+			return;
+		}
+		Class<?> c = obj.getClass();
+		Integer custom = tags.get(c);
+		if (custom == null)
+			for (int i = 0; i < types.size(); i++)
+				if (types.get(i).isAssignableFrom(c)) {
+					custom = i;
+					break;
+				}
+		if (custom != null) {
+			out.writeByte(CUSTOM + custom);
+			((Encoder<Object>) encoders.get(custom)).write(out, obj);
+		} else if (c == Integer.class) {
+			out.writeByte(INTEGER);
+			out.writeInt((Integer) obj);
+		} else if (c == String.class) {
+			out.writeByte(STRING);
+			byte[] b = ((String) obj).getBytes(StandardCharsets.UTF_8);
+			VarInt.write(out, b.length);
+			out.write(b);
+		} else if (c == Double.class) {
+			out.writeByte(DOUBLE);
+			out.writeDouble((Double) obj);
+		} else if (c == Long.class) {
+			out.writeByte(LONG);
+			out.writeLong((Long) obj);
+		} else if (c == Float.class) {
+			out.writeByte(FLOAT);
+			out.writeFloat((Float) obj);
+		} else if (c == Boolean.class) {
+			out.writeByte(BOOLEAN);
+			out.writeBoolean((Boolean) obj);
+		} else if (c == Short.class) {
+			out.writeByte(SHORT);
+			out.writeShort((Short) obj);
+		} else if (c == Byte.class) {
+			out.writeByte(BYTE);
+			out.writeByte((Byte) obj);
+		} else if (c == Character.class) {
+			out.writeByte(CHAR);
+			out.writeChar((Character) obj);
+		} else if (c == int[].class) {
+			int[] a = (int[]) obj;
+			out.writeByte(INTS);
+			VarInt.write(out, a.length);
+			for (int v : a)
+				out.writeInt(v);
+		} else if (c == double[].class) {
+			double[] a = (double[]) obj;
+			out.writeByte(DOUBLES);
+			VarInt.write(out, a.length);
+			for (double v : a)
+				out.writeDouble(v);
+		} else if (c == DuplaEmeio.class) {
+			DuplaEmeio d = (DuplaEmeio) obj;
+			out.writeByte(DUPLA);
+			out.writeInt(d.get1());
+			out.writeInt(d.get2());
+			out.writeInt(d.get3());
+		} else if (obj instanceof Object[]) {
+			Object[] a = (Object[]) obj;
+			out.writeByte(ARRAY);
+			VarInt.write(out, a.length);
+			for (Object o : a)
+				writeObject(out, o);
+		} else if (obj instanceof Serializable && serialization != null && serialization.test(c)) {
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+				oos.writeObject(obj);
+			}
+			out.writeByte(SERIALIZED);
+			VarInt.write(out, bos.size());
+			bos.writeTo(out);
+		} else
+			throw new IllegalArgumentException("Objeto sem codificador registrado: " + c.getName());
+	}
+
+	private Object readObject(DataInputStream in, int depth) throws IOException {
+		int tag = in.readUnsignedByte();
+		switch (tag) {
+		case NULL:
+			return null;
+		case INTEGER:
+			return in.readInt();
+		case STRING:
+			return new String(readBytes(in), StandardCharsets.UTF_8);
+		case DOUBLE:
+			return in.readDouble();
+		case LONG:
+			return in.readLong();
+		case FLOAT:
+			return in.readFloat();
+		case BOOLEAN:
+			return in.readBoolean();
+		case SHORT:
+			return in.readShort();
+		case BYTE:
+			return in.readByte();
+		case CHAR:
+			return in.readChar();
+		case DUPLA:
+			return new DuplaEmeio(in.readInt(), in.readInt(), in.readInt());
+		case INTS:
+			int len = length(in);
+			int[] ia = new int[Math.min(len, CHUNK)];
+			for (int i = 0; i < len; i++) {
+				if (i == ia.length)
+					ia = Arrays.copyOf(ia, (int) Math.min(len, 2L * i));
+				ia[i] = in.readInt();
+			}
+			return ia;
+		case DOUBLES:
+			len = length(in);
+			double[] da = new double[Math.min(len, CHUNK)];
+			for (int i = 0; i < len; i++) {
+				if (i == da.length)
+					da = Arrays.copyOf(da, (int) Math.min(len, 2L * i));
+				da[i] = in.readDouble();
+			}
+			return da;
+		case ARRAY:
+			if (depth == MAX_DEPTH)
+				throw new IOException("Vetores de objetos aninhados demais");
+			len = length(in);
+			Object[] oa = new Object[Math.min(len, CHUNK)];
+			for (int i = 0; i < len; i++) {
+				if (i == oa.length)
+					oa = Arrays.copyOf(oa, (int) Math.min(len, 2L * i));
+				oa[i] = readObject(in, depth + 1);
+			}
+			return oa;
+		case SERIALIZED:
+			if (serialization == null)
+				throw new IOException("Objeto serializado, mas a serialização não foi habilitada");
+			try (ObjectInputStream ois = new FilteredInput(new ByteArrayInputStream(readBytes(in)), serialization)) {
+				return ois.readObject();
+			} catch (ClassNotFoundException e) {
+				throw new IOException(e);
+			}
+		default:
+			int custom = tag - CUSTOM;
+			if (custom < 0 || custom >= encoders.size())
+				throw new IOException("Tipo de objeto desconhecido: " + tag);
+			return encoders.get(custom).read(in);
+		}
+	}
+
+	/**
+	 * Função que lê um tamanho (número de elementos ou de bytes)
+	 */
+	private static int length(DataInputStream in) throws IOException {
+		int len = VarInt.read(in);
+		if (len < 0)
+			throw new IOException("Tamanho inválido: " + (len & 0xFFFFFFFFL));
+		return len;
+	}
+
+	/**
+	 * Função que lê um vetor de bytes precedido do seu tamanho, alocando a memória
+	 * conforme os bytes são lidos
+	 */
+	private static byte[] readBytes(DataInputStream in) throws IOException {
+		int len = length(in);
+		byte[] b = new byte[Math.min(len, CHUNK)];
+		int pos = 0;
+		while (true) {
+			in.readFully(b, pos, b.length - pos);
+			if ((pos = b.length) == len)
+				return b;
+			b = Arrays.copyOf(b, (int) Math.min(len, 2L * pos));
+		}
+	}
+
+	/**
+	 * Fluxo de leitura de objetos serializados que rejeita as classes não aceitas
+	 * pelo filtro antes de criar os objetos
+	 */
+	private static class FilteredInput extends ObjectInputStream {
+		private final Predicate<Class<?>> filter;
+
+		private FilteredInput(InputStream in, Predicate<Class<?>> filter) throws IOException {
+			super(in);
+			this.filter = filter;
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+			Class<?> c = super.resolveClass(desc);
+			Class<?> e = c;
+			while (e.isArray())
+				e = e.getComponentType();
+			if (!e.isPrimitive() && !filter.test(e))
+				throw new InvalidClassException(c.getName(), "Classe não aceita pelo filtro de serialização");
+			return c;
+		}
+
+		@Override
+		protected Class<?> resolveProxyClass(String[] interfaces) throws IOException, ClassNotFoundException {
+			throw new InvalidClassException("Proxy", "Classes dinâmicas não são aceitas");
+		}
+	}
+
+	/**
+	 * Memória intermediária de gravação sem sincronização
+	 */
+	private static class BufOut extends OutputStream {
+		private final OutputStream out;
+		private final byte[] buf = new byte[1 << 16];
+		private int pos;
+
+		private BufOut(OutputStream out) {
+			this.out = out;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (pos == buf.length)
+				drain();
+			buf[pos++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (len > buf.length - pos) {
+				drain();
+				if (len > buf.length) {
+					out.write(b, off, len);
+					return;
+				}
+			}
+			System.arraycopy(b, off, buf, pos, len);
+			pos += len;
+		}
+
+		private void drain() throws IOException {
+			out.write(buf, 0, pos);
+			pos = 0;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			drain();
+			out.flush();
+		}
+	}
+
+	/**
+	 * Memória intermediária de leitura sem sincronização
+	 */
+	private static class BufIn extends InputStream {
+		private final InputStream in;
+		private final byte[] buf = new byte[1 << 16];
+		private int pos, lim;
+
+		private BufIn(InputStream in) {
+			this.in = in;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (pos == lim && !fill())
+				return -1;
+			return buf[pos++] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0)
+				return 0;
+			if (pos == lim) {
+				if (len >= buf.length)
+					return in.read(b, off, len);
+				if (!fill())
+					return -1;
+			}
+			int n = Math.min(len, lim - pos);
+			System.arraycopy(buf, pos, b, off, n);
+			pos += n;
+			return n;
+		}
+
+		private boolean fill() throws IOException {
+			int n;
+			while ((n = in.read(buf, 0, buf.length)) == 0)
+				;
+			if (n < 0)
+				return false;
+			pos = 0;
+			lim = n;
+			return true;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "codificadores=" + types;
+	}
+}
@@ -0,0 +1,125 @@
+package br.com.pereiraeng.graph.io;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Classe do objeto que guarda os atributos dos vértices e das arestas de um
+ * {@link br.com.pereiraeng.graph.numbered.CompactGraphN grafo compacto} em
+ * colunas de tipos primitivos (vetores <code>int[]</code>, <code>long[]</code>,
+ * <code>float[]</code> ou <code>double[]</code>), indexadas pelo índice denso
+ * do vértice ou pelo identificador da aresta.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public class GraphColumns {
+
+	private final Map<String, Object> vertexColumns, edgeColumns;
+
+	public GraphColumns() {
+		this.vertexColumns = new LinkedHashMap<>();
+		this.edgeColumns = new LinkedHashMap<>();
+	}
+
+	/**
+	 * Função que acrescenta uma coluna de atributos dos vértices
+	 *
+	 * @param name   nome da coluna
+	 * @param column vetor primitivo indexado pelo índice denso do vértice
+	 */
+	public void putVertexColumn(String name, Object column) {
+		vertexColumns.put(name, check(column));
+	}
+
+	/**
+	 * Função que acrescenta uma coluna de atributos das arestas
+	 *
+	 * @param name   nome da coluna
+	 * @param column vetor primitivo indexado pelo identificador da aresta
+	 */
+	public void putEdgeColumn(String name, Object column) {
+		edgeColumns.put(name, check(column));
+	}
+
+	// -------------- getter's --------------
+
+	public Map<String, Object> getVertexColumns() {
+		return Collections.unmodifiableMap(vertexColumns);
+	}
+
+	public Map<String, Object> getEdgeColumns() {
+		return Collections.unmodifiableMap(edgeColumns);
+	}
+
+	public Object getVertexColumn(String name) {
+		return vertexColumns.get(name);
+	}
+
+	public Object getEdgeColumn(String name) {
+		return edgeColumns.get(name);
+	}
+
+	public int[] getVertexInts(String name) {
+		return (int[]) vertexColumns.get(name);
+	}
+
+	public double[] getVertexDoubles(String name) {
+		return (double[]) vertexColumns.get(name);
+	}
+
+	public int[] getEdgeInts(String name) {
+		return (int[]) edgeColumns.get(name);
+	}
+
+	public double[] getEdgeDoubles(String name) {
+		return (double[]) edgeColumns.get(name);
+	}
+
+	// ---------------- AUXILIAR ----------------
+
+	/**
+	 * Código do tipo de uma coluna no formato binário
+	 */
+	static final byte INT = 0, LONG = 1, FLOAT = 2, DOUBLE = 3;
+
+	static byte typeOf(Object column) {
+		if (column instanceof int[])
+			return INT;
+		if (column instanceof long[])
+			return LONG;
+		if (column instanceof float[])
+			return FLOAT;
+		if (column instanceof double[])
+			return DOUBLE;
+		throw new IllegalArgumentException("Coluna deve ser um vetor int[], long[], float[] ou double[]");
+	}
+
+	static int lengthOf(Object column) {
+		switch (typeOf(column)) {
+		case INT:
+			return ((int[]) column).length;
+		case LONG:
+			return ((long[]) column).length;
+		case FLOAT:
+			return ((float[]) column).length;
+		default:
+			return ((double[]) column).length;
+		}
+	}
+
+	static int sizeOf(byte type) {
+		return type == INT || type == FLOAT ? 4 : 8;
+	}
+
+	private static Object check(Object column) {
+		typeOf(column);
+		return column;
+	}
+
+	@Override
+	public String toString() {
+		return "vértices=" + vertexColumns.keySet() + ", arestas=" + edgeColumns.keySet();
+	}
+}
@@ -0,0 +1,454 @@
+package br.com.pereiraeng.graph.io;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import br.com.pereiraeng.graph.numbered.AdjacencyN;
+
+/**
+ * Classe com as funções de gravação e abertura do formato binário dos grafos
+ * numerados. O arquivo é gravado sequencialmente e aberto por
+ * {@link FileChannel#map(java.nio.channels.FileChannel.MapMode, long, long)
+ * mapeamento em memória}: os vetores não são copiados para o heap, e vários
+ * processos que abrem o mesmo arquivo compartilham as mesmas páginas.
+ * <p>
+ * Formato (versão 1, inteiros em <i>big-endian</i>, seções alinhadas em 8
+ * bytes):
+ * <ul>
+ * <li>cabeçalho: assinatura <code>PGRF</code>, versão, n, m, número de colunas
+ * de vértices e de arestas;</li>
+ * <li>diretório: posição de cada seção no arquivo; para as colunas, também o
+ * nome, o tipo e se é de vértices ou de arestas;</li>
+ * <li>seções CSR: números dos vértices (n), índices em ordem de número (n),
+ * ponteiros (n+1), vértices adjacentes (2m), arestas adjacentes (2m);</li>
+ * <li>tabela de arestas: vértice de partida, de chegada e circuito (m cada);</li>
+ * <li>colunas de atributos, na ordem do diretório.</li>
+ * </ul>
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public final class GraphFile {
+
+	/**
+	 * Assinatura do formato ("PGRF")
+	 */
+	public static final int MAGIC = 0x50475246;
+
+	/**
+	 * Versão do formato gravada por esta classe
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * Número de seções fixas (CSR e tabela de arestas)
+	 */
+	static final int SECTIONS = 8;
+
+	private GraphFile() {
+	}
+
+	// ---------------- gravação ----------------
+
+	/**
+	 * Função que grava um grafo no formato binário
+	 *
+	 * @param path    arquivo
+	 * @param graph   grafo
+	 * @param columns atributos dos vértices e das arestas (ou <code>null</code>)
+	 * @throws IOException erro de gravação
+	 */
+	public static void write(Path path, AdjacencyN graph, GraphColumns columns) throws IOException {
+		int n = graph.getVertexCount(), m = graph.getEdgeCount();
+		Map<String, Object> vc = columns == null ? new LinkedHashMap<>() : columns.getVertexColumns();
+		Map<String, Object> ec = columns == null ? new LinkedHashMap<>() : columns.getEdgeColumns();
+		for (Map.Entry<String, Object> en : vc.entrySet())
+			if (GraphColumns.lengthOf(en.getValue()) != n)
+				throw new IllegalArgumentException("Coluna de vértices com tamanho errado: " + en.getKey());
+		for (Map.Entry<String, Object> en : ec.entrySet())
+			if (GraphColumns.lengthOf(en.getValue()) != m)
+				throw new IllegalArgumentException("Coluna de arestas com tamanho errado: " + en.getKey());
+
+		// tamanho do cabeçalho e do diretório
+		long header = 6 * 4 + SECTIONS * 8;
+		for (String name : vc.keySet())
+			header += 2 + 2 + name.getBytes(StandardCharsets.UTF_8).length + 8;
+		for (String name : ec.keySet())
+			header += 2 + 2 + name.getBytes(StandardCharsets.UTF_8).length + 8;
+
+		// posições das seções
+		long[] fixed = sections(header, n, m);
+		long[] pos = Arrays.copyOf(fixed, SECTIONS + vc.size() + ec.size());
+		long p = fixed[SECTIONS];
+		int c = SECTIONS;
+		for (Object col : vc.values()) {
+			pos[c++] = p;
+			p = align(p + (long) n * GraphColumns.sizeOf(GraphColumns.typeOf(col)));
+		}
+		for (Object col : ec.values()) {
+			pos[c++] = p;
+			p = align(p + (long) m * GraphColumns.sizeOf(GraphColumns.typeOf(col)));
+		}
+
+		try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			Out out = new Out(ch);
+			out.putHeader(n, m, vc.size(), ec.size(), pos);
+			c = SECTIONS;
+			for (Map.Entry<String, Object> en : vc.entrySet())
+				out.putColumnEntry((byte) 0, en.getKey(), en.getValue(), pos[c++]);
+			for (Map.Entry<String, Object> en : ec.entrySet())
+				out.putColumnEntry((byte) 1, en.getKey(), en.getValue(), pos[c++]);
+
+			// CSR
+			out.pad(pos[0]);
+			for (int v = 0; v < n; v++)
+				out.putInt(graph.getNum(v));
+			out.pad(pos[1]);
+			for (int v : sortedByNum(graph))
+				out.putInt(v);
+			out.pad(pos[2]);
+			int off = 0;
+			out.putInt(0);
+			for (int v = 0; v < n; v++)
+				out.putInt(off += graph.getDegree(v));
+			out.pad(pos[3]);
+			for (int v = 0; v < n; v++)
+				for (int k = 0; k < graph.getDegree(v); k++)
+					out.putInt(graph.getNeighbor(v, k));
+			out.pad(pos[4]);
+			for (int v = 0; v < n; v++)
+				for (int k = 0; k < graph.getDegree(v); k++)
+					out.putInt(graph.getEdgeId(v, k));
+
+			// tabela de arestas
+			out.pad(pos[5]);
+			for (int e = 0; e < m; e++)
+				out.putInt(graph.getFrom(e));
+			out.pad(pos[6]);
+			for (int e = 0; e < m; e++)
+				out.putInt(graph.getTo(e));
+			out.pad(pos[7]);
+			for (int e = 0; e < m; e++)
+				out.putInt(graph.getCircuit(e));
+
+			// colunas
+			c = SECTIONS;
+			for (Object col : vc.values()) {
+				out.pad(pos[c++]);
+				out.putColumn(col);
+			}
+			for (Object col : ec.values()) {
+				out.pad(pos[c++]);
+				out.putColumn(col);
+			}
+			out.pad(p);
+			out.flush();
+		}
+	}
+
+	/**
+	 * Função que grava um grafo sem atributos no formato binário a partir do fluxo
+	 * das suas arestas, sem montá-lo em memória: a tabela de arestas e as listas
+	 * de adjacência são preenchidas diretamente nas seções do arquivo, mapeadas
+	 * para escrita, de modo que o heap só guarda os vetores dos vértices
+	 *
+	 * @param path    arquivo
+	 * @param nums    números dos vértices, em ordem crescente
+	 * @param offsets ponteiros das listas de adjacência (n+1), i.e., soma
+	 *                acumulada dos graus dos vértices
+	 * @param edges   fluxo das arestas, na ordem dos seus índices
+	 * @throws IOException erro de gravação ou fluxo incompatível com os graus
+	 */
+	static void write(Path path, int[] nums, int[] offsets, EdgeStream edges) throws IOException {
+		int n = nums.length;
+		if (offsets[n] / 2 > Integer.MAX_VALUE / 8)
+			throw new IOException("Grafo grande demais para o formato: " + offsets[n] / 2 + " arestas");
+		int m = offsets[n] / 2;
+		long[] pos = sections(6 * 4 + SECTIONS * 8, n, m);
+
+		try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			Out out = new Out(ch);
+			out.putHeader(n, m, 0, 0, pos);
+			out.pad(pos[0]);
+			for (int v = 0; v < n; v++)
+				out.putInt(nums[v]);
+			out.pad(pos[1]);
+			for (int v = 0; v < n; v++)
+				out.putInt(v);
+			out.pad(pos[2]);
+			for (int v = 0; v <= n; v++)
+				out.putInt(offsets[v]);
+			out.flush();
+
+			// as demais seções são preenchidas fora de ordem
+			MappedByteBuffer adj = map(ch, FileChannel.MapMode.READ_WRITE, pos[3], 8L * m),
+					adjEdges = map(ch, FileChannel.MapMode.READ_WRITE, pos[4], 8L * m),
+					from = map(ch, FileChannel.MapMode.READ_WRITE, pos[5], 4L * m),
+					to = map(ch, FileChannel.MapMode.READ_WRITE, pos[6], 4L * m),
+					circ = map(ch, FileChannel.MapMode.READ_WRITE, pos[7], 4L * m);
+			int[] fill = Arrays.copyOf(offsets, n), edge = new int[3];
+			for (int e = 0; e < m; e++) {
+				if (!edges.next(edge))
+					throw new IOException("Fluxo com menos arestas que o previsto pelos graus");
+				int a = edge[0], b = edge[1];
+				if (fill[a] == offsets[a + 1] || fill[b] == offsets[b + 1] - (a == b ? 1 : 0))
+					throw new IOException("Fluxo com mais arestas que o previsto pelos graus");
+				from.putInt(4 * e, a);
+				to.putInt(4 * e, b);
+				circ.putInt(4 * e, edge[2]);
+				adj.putInt(4 * fill[a], b);
+				adjEdges.putInt(4 * fill[a]++, e);
+				adj.putInt(4 * fill[b], a);
+				adjEdges.putInt(4 * fill[b]++, e);
+			}
+			if (edges.next(edge))
+				throw new IOException("Fluxo com mais arestas que o previsto pelos graus");
+			adj.force();
+			adjEdges.force();
+			from.force();
+			to.force();
+			circ.force();
+			if (ch.size() < pos[SECTIONS])
+				ch.write(ByteBuffer.allocate((int) (pos[SECTIONS] - ch.size())), ch.size());
+		}
+	}
+
+	/**
+	 * Fluxo das arestas de um grafo a ser gravado por
+	 * {@link GraphFile#write(Path, int[], int[], EdgeStream)}
+	 */
+	interface EdgeStream {
+
+		/**
+		 * Função que avança para a próxima aresta
+		 *
+		 * @param edge vetor que recebe os índices densos dos vértices de partida e
+		 *             de chegada e o número do circuito
+		 * @return <code>false</code> se não houver mais arestas
+		 * @throws IOException erro de leitura
+		 */
+		boolean next(int[] edge) throws IOException;
+	}
+
+	// ---------------- abertura ----------------
+
+	/**
+	 * Função que abre um grafo gravado no formato binário, mapeando as suas seções
+	 * em memória (o canal do arquivo é fechado, mas o mapeamento permanece válido)
+	 *
+	 * @param path arquivo
+	 * @return grafo mapeado
+	 * @throws IOException erro de leitura ou arquivo fora do formato
+	 */
+	public static MappedGraphN open(Path path) throws IOException {
+		try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer h = ByteBuffer.allocate(6 * 4 + SECTIONS * 8);
+			readFully(ch, h, 0);
+			((Buffer) h).flip();
+			if (h.getInt() != MAGIC)
+				throw new IOException("Arquivo não é um grafo binário: " + path);
+			int version = h.getInt();
+			if (version != VERSION)
+				throw new IOException("Versão do formato não suportada: " + version);
+			int n = h.getInt(), m = h.getInt(), nvc = h.getInt(), nec = h.getInt();
+			long[] pos = new long[SECTIONS];
+			for (int i = 0; i < SECTIONS; i++)
+				pos[i] = h.getLong();
+
+			// diretório das colunas
+			Map<String, Buffer> vc = new LinkedHashMap<>(), ec = new LinkedHashMap<>();
+			long dp = h.capacity();
+			ByteBuffer entry = ByteBuffer.allocate(4);
+			for (int i = 0; i < nvc + nec; i++) {
+				((Buffer) entry).clear();
+				readFully(ch, entry, dp);
+				((Buffer) entry).flip();
+				byte kind = entry.get(), type = entry.get();
+				int len = entry.getShort() & 0xFFFF;
+				ByteBuffer rest = ByteBuffer.allocate(len + 8);
+				readFully(ch, rest, dp + 4);
+				((Buffer) rest).flip();
+				byte[] nb = new byte[len];
+				rest.get(nb);
+				long off = rest.getLong();
+				dp += 4 + len + 8;
+				int count = kind == 0 ? n : m;
+				MappedByteBuffer b = map(ch, off, (long) count * GraphColumns.sizeOf(type));
+				(kind == 0 ? vc : ec).put(new String(nb, StandardCharsets.UTF_8), view(b, type));
+			}
+
+			return new MappedGraphN(n, m, map(ch, pos[0], 4L * n).asIntBuffer(), map(ch, pos[1], 4L * n).asIntBuffer(),
+					map(ch, pos[2], 4L * (n + 1)).asIntBuffer(), map(ch, pos[3], 8L * m).asIntBuffer(),
+					map(ch, pos[4], 8L * m).asIntBuffer(), map(ch, pos[5], 4L * m).asIntBuffer(),
+					map(ch, pos[6], 4L * m).asIntBuffer(), map(ch, pos[7], 4L * m).asIntBuffer(), vc, ec);
+		}
+	}
+
+	// ---------------- AUXILIAR ----------------
+
+	private static long align(long p) {
+		return (p + 7) & ~7L;
+	}
+
+	/**
+	 * Função que calcula a posição das seções fixas, seguida da posição final
+	 */
+	private static long[] sections(long header, int n, int m) {
+		long[] sizes = { 4L * n, 4L * n, 4L * (n + 1), 8L * m, 8L * m, 4L * m, 4L * m, 4L * m };
+		long[] pos = new long[SECTIONS + 1];
+		long p = align(header);
+		for (int i = 0; i < SECTIONS; i++) {
+			pos[i] = p;
+			p = align(p + sizes[i]);
+		}
+		pos[SECTIONS] = p;
+		return pos;
+	}
+
+	private static int[] sortedByNum(AdjacencyN graph) {
+		int n = graph.getVertexCount();
+		long[] keys = new long[n];
+		for (int v = 0; v < n; v++)
+			keys[v] = ((long) graph.getNum(v) << 32) | v;
+		Arrays.sort(keys);
+		int[] out = new int[n];
+		for (int i = 0; i < n; i++)
+			out[i] = (int) keys[i];
+		return out;
+	}
+
+	private static MappedByteBuffer map(FileChannel ch, long offset, long size) throws IOException {
+		return map(ch, FileChannel.MapMode.READ_ONLY, offset, size);
+	}
+
+	private static MappedByteBuffer map(FileChannel ch, FileChannel.MapMode mode, long offset, long size)
+			throws IOException {
+		MappedByteBuffer b = ch.map(mode, offset, size);
+		b.order(ByteOrder.BIG_ENDIAN);
+		return b;
+	}
+
+	private static Buffer view(ByteBuffer b, byte type) {
+		switch (type) {
+		case GraphColumns.INT:
+			return b.asIntBuffer();
+		case GraphColumns.LONG:
+			return b.asLongBuffer();
+		case GraphColumns.FLOAT:
+			return b.asFloatBuffer();
+		default:
+			return b.asDoubleBuffer();
+		}
+	}
+
+	private static void readFully(FileChannel ch, ByteBuffer b, long pos) throws IOException {
+		while (b.hasRemaining()) {
+			int r = ch.read(b, pos);
+			if (r < 0)
+				throw new IOException("Fim inesperado do arquivo");
+			pos += r;
+		}
+	}
+
+	/**
+	 * Escrita sequencial com buffer
+	 */
+	private static class Out {
+		private final FileChannel ch;
+		private final ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16);
+		private long written;
+
+		private Out(FileChannel ch) {
+			this.ch = ch;
+		}
+
+		private void ensure(int bytes) throws IOException {
+			if (buf.remaining() < bytes)
+				flush();
+		}
+
+		private void putInt(int v) throws IOException {
+			ensure(4);
+			buf.putInt(v);
+			written += 4;
+		}
+
+		private void putLong(long v) throws IOException {
+			ensure(8);
+			buf.putLong(v);
+			written += 8;
+		}
+
+		private void putHeader(int n, int m, int nvc, int nec, long[] pos) throws IOException {
+			putInt(MAGIC);
+			putInt(VERSION);
+			putInt(n);
+			putInt(m);
+			putInt(nvc);
+			putInt(nec);
+			for (int i = 0; i < SECTIONS; i++)
+				putLong(pos[i]);
+		}
+
+		private void putColumnEntry(byte kind, String name, Object col, long pos) throws IOException {
+			byte[] nb = name.getBytes(StandardCharsets.UTF_8);
+			if (nb.length > 0xFFFF)
+				throw new IllegalArgumentException("Nome de coluna muito longo: " + name);
+			ensure(4 + nb.length + 8);
+			buf.put(kind).put(GraphColumns.typeOf(col)).putShort((short) nb.length).put(nb).putLong(pos);
+			written += 4 + nb.length + 8;
+		}
+
+		private void putColumn(Object col) throws IOException {
+			switch (GraphColumns.typeOf(col)) {
+			case GraphColumns.INT:
+				for (int v : (int[]) col)
+					putInt(v);
+				break;
+			case GraphColumns.LONG:
+				for (long v : (long[]) col)
+					putLong(v);
+				break;
+			case GraphColumns.FLOAT:
+				for (float v : (float[]) col)
+					putInt(Float.floatToRawIntBits(v));
+				break;
+			default:
+				for (double v : (double[]) col)
+					putLong(Double.doubleToRawLongBits(v));
+			}
+		}
+
+		/**
+		 * Completa com zeros até uma dada posição do arquivo
+		 */
+		private void pad(long pos) throws IOException {
+			if (pos < written)
+				throw new IllegalStateException("Seção sobreposta na posição " + pos);
+			while (written < pos) {
+				ensure(1);
+				buf.put((byte) 0);
+				written++;
+			}
+		}
+
+		private void flush() throws IOException {
+			((Buffer) buf).flip();
+			while (buf.hasRemaining())
+				ch.write(buf);
+			((Buffer) buf).clear();
+		}
+	}
+}
@@ -0,0 +1,1035 @@
+package br.com.pereiraeng.graph.io;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import br.com.pereiraeng.graph.Edge;
+import br.com.pereiraeng.graph.EdgeObject;
+import br.com.pereiraeng.graph.Vertex;
+import br.com.pereiraeng.graph.VertexObject;
+import br.com.pereiraeng.graph.numbered.AdjacencyN;
+import br.com.pereiraeng.graph.numbered.CompactGraphN;
+import br.com.pereiraeng.graph.numbered.GraphN;
+import br.com.pereiraeng.graph.numbered.VertexN;
+import br.com.pereiraeng.math.DuplaEmeio;
+
+/**
+ * Classe com as funções de gravação e leitura de grafos em formatos textuais
+ * (GraphML, DOT e lista de arestas em JSON), para visualização e troca de
+ * dados. A gravação é feita elemento a elemento diretamente no fluxo de saída,
+ * sem montar o documento em memória, e a leitura também é feita em fluxo.
+ * <p>
+ * Cada vértice tem um identificador (o {@link VertexN#getNum() número}, no caso
+ * dos grafos numerados) e opcionalmente um rótulo; cada aresta tem opcionalmente
+ * uma chave (o número do circuito, no caso dos grafos numerados).
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public final class GraphText {
+
+	public static enum Format {
+		GRAPHML, DOT, JSON;
+	}
+
+	private GraphText() {
+	}
+
+	// ---------------- gravação ----------------
+
+	/**
+	 * Função que grava um grafo numerado
+	 *
+	 * @param out    fluxo de saída (não é fechado)
+	 * @param graph  grafo
+	 * @param format formato
+	 * @throws IOException erro de gravação
+	 */
+	public static void write(Writer out, GraphN graph, Format format) throws IOException {
+		Emitter em = emitter(out, format);
+		em.begin();
+		for (Integer num : graph.getVs())
+			em.node(num.toString(), null);
+		for (DuplaEmeio d : graph.getEns())
+			em.edge(Integer.toString(d.get1()), Integer.toString(d.get2()), Integer.toString(d.get3()));
+		em.end();
+	}
+
+	/**
+	 * Função que grava um grafo compacto (ou mapeado)
+	 *
+	 * @param out    fluxo de saída (não é fechado)
+	 * @param graph  grafo
+	 * @param format formato
+	 * @throws IOException erro de gravação
+	 */
+	public static void write(Writer out, AdjacencyN graph, Format format) throws IOException {
+		Emitter em = emitter(out, format);
+		em.begin();
+		for (int v = 0; v < graph.getVertexCount(); v++)
+			em.node(Integer.toString(graph.getNum(v)), null);
+		for (int e = 0; e < graph.getEdgeCount(); e++)
+			em.edge(Integer.toString(graph.getNum(graph.getFrom(e))), Integer.toString(graph.getNum(graph.getTo(e))),
+					Integer.toString(graph.getCircuit(e)));
+		em.end();
+	}
+
+	/**
+	 * Função que grava um grafo descrito pelos seus vértices. Os vértices
+	 * {@link VertexN numerados} são identificados pelo seu número e os demais por
+	 * um número sequencial, com o objeto do {@link VertexObject vértice} como
+	 * rótulo. O objeto da {@link EdgeObject aresta} é gravado como chave. As
+	 * arestas que levam a vértices fora da coleção são ignoradas.
+	 *
+	 * @param out    fluxo de saída (não é fechado)
+	 * @param graph  vértices do grafo
+	 * @param format formato
+	 * @throws IOException erro de gravação
+	 */
+	public static void write(Writer out, Collection<? extends Vertex> graph, Format format) throws IOException {
+		Map<Vertex, Integer> order = new IdentityHashMap<>(graph.size() * 2);
+		Map<Vertex, String> ids = new IdentityHashMap<>(graph.size() * 2);
+		int c = 0;
+		for (Vertex v : graph) {
+			order.put(v, c);
+			ids.put(v, v instanceof VertexN ? Integer.toString(((VertexN) v).getNum()) : Integer.toString(c));
+			c++;
+		}
+		Emitter em = emitter(out, format);
+		em.begin();
+		for (Vertex v : graph)
+			em.node(ids.get(v), v instanceof VertexObject && !(v instanceof VertexN)
+					? String.valueOf(((VertexObject) v).getUserObject())
+					: null);
+		for (Vertex v : graph) {
+			int i = order.get(v);
+			for (Edge e : v.getEdges()) {
+				Vertex w = e.getOpposite(v);
+				Integer j = w == null ? Integer.valueOf(i) : order.get(w); // laço
+				// cada aresta é gravada uma única vez, a partir do vértice de menor ordem
+				if (j == null || j < i)
+					continue;
+				Object key = e instanceof EdgeObject ? ((EdgeObject) e).getUserObject() : null;
+				em.edge(ids.get(v), ids.get(w == null ? v : w), key == null ? null : key.toString());
+			}
+		}
+		em.end();
+	}
+
+	/**
+	 * Função que grava um grafo numerado num fluxo de bytes (UTF-8)
+	 *
+	 * @param out    fluxo de saída (não é fechado)
+	 * @param graph  grafo
+	 * @param format formato
+	 * @throws IOException erro de gravação
+	 */
+	public static void write(OutputStream out, GraphN graph, Format format) throws IOException {
+		Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+		write(w, graph, format);
+		w.flush();
+	}
+
+	/**
+	 * Função que grava um grafo compacto (ou mapeado) num fluxo de bytes (UTF-8)
+	 *
+	 * @param out    fluxo de saída (não é fechado)
+	 * @param graph  grafo
+	 * @param format formato
+	 * @throws IOException erro de gravação
+	 */
+	public static void write(OutputStream out, AdjacencyN graph, Format format) throws IOException {
+		Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+		write(w, graph, format);
+		w.flush();
+	}
+
+	/**
+	 * Função que grava um grafo descrito pelos seus vértices num fluxo de bytes
+	 * (UTF-8)
+	 *
+	 * @param out    fluxo de saída (não é fechado)
+	 * @param graph  vértices do grafo
+	 * @param format formato
+	 * @throws IOException erro de gravação
+	 */
+	public static void write(OutputStream out, Collection<? extends Vertex> graph, Format format) throws IOException {
+		Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+		write(w, graph, format);
+		w.flush();
+	}
+
+	// ---------------- leitura ----------------
+
+	/**
+	 * Função que lê um grafo numerado (os identificadores dos vértices e as chaves
+	 * das arestas devem ser inteiros; arestas sem chave recebem o circuito 1)
+	 *
+	 * @param in     fluxo de entrada (não é fechado)
+	 * @param format formato
+	 * @return grafo compacto
+	 * @throws IOException erro de leitura ou de formato
+	 */
+	public static CompactGraphN readCompactGraphN(Reader in, Format format) throws IOException {
+		NumberedSink s = new NumberedSink();
+		read(in, format, s);
+		return s.build();
+	}
+
+	/**
+	 * Função que lê um grafo numerado
+	 *
+	 * @param in     fluxo de entrada (não é fechado)
+	 * @param format formato
+	 * @return grafo numerado
+	 * @throws IOException erro de leitura ou de formato
+	 * @see #readCompactGraphN(Reader, Format)
+	 */
+	public static GraphN readGraphN(Reader in, Format format) throws IOException {
+		return readCompactGraphN(in, format).toGraphN();
+	}
+
+	/**
+	 * Função que lê um grafo na forma de {@link VertexObject vértices} e
+	 * {@link EdgeObject arestas}. O objeto de cada vértice é o seu rótulo (ou o
+	 * identificador, convertido para inteiro se for numérico) e o objeto de cada
+	 * aresta é a sua chave (idem).
+	 *
+	 * @param in     fluxo de entrada (não é fechado)
+	 * @param format formato
+	 * @return vértices do grafo, na ordem de leitura
+	 * @throws IOException erro de leitura ou de formato
+	 */
+	public static Collection<VertexObject> readVertices(Reader in, Format format) throws IOException {
+		ObjectSink s = new ObjectSink();
+		read(in, format, s);
+		return s.vs.values();
+	}
+
+	private static void read(Reader in, Format format, Sink s) throws IOException {
+		switch (format) {
+		case GRAPHML:
+			readGraphML(in, s);
+			break;
+		case DOT:
+			new DotParser(in, s).parse();
+			break;
+		default:
+			new JsonParser(in, s).parse();
+		}
+	}
+
+	// ---------------- GraphML ----------------
+
+	private static class GraphMLEmitter implements Emitter {
+		private final XMLStreamWriter x;
+
+		private GraphMLEmitter(Writer out) throws IOException {
+			try {
+				this.x = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			}
+		}
+
+		@Override
+		public void begin() throws IOException {
+			try {
+				x.writeStartDocument("UTF-8", "1.0");
+				x.writeCharacters("\n");
+				x.writeStartElement("graphml");
+				x.writeDefaultNamespace("http://graphml.graphdrawing.org/xmlns");
+				x.writeCharacters("\n");
+				key("label", "node", "label", "string");
+				key("key", "edge", "key", "string");
+				x.writeStartElement("graph");
+				x.writeAttribute("id", "G");
+				x.writeAttribute("edgedefault", "undirected");
+				x.writeCharacters("\n");
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			}
+		}
+
+		private void key(String id, String target, String name, String type) throws XMLStreamException {
+			x.writeEmptyElement("key");
+			x.writeAttribute("id", id);
+			x.writeAttribute("for", target);
+			x.writeAttribute("attr.name", name);
+			x.writeAttribute("attr.type", type);
+			x.writeCharacters("\n");
+		}
+
+		@Override
+		public void node(String id, String label) throws IOException {
+			try {
+				if (label == null) {
+					x.writeEmptyElement("node");
+					x.writeAttribute("id", id);
+				} else {
+					x.writeStartElement("node");
+					x.writeAttribute("id", id);
+					data("label", label);
+					x.writeEndElement();
+				}
+				x.writeCharacters("\n");
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			}
+		}
+
+		@Override
+		public void edge(String source, String target, String key) throws IOException {
+			try {
+				if (key == null)
+					x.writeEmptyElement("edge");
+				else
+					x.writeStartElement("edge");
+				x.writeAttribute("source", source);
+				x.writeAttribute("target", target);
+				if (key != null) {
+					data("key", key);
+					x.writeEndElement();
+				}
+				x.writeCharacters("\n");
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			}
+		}
+
+		private void data(String key, String value) throws XMLStreamException {
+			x.writeStartElement("data");
+			x.writeAttribute("key", key);
+			x.writeCharacters(value);
+			x.writeEndElement();
+		}
+
+		@Override
+		public void end() throws IOException {
+			try {
+				x.writeEndElement();
+				x.writeCharacters("\n");
+				x.writeEndElement();
+				x.writeCharacters("\n");
+				x.writeEndDocument();
+				x.flush();
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			}
+		}
+	}
+
+	private static void readGraphML(Reader in, Sink s) throws IOException {
+		try {
+			XMLInputFactory f = XMLInputFactory.newInstance();
+			f.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+			XMLStreamReader x = f.createXMLStreamReader(in);
+			// nome de cada atributo declarado (elementos 'key')
+			Map<String, String> names = new HashMap<>();
+			String id = null, source = null, target = null, label = null, key = null, data = null;
+			StringBuilder text = new StringBuilder();
+			while (x.hasNext()) {
+				int ev = x.next();
+				if (ev == XMLStreamConstants.START_ELEMENT) {
+					switch (x.getLocalName()) {
+					case "key":
+						names.put(x.getAttributeValue(null, "id"), x.getAttributeValue(null, "attr.name"));
+						break;
+					case "node":
+						id = x.getAttributeValue(null, "id");
+						label = null;
+						break;
+					case "edge":
+						source = x.getAttributeValue(null, "source");
+						target = x.getAttributeValue(null, "target");
+						key = x.getAttributeValue(null, "id");
+						break;
+					case "data":
+						data = names.getOrDefault(x.getAttributeValue(null, "key"), x.getAttributeValue(null, "key"));
+						text.setLength(0);
+						break;
+					default:
+					}
+				} else if (ev == XMLStreamConstants.CHARACTERS || ev == XMLStreamConstants.CDATA) {
+					if (data != null)
+						text.append(x.getText());
+				} else if (ev == XMLStreamConstants.END_ELEMENT) {
+					switch (x.getLocalName()) {
+					case "data":
+						if ("label".equals(data))
+							label = text.toString();
+						else if ("key".equals(data))
+							key = text.toString();
+						data = null;
+						break;
+					case "node":
+						s.node(id, label);
+						id = null;
+						break;
+					case "edge":
+						s.edge(source, target, key);
+						source = target = key = null;
+						break;
+					default:
+					}
+				}
+			}
+			x.close();
+		} catch (XMLStreamException e) {
+			throw new IOException("Erro no GraphML: " + e.getMessage(), e);
+		}
+	}
+
+	// ---------------- DOT ----------------
+
+	private static class DotEmitter implements Emitter {
+		private final Writer out;
+
+		private DotEmitter(Writer out) {
+			this.out = out;
+		}
+
+		@Override
+		public void begin() throws IOException {
+			out.write("graph G {\n");
+		}
+
+		@Override
+		public void node(String id, String label) throws IOException {
+			out.write('\t');
+			id(id);
+			if (label != null) {
+				out.write(" [label=");
+				quoted(label);
+				out.write(']');
+			}
+			out.write(";\n");
+		}
+
+		@Override
+		public void edge(String source, String target, String key) throws IOException {
+			out.write('\t');
+			id(source);
+			out.write(" -- ");
+			id(target);
+			if (key != null) {
+				out.write(" [key=");
+				id(key);
+				out.write(']');
+			}
+			out.write(";\n");
+		}
+
+		@Override
+		public void end() throws IOException {
+			out.write("}\n");
+			out.flush();
+		}
+
+		private void id(String id) throws IOException {
+			if (isNumber(id))
+				out.write(id);
+			else
+				quoted(id);
+		}
+
+		private void quoted(String s) throws IOException {
+			out.write('"');
+			for (int i = 0; i < s.length(); i++) {
+				char c = s.charAt(i);
+				if (c == '"' || c == '\\')
+					out.write('\\');
+				if (c == '\n')
+					out.write("\\n");
+				else
+					out.write(c);
+			}
+			out.write('"');
+		}
+	}
+
+	/**
+	 * Leitor do subconjunto da linguagem DOT usado para descrever topologias:
+	 * declarações de vértices e de arestas (em cadeia) com listas de atributos;
+	 * atributos padrão, subgrafos e comentários são aceitos e ignorados.
+	 */
+	private static class DotParser {
+		private final Tokenizer t;
+		private final Sink s;
+
+		private DotParser(Reader in, Sink s) {
+			this.t = new Tokenizer(in);
+			this.s = s;
+		}
+
+		private void parse() throws IOException {
+			String tk = t.next();
+			if ("strict".equalsIgnoreCase(tk))
+				tk = t.next();
+			if (!"graph".equalsIgnoreCase(tk) && !"digraph".equalsIgnoreCase(tk))
+				throw new IOException("Início de grafo DOT esperado: " + tk);
+			tk = t.next();
+			if (!"{".equals(tk))
+				tk = t.next(); // nome do grafo
+			if (!"{".equals(tk))
+				throw new IOException("'{' esperado: " + tk);
+			statements();
+		}
+
+		private void statements() throws IOException {
+			String tk;
+			while ((tk = t.next()) != null && !"}".equals(tk)) {
+				if (";".equals(tk) || ",".equals(tk))
+					continue;
+				if ("{".equals(tk)) {
+					statements();
+					continue;
+				}
+				if ("subgraph".equalsIgnoreCase(tk)) {
+					tk = t.next();
+					if (!"{".equals(tk))
+						tk = t.next();
+					statements();
+					continue;
+				}
+				if ("node".equalsIgnoreCase(tk) || "edge".equalsIgnoreCase(tk) || "graph".equalsIgnoreCase(tk)) {
+					attributes(t.next());
+					continue;
+				}
+				String id = t.value(tk);
+				tk = t.next();
+				if ("=".equals(tk)) { // atributo do grafo
+					t.next();
+					continue;
+				}
+				if ("--".equals(tk) || "->".equals(tk)) {
+					String[] chain = { id };
+					int n = 1;
+					while ("--".equals(tk) || "->".equals(tk)) {
+						if (n == chain.length)
+							chain = Arrays.copyOf(chain, 2 * n);
+						chain[n++] = t.value(t.next());
+						tk = t.next();
+					}
+					Map<String, String> at = "[".equals(tk) ? attributes(tk) : null;
+					if (at == null)
+						t.push(tk);
+					String key = at == null ? null : at.get("key");
+					for (int i = 1; i < n; i++)
+						s.edge(chain[i - 1], chain[i], key);
+				} else {
+					Map<String, String> at = "[".equals(tk) ? attributes(tk) : null;
+					if (at == null)
+						t.push(tk);
+					s.node(id, at == null ? null : at.get("label"));
+				}
+			}
+		}
+
+		private Map<String, String> attributes(String tk) throws IOException {
+			Map<String, String> out = new HashMap<>();
+			while ("[".equals(tk)) {
+				while (!"]".equals(tk = t.next())) {
+					if (tk == null)
+						throw new IOException("']' esperado");
+					if (",".equals(tk) || ";".equals(tk))
+						continue;
+					String name = t.value(tk);
+					tk = t.next();
+					if ("=".equals(tk))
+						out.put(name, t.value(t.next()));
+					else
+						t.push(tk);
+				}
+				tk = t.next();
+			}
+			t.push(tk);
+			return out;
+		}
+	}
+
+	/**
+	 * Separador de símbolos da linguagem DOT (os textos entre aspas são
+	 * retornados com a aspa inicial, para distingui-los das palavras-chave)
+	 */
+	private static class Tokenizer {
+		private final PushbackReader in;
+		private String pushed;
+
+		private Tokenizer(Reader in) {
+			this.in = new PushbackReader(in, 2);
+		}
+
+		private void push(String tk) {
+			pushed = tk;
+		}
+
+		private String value(String tk) throws IOException {
+			if (tk == null)
+				throw new IOException("Fim inesperado do arquivo DOT");
+			return tk.startsWith("\"") ? tk.substring(1) : tk;
+		}
+
+		private String next() throws IOException {
+			if (pushed != null) {
+				String tk = pushed;
+				pushed = null;
+				return tk;
+			}
+			int c;
+			while (true) {
+				c = in.read();
+				if (c < 0)
+					return null;
+				if (Character.isWhitespace(c))
+					continue;
+				if (c == '#') { // linha de pré-processador
+					skipLine();
+					continue;
+				}
+				if (c == '/') {
+					int d = in.read();
+					if (d == '/') {
+						skipLine();
+						continue;
+					}
+					if (d == '*') {
+						int p = 0;
+						while ((d = in.read()) >= 0 && !(p == '*' && d == '/'))
+							p = d;
+						continue;
+					}
+					if (d >= 0)
+						in.unread(d);
+				}
+				break;
+			}
+			if (c == '"') {
+				StringBuilder sb = new StringBuilder("\"");
+				while ((c = in.read()) >= 0 && c != '"') {
+					if (c == '\\') {
+						c = in.read();
+						if (c == 'n')
+							c = '\n';
+					}
+					sb.append((char) c);
+				}
+				return sb.toString();
+			}
+			if (c == '-') {
+				int d = in.read();
+				if (d == '-' || d == '>')
+					return "-" + (char) d;
+				if (d >= 0)
+					in.unread(d);
+			}
+			if ("{}[]=;,".indexOf(c) >= 0)
+				return String.valueOf((char) c);
+			StringBuilder sb = new StringBuilder();
+			sb.append((char) c);
+			while ((c = in.read()) >= 0 && (Character.isLetterOrDigit(c) || c == '_' || c == '.'))
+				sb.append((char) c);
+			if (c >= 0)
+				in.unread(c);
+			return sb.toString();
+		}
+
+		private void skipLine() throws IOException {
+			int c;
+			while ((c = in.read()) >= 0 && c != '\n')
+				;
+		}
+	}
+
+	// ---------------- JSON ----------------
+
+	private static class JsonEmitter implements Emitter {
+		private final Writer out;
+		private int state; // 0: início, 1: vértices, 2: arestas
+		private boolean first;
+
+		private JsonEmitter(Writer out) {
+			this.out = out;
+		}
+
+		@Override
+		public void begin() throws IOException {
+			out.write("{\"directed\":false,\n\"nodes\":[");
+			state = 1;
+			first = true;
+		}
+
+		@Override
+		public void node(String id, String label) throws IOException {
+			out.write(first ? "\n" : ",\n");
+			first = false;
+			out.write("{\"id\":");
+			value(id);
+			if (label != null) {
+				out.write(",\"label\":");
+				string(label);
+			}
+			out.write('}');
+		}
+
+		@Override
+		public void edge(String source, String target, String key) throws IOException {
+			if (state == 1) {
+				out.write("],\n\"edges\":[");
+				state = 2;
+				first = true;
+			}
+			out.write(first ? "\n" : ",\n");
+			first = false;
+			out.write("{\"source\":");
+			value(source);
+			out.write(",\"target\":");
+			value(target);
+			if (key != null) {
+				out.write(",\"key\":");
+				value(key);
+			}
+			out.write('}');
+		}
+
+		@Override
+		public void end() throws IOException {
+			if (state == 1)
+				out.write("],\n\"edges\":[");
+			out.write("]}\n");
+			out.flush();
+		}
+
+		private void value(String v) throws IOException {
+			if (isNumber(v))
+				out.write(v);
+			else
+				string(v);
+		}
+
+		private void string(String s) throws IOException {
+			out.write('"');
+			for (int i = 0; i < s.length(); i++) {
+				char c = s.charAt(i);
+				switch (c) {
+				case '"':
+					out.write("\\\"");
+					break;
+				case '\\':
+					out.write("\\\\");
+					break;
+				case '\n':
+					out.write("\\n");
+					break;
+				case '\r':
+					out.write("\\r");
+					break;
+				case '\t':
+					out.write("\\t");
+					break;
+				default:
+					if (c < 0x20)
+						out.write(String.format("\\u%04x", (int) c));
+					else
+						out.write(c);
+				}
+			}
+			out.write('"');
+		}
+	}
+
+	/**
+	 * Leitor em fluxo da lista de arestas em JSON: os elementos dos vetores
+	 * "nodes" e "edges" são repassados à medida que são lidos, e os demais campos
+	 * são ignorados
+	 */
+	private static class JsonParser {
+		private final PushbackReader in;
+		private final Sink s;
+
+		private JsonParser(Reader in, Sink s) {
+			this.in = new PushbackReader(in, 1);
+			this.s = s;
+		}
+
+		private void parse() throws IOException {
+			expect('{');
+			if (peek() == '}') {
+				in.read();
+				return;
+			}
+			do {
+				String field = string();
+				expect(':');
+				if ("nodes".equals(field) || "edges".equals(field)) {
+					boolean nodes = "nodes".equals(field);
+					expect('[');
+					if (peek() == ']')
+						in.read();
+					else
+						do {
+							Map<String, String> o = object();
+							if (nodes)
+								s.node(o.get("id"), o.get("label"));
+							else
+								s.edge(o.get("source"), o.get("target"), o.get("key"));
+						} while (comma(']'));
+				} else
+					skip();
+			} while (comma('}'));
+		}
+
+		private Map<String, String> object() throws IOException {
+			Map<String, String> out = new LinkedHashMap<>();
+			expect('{');
+			if (peek() == '}') {
+				in.read();
+				return out;
+			}
+			do {
+				String field = string();
+				expect(':');
+				int c = peek();
+				if (c == '{' || c == '[')
+					skip();
+				else
+					out.put(field, scalar());
+			} while (comma('}'));
+			return out;
+		}
+
+		/**
+		 * Lê ',' (retorna <code>true</code>) ou o fechamento indicado
+		 */
+		private boolean comma(char close) throws IOException {
+			int c = nextNonSpace();
+			if (c == ',')
+				return true;
+			if (c == close)
+				return false;
+			throw new IOException("',' ou '" + close + "' esperado no JSON: " + (char) c);
+		}
+
+		private String scalar() throws IOException {
+			int c = peek();
+			if (c == '"')
+				return string();
+			StringBuilder sb = new StringBuilder();
+			while ((c = in.read()) >= 0 && ",}] \t\r\n".indexOf(c) < 0)
+				sb.append((char) c);
+			if (c >= 0)
+				in.unread(c);
+			String v = sb.toString();
+			return "null".equals(v) ? null : v;
+		}
+
+		private String string() throws IOException {
+			expect('"');
+			StringBuilder sb = new StringBuilder();
+			int c;
+			while ((c = in.read()) != '"') {
+				if (c < 0)
+					throw new IOException("Fim inesperado do JSON");
+				if (c == '\\') {
+					c = in.read();
+					switch (c) {
+					case 'n':
+						c = '\n';
+						break;
+					case 't':
+						c = '\t';
+						break;
+					case 'r':
+						c = '\r';
+						break;
+					case 'b':
+						c = '\b';
+						break;
+					case 'f':
+						c = '\f';
+						break;
+					case 'u':
+						char[] h = new char[4];
+						for (int i = 0; i < 4; i++)
+							h[i] = (char) in.read();
+						c = Integer.parseInt(new String(h), 16);
+						break;
+					default:
+					}
+				}
+				sb.append((char) c);
+			}
+			return sb.toString();
+		}
+
+		private void skip() throws IOException {
+			int c = peek();
+			if (c == '"')
+				string();
+			else if (c == '{' || c == '[') {
+				in.read();
+				char close = c == '{' ? '}' : ']';
+				if (peek() == close) {
+					in.read();
+					return;
+				}
+				do {
+					if (close == '}') {
+						string();
+						expect(':');
+					}
+					skip();
+				} while (comma(close));
+			} else
+				scalar();
+		}
+
+		private void expect(char e) throws IOException {
+			int c = nextNonSpace();
+			if (c != e)
+				throw new IOException("'" + e + "' esperado no JSON: " + (c < 0 ? "fim do arquivo" : (char) c));
+		}
+
+		private int peek() throws IOException {
+			int c = nextNonSpace();
+			if (c >= 0)
+				in.unread(c);
+			return c;
+		}
+
+		private int nextNonSpace() throws IOException {
+			int c;
+			while ((c = in.read()) >= 0 && Character.isWhitespace(c))
+				;
+			return c;
+		}
+	}
+
+	// ---------------- AUXILIAR ----------------
+
+	private static Emitter emitter(Writer out, Format format) throws IOException {
+		switch (format) {
+		case GRAPHML:
+			return new GraphMLEmitter(out);
+		case DOT:
+			return new DotEmitter(out);
+		default:
+			return new JsonEmitter(out);
+		}
+	}
+
+	/**
+	 * Função que verifica se um texto é o número (inteiro de 32 bits, só com
+	 * dígitos e o sinal negativo) de um vértice ou aresta numerado
+	 */
+	private static boolean isNumber(String s) {
+		int n = s.length(), i = s.startsWith("-") ? 1 : 0;
+		if (i == n || n - i > 10)
+			return false;
+		for (; i < n; i++)
+			if (s.charAt(i) < '0' || s.charAt(i) > '9')
+				return false;
+		long v = Long.parseLong(s);
+		return v >= Integer.MIN_VALUE && v <= Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Gravação elemento a elemento (os vértices antes das arestas)
+	 */
+	private static interface Emitter {
+		void begin() throws IOException;
+
+		void node(String id, String label) throws IOException;
+
+		void edge(String source, String target, String key) throws IOException;
+
+		void end() throws IOException;
+	}
+
+	/**
+	 * Destino dos elementos lidos
+	 */
+	private static interface Sink {
+		void node(String id, String label) throws IOException;
+
+		void edge(String source, String target, String key) throws IOException;
+	}
+
+	private static class NumberedSink implements Sink {
+		private int[] nodes = new int[64], n1 = new int[64], n2 = new int[64], circ = new int[64];
+		private int nn, m;
+
+		@Override
+		public void node(String id, String label) throws IOException {
+			if (nn == nodes.length)
+				nodes = Arrays.copyOf(nodes, 2 * nn);
+			nodes[nn++] = toInt(id);
+		}
+
+		@Override
+		public void edge(String source, String target, String key) throws IOException {
+			if (m == n1.length) {
+				n1 = Arrays.copyOf(n1, 2 * m);
+				n2 = Arrays.copyOf(n2, 2 * m);
+				circ = Arrays.copyOf(circ, 2 * m);
+			}
+			n1[m] = toInt(source);
+			n2[m] = toInt(target);
+			circ[m++] = key == null ? 1 : toInt(key);
+		}
+
+		private static int toInt(String s) throws IOException {
+			if (s == null || !isNumber(s))
+				throw new IOException("Identificador não numérico: " + s);
+			return Integer.parseInt(s);
+		}
+
+		private CompactGraphN build() {
+			int[] iso = Arrays.copyOf(nodes, nn);
+			return CompactGraphN.of(Arrays.copyOf(n1, m), Arrays.copyOf(n2, m), Arrays.copyOf(circ, m), iso);
+		}
+	}
+
+	private static class ObjectSink implements Sink {
+		private final Map<String, VertexObject> vs = new LinkedHashMap<>();
+
+		@Override
+		public void node(String id, String label) {
+			if (!vs.containsKey(id))
+				vs.put(id, new VertexObject(label != null ? label : toObject(id)));
+		}
+
+		@Override
+		public void edge(String source, String target, String key) {
+			node(source, null);
+			node(target, null);
+			VertexObject vo1 = vs.get(source), vo2 = vs.get(target);
+			EdgeObject eo = new EdgeObject(key == null ? null : toObject(key), vo1, vo2);
+			vo1.add(eo);
+			vo2.add(eo);
+		}
+
+		private static Object toObject(String s) {
+			return isNumber(s) ? (Object) Integer.valueOf(s) : s;
+		}
+	}
+}
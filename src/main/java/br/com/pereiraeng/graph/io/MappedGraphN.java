@@ -0,0 +1,212 @@
+package br.com.pereiraeng.graph.io;
+
+import java.nio.Buffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Collections;
+import java.util.Map;
+
+import br.com.pereiraeng.graph.numbered.AdjacencyN;
+import br.com.pereiraeng.graph.numbered.CompactGraphN;
+
+/**
+ * Classe do objeto que representa um grafo numerado lido de um
+ * {@link GraphFile arquivo binário} mapeado em memória. Os acessos são feitos
+ * diretamente sobre as páginas do arquivo, sem cópia para o heap; para os
+ * algoritmos que trabalham sobre os vetores do {@link CompactGraphN grafo
+ * compacto}, usar {@link #toCompactGraphN()}.
+ * <p>
+ * Os objetos desta classe são somente para leitura e podem ser compartilhados
+ * entre threads.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public class MappedGraphN implements AdjacencyN {
+
+	private final int n, m;
+
+	private final IntBuffer nums, order, offsets, adj, adjEdges, from, to, circ;
+
+	private final Map<String, Buffer> vertexColumns, edgeColumns;
+
+	MappedGraphN(int n, int m, IntBuffer nums, IntBuffer order, IntBuffer offsets, IntBuffer adj,
+			IntBuffer adjEdges, IntBuffer from, IntBuffer to, IntBuffer circ, Map<String, Buffer> vertexColumns,
+			Map<String, Buffer> edgeColumns) {
+		this.n = n;
+		this.m = m;
+		this.nums = nums;
+		this.order = order;
+		this.offsets = offsets;
+		this.adj = adj;
+		this.adjEdges = adjEdges;
+		this.from = from;
+		this.to = to;
+		this.circ = circ;
+		this.vertexColumns = vertexColumns;
+		this.edgeColumns = edgeColumns;
+	}
+
+	// -------------- getter's --------------
+
+	@Override
+	public int getVertexCount() {
+		return n;
+	}
+
+	@Override
+	public int getEdgeCount() {
+		return m;
+	}
+
+	@Override
+	public int getNum(int v) {
+		return nums.get(v);
+	}
+
+	@Override
+	public int indexOf(int num) {
+		int lo = 0, hi = n - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1, v = order.get(mid), x = nums.get(v);
+			if (x < num)
+				lo = mid + 1;
+			else if (x > num)
+				hi = mid - 1;
+			else
+				return v;
+		}
+		return -1;
+	}
+
+	@Override
+	public int getDegree(int v) {
+		return offsets.get(v + 1) - offsets.get(v);
+	}
+
+	@Override
+	public int getNeighbor(int v, int k) {
+		return adj.get(offsets.get(v) + k);
+	}
+
+	@Override
+	public int getEdgeId(int v, int k) {
+		return adjEdges.get(offsets.get(v) + k);
+	}
+
+	@Override
+	public int getFrom(int e) {
+		return from.get(e);
+	}
+
+	@Override
+	public int getTo(int e) {
+		return to.get(e);
+	}
+
+	@Override
+	public int getCircuit(int e) {
+		return circ.get(e);
+	}
+
+	// -------------- colunas --------------
+
+	public Map<String, Buffer> getVertexColumns() {
+		return Collections.unmodifiableMap(vertexColumns);
+	}
+
+	public Map<String, Buffer> getEdgeColumns() {
+		return Collections.unmodifiableMap(edgeColumns);
+	}
+
+	public IntBuffer getVertexInts(String name) {
+		return ((IntBuffer) vertexColumns.get(name)).duplicate();
+	}
+
+	public LongBuffer getVertexLongs(String name) {
+		return ((LongBuffer) vertexColumns.get(name)).duplicate();
+	}
+
+	public FloatBuffer getVertexFloats(String name) {
+		return ((FloatBuffer) vertexColumns.get(name)).duplicate();
+	}
+
+	public DoubleBuffer getVertexDoubles(String name) {
+		return ((DoubleBuffer) vertexColumns.get(name)).duplicate();
+	}
+
+	public IntBuffer getEdgeInts(String name) {
+		return ((IntBuffer) edgeColumns.get(name)).duplicate();
+	}
+
+	public LongBuffer getEdgeLongs(String name) {
+		return ((LongBuffer) edgeColumns.get(name)).duplicate();
+	}
+
+	public FloatBuffer getEdgeFloats(String name) {
+		return ((FloatBuffer) edgeColumns.get(name)).duplicate();
+	}
+
+	public DoubleBuffer getEdgeDoubles(String name) {
+		return ((DoubleBuffer) edgeColumns.get(name)).duplicate();
+	}
+
+	// ---------------- AUXILIAR ----------------
+
+	/**
+	 * Função que copia o grafo para a memória, na forma de {@link CompactGraphN
+	 * grafo compacto} com os mesmos índices densos e identificadores de arestas
+	 *
+	 * @return grafo compacto
+	 */
+	public CompactGraphN toCompactGraphN() {
+		return new CompactGraphN(copy(nums, n), copy(from, m), copy(to, m), copy(circ, m));
+	}
+
+	/**
+	 * Função que copia as colunas de atributos para a memória
+	 *
+	 * @return colunas
+	 */
+	public GraphColumns toColumns() {
+		GraphColumns out = new GraphColumns();
+		for (Map.Entry<String, Buffer> en : vertexColumns.entrySet())
+			out.putVertexColumn(en.getKey(), copy(en.getValue()));
+		for (Map.Entry<String, Buffer> en : edgeColumns.entrySet())
+			out.putEdgeColumn(en.getKey(), copy(en.getValue()));
+		return out;
+	}
+
+	private static int[] copy(IntBuffer b, int len) {
+		int[] out = new int[len];
+		b.duplicate().get(out);
+		return out;
+	}
+
+	private static Object copy(Buffer b) {
+		if (b instanceof IntBuffer) {
+			int[] out = new int[b.capacity()];
+			((IntBuffer) b).duplicate().get(out);
+			return out;
+		} else if (b instanceof LongBuffer) {
+			long[] out = new long[b.capacity()];
+			((LongBuffer) b).duplicate().get(out);
+			return out;
+		} else if (b instanceof FloatBuffer) {
+			float[] out = new float[b.capacity()];
+			((FloatBuffer) b).duplicate().get(out);
+			return out;
+		} else {
+			double[] out = new double[b.capacity()];
+			((DoubleBuffer) b).duplicate().get(out);
+			return out;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "n=" + n + ", m=" + m + ", colunas=" + vertexColumns.keySet() + "/" + edgeColumns.keySet();
+	}
+}
@@ -0,0 +1,460 @@
+package br.com.pereiraeng.graph.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import br.com.pereiraeng.graph.numbered.CompactGraphN;
+import br.com.pereiraeng.graph.numbered.GraphN;
+
+/**
+ * Classe do objeto que lê os dados de barras (<code>DBAR</code>) e de circuitos
+ * (<code>DLIN</code>) de um arquivo de caso no formato do ANAREDE (padrão ONS,
+ * <code>.pwf</code>) e gera diretamente o {@link CompactGraphN grafo
+ * compacto} da rede e as {@link GraphColumns colunas} de atributos.
+ * <p>
+ * A leitura é feita linha a linha num buffer de tamanho fixo, sem criar objetos
+ * por registro: os campos são convertidos diretamente das colunas fixas do
+ * formato. Linhas iniciadas por '(' são comentários, as seções terminam com
+ * <code>99999</code> e as demais seções do arquivo são ignoradas. Os registros
+ * com código de operação <code>E</code> (exclusão) são ignorados. Os campos
+ * numéricos sem ponto decimal recebem as casas decimais implícitas do formato
+ * (tensão: 3, resistência e reatância: 2, susceptância: 3, tap: 3).
+ * <p>
+ * Os índices densos dos vértices seguem a ordem crescente dos números das
+ * barras e as arestas seguem a ordem dos registros no arquivo.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public class PwfLoader {
+
+	// nomes das colunas de barras
+	public static final String TYPE = "tipo", AREA = "area", VOLTAGE = "tensao", ANGLE = "angulo", PG = "pg",
+			QG = "qg", PL = "pl", QL = "ql", SHUNT = "shunt";
+
+	// nomes das colunas de circuitos
+	public static final String R = "r", X = "x", B = "b", TAP = "tap", RATING = "capacidade", STATE = "estado";
+
+	/**
+	 * Tamanho máximo de uma linha (o excedente é descartado)
+	 */
+	private static final int LINE = 256;
+
+	private static final int NONE = 0, BUS = 1, BRANCH = 2;
+
+	private final CompactGraphN graph;
+
+	private final GraphColumns columns;
+
+	private PwfLoader(Records r) {
+		int[] nums = Arrays.copyOf(r.bus.ints[0], r.bus.size);
+		this.graph = CompactGraphN.of(Arrays.copyOf(r.branch.ints[0], r.branch.size),
+				Arrays.copyOf(r.branch.ints[1], r.branch.size), Arrays.copyOf(r.branch.ints[2], r.branch.size), nums);
+
+		// colunas de barras na ordem dos índices densos
+		int n = graph.getVertexCount();
+		int[] pos = new int[r.bus.size];
+		for (int i = 0; i < r.bus.size; i++)
+			pos[i] = graph.indexOf(nums[i]);
+		this.columns = new GraphColumns();
+		String[] intNames = { TYPE, AREA };
+		for (int c = 0; c < intNames.length; c++) {
+			int[] col = new int[n];
+			for (int i = 0; i < r.bus.size; i++)
+				col[pos[i]] = r.bus.ints[c + 1][i];
+			columns.putVertexColumn(intNames[c], col);
+		}
+		String[] dblNames = { VOLTAGE, ANGLE, PG, QG, PL, QL, SHUNT };
+		for (int c = 0; c < dblNames.length; c++) {
+			double[] col = new double[n];
+			for (int i = 0; i < r.bus.size; i++)
+				col[pos[i]] = r.bus.dbls[c][i];
+			columns.putVertexColumn(dblNames[c], col);
+		}
+		columns.putEdgeColumn(STATE, Arrays.copyOf(r.branch.ints[3], r.branch.size));
+		String[] brNames = { R, X, B, TAP, RATING };
+		for (int c = 0; c < brNames.length; c++)
+			columns.putEdgeColumn(brNames[c], Arrays.copyOf(r.branch.dbls[c], r.branch.size));
+	}
+
+	// ---------------- leitura ----------------
+
+	/**
+	 * Função que lê um arquivo de caso sequencialmente
+	 *
+	 * @param in fluxo de entrada (não é fechado)
+	 * @return rede lida
+	 * @throws IOException erro de leitura
+	 */
+	public static PwfLoader load(InputStream in) throws IOException {
+		Records r = new Records();
+		byte[] buf = new byte[1 << 16], line = new byte[LINE];
+		int state = NONE, len = 0, read;
+		boolean skipTitle = false;
+		while (true) {
+			read = in.read(buf);
+			for (int i = 0; i < read; i++) {
+				byte b = buf[i];
+				if (b != '\n') {
+					if (len < LINE)
+						line[len++] = b;
+					continue;
+				}
+				if (skipTitle)
+					skipTitle = false;
+				else if ((state = r.parse(state, line, trim(line, len))) < 0) {
+					skipTitle = true;
+					state = NONE;
+				}
+				len = 0;
+			}
+			if (read < 0)
+				break;
+		}
+		if (len > 0 && !skipTitle) // última linha sem quebra
+			r.parse(state, line, trim(line, len));
+		return new PwfLoader(r);
+	}
+
+	/**
+	 * Função que lê um arquivo de caso
+	 *
+	 * @param path     arquivo
+	 * @param parallel <code>true</code> para dividir as seções de barras e de
+	 *                 circuitos em blocos lidos em paralelo (arquivo mapeado em
+	 *                 memória)
+	 * @return rede lida
+	 * @throws IOException erro de leitura
+	 */
+	public static PwfLoader load(Path path, boolean parallel) throws IOException {
+		if (!parallel)
+			try (InputStream in = Files.newInputStream(path)) {
+				return load(in);
+			}
+		try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (ch.size() > Integer.MAX_VALUE)
+				throw new IOException("Arquivo grande demais para leitura em paralelo: " + path);
+			MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+			return loadParallel(buf);
+		}
+	}
+
+	private static PwfLoader loadParallel(MappedByteBuffer buf) throws IOException {
+		// localização dos registros das seções (início, fim, tipo)
+		List<int[]> blocks = new ArrayList<>();
+		int size = buf.limit(), p = 0, state = NONE, start = 0;
+		boolean skipTitle = false;
+		byte[] line = new byte[16];
+		while (p < size) {
+			int q = p;
+			while (q < size && buf.get(q) != '\n')
+				q++;
+			// somente o início da linha interessa (palavras-chave e terminador)
+			int len = Math.min(q - p, 16);
+			for (int i = 0; i < len; i++)
+				line[i] = buf.get(p + i);
+			len = trim(line, len);
+			if (skipTitle)
+				skipTitle = false;
+			else if (state == NONE) {
+				if (isKeyword(line, len, "DBAR") || isKeyword(line, len, "DLIN")) {
+					state = line[1] == 'B' ? BUS : BRANCH;
+					start = q + 1;
+				} else if (isKeyword(line, len, "TITU"))
+					skipTitle = true;
+			} else if (isEnd(line, len)) {
+				blocks.add(new int[] { start, p, state });
+				state = NONE;
+			}
+			p = q + 1;
+		}
+		if (state != NONE)
+			blocks.add(new int[] { start, size, state });
+
+		// divisão dos blocos em pedaços de tamanho semelhante
+		int threads = Runtime.getRuntime().availableProcessors();
+		List<int[]> chunks = new ArrayList<>();
+		for (int[] bl : blocks) {
+			int parts = Math.max(1, Math.min(threads, (bl[1] - bl[0]) >> 16));
+			int from = bl[0];
+			for (int k = 1; k <= parts; k++) {
+				int to = k == parts ? bl[1] : bl[0] + (int) ((long) (bl[1] - bl[0]) * k / parts);
+				while (to < bl[1] && buf.get(to - 1) != '\n')
+					to++;
+				if (to > from)
+					chunks.add(new int[] { from, to, bl[2] });
+				from = to;
+			}
+		}
+
+		ExecutorService ex = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, chunks.size())));
+		try {
+			List<Future<Records>> fs = new ArrayList<>();
+			for (int[] ck : chunks)
+				fs.add(ex.submit(() -> {
+					// cópia do pedaço em bloco, para evitar o acesso byte a byte ao mapeamento
+					byte[] data = new byte[ck[1] - ck[0]];
+					// chamadas por Buffer/ByteBuffer para manter o bytecode compatível com o
+					// Java 8 (cujas classes não têm as sobrecargas covariantes)
+					ByteBuffer d = ((ByteBuffer) buf).duplicate();
+					((Buffer) d).position(ck[0]);
+					d.get(data);
+					Records r = new Records();
+					byte[] l = new byte[LINE];
+					int i = 0;
+					while (i < data.length) {
+						int j = i;
+						while (j < data.length && data[j] != '\n')
+							j++;
+						int len = Math.min(j - i, LINE);
+						System.arraycopy(data, i, l, 0, len);
+						r.parse(ck[2], l, trim(l, len));
+						i = j + 1;
+					}
+					return r;
+				}));
+			Records all = new Records();
+			for (Future<Records> f : fs)
+				all.append(f.get());
+			return new PwfLoader(all);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Leitura interrompida", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Erro na leitura do arquivo", e.getCause());
+		} finally {
+			ex.shutdown();
+		}
+	}
+
+	// -------------- getter's --------------
+
+	public CompactGraphN getGraph() {
+		return graph;
+	}
+
+	public GraphColumns getColumns() {
+		return columns;
+	}
+
+	/**
+	 * Função que gera o {@link GraphN grafo numerado} da rede
+	 *
+	 * @return grafo numerado
+	 */
+	public GraphN toGraphN() {
+		return graph.toGraphN();
+	}
+
+	// ---------------- AUXILIAR ----------------
+
+	private static boolean isKeyword(byte[] line, int len, String kw) {
+		if (len < kw.length())
+			return false;
+		for (int i = 0; i < kw.length(); i++)
+			if (line[i] != kw.charAt(i))
+				return false;
+		return len == kw.length() || line[kw.length()] == ' ';
+	}
+
+	/**
+	 * Indica se a linha é o terminador de seção (somente "99999", para não ser
+	 * confundida com o registro da barra 99999)
+	 */
+	private static boolean isEnd(byte[] line, int len) {
+		while (len > 0 && line[len - 1] == ' ')
+			len--;
+		return len == 5 && isKeyword(line, len, "99999");
+	}
+
+	/**
+	 * Remove o '\r' final da linha
+	 */
+	private static int trim(byte[] line, int len) {
+		return len > 0 && line[len - 1] == '\r' ? len - 1 : len;
+	}
+
+	/**
+	 * Registros lidos, em colunas que crescem conforme a necessidade
+	 */
+	private static class Records {
+		// barras: número, tipo, área | tensão, ângulo, pg, qg, pl, ql, shunt
+		private final Table bus = new Table(3, 7);
+		// circuitos: de, para, circuito, estado | r, x, b, tap, capacidade
+		private final Table branch = new Table(4, 5);
+
+		/**
+		 * Interpreta uma linha e retorna o novo estado (-1 para pular a linha
+		 * seguinte, que é o título do caso)
+		 */
+		private int parse(int state, byte[] l, int len) {
+			if (len == 0 || l[0] == '(')
+				return state;
+			if (state == NONE) {
+				if (isKeyword(l, len, "DBAR"))
+					return BUS;
+				if (isKeyword(l, len, "DLIN"))
+					return BRANCH;
+				if (isKeyword(l, len, "TITU"))
+					return -1;
+				return NONE;
+			}
+			if (isEnd(l, len))
+				return NONE;
+			if (state == BUS) {
+				if (op(l, len, 6) == 'E')
+					return state;
+				int i = bus.next();
+				bus.ints[0][i] = parseInt(l, len, 1, 5);
+				bus.ints[1][i] = parseInt(l, len, 8, 8);
+				bus.ints[2][i] = parseInt(l, len, 74, 76);
+				bus.dbls[0][i] = parseDouble(l, len, 25, 28, 3);
+				bus.dbls[1][i] = parseDouble(l, len, 29, 32, 0);
+				bus.dbls[2][i] = parseDouble(l, len, 33, 37, 0);
+				bus.dbls[3][i] = parseDouble(l, len, 38, 42, 0);
+				bus.dbls[4][i] = parseDouble(l, len, 59, 63, 0);
+				bus.dbls[5][i] = parseDouble(l, len, 64, 68, 0);
+				bus.dbls[6][i] = parseDouble(l, len, 69, 73, 0);
+			} else {
+				if (op(l, len, 8) == 'E')
+					return state;
+				int i = branch.next();
+				branch.ints[0][i] = parseInt(l, len, 1, 5);
+				branch.ints[1][i] = parseInt(l, len, 11, 15);
+				branch.ints[2][i] = parseInt(l, len, 16, 17);
+				branch.ints[3][i] = op(l, len, 18) == 'D' ? 0 : 1;
+				branch.dbls[0][i] = parseDouble(l, len, 21, 26, 2);
+				branch.dbls[1][i] = parseDouble(l, len, 27, 32, 2);
+				branch.dbls[2][i] = parseDouble(l, len, 33, 38, 3);
+				branch.dbls[3][i] = parseDouble(l, len, 39, 43, 3);
+				branch.dbls[4][i] = parseDouble(l, len, 65, 68, 0);
+			}
+			return state;
+		}
+
+		private void append(Records r) {
+			bus.append(r.bus);
+			branch.append(r.branch);
+		}
+	}
+
+	private static class Table {
+		private int[][] ints;
+		private double[][] dbls;
+		private int size;
+
+		private Table(int ni, int nd) {
+			ints = new int[ni][64];
+			dbls = new double[nd][64];
+		}
+
+		private int next() {
+			if (size == ints[0].length) {
+				for (int c = 0; c < ints.length; c++)
+					ints[c] = Arrays.copyOf(ints[c], 2 * size);
+				for (int c = 0; c < dbls.length; c++)
+					dbls[c] = Arrays.copyOf(dbls[c], 2 * size);
+			}
+			return size++;
+		}
+
+		private void append(Table t) {
+			int need = size + t.size;
+			if (need > ints[0].length) {
+				int cap = Math.max(need, 2 * ints[0].length);
+				for (int c = 0; c < ints.length; c++)
+					ints[c] = Arrays.copyOf(ints[c], cap);
+				for (int c = 0; c < dbls.length; c++)
+					dbls[c] = Arrays.copyOf(dbls[c], cap);
+			}
+			for (int c = 0; c < ints.length; c++)
+				System.arraycopy(t.ints[c], 0, ints[c], size, t.size);
+			for (int c = 0; c < dbls.length; c++)
+				System.arraycopy(t.dbls[c], 0, dbls[c], size, t.size);
+			size = need;
+		}
+	}
+
+	/**
+	 * Caractere de uma coluna (numeração a partir de 1)
+	 */
+	private static char op(byte[] l, int len, int col) {
+		return col <= len ? (char) l[col - 1] : ' ';
+	}
+
+	/**
+	 * Converte o campo entre as colunas a e b (inclusive, numeração a partir de 1)
+	 */
+	private static int parseInt(byte[] l, int len, int a, int b) {
+		int i = a - 1, end = Math.min(b, len), v = 0;
+		boolean neg = false;
+		while (i < end && l[i] == ' ')
+			i++;
+		if (i < end && (l[i] == '-' || l[i] == '+'))
+			neg = l[i++] == '-';
+		for (; i < end; i++) {
+			int d = l[i] - '0';
+			if (d < 0 || d > 9) {
+				if (l[i] == ' ')
+					break;
+				throw new IllegalArgumentException("Campo inteiro inválido nas colunas " + a + "-" + b + ": "
+						+ new String(l, 0, len, StandardCharsets.ISO_8859_1));
+			}
+			v = 10 * v + d;
+		}
+		return neg ? -v : v;
+	}
+
+	/**
+	 * Converte o campo entre as colunas a e b com as casas decimais implícitas
+	 * (usadas somente se o campo não tiver ponto decimal)
+	 */
+	private static double parseDouble(byte[] l, int len, int a, int b, int implicit) {
+		int i = a - 1, end = Math.min(b, len), frac = -1;
+		long v = 0;
+		boolean neg = false, any = false;
+		while (i < end && l[i] == ' ')
+			i++;
+		if (i < end && (l[i] == '-' || l[i] == '+'))
+			neg = l[i++] == '-';
+		for (; i < end; i++) {
+			byte c = l[i];
+			if (c == '.' && frac < 0)
+				frac = 0;
+			else if (c >= '0' && c <= '9') {
+				v = 10 * v + (c - '0');
+				any = true;
+				if (frac >= 0)
+					frac++;
+			} else if (c == ' ')
+				break;
+			else
+				throw new IllegalArgumentException("Campo real inválido nas colunas " + a + "-" + b + ": "
+						+ new String(l, 0, len, StandardCharsets.ISO_8859_1));
+		}
+		if (!any)
+			return 0.;
+		double d = v / Math.pow(10, frac < 0 ? implicit : frac);
+		return neg ? -d : d;
+	}
+
+	@Override
+	public String toString() {
+		return "barras=" + graph.getVertexCount() + ", circuitos=" + graph.getEdgeCount();
+	}
+}
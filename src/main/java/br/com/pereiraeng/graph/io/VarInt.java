@@ -0,0 +1,139 @@
+package br.com.pereiraeng.graph.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Classe com as funções de codificação de inteiros não negativos em tamanho
+ * variável (7 bits por byte, com o bit mais significativo indicando que há mais
+ * bytes). Valores pequenos, como as diferenças entre identificadores
+ * consecutivos de uma lista ordenada, ocupam um único byte.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public final class VarInt {
+
+	private VarInt() {
+	}
+
+	/**
+	 * Função que retorna o número de bytes ocupados por um valor
+	 *
+	 * @param value valor (não negativo)
+	 * @return número de bytes (de 1 a 5)
+	 */
+	public static int size(int value) {
+		int s = 1;
+		while ((value & ~0x7F) != 0) {
+			value >>>= 7;
+			s++;
+		}
+		return s;
+	}
+
+	/**
+	 * Função que escreve um valor num vetor de bytes
+	 *
+	 * @param buf   vetor (deve ter espaço para {@link #size(int)} bytes)
+	 * @param pos   posição inicial
+	 * @param value valor (não negativo)
+	 * @return posição seguinte ao último byte escrito
+	 */
+	public static int write(byte[] buf, int pos, int value) {
+		while ((value & ~0x7F) != 0) {
+			buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buf[pos++] = (byte) value;
+		return pos;
+	}
+
+	/**
+	 * Função que lê um valor de um vetor de bytes
+	 *
+	 * @param buf vetor
+	 * @param pos posição inicial
+	 * @return valor lido
+	 */
+	public static int read(byte[] buf, int pos) {
+		int value = 0, shift = 0;
+		byte b;
+		do {
+			b = buf[pos++];
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while (b < 0);
+		return value;
+	}
+
+	/**
+	 * Função que retorna a posição seguinte ao valor que começa numa dada posição
+	 *
+	 * @param buf vetor
+	 * @param pos posição inicial do valor
+	 * @return posição do próximo valor
+	 */
+	public static int skip(byte[] buf, int pos) {
+		while (buf[pos++] < 0)
+			;
+		return pos;
+	}
+
+	/**
+	 * Função que escreve um valor num fluxo de saída
+	 *
+	 * @param out   fluxo
+	 * @param value valor (não negativo)
+	 * @throws IOException erro de escrita
+	 */
+	public static void write(OutputStream out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	/**
+	 * Função que lê um valor de um fluxo de entrada
+	 *
+	 * @param in fluxo
+	 * @return valor lido
+	 * @throws IOException erro de leitura ou fim do fluxo no meio do valor
+	 */
+	public static int read(InputStream in) throws IOException {
+		int value = 0, shift = 0, b;
+		do {
+			b = in.read();
+			if (b < 0)
+				throw new EOFException();
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	/**
+	 * Função que converte um inteiro com sinal num inteiro não negativo
+	 * (codificação 'zigue-zague': 0, -1, 1, -2, ... viram 0, 1, 2, 3, ...)
+	 *
+	 * @param value valor com sinal
+	 * @return valor codificado
+	 */
+	public static int zigZag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	/**
+	 * Função inversa de {@link #zigZag(int)}
+	 *
+	 * @param value valor codificado
+	 * @return valor com sinal
+	 */
+	public static int unZigZag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
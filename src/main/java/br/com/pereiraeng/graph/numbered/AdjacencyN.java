@@ -0,0 +1,83 @@
+package br.com.pereiraeng.graph.numbered;
+
+import br.com.pereiraeng.math.DuplaEmeio;
+
+/**
+ * Interface dos grafos numerados cujos vértices são identificados por índices
+ * densos (de 0 a n-1) e as arestas pela sua posição na tabela de arestas (de 0
+ * a m-1), com as listas de adjacência no formato CSR. É implementada pelo
+ * {@link CompactGraphN grafo compacto} em memória e pelos grafos lidos
+ * diretamente de arquivo.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public interface AdjacencyN {
+
+	public int getVertexCount();
+
+	public int getEdgeCount();
+
+	/**
+	 * Função que retorna o número de um vértice
+	 *
+	 * @param v índice denso do vértice
+	 * @return número do vértice
+	 */
+	public int getNum(int v);
+
+	/**
+	 * Função que retorna o índice denso de um vértice a partir do seu número
+	 *
+	 * @param num número do vértice
+	 * @return índice denso, ou -1 se o vértice não pertencer ao grafo
+	 */
+	public int indexOf(int num);
+
+	public default boolean contains(int num) {
+		return indexOf(num) >= 0;
+	}
+
+	/**
+	 * Função que retorna o número de arestas que partem de um vértice
+	 *
+	 * @param v índice denso do vértice
+	 * @return grau do vértice
+	 */
+	public int getDegree(int v);
+
+	/**
+	 * Função que retorna o k-ésimo vértice adjacente a um vértice
+	 *
+	 * @param v índice denso do vértice
+	 * @param k posição na lista de adjacência
+	 * @return índice denso do vértice adjacente
+	 */
+	public int getNeighbor(int v, int k);
+
+	/**
+	 * Função que retorna a aresta que liga um vértice ao seu k-ésimo vértice
+	 * adjacente
+	 *
+	 * @param v índice denso do vértice
+	 * @param k posição na lista de adjacência
+	 * @return identificador da aresta
+	 */
+	public int getEdgeId(int v, int k);
+
+	public int getFrom(int e);
+
+	public int getTo(int e);
+
+	public int getCircuit(int e);
+
+	/**
+	 * Função que retorna a {@link DuplaEmeio trinca} de uma aresta
+	 *
+	 * @param e identificador da aresta
+	 * @return trinca com os números dos vértices e o número do circuito
+	 */
+	public default DuplaEmeio getNums(int e) {
+		return new DuplaEmeio(getNum(getFrom(e)), getNum(getTo(e)), getCircuit(e));
+	}
+}
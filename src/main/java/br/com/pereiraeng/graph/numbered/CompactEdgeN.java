@@ -0,0 +1,99 @@
+package br.com.pereiraeng.graph.numbered;
+
+import br.com.pereiraeng.graph.Vertex;
+import br.com.pereiraeng.math.DuplaEmeio;
+
+/**
+ * Classe do objeto leve que representa uma aresta de um {@link CompactGraphN
+ * grafo compacto} através da interface {@link EdgeN}. O objeto guarda apenas o
+ * grafo e o identificador da aresta; os {@link CompactVertexN vértices} são
+ * criados sob demanda.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public final class CompactEdgeN implements EdgeN {
+
+	private final CompactGraphN graph;
+
+	private final int e;
+
+	CompactEdgeN(CompactGraphN graph, int e) {
+		this.graph = graph;
+		this.e = e;
+	}
+
+	// -------------- getter's --------------
+
+	public CompactGraphN getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Função que retorna o identificador da aresta no grafo compacto
+	 *
+	 * @return posição na tabela de arestas
+	 */
+	public int getId() {
+		return e;
+	}
+
+	@Override
+	public DuplaEmeio getNums() {
+		return graph.getNums(e);
+	}
+
+	@Override
+	public CompactVertexN getFrom() {
+		return new CompactVertexN(graph, graph.getFrom(e));
+	}
+
+	@Override
+	public CompactVertexN getTo() {
+		return new CompactVertexN(graph, graph.getTo(e));
+	}
+
+	@Override
+	public Vertex getOpposite(Vertex v) {
+		int i = indexOf(v);
+		if (i == graph.getFrom(e))
+			return getTo();
+		if (i == graph.getTo(e))
+			return getFrom();
+		return null;
+	}
+
+	@Override
+	public boolean contains(Vertex v) {
+		int i = indexOf(v);
+		return i >= 0 && (i == graph.getFrom(e) || i == graph.getTo(e));
+	}
+
+	private int indexOf(Vertex v) {
+		if (v instanceof CompactVertexN) {
+			CompactVertexN cv = (CompactVertexN) v;
+			return cv.getGraph() == graph ? cv.getIndex() : -1;
+		}
+		return -1;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof CompactEdgeN))
+			return false;
+		CompactEdgeN other = (CompactEdgeN) o;
+		return other.graph == graph && other.e == e;
+	}
+
+	@Override
+	public int hashCode() {
+		return e;
+	}
+
+	@Override
+	public String toString() {
+		return getNums().toString();
+	}
+}
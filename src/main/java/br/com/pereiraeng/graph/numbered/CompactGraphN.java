@@ -0,0 +1,366 @@
+package br.com.pereiraeng.graph.numbered;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import br.com.pereiraeng.math.DuplaEmeio;
+
+/**
+ * Classe do objeto que representa um {@link GraphN grafo numerado} de forma
+ * compacta: os vértices são renumerados densamente (índices de 0 a n-1) e as
+ * adjacências são guardadas em vetores primitivos no formato CSR
+ * (<i>compressed sparse row</i>). As arestas são identificadas pela sua posição
+ * na tabela de arestas (de 0 a m-1), que guarda os índices dos dois vértices e
+ * o número do circuito (terceiro campo da {@link DuplaEmeio trinca}).
+ * <p>
+ * Os objetos desta classe são imutáveis e os vetores retornados pelos métodos
+ * de acesso são os próprios vetores internos (não devem ser alterados).
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public class CompactGraphN implements AdjacencyN {
+
+	/**
+	 * Número de cada vértice, indexado pelo seu índice denso
+	 */
+	private final int[] nums;
+
+	/**
+	 * Números dos vértices em ordem crescente e seus respectivos índices (somente
+	 * se {@link #nums} não estiver ordenado)
+	 */
+	private final int[] sortedNums, sortedIdx;
+
+	/**
+	 * Posição inicial da lista de adjacência de cada vértice (n+1 posições)
+	 */
+	private final int[] offsets;
+
+	/**
+	 * Vértices adjacentes e arestas correspondentes (2m posições)
+	 */
+	private final int[] adj, adjEdges;
+
+	/**
+	 * Tabela de arestas: índices das extremidades e número do circuito
+	 */
+	private final int[] from, to, circ;
+
+	/**
+	 * Construtor do grafo compacto
+	 *
+	 * @param nums número de cada vértice (indexado pelo índice denso, sem
+	 *             repetições)
+	 * @param from índice denso do vértice de partida de cada aresta
+	 * @param to   índice denso do vértice de chegada de cada aresta
+	 * @param circ número do circuito de cada aresta (pode ser <code>null</code>,
+	 *             e nesse caso todos os circuitos valem 1)
+	 */
+	public CompactGraphN(int[] nums, int[] from, int[] to, int[] circ) {
+		if (nums == null || from == null || to == null)
+			throw new IllegalArgumentException("Vértices e arestas não podem ser nulos");
+		if (from.length != to.length || (circ != null && circ.length != from.length))
+			throw new IllegalArgumentException("Tabela de arestas com colunas de tamanhos distintos");
+		int n = nums.length, m = from.length;
+		this.nums = nums;
+		this.from = from;
+		this.to = to;
+		if (circ == null) {
+			circ = new int[m];
+			Arrays.fill(circ, 1);
+		}
+		this.circ = circ;
+
+		// índice de busca pelo número
+		int[][] index = EdgeKeys.numIndex(nums);
+		this.sortedNums = index[0];
+		this.sortedIdx = index[1];
+
+		// CSR por contagem
+		this.offsets = new int[n + 1];
+		for (int e = 0; e < m; e++) {
+			if (from[e] < 0 || from[e] >= n || to[e] < 0 || to[e] >= n)
+				throw new IllegalArgumentException("Aresta " + e + " com extremidade fora do grafo");
+			offsets[from[e] + 1]++;
+			offsets[to[e] + 1]++;
+		}
+		for (int i = 0; i < n; i++)
+			offsets[i + 1] += offsets[i];
+		int[] pos = Arrays.copyOf(offsets, n);
+		this.adj = new int[2 * m];
+		this.adjEdges = new int[2 * m];
+		for (int e = 0; e < m; e++) {
+			int a = from[e], b = to[e];
+			adj[pos[a]] = b;
+			adjEdges[pos[a]++] = e;
+			adj[pos[b]] = a;
+			adjEdges[pos[b]++] = e;
+		}
+	}
+
+	/**
+	 * Função que gera o grafo compacto a partir de um {@link GraphN grafo
+	 * numerado}. Os índices densos seguem a ordem crescente dos números dos
+	 * vértices e as arestas seguem a ordem de iteração das {@link GraphN#getEns()
+	 * trincas}.
+	 *
+	 * @param g grafo numerado
+	 * @return grafo compacto
+	 */
+	public static CompactGraphN of(GraphN g) {
+		Set<DuplaEmeio> ens = g.getEns();
+		int m = ens.size();
+		int[] n1 = new int[m], n2 = new int[m], c = new int[m];
+		int e = 0;
+		for (DuplaEmeio d : ens) {
+			n1[e] = d.get1();
+			n2[e] = d.get2();
+			c[e++] = d.get3();
+		}
+		int[] iso = new int[g.getIsolated().size()];
+		int i = 0;
+		for (Integer num : g.getIsolated())
+			iso[i++] = num;
+		return of(n1, n2, c, iso);
+	}
+
+	/**
+	 * Função que gera o grafo compacto a partir das colunas da tabela de arestas,
+	 * descritas pelos números dos vértices
+	 *
+	 * @param nums1    número do vértice de partida de cada aresta
+	 * @param nums2    número do vértice de chegada de cada aresta
+	 * @param circ     número do circuito de cada aresta (ou <code>null</code>)
+	 * @param isolated números de vértices sem arestas (ou <code>null</code>)
+	 * @return grafo compacto, com os índices densos em ordem crescente dos números
+	 *         dos vértices
+	 */
+	public static CompactGraphN of(int[] nums1, int[] nums2, int[] circ, int[] isolated) {
+		int m = nums1.length;
+		int ni = isolated == null ? 0 : isolated.length;
+		int[] all = new int[2 * m + ni];
+		System.arraycopy(nums1, 0, all, 0, m);
+		System.arraycopy(nums2, 0, all, m, m);
+		if (ni > 0)
+			System.arraycopy(isolated, 0, all, 2 * m, ni);
+		Arrays.sort(all);
+		int n = 0;
+		for (int i = 0; i < all.length; i++)
+			if (i == 0 || all[i] != all[i - 1])
+				all[n++] = all[i];
+		int[] nums = Arrays.copyOf(all, n);
+
+		int[] from = new int[m], to = new int[m];
+		for (int e = 0; e < m; e++) {
+			from[e] = Arrays.binarySearch(nums, nums1[e]);
+			to[e] = Arrays.binarySearch(nums, nums2[e]);
+		}
+		return new CompactGraphN(nums, from, to, circ == null ? null : circ.clone());
+	}
+
+	// -------------- getter's --------------
+
+	@Override
+	public int getVertexCount() {
+		return nums.length;
+	}
+
+	@Override
+	public int getEdgeCount() {
+		return from.length;
+	}
+
+	/**
+	 * Função que retorna o número de um vértice
+	 *
+	 * @param v índice denso do vértice
+	 * @return número do vértice
+	 */
+	@Override
+	public int getNum(int v) {
+		return nums[v];
+	}
+
+	/**
+	 * Função que retorna o índice denso de um vértice a partir do seu número
+	 *
+	 * @param num número do vértice
+	 * @return índice denso, ou -1 se o vértice não pertencer ao grafo
+	 */
+	@Override
+	public int indexOf(int num) {
+		return EdgeKeys.indexOf(sortedNums, sortedIdx, num);
+	}
+
+	@Override
+	public boolean contains(int num) {
+		return indexOf(num) >= 0;
+	}
+
+	/**
+	 * Função que retorna o número de arestas que partem de um vértice (arestas
+	 * paralelas são contadas separadamente)
+	 *
+	 * @param v índice denso do vértice
+	 * @return grau do vértice
+	 */
+	@Override
+	public int getDegree(int v) {
+		return offsets[v + 1] - offsets[v];
+	}
+
+	/**
+	 * Função que retorna o k-ésimo vértice adjacente a um vértice
+	 *
+	 * @param v índice denso do vértice
+	 * @param k posição na lista de adjacência (de 0 ao {@link #getDegree(int)
+	 *          grau} - 1)
+	 * @return índice denso do vértice adjacente
+	 */
+	@Override
+	public int getNeighbor(int v, int k) {
+		return adj[offsets[v] + k];
+	}
+
+	/**
+	 * Função que retorna a aresta que liga um vértice ao seu k-ésimo
+	 * {@link #getNeighbor(int, int) vértice adjacente}
+	 *
+	 * @param v índice denso do vértice
+	 * @param k posição na lista de adjacência
+	 * @return identificador da aresta
+	 */
+	@Override
+	public int getEdgeId(int v, int k) {
+		return adjEdges[offsets[v] + k];
+	}
+
+	@Override
+	public int getFrom(int e) {
+		return from[e];
+	}
+
+	@Override
+	public int getTo(int e) {
+		return to[e];
+	}
+
+	@Override
+	public int getCircuit(int e) {
+		return circ[e];
+	}
+
+	/**
+	 * Função que retorna a {@link DuplaEmeio trinca} de uma aresta
+	 *
+	 * @param e identificador da aresta
+	 * @return trinca com os números dos vértices e o número do circuito
+	 */
+	@Override
+	public DuplaEmeio getNums(int e) {
+		return new DuplaEmeio(nums[from[e]], nums[to[e]], circ[e]);
+	}
+
+	public int[] getNums() {
+		return nums;
+	}
+
+	public int[] getOffsets() {
+		return offsets;
+	}
+
+	public int[] getAdjacency() {
+		return adj;
+	}
+
+	public int[] getAdjacentEdges() {
+		return adjEdges;
+	}
+
+	// ---------------- visões ----------------
+
+	/**
+	 * Função que retorna um vértice como {@link VertexN}, para uso com os
+	 * algoritmos escritos sobre as interfaces {@link br.com.pereiraeng.graph.Vertex
+	 * Vertex} e {@link br.com.pereiraeng.graph.Edge Edge}
+	 *
+	 * @param v índice denso do vértice
+	 * @return vértice leve
+	 */
+	public CompactVertexN getVertex(int v) {
+		if (v < 0 || v >= nums.length)
+			throw new IndexOutOfBoundsException("Vértice " + v);
+		return new CompactVertexN(this, v);
+	}
+
+	/**
+	 * Função que retorna uma aresta como {@link EdgeN}
+	 *
+	 * @param e identificador da aresta
+	 * @return aresta leve
+	 */
+	public CompactEdgeN getEdge(int e) {
+		if (e < 0 || e >= from.length)
+			throw new IndexOutOfBoundsException("Aresta " + e);
+		return new CompactEdgeN(this, e);
+	}
+
+	/**
+	 * Função que retorna a lista (somente para leitura) de todos os vértices do
+	 * grafo, em ordem de índice denso. Os vértices são criados somente quando
+	 * acessados.
+	 *
+	 * @return vértices do grafo
+	 */
+	public List<CompactVertexN> getVertices() {
+		return new AbstractList<CompactVertexN>() {
+			@Override
+			public CompactVertexN get(int index) {
+				return getVertex(index);
+			}
+
+			@Override
+			public int size() {
+				return nums.length;
+			}
+
+			@Override
+			public boolean contains(Object o) {
+				return o instanceof CompactVertexN && ((CompactVertexN) o).getGraph() == CompactGraphN.this;
+			}
+
+			@Override
+			public int indexOf(Object o) {
+				return contains(o) ? ((CompactVertexN) o).getIndex() : -1;
+			}
+
+			@Override
+			public int lastIndexOf(Object o) {
+				return indexOf(o);
+			}
+		};
+	}
+
+	// ---------------- AUXILIAR ----------------
+
+	/**
+	 * Função que gera o {@link GraphN grafo numerado} equivalente a este grafo
+	 * compacto
+	 *
+	 * @return grafo numerado
+	 */
+	public GraphN toGraphN() {
+		Set<DuplaEmeio> ens = new HashSet<>(2 * from.length);
+		for (int e = 0; e < from.length; e++)
+			ens.add(getNums(e));
+		GraphN out = new GraphN(ens);
+		for (int v = 0; v < nums.length; v++)
+			if (getDegree(v) == 0)
+				out.isolated.add(nums[v]);
+		return out;
+	}
+}
@@ -0,0 +1,134 @@
+package br.com.pereiraeng.graph.numbered;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import br.com.pereiraeng.graph.Edge;
+
+/**
+ * Classe do objeto leve que representa um vértice de um {@link CompactGraphN
+ * grafo compacto} através da interface {@link VertexN}. O objeto guarda apenas
+ * o grafo e o índice denso do vértice, e o conjunto de
+ * {@link #getEdges() arestas} é uma visão sobre a lista de adjacência do grafo
+ * (as {@link CompactEdgeN arestas} são criadas somente durante a iteração).
+ * <p>
+ * Dois objetos são iguais se representam o mesmo vértice do mesmo grafo, de
+ * modo que podem ser criados livremente e usados em tabelas de dispersão. O
+ * grafo compacto é imutável, logo o método {@link #remove(Edge)} não é
+ * suportado.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public final class CompactVertexN implements VertexN {
+
+	private final CompactGraphN graph;
+
+	private final int v;
+
+	CompactVertexN(CompactGraphN graph, int v) {
+		this.graph = graph;
+		this.v = v;
+	}
+
+	// -------------- getter's --------------
+
+	public CompactGraphN getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Função que retorna o índice denso do vértice no grafo compacto
+	 *
+	 * @return índice denso
+	 */
+	public int getIndex() {
+		return v;
+	}
+
+	@Override
+	public int getNum() {
+		return graph.getNum(v);
+	}
+
+	@Override
+	public Set<CompactEdgeN> getEdges() {
+		return new AbstractSet<CompactEdgeN>() {
+
+			@Override
+			public int size() {
+				// laços aparecem duas vezes seguidas na lista de adjacência
+				int[] offsets = graph.getOffsets(), adj = graph.getAdjacency();
+				int c = 0;
+				for (int p = offsets[v]; p < offsets[v + 1]; p++)
+					if (!isRepeatedLoop(p, adj))
+						c++;
+				return c;
+			}
+
+			@Override
+			public boolean contains(Object o) {
+				if (!(o instanceof CompactEdgeN))
+					return false;
+				CompactEdgeN e = (CompactEdgeN) o;
+				return e.getGraph() == graph && (graph.getFrom(e.getId()) == v || graph.getTo(e.getId()) == v);
+			}
+
+			@Override
+			public Iterator<CompactEdgeN> iterator() {
+				return new Iterator<CompactEdgeN>() {
+					private final int[] offsets = graph.getOffsets(), adj = graph.getAdjacency(),
+							adjEdges = graph.getAdjacentEdges();
+
+					private int p = offsets[v];
+
+					@Override
+					public boolean hasNext() {
+						while (p < offsets[v + 1] && isRepeatedLoop(p, adj))
+							p++;
+						return p < offsets[v + 1];
+					}
+
+					@Override
+					public CompactEdgeN next() {
+						if (!hasNext())
+							throw new NoSuchElementException();
+						return new CompactEdgeN(graph, adjEdges[p++]);
+					}
+				};
+			}
+		};
+	}
+
+	private boolean isRepeatedLoop(int p, int[] adj) {
+		return adj[p] == v && p > graph.getOffsets()[v] && adj[p - 1] == v
+				&& graph.getAdjacentEdges()[p] == graph.getAdjacentEdges()[p - 1];
+	}
+
+	@Override
+	public void remove(Edge e) {
+		throw new UnsupportedOperationException("Grafo compacto é imutável");
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof CompactVertexN))
+			return false;
+		CompactVertexN other = (CompactVertexN) o;
+		return other.graph == graph && other.v == v;
+	}
+
+	@Override
+	public int hashCode() {
+		return v;
+	}
+
+	@Override
+	public String toString() {
+		return String.valueOf(getNum());
+	}
+}
@@ -0,0 +1,442 @@
+package br.com.pereiraeng.graph.numbered;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import br.com.pereiraeng.graph.io.VarInt;
+
+/**
+ * Classe do objeto que representa a topologia de um grafo numerado de forma
+ * comprimida e somente para leitura. A lista de adjacência de cada vértice é
+ * ordenada e guardada num vetor de bytes como diferenças entre vizinhos
+ * consecutivos codificadas em {@link VarInt tamanho variável} (o primeiro
+ * vizinho é guardado em relação ao próprio vértice), de modo que, com uma
+ * numeração que aproxime os vizinhos (ver
+ * {@link br.com.pereiraeng.graph.sparse.Relabeling}), a maioria das diferenças
+ * ocupa um único byte.
+ * <p>
+ * O início da lista de cada vértice é obtido a partir de uma âncora a cada
+ * {@value #STRIDE} vértices e do tamanho em bytes de cada lista. As listas
+ * longas guardam ainda o grau e ponteiros de salto a cada {@value #BLOCK}
+ * vizinhos, permitindo o acesso direto ao k-ésimo vizinho. Os identificadores e
+ * os circuitos das arestas não são guardados (as arestas paralelas aparecem
+ * como vizinhos repetidos); eles continuam disponíveis no grafo de origem.
+ * <p>
+ * O percurso das listas é feito pelo {@link Cursor cursor}, que não aloca
+ * objetos e pode ser reutilizado.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public final class CompressedGraphN {
+
+	/**
+	 * Número de vértices entre duas âncoras
+	 */
+	public static final int STRIDE = 8;
+
+	/**
+	 * Número de vizinhos entre dois ponteiros de salto das listas longas
+	 */
+	public static final int BLOCK = 64;
+
+	/**
+	 * Tamanho das listas curtas (a partir do qual a lista é longa)
+	 */
+	private static final int LONG = 0xFF;
+
+	private final int[] nums;
+
+	/**
+	 * Números dos vértices em ordem crescente e seus respectivos índices (somente
+	 * se {@link #nums} não estiver ordenado)
+	 */
+	private final int[] sortedNums, sortedIdx;
+
+	private final int edges;
+
+	/**
+	 * Posição da lista do vértice v*{@value #STRIDE}
+	 */
+	private final int[] anchors;
+
+	/**
+	 * Tamanho em bytes de cada lista curta, ou {@value #LONG} para as listas
+	 * longas
+	 */
+	private final byte[] lens;
+
+	private final byte[] data;
+
+	/**
+	 * Construtor do grafo comprimido a partir de um grafo com listas de adjacência
+	 *
+	 * @param graph grafo de origem (compacto ou mapeado)
+	 */
+	public CompressedGraphN(AdjacencyN graph) {
+		int n = graph.getVertexCount();
+		this.nums = new int[n];
+		for (int v = 0; v < n; v++)
+			nums[v] = graph.getNum(v);
+		this.edges = graph.getEdgeCount();
+
+		int[][] index = EdgeKeys.numIndex(nums);
+		this.sortedNums = index[0];
+		this.sortedIdx = index[1];
+
+		this.anchors = new int[(n + STRIDE - 1) / STRIDE + 1];
+		this.lens = new byte[n];
+		byte[] buf = new byte[Math.max(64, 2 * graph.getEdgeCount() + 2 * n)];
+		int[] nb = new int[16];
+		byte[] body = new byte[64];
+		int pos = 0;
+		for (int v = 0; v < n; v++) {
+			if (v % STRIDE == 0)
+				anchors[v / STRIDE] = pos;
+			int deg = graph.getDegree(v);
+			if (deg > nb.length)
+				nb = new int[Math.max(deg, 2 * nb.length)];
+			for (int k = 0; k < deg; k++)
+				nb[k] = graph.getNeighbor(v, k);
+			Arrays.sort(nb, 0, deg);
+
+			// corpo: blocos de vizinhos, cada um iniciado em relação ao vértice
+			int blocks = deg > BLOCK ? (deg - 1) / BLOCK : 0;
+			if (body.length < 5 * deg + 4 * blocks)
+				body = new byte[5 * deg + 4 * blocks];
+			int bp = 4 * blocks;
+			for (int k = 0; k < deg; k++) {
+				if (k % BLOCK == 0) {
+					if (k > 0) {
+						int b = k / BLOCK - 1;
+						body[4 * b] = (byte) (bp >>> 24);
+						body[4 * b + 1] = (byte) (bp >>> 16);
+						body[4 * b + 2] = (byte) (bp >>> 8);
+						body[4 * b + 3] = (byte) bp;
+					}
+					bp = VarInt.write(body, bp, VarInt.zigZag(nb[k] - v));
+				} else
+					bp = VarInt.write(body, bp, nb[k] - nb[k - 1]);
+			}
+
+			int need = bp + 10;
+			if (pos + need > buf.length)
+				buf = Arrays.copyOf(buf, Math.max(pos + need, buf.length + (buf.length >> 1)));
+			if (blocks == 0 && bp < LONG) {
+				lens[v] = (byte) bp;
+			} else {
+				// lista longa: tamanho do restante, grau, ponteiros de salto e corpo
+				lens[v] = (byte) LONG;
+				int rest = VarInt.size(deg) + bp;
+				pos = VarInt.write(buf, pos, rest);
+				pos = VarInt.write(buf, pos, deg);
+			}
+			System.arraycopy(body, 0, buf, pos, bp);
+			pos += bp;
+		}
+		anchors[anchors.length - 1] = pos;
+		this.data = Arrays.copyOf(buf, pos);
+	}
+
+	// -------------- getter's --------------
+
+	public int getVertexCount() {
+		return nums.length;
+	}
+
+	/**
+	 * Função que retorna o número de arestas do grafo de origem
+	 *
+	 * @return número de arestas
+	 */
+	public int getEdgeCount() {
+		return edges;
+	}
+
+	public int getNum(int v) {
+		return nums[v];
+	}
+
+	/**
+	 * Função que retorna o índice denso de um vértice a partir do seu número
+	 *
+	 * @param num número do vértice
+	 * @return índice denso, ou -1 se o vértice não pertencer ao grafo
+	 */
+	public int indexOf(int num) {
+		return EdgeKeys.indexOf(sortedNums, sortedIdx, num);
+	}
+
+	public boolean contains(int num) {
+		return indexOf(num) >= 0;
+	}
+
+	/**
+	 * Função que retorna o número de vizinhos de um vértice (arestas paralelas são
+	 * contadas separadamente, e os laços duas vezes)
+	 *
+	 * @param v índice denso do vértice
+	 * @return grau do vértice
+	 */
+	public int getDegree(int v) {
+		int p = position(v), len = lens[v] & 0xFF;
+		if (len == LONG)
+			return VarInt.read(data, VarInt.skip(data, p));
+		// numa lista curta, cada valor termina num byte com o bit mais
+		// significativo nulo
+		int deg = 0;
+		for (int i = p; i < p + len; i++)
+			if (data[i] >= 0)
+				deg++;
+		return deg;
+	}
+
+	/**
+	 * Função que retorna o k-ésimo vizinho de um vértice (em ordem crescente de
+	 * índice)
+	 *
+	 * @param v índice denso do vértice
+	 * @param k posição na lista de adjacência (de 0 ao {@link #getDegree(int)
+	 *          grau} - 1)
+	 * @return índice denso do vizinho
+	 */
+	public int getNeighbor(int v, int k) {
+		int p = position(v);
+		if ((lens[v] & 0xFF) == LONG) {
+			p = VarInt.skip(data, p);
+			int deg = VarInt.read(data, p);
+			if (k < 0 || k >= deg)
+				throw new IndexOutOfBoundsException("Vizinho " + k + " de " + deg);
+			p = VarInt.skip(data, p);
+			int b = k / BLOCK;
+			if (b > 0) {
+				int s = p + 4 * (b - 1);
+				p += ((data[s] & 0xFF) << 24) | ((data[s + 1] & 0xFF) << 16) | ((data[s + 2] & 0xFF) << 8)
+						| (data[s + 3] & 0xFF);
+			} else
+				p += 4 * ((deg - 1) / BLOCK);
+			k -= b * BLOCK;
+		}
+		int w = v + VarInt.unZigZag(VarInt.read(data, p));
+		for (int i = 0; i < k; i++) {
+			p = VarInt.skip(data, p);
+			w += VarInt.read(data, p);
+		}
+		return w;
+	}
+
+	/**
+	 * Função que cria um cursor para percorrer as listas de adjacência
+	 *
+	 * @return cursor (deve ser {@link Cursor#reset(int) posicionado} num vértice)
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	/**
+	 * Função que retorna o número de bytes das listas de adjacência
+	 *
+	 * @return tamanho do vetor de bytes
+	 */
+	public int getDataSize() {
+		return data.length;
+	}
+
+	/**
+	 * Função que estima a memória ocupada pela topologia (listas, âncoras e
+	 * tamanhos, sem os números dos vértices)
+	 *
+	 * @return número de bits por aresta
+	 */
+	public double getBitsPerEdge() {
+		return edges == 0 ? 0. : 8. * (data.length + lens.length + 4L * anchors.length) / edges;
+	}
+
+	// -------------- algoritmos --------------
+
+	/**
+	 * Função que faz a busca em largura a partir de um vértice
+	 *
+	 * @param v índice denso do vértice de partida
+	 * @return distância (em número de arestas) de cada vértice, ou -1 para os
+	 *         vértices não alcançados
+	 */
+	public int[] bfs(int v) {
+		int n = nums.length;
+		int[] dist = new int[n], queue = new int[n];
+		Arrays.fill(dist, -1);
+		Cursor c = new Cursor();
+		dist[v] = 0;
+		queue[0] = v;
+		int head = 0, tail = 1;
+		while (head < tail) {
+			int u = queue[head++];
+			c.reset(u);
+			while (c.hasNext()) {
+				int w = c.next();
+				if (dist[w] < 0) {
+					dist[w] = dist[u] + 1;
+					queue[tail++] = w;
+				}
+			}
+		}
+		return dist;
+	}
+
+	/**
+	 * Função que identifica os componentes conexos do grafo
+	 *
+	 * @return componente de cada vértice (de 0 ao número de componentes - 1)
+	 */
+	public int[] getComponents() {
+		int n = nums.length;
+		int[] comp = new int[n], queue = new int[n];
+		Arrays.fill(comp, -1);
+		Cursor c = new Cursor();
+		int count = 0;
+		for (int s = 0; s < n; s++) {
+			if (comp[s] >= 0)
+				continue;
+			comp[s] = count;
+			queue[0] = s;
+			int head = 0, tail = 1;
+			while (head < tail) {
+				c.reset(queue[head++]);
+				while (c.hasNext()) {
+					int w = c.next();
+					if (comp[w] < 0) {
+						comp[w] = count;
+						queue[tail++] = w;
+					}
+				}
+			}
+			count++;
+		}
+		return comp;
+	}
+
+	/**
+	 * Função que gera o grafo compacto com a mesma topologia. Como os circuitos
+	 * não são guardados, as arestas paralelas recebem os circuitos 1, 2, ...
+	 *
+	 * @return grafo compacto
+	 */
+	public CompactGraphN toCompactGraphN() {
+		int[] from = new int[edges], to = new int[edges], circ = new int[edges];
+		Cursor c = new Cursor();
+		int m = 0;
+		for (int v = 0; v < nums.length; v++) {
+			c.reset(v);
+			int prev = -1, rep = 0;
+			while (c.hasNext()) {
+				int w = c.next();
+				rep = w == prev ? rep + 1 : 1;
+				prev = w;
+				// cada aresta a partir do extremo de menor índice (os laços aparecem
+				// duas vezes na lista)
+				if (w < v || (w == v && (rep & 1) == 0))
+					continue;
+				from[m] = v;
+				to[m] = w;
+				circ[m++] = w == v ? rep / 2 + 1 : rep;
+			}
+		}
+		return new CompactGraphN(nums.clone(), Arrays.copyOf(from, m), Arrays.copyOf(to, m),
+				Arrays.copyOf(circ, m));
+	}
+
+	// ---------------- AUXILIAR ----------------
+
+	/**
+	 * Função que retorna a posição da lista de um vértice no vetor de bytes
+	 */
+	private int position(int v) {
+		int a = v / STRIDE;
+		int p = anchors[a];
+		for (int u = a * STRIDE; u < v; u++) {
+			int len = lens[u] & 0xFF;
+			if (len == LONG) {
+				int rest = VarInt.read(data, p);
+				p = VarInt.skip(data, p) + rest;
+			} else
+				p += len;
+		}
+		return p;
+	}
+
+	/**
+	 * Cursor que percorre a lista de adjacência de um vértice, decodificando os
+	 * vizinhos sob demanda
+	 */
+	public final class Cursor {
+		private int v, pos, end, nextBlock, value;
+
+		private Cursor() {
+		}
+
+		/**
+		 * Função que posiciona o cursor no início da lista de um vértice
+		 *
+		 * @param v índice denso do vértice
+		 * @return este cursor
+		 */
+		public Cursor reset(int v) {
+			this.v = v;
+			int p = position(v), len = lens[v] & 0xFF;
+			if (len == LONG) {
+				int rest = VarInt.read(data, p);
+				p = VarInt.skip(data, p);
+				end = p + rest;
+				int deg = VarInt.read(data, p);
+				p = VarInt.skip(data, p) + 4 * ((deg - 1) / BLOCK);
+			} else
+				end = p + len;
+			pos = p;
+			nextBlock = 0;
+			return this;
+		}
+
+		public boolean hasNext() {
+			return pos < end;
+		}
+
+		/**
+		 * Função que retorna o próximo vizinho
+		 *
+		 * @return índice denso do vizinho
+		 */
+		public int next() {
+			if (pos >= end)
+				throw new NoSuchElementException();
+			// decodificação em linha (um único passo por valor)
+			int x = 0, shift = 0;
+			byte b;
+			do {
+				b = data[pos++];
+				x |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			if (nextBlock-- == 0) {
+				value = v + VarInt.unZigZag(x);
+				nextBlock = BLOCK - 1;
+			} else
+				value += x;
+			return value;
+		}
+
+		/**
+		 * Função que retorna o vértice da lista percorrida
+		 *
+		 * @return índice denso do vértice
+		 */
+		public int getVertex() {
+			return v;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "vértices=" + nums.length + ", arestas=" + edges + ", bytes=" + data.length;
+	}
+}
@@ -0,0 +1,650 @@
+package br.com.pereiraeng.graph.numbered;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import br.com.pereiraeng.math.DuplaEmeio;
+
+/**
+ * Classe do objeto que representa um grafo numerado que pode ser lido e
+ * alterado por várias threads ao mesmo tempo, sem uma trava global.
+ * <p>
+ * O grafo é publicado como um instantâneo imutável e versionado, referenciado
+ * por um campo volátil: as listas de adjacência dos vértices são vetores
+ * imutáveis, guardados em blocos de {@value #CHUNK} posições, e cada alteração
+ * cria um novo instantâneo que compartilha com o anterior todos os blocos que
+ * não foram alterados (<i>copy-on-write</i>). As threads que alteram o grafo
+ * obtêm as travas das faixas (<i>stripes</i>) dos vértices envolvidos, de modo
+ * que alterações de vértices distintos preparam as suas listas em paralelo;
+ * somente a montagem do novo instantâneo (cópia do índice dos blocos e dos
+ * blocos alterados) é feita sob uma trava dos escritores, por um intervalo
+ * muito curto.
+ * <p>
+ * As leituras (percursos) executadas por {@link #read(Function)} enxergam o
+ * instantâneo publicado no seu início: elas nunca são bloqueadas nem repetidas,
+ * e as alterações feitas durante a leitura só são vistas pelas leituras
+ * seguintes.
+ * <p>
+ * Cada número de vértice recebe uma posição fixa na primeira vez em que é
+ * incluído (reaproveitada se ele for removido e incluído de novo), de modo que
+ * os percursos usam vetores indexados pela posição em vez de conjuntos.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public class ConcurrentGraphN {
+
+	/**
+	 * Número de posições de cada bloco de listas de adjacência
+	 */
+	private static final int CHUNK = 256;
+
+	private static final int SHIFT = 8;
+
+	private static final int[] EMPTY = new int[0];
+
+	/**
+	 * Posição de cada número de vértice (nunca removida)
+	 */
+	private final ConcurrentHashMap<Integer, Integer> slots;
+
+	private final AtomicInteger nextSlot;
+
+	private final ReentrantLock[] stripes;
+
+	/**
+	 * Trava dos escritores para a montagem do novo instantâneo (não é usada pelas
+	 * leituras)
+	 */
+	private final ReentrantLock publish;
+
+	private volatile Snapshot current;
+
+	public ConcurrentGraphN() {
+		this(4 * Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Construtor do grafo
+	 *
+	 * @param stripes número de faixas de travas dos vértices
+	 */
+	public ConcurrentGraphN(int stripes) {
+		if (stripes < 1)
+			throw new IllegalArgumentException("Deve haver ao menos uma faixa de travas");
+		this.slots = new ConcurrentHashMap<>();
+		this.nextSlot = new AtomicInteger();
+		int s = 1;
+		while (s < stripes)
+			s <<= 1;
+		this.stripes = new ReentrantLock[s];
+		for (int i = 0; i < this.stripes.length; i++)
+			this.stripes[i] = new ReentrantLock();
+		this.publish = new ReentrantLock();
+		this.current = new Snapshot(new Adj[0][], 0, 0, 0L);
+	}
+
+	/**
+	 * Construtor do grafo a partir de um grafo numerado
+	 *
+	 * @param g grafo
+	 */
+	public ConcurrentGraphN(GraphN g) {
+		this();
+		for (DuplaEmeio d : g.getEns())
+			add(d);
+		for (int num : g.getIsolated())
+			addVertex(num);
+	}
+
+	// -------------- escrita --------------
+
+	/**
+	 * Função que adiciona um vértice (isolado)
+	 *
+	 * @param num número do vértice
+	 * @return <code>true</code> se o vértice não pertencia ao grafo
+	 */
+	public boolean addVertex(int num) {
+		ReentrantLock l = stripe(num);
+		l.lock();
+		try {
+			int s = slot(num);
+			if (current.get(s) != null)
+				return false;
+			publish(new int[] { s }, new Adj[] { new Adj(num) }, 1, 0);
+			return true;
+		} finally {
+			l.unlock();
+		}
+	}
+
+	public boolean add(DuplaEmeio e) {
+		return add(e.get1(), e.get2(), e.get3());
+	}
+
+	/**
+	 * Função que adiciona uma aresta (e os seus vértices, se necessário)
+	 *
+	 * @param num1 número de um dos vértices
+	 * @param num2 número do outro vértice
+	 * @param circ número do circuito
+	 * @return <code>true</code> se a aresta não pertencia ao grafo
+	 */
+	public boolean add(int num1, int num2, int circ) {
+		lock(num1, num2);
+		try {
+			Snapshot c = current;
+			int s1 = slot(num1), s2 = slot(num2), added = 0;
+			Adj a1 = c.get(s1);
+			if (a1 != null && a1.indexOf(num2, circ) >= 0)
+				return false;
+			if (a1 == null) {
+				a1 = new Adj(num1);
+				added++;
+			}
+			Adj n1 = a1.plus(num2, s2, circ);
+			if (num1 == num2)
+				publish(new int[] { s1 }, new Adj[] { n1 }, added, 1);
+			else {
+				Adj a2 = c.get(s2);
+				if (a2 == null) {
+					a2 = new Adj(num2);
+					added++;
+				}
+				publish(new int[] { s1, s2 }, new Adj[] { n1, a2.plus(num1, s1, circ) }, added, 1);
+			}
+			return true;
+		} finally {
+			unlock(num1, num2);
+		}
+	}
+
+	public boolean remove(DuplaEmeio e) {
+		return remove(e.get1(), e.get2(), e.get3());
+	}
+
+	/**
+	 * Função que remove uma aresta (os vértices são mantidos)
+	 *
+	 * @param num1 número de um dos vértices
+	 * @param num2 número do outro vértice
+	 * @param circ número do circuito
+	 * @return <code>true</code> se a aresta pertencia ao grafo
+	 */
+	public boolean remove(int num1, int num2, int circ) {
+		lock(num1, num2);
+		try {
+			Snapshot c = current;
+			Integer s1 = slots.get(num1);
+			Adj a1 = s1 == null ? null : c.get(s1);
+			int i1 = a1 == null ? -1 : a1.indexOf(num2, circ);
+			if (i1 < 0)
+				return false;
+			if (num1 == num2)
+				publish(new int[] { s1 }, new Adj[] { a1.minus(i1) }, 0, -1);
+			else {
+				int s2 = slots.get(num2);
+				Adj a2 = c.get(s2);
+				publish(new int[] { s1, s2 }, new Adj[] { a1.minus(i1), a2.minus(a2.indexOf(num1, circ)) }, 0, -1);
+			}
+			return true;
+		} finally {
+			unlock(num1, num2);
+		}
+	}
+
+	/**
+	 * Função que remove um vértice e as arestas ligadas a ele
+	 *
+	 * @param num número do vértice
+	 * @return <code>true</code> se o vértice pertencia ao grafo
+	 */
+	public boolean removeVertex(int num) {
+		Integer slot = slots.get(num);
+		if (slot == null)
+			return false;
+		while (true) {
+			Adj a = current.get(slot);
+			if (a == null)
+				return false;
+			// travas do vértice e dos vizinhos, em ordem crescente para evitar impasses
+			boolean[] held = new boolean[stripes.length];
+			held[stripeIndex(num)] = true;
+			for (int w : a.nums)
+				held[stripeIndex(w)] = true;
+			for (int i = 0; i < held.length; i++)
+				if (held[i])
+					stripes[i].lock();
+			try {
+				// a lista pode ter mudado antes da obtenção das travas
+				Snapshot c = current;
+				if (c.get(slot) != a)
+					continue;
+				Map<Integer, Adj> nw = new HashMap<>();
+				for (int i = 0; i < a.nums.length; i++) {
+					int w = a.slots[i];
+					if (w == slot)
+						continue;
+					Adj aw = nw.containsKey(w) ? nw.get(w) : c.get(w);
+					nw.put(w, aw.minus(aw.indexOf(num, a.circs[i])));
+				}
+				int[] ss = new int[nw.size() + 1];
+				Adj[] as = new Adj[ss.length];
+				ss[0] = slot;
+				int k = 1;
+				for (Map.Entry<Integer, Adj> en : nw.entrySet()) {
+					ss[k] = en.getKey();
+					as[k++] = en.getValue();
+				}
+				publish(ss, as, -1, -a.nums.length);
+				return true;
+			} finally {
+				for (int i = held.length - 1; i >= 0; i--)
+					if (held[i])
+						stripes[i].unlock();
+			}
+		}
+	}
+
+	// -------------- leitura --------------
+
+	/**
+	 * Função que executa uma leitura sobre o instantâneo atual do grafo, sem
+	 * travas nem repetições: alterações concorrentes não são vistas pela função
+	 *
+	 * @param <T>    tipo do resultado
+	 * @param reader função de leitura
+	 * @return resultado da função
+	 */
+	public <T> T read(Function<View, T> reader) {
+		return reader.apply(new View(current));
+	}
+
+	/**
+	 * Função que retorna uma visão do instantâneo atual do grafo, que não muda
+	 * com as alterações posteriores
+	 *
+	 * @return visão imutável
+	 */
+	public View view() {
+		return new View(current);
+	}
+
+	public boolean contains(int num) {
+		return view().contains(num);
+	}
+
+	/**
+	 * Função que verifica se uma aresta pertence ao grafo
+	 *
+	 * @param num1 número de um dos vértices
+	 * @param num2 número do outro vértice
+	 * @param circ número do circuito
+	 * @return <code>true</code> se a aresta pertence ao grafo
+	 */
+	public boolean contains(int num1, int num2, int circ) {
+		Adj a = view().adj(num1);
+		return a != null && a.indexOf(num2, circ) >= 0;
+	}
+
+	public int getDegree(int num) {
+		return view().getDegree(num);
+	}
+
+	/**
+	 * Função que retorna os vizinhos de um vértice
+	 *
+	 * @param num número do vértice
+	 * @return cópia da lista de adjacência (vizinhos repetidos para as arestas
+	 *         paralelas)
+	 */
+	public int[] getNeighbors(int num) {
+		return view().getNeighbors(num).clone();
+	}
+
+	public int getVertexCount() {
+		return current.vertices;
+	}
+
+	public int getEdgeCount() {
+		return current.edges;
+	}
+
+	/**
+	 * Função que retorna a versão do grafo, i.e., o número de alterações já
+	 * publicadas
+	 *
+	 * @return versão
+	 */
+	public long getVersion() {
+		return current.version;
+	}
+
+	/**
+	 * Função que retorna os vértices alcançáveis a partir de um vértice (sobre um
+	 * instantâneo consistente)
+	 *
+	 * @param num número do vértice de partida
+	 * @return números dos vértices alcançáveis, na ordem de visita
+	 */
+	public int[] bfs(int num) {
+		return view().bfs(num);
+	}
+
+	/**
+	 * Função que copia um instantâneo consistente do grafo
+	 *
+	 * @return grafo compacto
+	 */
+	public CompactGraphN snapshot() {
+		return view().toCompactGraphN();
+	}
+
+	/**
+	 * Função que copia um instantâneo consistente do grafo
+	 *
+	 * @return grafo numerado
+	 */
+	public GraphN toGraphN() {
+		return snapshot().toGraphN();
+	}
+
+	@Override
+	public String toString() {
+		Snapshot c = current;
+		return String.format("ConcurrentGraphN[%d vértices, %d arestas, versão %d]", c.vertices, c.edges, c.version);
+	}
+
+	// ---------------- AUXILIAR ----------------
+
+	private int slot(int num) {
+		return slots.computeIfAbsent(num, k -> nextSlot.getAndIncrement());
+	}
+
+	/**
+	 * Função que publica um novo instantâneo com as listas de adjacência de
+	 * algumas posições substituídas
+	 *
+	 * @param ss     posições alteradas
+	 * @param as     novas listas (<code>null</code> para remover o vértice)
+	 * @param dv     variação do número de vértices
+	 * @param dEdges variação do número de arestas
+	 */
+	private void publish(int[] ss, Adj[] as, int dv, int dEdges) {
+		publish.lock();
+		try {
+			Snapshot c = current;
+			int need = c.chunks.length;
+			for (int s : ss)
+				need = Math.max(need, (s >>> SHIFT) + 1);
+			Adj[][] chunks = Arrays.copyOf(c.chunks, need);
+			boolean[] copied = new boolean[ss.length];
+			for (int i = 0; i < ss.length; i++) {
+				int b = ss[i] >>> SHIFT;
+				// cada bloco é copiado uma única vez
+				boolean done = false;
+				for (int j = 0; j < i; j++)
+					if (copied[j] && ss[j] >>> SHIFT == b)
+						done = true;
+				if (!done) {
+					chunks[b] = chunks[b] == null ? new Adj[CHUNK] : chunks[b].clone();
+					copied[i] = true;
+				}
+				chunks[b][ss[i] & (CHUNK - 1)] = as[i];
+			}
+			current = new Snapshot(chunks, c.vertices + dv, c.edges + dEdges, c.version + 1);
+		} finally {
+			publish.unlock();
+		}
+	}
+
+	private int stripeIndex(int num) {
+		int h = num * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & (stripes.length - 1);
+	}
+
+	private ReentrantLock stripe(int num) {
+		return stripes[stripeIndex(num)];
+	}
+
+	private void lock(int num1, int num2) {
+		int i1 = stripeIndex(num1), i2 = stripeIndex(num2);
+		stripes[Math.min(i1, i2)].lock();
+		if (i1 != i2)
+			stripes[Math.max(i1, i2)].lock();
+	}
+
+	private void unlock(int num1, int num2) {
+		int i1 = stripeIndex(num1), i2 = stripeIndex(num2);
+		if (i1 != i2)
+			stripes[Math.max(i1, i2)].unlock();
+		stripes[Math.min(i1, i2)].unlock();
+	}
+
+	/**
+	 * Instantâneo imutável do grafo
+	 */
+	private static final class Snapshot {
+		private final Adj[][] chunks;
+		private final int vertices, edges;
+		private final long version;
+
+		private Snapshot(Adj[][] chunks, int vertices, int edges, long version) {
+			this.chunks = chunks;
+			this.vertices = vertices;
+			this.edges = edges;
+			this.version = version;
+		}
+
+		private Adj get(int slot) {
+			int b = slot >>> SHIFT;
+			if (b >= chunks.length || chunks[b] == null)
+				return null;
+			return chunks[b][slot & (CHUNK - 1)];
+		}
+
+		private int capacity() {
+			return chunks.length << SHIFT;
+		}
+	}
+
+	/**
+	 * Lista de adjacência imutável de um vértice
+	 */
+	private static final class Adj {
+		private final int num;
+
+		/**
+		 * Números e posições dos vizinhos e circuitos das arestas
+		 */
+		private final int[] nums, slots, circs;
+
+		private Adj(int num) {
+			this(num, EMPTY, EMPTY, EMPTY);
+		}
+
+		private Adj(int num, int[] nums, int[] slots, int[] circs) {
+			this.num = num;
+			this.nums = nums;
+			this.slots = slots;
+			this.circs = circs;
+		}
+
+		private int indexOf(int num, int circ) {
+			for (int i = 0; i < nums.length; i++)
+				if (nums[i] == num && circs[i] == circ)
+					return i;
+			return -1;
+		}
+
+		private Adj plus(int num, int slot, int circ) {
+			int n = nums.length;
+			int[] ns = Arrays.copyOf(nums, n + 1), ss = Arrays.copyOf(slots, n + 1), cs = Arrays.copyOf(circs, n + 1);
+			ns[n] = num;
+			ss[n] = slot;
+			cs[n] = circ;
+			return new Adj(this.num, ns, ss, cs);
+		}
+
+		private Adj minus(int i) {
+			return new Adj(num, cut(nums, i), cut(slots, i), cut(circs, i));
+		}
+
+		private static int[] cut(int[] a, int i) {
+			int n = a.length - 1;
+			int[] out = new int[n];
+			System.arraycopy(a, 0, out, 0, i);
+			System.arraycopy(a, i + 1, out, i, n - i);
+			return out;
+		}
+	}
+
+	/**
+	 * Classe do objeto que dá acesso a um instantâneo do grafo (ver
+	 * {@link #read(Function)})
+	 */
+	public final class View {
+
+		private final Snapshot snap;
+
+		private View(Snapshot snap) {
+			this.snap = snap;
+		}
+
+		private Adj adj(int num) {
+			Integer s = slots.get(num);
+			return s == null ? null : snap.get(s);
+		}
+
+		public boolean contains(int num) {
+			return adj(num) != null;
+		}
+
+		public int getDegree(int num) {
+			Adj a = adj(num);
+			return a == null ? 0 : a.nums.length;
+		}
+
+		/**
+		 * Função que retorna o k-ésimo vizinho de um vértice
+		 *
+		 * @param num número do vértice
+		 * @param k   posição na lista de adjacência
+		 * @return número do vizinho
+		 */
+		public int getNeighbor(int num, int k) {
+			return getNeighbors(num)[k];
+		}
+
+		/**
+		 * Função que retorna os vizinhos de um vértice (o vetor não deve ser alterado)
+		 *
+		 * @param num número do vértice
+		 * @return lista de adjacência
+		 */
+		public int[] getNeighbors(int num) {
+			Adj a = adj(num);
+			return a == null ? EMPTY : a.nums;
+		}
+
+		/**
+		 * Função que retorna os circuitos das arestas de um vértice, na mesma ordem
+		 * dos {@link #getNeighbors(int) vizinhos} (o vetor não deve ser alterado)
+		 *
+		 * @param num número do vértice
+		 * @return circuitos
+		 */
+		public int[] getCircuits(int num) {
+			Adj a = adj(num);
+			return a == null ? EMPTY : a.circs;
+		}
+
+		public int getVertexCount() {
+			return snap.vertices;
+		}
+
+		public int getEdgeCount() {
+			return snap.edges;
+		}
+
+		public long getVersion() {
+			return snap.version;
+		}
+
+		/**
+		 * Função que retorna os números dos vértices do instantâneo
+		 *
+		 * @return números dos vértices
+		 */
+		public int[] getVs() {
+			int[] out = new int[snap.vertices];
+			int k = 0;
+			for (Adj[] chunk : snap.chunks)
+				if (chunk != null)
+					for (Adj a : chunk)
+						if (a != null)
+							out[k++] = a.num;
+			return out;
+		}
+
+		private int[] bfs(int num) {
+			Integer start = slots.get(num);
+			if (start == null || snap.get(start) == null)
+				return EMPTY;
+			boolean[] seen = new boolean[snap.capacity()];
+			int[] queue = new int[16], out = new int[16];
+			int head = 0, tail = 0;
+			queue[tail] = start;
+			out[tail++] = num;
+			seen[start] = true;
+			while (head < tail) {
+				Adj a = snap.get(queue[head++]);
+				for (int i = 0; i < a.slots.length; i++) {
+					int w = a.slots[i];
+					if (!seen[w]) {
+						seen[w] = true;
+						if (tail == queue.length) {
+							queue = Arrays.copyOf(queue, 2 * tail);
+							out = Arrays.copyOf(out, 2 * tail);
+						}
+						queue[tail] = w;
+						out[tail++] = a.nums[i];
+					}
+				}
+			}
+			return Arrays.copyOf(out, tail);
+		}
+
+		private CompactGraphN toCompactGraphN() {
+			int m = snap.edges, ni = 0;
+			for (Adj[] chunk : snap.chunks)
+				if (chunk != null)
+					for (Adj a : chunk)
+						if (a != null && a.nums.length == 0)
+							ni++;
+			int[] n1 = new int[m], n2 = new int[m], circ = new int[m], iso = new int[ni];
+			int e = 0, i = 0;
+			for (Adj[] chunk : snap.chunks)
+				if (chunk != null)
+					for (Adj a : chunk) {
+						if (a == null)
+							continue;
+						if (a.nums.length == 0)
+							iso[i++] = a.num;
+						for (int k = 0; k < a.nums.length; k++)
+							if (a.num <= a.nums[k]) {
+								n1[e] = a.num;
+								n2[e] = a.nums[k];
+								circ[e++] = a.circs[k];
+							}
+					}
+			return CompactGraphN.of(Arrays.copyOf(n1, e), Arrays.copyOf(n2, e), Arrays.copyOf(circ, e), iso);
+		}
+	}
+}
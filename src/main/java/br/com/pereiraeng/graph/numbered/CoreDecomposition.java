@@ -0,0 +1,224 @@
+package br.com.pereiraeng.graph.numbered;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import br.com.pereiraeng.math.DuplaEmeio;
+
+/**
+ * Classe do objeto que representa a decomposição em k-núcleos de um
+ * {@link CompactGraphN grafo numerado}: o k-núcleo é o maior subgrafo em que
+ * todos os vértices têm pelo menos k vizinhos, e o número de núcleo de um
+ * vértice é o maior k para o qual ele pertence ao k-núcleo. O 2-núcleo é a
+ * parte malhada da rede, sem as cadeias radiais.
+ * <p>
+ * A decomposição é obtida pela remoção sucessiva dos vértices de menor grau,
+ * com atualização do grau dos vizinhos, usando uma fila de baldes (algoritmo
+ * de Batagelj e Zaversnik, linear no número de arestas). Laços não contam no
+ * grau; os circuitos paralelos contam uma única vez, a menos que a
+ * decomposição seja {@link #of(CompactGraphN, boolean) pedida} com cada
+ * circuito contando no grau (como em
+ * {@link br.com.pereiraeng.graph.GraphUtils#removeEndPoints(java.util.Collection)
+ * GraphUtils.removeEndPoints}, em que duas barras ligadas por um circuito duplo
+ * pertencem ao 2-núcleo).
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public class CoreDecomposition {
+
+	private final CompactGraphN graph;
+
+	private final int[] core;
+
+	private CoreDecomposition(CompactGraphN graph, boolean parallel) {
+		this.graph = graph;
+		int n = graph.getVertexCount();
+		int[] offsets = graph.getOffsets(), adj = graph.getAdjacency();
+
+		// lista de adjacência sem laços (e sem repetições, se os circuitos
+		// paralelos não contarem)
+		int[] xadj = new int[n + 1], nbrs = new int[adj.length], mark = new int[n];
+		Arrays.fill(mark, -1);
+		int len = 0;
+		for (int v = 0; v < n; v++) {
+			mark[v] = v;
+			for (int p = offsets[v]; p < offsets[v + 1]; p++) {
+				int u = adj[p];
+				if (parallel ? u != v : mark[u] != v) {
+					mark[u] = v;
+					nbrs[len++] = u;
+				}
+			}
+			xadj[v + 1] = len;
+		}
+		this.core = getCoreNumbers(xadj, nbrs);
+	}
+
+	/**
+	 * Função que calcula a decomposição em k-núcleos de um grafo
+	 *
+	 * @param graph grafo
+	 * @return decomposição
+	 */
+	public static CoreDecomposition of(CompactGraphN graph) {
+		return new CoreDecomposition(graph, false);
+	}
+
+	/**
+	 * Função que calcula a decomposição em k-núcleos de um grafo
+	 *
+	 * @param graph    grafo
+	 * @param parallel <code>true</code> para que cada circuito paralelo conte no
+	 *                 grau (o k-núcleo passa a ser o do multigrafo, o mesmo de
+	 *                 {@link br.com.pereiraeng.graph.GraphUtils#getCoreNumbers(java.util.Collection, boolean)
+	 *                 GraphUtils.getCoreNumbers}), <code>false</code> para contar
+	 *                 só os vizinhos distintos
+	 * @return decomposição
+	 */
+	public static CoreDecomposition of(CompactGraphN graph, boolean parallel) {
+		return new CoreDecomposition(graph, parallel);
+	}
+
+	/**
+	 * Função que calcula o número de núcleo de cada vértice de um grafo descrito
+	 * no formato CSR, sem laços (arestas repetidas contam uma vez cada no grau,
+	 * como num multigrafo)
+	 *
+	 * @param xadj posição inicial da lista de adjacência de cada vértice (n+1
+	 *             posições)
+	 * @param adj  vértices adjacentes
+	 * @return número de núcleo de cada vértice
+	 */
+	public static int[] getCoreNumbers(int[] xadj, int[] adj) {
+		int n = xadj.length - 1;
+		int[] deg = new int[n];
+		int maxDeg = 0;
+		for (int v = 0; v < n; v++) {
+			deg[v] = xadj[v + 1] - xadj[v];
+			maxDeg = Math.max(maxDeg, deg[v]);
+		}
+
+		// baldes: vert em ordem de grau, bin[d] = início do balde d
+		int[] bin = new int[maxDeg + 1];
+		for (int v = 0; v < n; v++)
+			bin[deg[v]]++;
+		int start = 0;
+		for (int d = 0; d <= maxDeg; d++) {
+			int c = bin[d];
+			bin[d] = start;
+			start += c;
+		}
+		int[] vert = new int[n], pos = new int[n];
+		for (int v = 0; v < n; v++) {
+			pos[v] = bin[deg[v]]++;
+			vert[pos[v]] = v;
+		}
+		for (int d = maxDeg; d > 0; d--)
+			bin[d] = bin[d - 1];
+		bin[0] = 0;
+
+		// remoção do vértice de menor grau, atualizando os vizinhos
+		for (int i = 0; i < n; i++) {
+			int v = vert[i];
+			for (int p = xadj[v]; p < xadj[v + 1]; p++) {
+				int u = adj[p];
+				if (deg[u] > deg[v]) {
+					int du = deg[u], pu = pos[u];
+					int pw = bin[du], w = vert[pw];
+					if (u != w) { // troca u com o primeiro do seu balde
+						pos[u] = pw;
+						vert[pu] = w;
+						pos[w] = pu;
+						vert[pw] = u;
+					}
+					bin[du]++;
+					deg[u]--;
+				}
+			}
+		}
+		return deg;
+	}
+
+	// -------------- getter's --------------
+
+	public CompactGraphN getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Função que retorna o número de núcleo de cada vértice
+	 *
+	 * @return vetor indexado pelo índice denso do vértice
+	 */
+	public int[] getCoreNumbers() {
+		return core;
+	}
+
+	/**
+	 * Função que retorna o número de núcleo de um vértice a partir do seu número
+	 *
+	 * @param num número do vértice
+	 * @return número de núcleo, ou -1 se o vértice não pertencer ao grafo
+	 */
+	public int getCoreNumber(int num) {
+		int v = graph.indexOf(num);
+		return v < 0 ? -1 : core[v];
+	}
+
+	/**
+	 * Função que retorna o maior k para o qual o k-núcleo não é vazio
+	 *
+	 * @return degenerescência do grafo
+	 */
+	public int getDegeneracy() {
+		int max = 0;
+		for (int c : core)
+			max = Math.max(max, c);
+		return max;
+	}
+
+	/**
+	 * Função que retorna os vértices do k-núcleo
+	 *
+	 * @param k ordem do núcleo
+	 * @return índices densos dos vértices com número de núcleo maior ou igual a k
+	 */
+	public int[] getCore(int k) {
+		int c = 0;
+		for (int x : core)
+			if (x >= k)
+				c++;
+		int[] out = new int[c];
+		c = 0;
+		for (int v = 0; v < core.length; v++)
+			if (core[v] >= k)
+				out[c++] = v;
+		return out;
+	}
+
+	/**
+	 * Função que retorna o subgrafo induzido pelo k-núcleo (para k = 2, a parte
+	 * malhada da rede)
+	 *
+	 * @param k ordem do núcleo
+	 * @return subgrafo numerado
+	 */
+	public GraphN getCoreGraph(int k) {
+		Set<DuplaEmeio> ens = new HashSet<>();
+		boolean[] linked = new boolean[core.length];
+		for (int e = 0; e < graph.getEdgeCount(); e++) {
+			int a = graph.getFrom(e), b = graph.getTo(e);
+			if (core[a] >= k && core[b] >= k) {
+				ens.add(graph.getNums(e));
+				linked[a] = linked[b] = true;
+			}
+		}
+		GraphN out = new GraphN(ens);
+		for (int v = 0; v < core.length; v++)
+			if (core[v] >= k && !linked[v])
+				out.isolated.add(graph.getNum(v));
+		return out;
+	}
+}
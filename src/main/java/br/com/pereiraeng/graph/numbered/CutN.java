@@ -1,5 +1,6 @@
 package br.com.pereiraeng.graph.numbered;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -156,8 +157,8 @@ public class CutN extends FixPosSet<DuplaEmeio> {
 	 *         se não
 	 */
 	public static boolean isCut(GraphN graphN, CutN cut) {
-		// TODO viva a matemática discreta
-		return false;
+		CompactGraphN g = CompactGraphN.of(graphN);
+		return MaskedGraphN.of(g).isCut(getEdgeIds(g, cut));
 	}
 
 	/**
@@ -170,7 +171,45 @@ public class CutN extends FixPosSet<DuplaEmeio> {
 	 *         <code>false</code> se não
 	 */
 	public static boolean isOrdered(GraphN graphN, CutN cut) {
-		// TODO viva a matemática discreta
-		return false;
+		if (!cut.isOrdered())
+			return false;
+		CompactGraphN g = CompactGraphN.of(graphN);
+		int[] ids = getEdgeIds(g, cut);
+		MaskedGraphN s = MaskedGraphN.of(g, ids);
+		if (ids.length == 0 || s.getComponentCount() <= MaskedGraphN.of(g).getComponentCount())
+			return false;
+
+		// as primeiras posições devem estar todas de um mesmo lado do corte
+		int[] comp = s.getComponents();
+		Set<Integer> inside = new HashSet<>(), outside = new HashSet<>();
+		for (DuplaEmeio d : cut) {
+			int v1 = g.indexOf(d.get1()), v2 = g.indexOf(d.get2());
+			if (v1 < 0 || v2 < 0)
+				return false;
+			inside.add(comp[v1]);
+			outside.add(comp[v2]);
+		}
+		for (Integer c : inside)
+			if (outside.contains(c))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Função que localiza no grafo compacto as arestas de um corte (em qualquer
+	 * sentido)
+	 */
+	private static int[] getEdgeIds(CompactGraphN g, CutN cut) {
+		int[] out = new int[g.getEdgeCount()];
+		int c = 0;
+		for (int e = 0; e < g.getEdgeCount(); e++) {
+			int n1 = g.getNum(g.getFrom(e)), n2 = g.getNum(g.getTo(e)), circ = g.getCircuit(e);
+			for (DuplaEmeio d : cut)
+				if (d.get3() == circ && ((d.get1() == n1 && d.get2() == n2) || (d.get1() == n2 && d.get2() == n1))) {
+					out[c++] = e;
+					break;
+				}
+		}
+		return Arrays.copyOf(out, c);
 	}
 }
\ No newline at end of file
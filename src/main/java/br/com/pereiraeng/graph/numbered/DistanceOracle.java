@@ -0,0 +1,502 @@
+package br.com.pereiraeng.graph.numbered;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Classe do objeto que estima a distância entre quaisquer dois vértices de um
+ * grafo a partir das distâncias, calculadas uma única vez, de k vértices de
+ * referência (marcos) até todos os demais. Pela desigualdade triangular, para
+ * cada marco l:
+ *
+ * <pre>
+ * |d(l,u) - d(l,v)| &lt;= d(u,v) &lt;= d(l,u) + d(l,v)
+ * </pre>
+ *
+ * de modo que os limites inferior e superior são obtidos em O(k). As distâncias
+ * são o número de arestas ou a soma dos pesos (e.g., impedâncias) das arestas,
+ * que não podem ser negativos. As buscas que partem de cada marco (em largura
+ * ou de Dijkstra) podem ser executadas em paralelo, e as distâncias são
+ * guardadas numa matriz com as k distâncias de cada vértice contíguas.
+ * <p>
+ * Os mesmos limites inferiores servem de heurística para a busca A* (ALT), que
+ * retorna o caminho mínimo exato visitando muito menos vértices que a busca de
+ * Dijkstra.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public final class DistanceOracle {
+
+	private final AdjacencyN graph;
+
+	/**
+	 * Peso de cada aresta, indexado pelo seu identificador (nulo para a distância
+	 * em número de arestas)
+	 */
+	private final double[] weights;
+
+	/**
+	 * Índices densos dos marcos
+	 */
+	private final int[] landmarks;
+
+	/**
+	 * Distância de cada vértice v ao marco i, na posição v*k + i (infinita se o
+	 * vértice não for alcançável)
+	 */
+	private final double[] dist;
+
+	/**
+	 * Vetores de trabalho da busca A*, reaproveitados pelas consultas de cada
+	 * thread
+	 */
+	private final ThreadLocal<Workspace> workspace;
+
+	private DistanceOracle(AdjacencyN graph, double[] weights, int[] landmarks, double[] dist) {
+		this.graph = graph;
+		this.weights = weights;
+		this.landmarks = landmarks;
+		this.dist = dist;
+		int n = graph.getVertexCount();
+		this.workspace = ThreadLocal.withInitial(() -> new Workspace(n));
+	}
+
+	/**
+	 * Função que constrói o oráculo escolhendo os marcos pelo critério do mais
+	 * afastado (ver {@link #selectLandmarks(AdjacencyN, int)})
+	 *
+	 * @param graph    grafo
+	 * @param weights  peso de cada aresta, indexado pelo seu identificador (ou
+	 *                 <code>null</code> para a distância em número de arestas)
+	 * @param k        número de marcos
+	 * @param parallel <code>true</code> para calcular as distâncias dos marcos em
+	 *                 paralelo
+	 * @return oráculo
+	 */
+	public static DistanceOracle build(AdjacencyN graph, double[] weights, int k, boolean parallel) {
+		if (graph == null)
+			throw new IllegalArgumentException("Grafo não pode ser nulo");
+		return build(graph, weights, selectLandmarks(graph, k), parallel);
+	}
+
+	/**
+	 * Função que constrói o oráculo a partir de marcos escolhidos
+	 *
+	 * @param graph     grafo
+	 * @param weights   peso de cada aresta, indexado pelo seu identificador (ou
+	 *                  <code>null</code> para a distância em número de arestas)
+	 * @param landmarks índices densos dos marcos
+	 * @param parallel  <code>true</code> para calcular as distâncias dos marcos em
+	 *                  paralelo
+	 * @return oráculo
+	 */
+	public static DistanceOracle build(AdjacencyN graph, double[] weights, int[] landmarks, boolean parallel) {
+		if (graph == null || landmarks == null)
+			throw new IllegalArgumentException("nenhum dos args pode ser null");
+		int n = graph.getVertexCount(), k = landmarks.length;
+		if (weights != null) {
+			if (weights.length < graph.getEdgeCount())
+				throw new IllegalArgumentException("Deve haver um peso para cada aresta");
+			for (double w : weights)
+				if (!(w >= 0.))
+					throw new IllegalArgumentException("Os pesos das arestas não podem ser negativos: " + w);
+		}
+		for (int l : landmarks)
+			if (l < 0 || l >= n)
+				throw new IllegalArgumentException("Marco inexistente: " + l);
+		if ((long) n * k > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException(
+					"Tabela de distâncias grande demais: " + n + " vértices x " + k + " marcos");
+		int[] ls = landmarks.clone();
+		double[] dist = new double[n * k];
+		IntStream is = IntStream.range(0, k);
+		if (parallel)
+			is = is.parallel();
+		is.forEach(i -> {
+			double[] d = weights == null ? hops(graph, ls[i]) : dijkstra(graph, weights, ls[i]);
+			for (int v = 0; v < n; v++)
+				dist[v * k + i] = d[v];
+		});
+		return new DistanceOracle(graph, weights, ls, dist);
+	}
+
+	/**
+	 * Função que escolhe os marcos de modo a espalhá-los pelo grafo: o primeiro é o
+	 * vértice mais afastado (em número de arestas) de um vértice qualquer, e cada
+	 * um dos seguintes é o mais afastado dos já escolhidos. Os vértices das
+	 * componentes ainda sem marco são considerados infinitamente afastados, de
+	 * modo que cada componente recebe ao menos um marco (se houver marcos
+	 * suficientes)
+	 *
+	 * @param graph grafo
+	 * @param k     número de marcos
+	 * @return índices densos dos marcos
+	 */
+	public static int[] selectLandmarks(AdjacencyN graph, int k) {
+		int n = graph.getVertexCount();
+		if (k < 1)
+			throw new IllegalArgumentException("Deve haver ao menos um marco");
+		k = Math.min(k, n);
+		int[] out = new int[k];
+		if (k == 0)
+			return out;
+		double[] min = new double[n];
+		Arrays.fill(min, Double.POSITIVE_INFINITY);
+		double[] d = hops(graph, 0);
+		int next = argmax(d);
+		for (int i = 0; i < k; i++) {
+			out[i] = next;
+			d = hops(graph, next);
+			for (int v = 0; v < n; v++)
+				if (d[v] < min[v])
+					min[v] = d[v];
+			next = argmax(min);
+		}
+		return out;
+	}
+
+	// -------------- consultas --------------
+
+	/**
+	 * Função que retorna o limite inferior da distância entre dois vértices
+	 *
+	 * @param num1 número do primeiro vértice
+	 * @param num2 número do segundo vértice
+	 * @return limite inferior, ou infinito se os vértices certamente não
+	 *         estiverem ligados
+	 */
+	public double getLowerBound(int num1, int num2) {
+		return lowerBound(index(num1), index(num2));
+	}
+
+	/**
+	 * Função que retorna o limite superior da distância entre dois vértices
+	 *
+	 * @param num1 número do primeiro vértice
+	 * @param num2 número do segundo vértice
+	 * @return limite superior, ou infinito se nenhum marco alcançar os dois
+	 *         vértices
+	 */
+	public double getUpperBound(int num1, int num2) {
+		return upperBound(index(num1), index(num2));
+	}
+
+	public double lowerBound(int v, int w) {
+		if (v == w)
+			return 0.;
+		int k = landmarks.length, pv = v * k, pw = w * k;
+		double lb = 0.;
+		for (int i = 0; i < k; i++) {
+			double dv = dist[pv + i], dw = dist[pw + i];
+			if (dv == Double.POSITIVE_INFINITY) {
+				// marco de outra componente: se alcançar um dos vértices, eles não estão
+				// ligados
+				if (dw != Double.POSITIVE_INFINITY)
+					return Double.POSITIVE_INFINITY;
+			} else if (dw == Double.POSITIVE_INFINITY)
+				return Double.POSITIVE_INFINITY;
+			else {
+				double d = Math.abs(dv - dw);
+				if (d > lb)
+					lb = d;
+			}
+		}
+		return lb;
+	}
+
+	public double upperBound(int v, int w) {
+		if (v == w)
+			return 0.;
+		int k = landmarks.length, pv = v * k, pw = w * k;
+		double ub = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < k; i++) {
+			double d = dist[pv + i] + dist[pw + i];
+			if (d < ub)
+				ub = d;
+		}
+		return ub;
+	}
+
+	/**
+	 * Função que retorna a distância exata entre dois vértices pela busca A*
+	 *
+	 * @param num1 número do vértice de partida
+	 * @param num2 número do vértice de chegada
+	 * @return distância, ou infinito se os vértices não estiverem ligados
+	 */
+	public double getDistance(int num1, int num2) {
+		Route r = search(index(num1), index(num2));
+		return r == null ? Double.POSITIVE_INFINITY : r.length;
+	}
+
+	/**
+	 * Função que retorna o caminho mínimo entre dois vértices pela busca A*
+	 *
+	 * @param num1 número do vértice de partida
+	 * @param num2 número do vértice de chegada
+	 * @return números dos vértices do caminho (incluindo as extremidades), ou
+	 *         <code>null</code> se os vértices não estiverem ligados
+	 */
+	public int[] getPath(int num1, int num2) {
+		int[] path = path(index(num1), index(num2));
+		if (path != null)
+			for (int i = 0; i < path.length; i++)
+				path[i] = graph.getNum(path[i]);
+		return path;
+	}
+
+	/**
+	 * Função que retorna o caminho mínimo entre dois vértices pela busca A*
+	 *
+	 * @param v índice denso do vértice de partida
+	 * @param w índice denso do vértice de chegada
+	 * @return índices densos dos vértices do caminho (incluindo as extremidades),
+	 *         ou <code>null</code> se os vértices não estiverem ligados
+	 */
+	public int[] path(int v, int w) {
+		Route r = search(v, w);
+		return r == null ? null : r.path;
+	}
+
+	// -------------- getter's --------------
+
+	public AdjacencyN getGraph() {
+		return graph;
+	}
+
+	public int getLandmarkCount() {
+		return landmarks.length;
+	}
+
+	/**
+	 * Função que retorna o índice denso de um marco
+	 *
+	 * @param i posição do marco
+	 * @return índice denso
+	 */
+	public int getLandmark(int i) {
+		return landmarks[i];
+	}
+
+	/**
+	 * Função que retorna a distância de um vértice a um marco
+	 *
+	 * @param i posição do marco
+	 * @param v índice denso do vértice
+	 * @return distância, ou infinito se o vértice não for alcançável
+	 */
+	public double getLandmarkDistance(int i, int v) {
+		return dist[v * landmarks.length + i];
+	}
+
+	// ---------------- AUXILIAR ----------------
+
+	private int index(int num) {
+		int v = graph.indexOf(num);
+		if (v < 0)
+			throw new IllegalArgumentException("Vértice inexistente: " + num);
+		return v;
+	}
+
+	/**
+	 * Função que executa a busca A* com a heurística dos marcos
+	 *
+	 * @param s vértice de partida
+	 * @param t vértice de chegada
+	 * @return distância e caminho, ou <code>null</code> se os vértices não
+	 *         estiverem ligados
+	 */
+	private Route search(int s, int t) {
+		if (lowerBound(s, t) == Double.POSITIVE_INFINITY)
+			return null;
+		// os vetores não são limpos: uma posição só vale se tiver a marca da
+		// consulta atual
+		Workspace ws = workspace.get();
+		int q = ws.next();
+		double[] g = ws.g;
+		int[] pred = ws.pred, seen = ws.seen, closed = ws.closed;
+		Heap open = ws.open;
+		open.size = 0;
+		g[s] = 0.;
+		pred[s] = -1;
+		seen[s] = q;
+		open.push(lowerBound(s, t), s);
+		while (!open.isEmpty()) {
+			int u = open.pop();
+			if (closed[u] == q)
+				continue;
+			if (u == t) {
+				int len = 0;
+				for (int x = t; x >= 0; x = pred[x])
+					len++;
+				int[] path = new int[len];
+				for (int x = t, i = len - 1; x >= 0; x = pred[x])
+					path[i--] = x;
+				return new Route(g[t], path);
+			}
+			closed[u] = q;
+			for (int k = 0, deg = graph.getDegree(u); k < deg; k++) {
+				int w = graph.getNeighbor(u, k);
+				if (closed[w] == q)
+					continue;
+				double d = g[u] + (weights == null ? 1. : weights[graph.getEdgeId(u, k)]);
+				if (seen[w] != q || d < g[w]) {
+					seen[w] = q;
+					g[w] = d;
+					pred[w] = u;
+					open.push(d + lowerBound(w, t), w);
+				}
+			}
+		}
+		return null;
+	}
+
+	private static int argmax(double[] d) {
+		int best = 0;
+		for (int v = 1; v < d.length; v++)
+			if (d[v] > d[best])
+				best = v;
+		return best;
+	}
+
+	private static double[] hops(AdjacencyN graph, int s) {
+		int n = graph.getVertexCount();
+		double[] d = new double[n];
+		Arrays.fill(d, Double.POSITIVE_INFINITY);
+		int[] queue = new int[n];
+		int head = 0, tail = 0;
+		d[s] = 0.;
+		queue[tail++] = s;
+		while (head < tail) {
+			int u = queue[head++];
+			double du = d[u] + 1.;
+			for (int k = 0, deg = graph.getDegree(u); k < deg; k++) {
+				int w = graph.getNeighbor(u, k);
+				if (d[w] == Double.POSITIVE_INFINITY) {
+					d[w] = du;
+					queue[tail++] = w;
+				}
+			}
+		}
+		return d;
+	}
+
+	private static double[] dijkstra(AdjacencyN graph, double[] weights, int s) {
+		int n = graph.getVertexCount();
+		double[] d = new double[n];
+		Arrays.fill(d, Double.POSITIVE_INFINITY);
+		boolean[] done = new boolean[n];
+		Heap heap = new Heap();
+		d[s] = 0.;
+		heap.push(0., s);
+		while (!heap.isEmpty()) {
+			int u = heap.pop();
+			if (done[u])
+				continue;
+			done[u] = true;
+			for (int k = 0, deg = graph.getDegree(u); k < deg; k++) {
+				int w = graph.getNeighbor(u, k);
+				double dw = d[u] + weights[graph.getEdgeId(u, k)];
+				if (dw < d[w]) {
+					d[w] = dw;
+					heap.push(dw, w);
+				}
+			}
+		}
+		return d;
+	}
+
+	private static class Route {
+		private final double length;
+
+		private final int[] path;
+
+		private Route(double length, int[] path) {
+			this.length = length;
+			this.path = path;
+		}
+	}
+
+	/**
+	 * Vetores de trabalho da busca A* de uma thread. As posições são marcadas com
+	 * o número da consulta, de modo que nenhuma limpeza é necessária entre as
+	 * consultas
+	 */
+	private static class Workspace {
+		private final double[] g;
+		private final int[] pred, seen, closed;
+		private final Heap open = new Heap();
+		private int query;
+
+		private Workspace(int n) {
+			this.g = new double[n];
+			this.pred = new int[n];
+			this.seen = new int[n];
+			this.closed = new int[n];
+		}
+
+		private int next() {
+			if (query == Integer.MAX_VALUE) {
+				Arrays.fill(seen, 0);
+				Arrays.fill(closed, 0);
+				query = 0;
+			}
+			return ++query;
+		}
+	}
+
+	/**
+	 * Fila de prioridade binária de vértices (as entradas obsoletas são
+	 * descartadas por quem as retira)
+	 */
+	private static class Heap {
+		private double[] keys = new double[64];
+
+		private int[] vs = new int[64];
+
+		private int size;
+
+		private boolean isEmpty() {
+			return size == 0;
+		}
+
+		private void push(double key, int v) {
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, 2 * size);
+				vs = Arrays.copyOf(vs, 2 * size);
+			}
+			int i = size++;
+			while (i > 0) {
+				int p = (i - 1) >>> 1;
+				if (keys[p] <= key)
+					break;
+				keys[i] = keys[p];
+				vs[i] = vs[p];
+				i = p;
+			}
+			keys[i] = key;
+			vs[i] = v;
+		}
+
+		private int pop() {
+			int top = vs[0];
+			double key = keys[--size];
+			int v = vs[size];
+			int i = 0, half = size >>> 1;
+			while (i < half) {
+				int c = 2 * i + 1;
+				if (c + 1 < size && keys[c + 1] < keys[c])
+					c++;
+				if (key <= keys[c])
+					break;
+				keys[i] = keys[c];
+				vs[i] = vs[c];
+				i = c;
+			}
+			keys[i] = key;
+			vs[i] = v;
+			return top;
+		}
+	}
+}
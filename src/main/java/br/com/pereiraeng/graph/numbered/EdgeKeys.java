@@ -0,0 +1,211 @@
+package br.com.pereiraeng.graph.numbered;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Classe com as funções auxiliares (de uso interno da biblioteca) das
+ * estruturas que indexam vértices e arestas por número: a chave de 64 bits de
+ * um par de vértices, a ordenação de registros de dois vetores em paralelo e a
+ * busca do índice denso de um vértice a partir do seu número.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public final class EdgeKeys {
+
+	/**
+	 * Tamanho a partir do qual as partes da ordenação paralela são divididas
+	 */
+	private static final int PARALLEL_THRESHOLD = 1 << 13;
+
+	private EdgeKeys() {
+	}
+
+	// ---------------- chaves ----------------
+
+	/**
+	 * Função que retorna a chave de um par de vértices, cuja ordem (como
+	 * <code>long</code>) segue a ordem do primeiro e depois do segundo número
+	 *
+	 * @param num1 número do primeiro vértice (32 bits mais significativos)
+	 * @param num2 número do segundo vértice
+	 * @return chave
+	 */
+	public static long key(int num1, int num2) {
+		// segundo número com o bit de sinal invertido, para que a ordem das chaves
+		// siga a ordem dos números
+		return ((long) num1 << 32) | ((num2 ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+	}
+
+	public static int num1(long key) {
+		return (int) (key >> 32);
+	}
+
+	public static int num2(long key) {
+		return (int) key ^ Integer.MIN_VALUE;
+	}
+
+	// ---------------- ordenação ----------------
+
+	/**
+	 * Função que ordena os registros (pares de <code>long</code>) pelo primeiro e
+	 * depois pelo segundo valor
+	 *
+	 * @param hi       primeiro valor de cada registro
+	 * @param lo       segundo valor de cada registro
+	 * @param size     número de registros
+	 * @param parallel <code>true</code> para dividir a ordenação entre as
+	 *                 threads do {@link ForkJoinPool#commonPool() pool comum}
+	 */
+	public static void sort(long[] hi, long[] lo, int size, boolean parallel) {
+		if (parallel && size > PARALLEL_THRESHOLD)
+			ForkJoinPool.commonPool().invoke(new SortTask(hi, lo, 0, size - 1));
+		else
+			SortTask.sort(hi, lo, 0, size - 1, null);
+	}
+
+	/**
+	 * Ordenação rápida dos dois vetores em paralelo; na versão paralela, a parte
+	 * maior de cada partição é repassada a outra tarefa
+	 */
+	@SuppressWarnings("serial")
+	private static class SortTask extends RecursiveAction {
+		private final long[] hi, lo;
+		private final int from, to;
+
+		private SortTask(long[] hi, long[] lo, int from, int to) {
+			this.hi = hi;
+			this.lo = lo;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			sort(hi, lo, from, to, this);
+		}
+
+		private static void sort(long[] hi, long[] lo, int l, int h, SortTask task) {
+			List<SortTask> forked = null;
+			while (h - l > 16) {
+				int mid = (l + h) >>> 1;
+				// mediana de três como pivô
+				if (cmp(hi, lo, mid, l) < 0)
+					swap(hi, lo, mid, l);
+				if (cmp(hi, lo, h, l) < 0)
+					swap(hi, lo, h, l);
+				if (cmp(hi, lo, h, mid) < 0)
+					swap(hi, lo, h, mid);
+				long ph = hi[mid], pl = lo[mid];
+				int i = l, j = h;
+				while (i <= j) {
+					while (hi[i] < ph || (hi[i] == ph && lo[i] < pl))
+						i++;
+					while (hi[j] > ph || (hi[j] == ph && lo[j] > pl))
+						j--;
+					if (i <= j)
+						swap(hi, lo, i++, j--);
+				}
+				// parte menor nesta tarefa, maior em outra (ou recursivamente)
+				int sl, sh;
+				if (j - l < h - i) {
+					sl = l;
+					sh = j;
+					l = i;
+				} else {
+					sl = i;
+					sh = h;
+					h = j;
+				}
+				if (task != null && h - l > PARALLEL_THRESHOLD && sh - sl > PARALLEL_THRESHOLD) {
+					SortTask t = new SortTask(hi, lo, sl, sh);
+					t.fork();
+					if (forked == null)
+						forked = new ArrayList<>();
+					forked.add(t);
+				} else
+					sort(hi, lo, sl, sh, task);
+			}
+			for (int i = l + 1; i <= h; i++) {
+				long kh = hi[i], kl = lo[i];
+				int j = i - 1;
+				while (j >= l && (hi[j] > kh || (hi[j] == kh && lo[j] > kl))) {
+					hi[j + 1] = hi[j];
+					lo[j + 1] = lo[j];
+					j--;
+				}
+				hi[j + 1] = kh;
+				lo[j + 1] = kl;
+			}
+			if (forked != null)
+				for (SortTask t : forked)
+					t.join();
+		}
+
+		private static int cmp(long[] hi, long[] lo, int i, int j) {
+			int c = Long.compare(hi[i], hi[j]);
+			return c != 0 ? c : Long.compare(lo[i], lo[j]);
+		}
+
+		private static void swap(long[] hi, long[] lo, int i, int j) {
+			long t = hi[i];
+			hi[i] = hi[j];
+			hi[j] = t;
+			t = lo[i];
+			lo[i] = lo[j];
+			lo[j] = t;
+		}
+	}
+
+	// ---------------- índice dos números ----------------
+
+	/**
+	 * Função que monta o índice de busca pelo número dos vértices
+	 *
+	 * @param nums número de cada vértice, pelo índice denso
+	 * @return números em ordem crescente e os seus respectivos índices densos (o
+	 *         segundo vetor é <code>null</code> se <code>nums</code> já estiver em
+	 *         ordem crescente, caso em que o primeiro é o próprio
+	 *         <code>nums</code>)
+	 * @throws IllegalArgumentException se houver números repetidos
+	 */
+	public static int[][] numIndex(int[] nums) {
+		int n = nums.length;
+		boolean sorted = true;
+		for (int i = 1; i < n && sorted; i++)
+			sorted = nums[i - 1] < nums[i];
+		if (sorted)
+			return new int[][] { nums, null };
+		long[] keys = new long[n];
+		for (int i = 0; i < n; i++)
+			keys[i] = ((long) nums[i] << 32) | i;
+		Arrays.sort(keys);
+		int[] sortedNums = new int[n], sortedIdx = new int[n];
+		for (int i = 0; i < n; i++) {
+			sortedNums[i] = (int) (keys[i] >> 32);
+			sortedIdx[i] = (int) keys[i];
+			if (i > 0 && sortedNums[i] == sortedNums[i - 1])
+				throw new IllegalArgumentException("Vértice repetido: " + sortedNums[i]);
+		}
+		return new int[][] { sortedNums, sortedIdx };
+	}
+
+	/**
+	 * Função que retorna o índice denso de um vértice a partir do seu número
+	 *
+	 * @param sortedNums números em ordem crescente (ver {@link #numIndex(int[])})
+	 * @param sortedIdx  índices densos correspondentes (ou <code>null</code>)
+	 * @param num        número do vértice
+	 * @return índice denso, ou -1 se o vértice não pertencer ao índice
+	 */
+	public static int indexOf(int[] sortedNums, int[] sortedIdx, int num) {
+		int i = Arrays.binarySearch(sortedNums, num);
+		if (i < 0)
+			return -1;
+		return sortedIdx == null ? i : sortedIdx[i];
+	}
+}
@@ -0,0 +1,349 @@
+package br.com.pereiraeng.graph.numbered;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import br.com.pereiraeng.math.DuplaEmeio;
+
+/**
+ * Classe do objeto que representa uma variante (cenário 'e se') de um
+ * {@link CompactGraphN grafo compacto} de base. A variante guarda somente as
+ * alterações em relação à base (vértices e arestas acrescentados ou removidos)
+ * e as consultas que não envolvem alterações são respondidas diretamente pela
+ * base, que é compartilhada por todas as variantes.
+ * <p>
+ * As arestas da base mantêm os seus identificadores (de 0 a m-1) e as arestas
+ * acrescentadas recebem identificadores a partir de m. Uma aresta está ativa se
+ * não foi removida e se as suas duas extremidades estão presentes. A criação de
+ * uma {@link #fork() nova variante} a partir de outra custa O(alterações), e não
+ * O(V+E) como em {@link br.com.pereiraeng.graph.GraphUtils#copyGraph(java.util.Collection)
+ * copyGraph}.
+ * <p>
+ * Os objetos desta classe não são sincronizados, mas variantes distintas podem
+ * ser usadas simultaneamente por threads diferentes.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public class ForkedGraphN {
+
+	private final CompactGraphN base;
+
+	/**
+	 * Identificadores das arestas removidas (da base ou acrescentadas)
+	 */
+	private final Set<Integer> removedEdges;
+
+	/**
+	 * Números dos vértices removidos
+	 */
+	private final Set<Integer> removedVertices;
+
+	/**
+	 * Números dos vértices acrescentados que não pertencem à base
+	 */
+	private final Set<Integer> addedVertices;
+
+	/**
+	 * Arestas acrescentadas (a posição i corresponde ao identificador m+i)
+	 */
+	private final List<DuplaEmeio> addedEdges;
+
+	/**
+	 * Identificadores das arestas acrescentadas ligadas a cada vértice
+	 */
+	private final Map<Integer, List<Integer>> addedAdj;
+
+	/**
+	 * Construtor de uma variante sem alterações
+	 *
+	 * @param base grafo de base
+	 */
+	public ForkedGraphN(CompactGraphN base) {
+		this.base = base;
+		this.removedEdges = new HashSet<>();
+		this.removedVertices = new HashSet<>();
+		this.addedVertices = new HashSet<>();
+		this.addedEdges = new ArrayList<>();
+		this.addedAdj = new HashMap<>();
+	}
+
+	private ForkedGraphN(ForkedGraphN parent) {
+		this.base = parent.base;
+		this.removedEdges = new HashSet<>(parent.removedEdges);
+		this.removedVertices = new HashSet<>(parent.removedVertices);
+		this.addedVertices = new HashSet<>(parent.addedVertices);
+		this.addedEdges = new ArrayList<>(parent.addedEdges);
+		this.addedAdj = new HashMap<>(parent.addedAdj.size() * 2);
+		for (Map.Entry<Integer, List<Integer>> en : parent.addedAdj.entrySet())
+			this.addedAdj.put(en.getKey(), new ArrayList<>(en.getValue()));
+	}
+
+	/**
+	 * Função que cria uma nova variante a partir desta, com as mesmas alterações
+	 * (as alterações posteriores de uma não afetam a outra)
+	 *
+	 * @return nova variante
+	 */
+	public ForkedGraphN fork() {
+		return new ForkedGraphN(this);
+	}
+
+	// -------------- alterações --------------
+
+	/**
+	 * Função que acrescenta (ou restaura) um vértice
+	 *
+	 * @param num número do vértice
+	 * @return <code>true</code> se o vértice não estava presente
+	 */
+	public boolean addVertex(int num) {
+		if (removedVertices.remove(num))
+			return true;
+		if (base.contains(num))
+			return false;
+		return addedVertices.add(num);
+	}
+
+	/**
+	 * Função que remove um vértice (as arestas ligadas a ele ficam inativas)
+	 *
+	 * @param num número do vértice
+	 * @return <code>true</code> se o vértice estava presente
+	 */
+	public boolean removeVertex(int num) {
+		if (!containsVertex(num))
+			return false;
+		return removedVertices.add(num);
+	}
+
+	/**
+	 * Função que acrescenta uma aresta (os vértices ausentes também são
+	 * acrescentados)
+	 *
+	 * @param num1 número do vértice de partida
+	 * @param num2 número do vértice de chegada
+	 * @param circ número do circuito
+	 * @return identificador da nova aresta
+	 */
+	public int addEdge(int num1, int num2, int circ) {
+		addVertex(num1);
+		addVertex(num2);
+		int e = base.getEdgeCount() + addedEdges.size();
+		addedEdges.add(new DuplaEmeio(num1, num2, circ));
+		addedAdj.computeIfAbsent(num1, k -> new ArrayList<>(2)).add(e);
+		if (num2 != num1)
+			addedAdj.computeIfAbsent(num2, k -> new ArrayList<>(2)).add(e);
+		return e;
+	}
+
+	/**
+	 * Função que remove uma aresta (e.g., abertura de um disjuntor)
+	 *
+	 * @param e identificador da aresta
+	 * @return <code>true</code> se a aresta não tinha sido removida
+	 */
+	public boolean removeEdge(int e) {
+		checkEdge(e);
+		return removedEdges.add(e);
+	}
+
+	/**
+	 * Função que restaura uma aresta removida (e.g., fechamento de um disjuntor)
+	 *
+	 * @param e identificador da aresta
+	 * @return <code>true</code> se a aresta tinha sido removida
+	 */
+	public boolean restoreEdge(int e) {
+		checkEdge(e);
+		return removedEdges.remove(e);
+	}
+
+	private void checkEdge(int e) {
+		if (e < 0 || e >= base.getEdgeCount() + addedEdges.size())
+			throw new IllegalArgumentException("Aresta inexistente: " + e);
+	}
+
+	// -------------- getter's --------------
+
+	public CompactGraphN getBase() {
+		return base;
+	}
+
+	/**
+	 * Função que retorna o número de alterações guardadas nesta variante
+	 *
+	 * @return número de vértices e arestas acrescentados ou removidos
+	 */
+	public int getChangeCount() {
+		return removedEdges.size() + removedVertices.size() + addedVertices.size() + addedEdges.size();
+	}
+
+	/**
+	 * Função que retorna o maior identificador de aresta mais um (inclui as
+	 * arestas removidas)
+	 *
+	 * @return limite dos identificadores das arestas
+	 */
+	public int getEdgeIdLimit() {
+		return base.getEdgeCount() + addedEdges.size();
+	}
+
+	public boolean containsVertex(int num) {
+		if (removedVertices.contains(num))
+			return false;
+		return base.contains(num) || addedVertices.contains(num);
+	}
+
+	/**
+	 * Função que indica se uma aresta está ativa nesta variante
+	 *
+	 * @param e identificador da aresta
+	 * @return <code>true</code> se a aresta não foi removida e os seus vértices
+	 *         estão presentes
+	 */
+	public boolean containsEdge(int e) {
+		if (e < 0 || e >= getEdgeIdLimit() || removedEdges.contains(e))
+			return false;
+		if (removedVertices.isEmpty())
+			return true;
+		if (e < base.getEdgeCount())
+			return !removedVertices.contains(base.getNum(base.getFrom(e)))
+					&& !removedVertices.contains(base.getNum(base.getTo(e)));
+		DuplaEmeio d = getNums(e);
+		return !removedVertices.contains(d.get1()) && !removedVertices.contains(d.get2());
+	}
+
+	/**
+	 * Função que retorna a {@link DuplaEmeio trinca} de uma aresta (ativa ou não)
+	 *
+	 * @param e identificador da aresta
+	 * @return trinca com os números dos vértices e o número do circuito
+	 */
+	public DuplaEmeio getNums(int e) {
+		int m = base.getEdgeCount();
+		return e < m ? base.getNums(e) : addedEdges.get(e - m);
+	}
+
+	/**
+	 * Função que retorna as arestas ativas ligadas a um vértice
+	 *
+	 * @param num número do vértice
+	 * @return identificadores das arestas (vazio se o vértice não estiver presente)
+	 */
+	public int[] getEdges(int num) {
+		if (!containsVertex(num))
+			return new int[0];
+		int v = base.indexOf(num);
+		List<Integer> added = addedAdj.get(num);
+		int d = v < 0 ? 0 : base.getDegree(v);
+		int[] out = new int[d + (added == null ? 0 : added.size())];
+		int c = 0;
+		for (int k = 0; k < d; k++) {
+			int e = base.getEdgeId(v, k);
+			// laços aparecem duas vezes na lista da base
+			if (k > 0 && base.getEdgeId(v, k - 1) == e)
+				continue;
+			if (containsEdge(e))
+				out[c++] = e;
+		}
+		if (added != null)
+			for (int e : added)
+				if (containsEdge(e))
+					out[c++] = e;
+		return c == out.length ? out : Arrays.copyOf(out, c);
+	}
+
+	/**
+	 * Função que retorna os vértices adjacentes a um vértice pelas arestas ativas
+	 * (com repetições, no caso de arestas paralelas)
+	 *
+	 * @param num número do vértice
+	 * @return números dos vértices adjacentes
+	 */
+	public int[] getNeighbors(int num) {
+		int[] es = getEdges(num);
+		for (int i = 0; i < es.length; i++) {
+			DuplaEmeio d = getNums(es[i]);
+			es[i] = d.get1() == num ? d.get2() : d.get1();
+		}
+		return es;
+	}
+
+	/**
+	 * Função que retorna o número de vértices presentes
+	 *
+	 * @return número de vértices
+	 */
+	public int getVertexCount() {
+		return base.getVertexCount() + addedVertices.size() - removedVertices.size();
+	}
+
+	/**
+	 * Função que conta as arestas ativas (percorre todas as arestas)
+	 *
+	 * @return número de arestas
+	 */
+	public int getEdgeCount() {
+		int c = 0, lim = getEdgeIdLimit();
+		for (int e = 0; e < lim; e++)
+			if (containsEdge(e))
+				c++;
+		return c;
+	}
+
+	// ---------------- AUXILIAR ----------------
+
+	/**
+	 * Função que gera o grafo compacto correspondente a esta variante. Os
+	 * identificadores das arestas não são preservados.
+	 *
+	 * @return grafo compacto
+	 */
+	public CompactGraphN toCompactGraphN() {
+		int lim = getEdgeIdLimit();
+		int[] n1 = new int[lim], n2 = new int[lim], c = new int[lim];
+		int m = 0;
+		for (int e = 0; e < lim; e++)
+			if (containsEdge(e)) {
+				DuplaEmeio d = getNums(e);
+				n1[m] = d.get1();
+				n2[m] = d.get2();
+				c[m++] = d.get3();
+			}
+		// vértices presentes sem arestas ativas
+		List<Integer> iso = new ArrayList<>();
+		for (int v = 0; v < base.getVertexCount(); v++) {
+			int num = base.getNum(v);
+			if (containsVertex(num) && getEdges(num).length == 0)
+				iso.add(num);
+		}
+		for (Integer num : addedVertices)
+			if (containsVertex(num) && getEdges(num).length == 0)
+				iso.add(num);
+		int[] isolated = new int[iso.size()];
+		for (int i = 0; i < isolated.length; i++)
+			isolated[i] = iso.get(i);
+		return CompactGraphN.of(Arrays.copyOf(n1, m), Arrays.copyOf(n2, m), Arrays.copyOf(c, m), isolated);
+	}
+
+	/**
+	 * Função que gera o {@link GraphN grafo numerado} correspondente a esta
+	 * variante
+	 *
+	 * @return grafo numerado
+	 */
+	public GraphN toGraphN() {
+		return toCompactGraphN().toGraphN();
+	}
+
+	@Override
+	public String toString() {
+		return "base=" + base.getVertexCount() + "/" + base.getEdgeCount() + ", alterações=" + getChangeCount();
+	}
+}
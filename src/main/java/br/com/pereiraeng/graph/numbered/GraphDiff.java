@@ -0,0 +1,433 @@
+package br.com.pereiraeng.graph.numbered;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import br.com.pereiraeng.math.DuplaEmeio;
+
+/**
+ * Classe do objeto que guarda as diferenças entre dois instantâneos de um grafo
+ * numerado (por exemplo, a topologia de ontem e a de hoje): os vértices e as
+ * arestas acrescentados e removidos. A comparação é feita ordenando as arestas
+ * de cada instantâneo por chaves primitivas (números dos vértices e do
+ * circuito) e percorrendo as duas listas em paralelo, sem criar conjuntos de
+ * objetos.
+ * <p>
+ * O {@link Patch remendo} gerado pela comparação transforma o primeiro
+ * instantâneo no segundo.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public class GraphDiff {
+
+	private final int[] addedVertices, removedVertices;
+
+	private final int[] addedEdgeIds, removedEdgeIds;
+
+	private final Patch patch;
+
+	private GraphDiff(int[] addedVertices, int[] removedVertices, int[] addedEdgeIds, int[] removedEdgeIds,
+			Patch patch) {
+		this.addedVertices = addedVertices;
+		this.removedVertices = removedVertices;
+		this.addedEdgeIds = addedEdgeIds;
+		this.removedEdgeIds = removedEdgeIds;
+		this.patch = patch;
+	}
+
+	/**
+	 * Função que compara dois grafos numerados
+	 *
+	 * @param before   instantâneo anterior
+	 * @param after    instantâneo posterior
+	 * @param parallel <code>true</code> para preparar e ordenar os instantâneos
+	 *                 em paralelo
+	 * @return diferenças
+	 */
+	public static GraphDiff compare(GraphN before, GraphN after, boolean parallel) {
+		Snapshot[] s = prepare(() -> new Snapshot(before), () -> new Snapshot(after), parallel);
+		return compare(s[0], s[1], false);
+	}
+
+	/**
+	 * Função que compara dois grafos compactos (ou mapeados), identificando também
+	 * as arestas acrescentadas e removidas pela sua posição na tabela de arestas
+	 * de cada grafo
+	 *
+	 * @param before   instantâneo anterior
+	 * @param after    instantâneo posterior
+	 * @param parallel <code>true</code> para preparar e ordenar os instantâneos
+	 *                 em paralelo
+	 * @return diferenças
+	 */
+	public static GraphDiff compare(AdjacencyN before, AdjacencyN after, boolean parallel) {
+		Snapshot[] s = prepare(() -> new Snapshot(before), () -> new Snapshot(after), parallel);
+		return compare(s[0], s[1], true);
+	}
+
+	// -------------- getter's --------------
+
+	/**
+	 * Função que retorna os vértices que só existem no instantâneo posterior
+	 *
+	 * @return números dos vértices, em ordem crescente
+	 */
+	public int[] getAddedVertices() {
+		return addedVertices;
+	}
+
+	/**
+	 * Função que retorna os vértices que só existem no instantâneo anterior
+	 *
+	 * @return números dos vértices, em ordem crescente
+	 */
+	public int[] getRemovedVertices() {
+		return removedVertices;
+	}
+
+	/**
+	 * Função que retorna as arestas que só existem no instantâneo posterior
+	 *
+	 * @return identificadores das arestas no grafo posterior, ou
+	 *         <code>null</code> se a comparação não foi feita entre grafos
+	 *         compactos
+	 */
+	public int[] getAddedEdgeIds() {
+		return addedEdgeIds;
+	}
+
+	/**
+	 * Função que retorna as arestas que só existem no instantâneo anterior
+	 *
+	 * @return identificadores das arestas no grafo anterior, ou
+	 *         <code>null</code> se a comparação não foi feita entre grafos
+	 *         compactos
+	 */
+	public int[] getRemovedEdgeIds() {
+		return removedEdgeIds;
+	}
+
+	public DuplaEmeio[] getAddedEdges() {
+		return patch.getAddedEdges();
+	}
+
+	public DuplaEmeio[] getRemovedEdges() {
+		return patch.getRemovedEdges();
+	}
+
+	public Patch getPatch() {
+		return patch;
+	}
+
+	/**
+	 * Função que indica se os instantâneos são iguais
+	 *
+	 * @return <code>true</code> se não há diferenças
+	 */
+	public boolean isEmpty() {
+		return addedVertices.length == 0 && removedVertices.length == 0 && patch.isEmpty();
+	}
+
+	/**
+	 * Remendo que transforma um instantâneo de um grafo noutro: arestas a remover
+	 * e a acrescentar e vértices que deixam de ser ou passam a ser isolados
+	 */
+	public static final class Patch {
+
+		private final int[] remNum1, remNum2, remCirc, addNum1, addNum2, addCirc;
+
+		private final int[] isolatedOn, isolatedOff;
+
+		private Patch(int[] remNum1, int[] remNum2, int[] remCirc, int[] addNum1, int[] addNum2, int[] addCirc,
+				int[] isolatedOn, int[] isolatedOff) {
+			this.remNum1 = remNum1;
+			this.remNum2 = remNum2;
+			this.remCirc = remCirc;
+			this.addNum1 = addNum1;
+			this.addNum2 = addNum2;
+			this.addCirc = addCirc;
+			this.isolatedOn = isolatedOn;
+			this.isolatedOff = isolatedOff;
+		}
+
+		/**
+		 * Função que aplica o remendo sobre um grafo numerado (alterando-o)
+		 *
+		 * @param g grafo igual ao instantâneo anterior
+		 */
+		public void apply(GraphN g) {
+			for (int i = 0; i < remNum1.length; i++)
+				g.ens.remove(new DuplaEmeio(remNum1[i], remNum2[i], remCirc[i]));
+			for (int i = 0; i < addNum1.length; i++)
+				g.add(new DuplaEmeio(addNum1[i], addNum2[i], addCirc[i]));
+			for (int num : isolatedOff)
+				g.isolated.remove(num);
+			for (int num : isolatedOn)
+				g.isolated.add(num);
+			g.modified();
+		}
+
+		/**
+		 * Função que aplica o remendo sobre um grafo compacto
+		 *
+		 * @param g grafo igual ao instantâneo anterior
+		 * @return novo grafo compacto, igual ao instantâneo posterior
+		 */
+		public CompactGraphN apply(AdjacencyN g) {
+			Snapshot s = new Snapshot(g);
+			EdgeKeys.sort(s.hi, s.lo, s.hi.length, false);
+			// arestas removidas em ordem, para serem descartadas durante a varredura
+			long[] rh = new long[remNum1.length], rl = new long[remNum1.length];
+			for (int i = 0; i < rh.length; i++) {
+				rh[i] = EdgeKeys.key(remNum1[i], remNum2[i]);
+				rl[i] = (long) remCirc[i] << 32;
+			}
+			EdgeKeys.sort(rh, rl, rh.length, false);
+
+			int m = s.hi.length + addNum1.length;
+			int[] n1 = new int[m], n2 = new int[m], c = new int[m];
+			int k = 0, r = 0;
+			for (int i = 0; i < s.hi.length; i++) {
+				int circ = (int) (s.lo[i] >> 32);
+				if (r < rh.length && rh[r] == s.hi[i] && (int) (rl[r] >> 32) == circ) {
+					r++;
+					continue;
+				}
+				n1[k] = EdgeKeys.num1(s.hi[i]);
+				n2[k] = EdgeKeys.num2(s.hi[i]);
+				c[k++] = circ;
+			}
+			if (r < rh.length)
+				throw new IllegalArgumentException("Remendo não corresponde ao grafo: aresta "
+						+ EdgeKeys.num1(rh[r]) + "-" + EdgeKeys.num2(rh[r]) + " inexistente");
+			for (int i = 0; i < addNum1.length; i++) {
+				n1[k] = addNum1[i];
+				n2[k] = addNum2[i];
+				c[k++] = addCirc[i];
+			}
+
+			// isolados: os do grafo, menos os que deixam de ser, mais os novos
+			int[] iso = new int[s.isolated.length + isolatedOn.length];
+			int ni = 0;
+			for (int num : s.isolated)
+				if (Arrays.binarySearch(isolatedOff, num) < 0)
+					iso[ni++] = num;
+			for (int num : isolatedOn)
+				iso[ni++] = num;
+			return CompactGraphN.of(Arrays.copyOf(n1, k), Arrays.copyOf(n2, k), Arrays.copyOf(c, k),
+					Arrays.copyOf(iso, ni));
+		}
+
+		/**
+		 * Função que gera o remendo inverso, que transforma o instantâneo posterior
+		 * no anterior
+		 *
+		 * @return remendo inverso
+		 */
+		public Patch invert() {
+			return new Patch(addNum1, addNum2, addCirc, remNum1, remNum2, remCirc, isolatedOff, isolatedOn);
+		}
+
+		public DuplaEmeio[] getAddedEdges() {
+			return toTriples(addNum1, addNum2, addCirc);
+		}
+
+		public DuplaEmeio[] getRemovedEdges() {
+			return toTriples(remNum1, remNum2, remCirc);
+		}
+
+		/**
+		 * Função que retorna o número de operações do remendo
+		 *
+		 * @return número de arestas removidas e acrescentadas e de vértices isolados
+		 *         alterados
+		 */
+		public int size() {
+			return remNum1.length + addNum1.length + isolatedOn.length + isolatedOff.length;
+		}
+
+		public boolean isEmpty() {
+			return size() == 0;
+		}
+
+		private static DuplaEmeio[] toTriples(int[] n1, int[] n2, int[] c) {
+			DuplaEmeio[] out = new DuplaEmeio[n1.length];
+			for (int i = 0; i < out.length; i++)
+				out[i] = new DuplaEmeio(n1[i], n2[i], c[i]);
+			return out;
+		}
+
+		@Override
+		public String toString() {
+			return "-" + remNum1.length + " +" + addNum1.length + " arestas, +" + isolatedOn.length + " -"
+					+ isolatedOff.length + " isolados";
+		}
+	}
+
+	// ---------------- AUXILIAR ----------------
+
+	/**
+	 * Arestas de um instantâneo em vetores primitivos: chave com os números dos
+	 * vértices (o menor nos 32 bits mais significativos) e, em paralelo, o
+	 * circuito (32 bits mais significativos) e o identificador da aresta
+	 */
+	private static class Snapshot {
+		private final long[] hi, lo;
+		private final int[] vertices, isolated;
+
+		private Snapshot(GraphN g) {
+			Set<DuplaEmeio> ens = g.getEns();
+			int m = ens.size();
+			this.hi = new long[m];
+			this.lo = new long[m];
+			int[] vs = new int[2 * m + g.getIsolated().size()];
+			int e = 0;
+			for (DuplaEmeio d : ens) {
+				hi[e] = EdgeKeys.key(Math.min(d.get1(), d.get2()), Math.max(d.get1(), d.get2()));
+				lo[e] = ((long) d.get3() << 32) | e;
+				vs[2 * e] = d.get1();
+				vs[2 * e + 1] = d.get2();
+				e++;
+			}
+			this.isolated = new int[g.getIsolated().size()];
+			int i = 0;
+			for (int num : g.getIsolated()) {
+				isolated[i++] = num;
+				vs[2 * m + i - 1] = num;
+			}
+			Arrays.sort(isolated);
+			this.vertices = unique(vs);
+		}
+
+		private Snapshot(AdjacencyN g) {
+			int m = g.getEdgeCount(), n = g.getVertexCount();
+			this.hi = new long[m];
+			this.lo = new long[m];
+			for (int e = 0; e < m; e++) {
+				int a = g.getNum(g.getFrom(e)), b = g.getNum(g.getTo(e));
+				hi[e] = EdgeKeys.key(Math.min(a, b), Math.max(a, b));
+				lo[e] = ((long) g.getCircuit(e) << 32) | e;
+			}
+			this.vertices = new int[n];
+			int[] iso = new int[n];
+			int ni = 0;
+			for (int v = 0; v < n; v++) {
+				vertices[v] = g.getNum(v);
+				if (g.getDegree(v) == 0)
+					iso[ni++] = vertices[v];
+			}
+			Arrays.sort(vertices);
+			this.isolated = Arrays.copyOf(iso, ni);
+			Arrays.sort(isolated);
+		}
+	}
+
+	private static interface SnapshotFactory {
+		Snapshot create();
+	}
+
+	private static Snapshot[] prepare(SnapshotFactory before, SnapshotFactory after, boolean parallel) {
+		if (!parallel) {
+			Snapshot b = before.create(), a = after.create();
+			EdgeKeys.sort(b.hi, b.lo, b.hi.length, false);
+			EdgeKeys.sort(a.hi, a.lo, a.hi.length, false);
+			return new Snapshot[] { b, a };
+		}
+		Snapshot[] out = new Snapshot[2];
+		ForkJoinTask<?> t = ForkJoinPool.commonPool().submit(() -> {
+			out[1] = after.create();
+			EdgeKeys.sort(out[1].hi, out[1].lo, out[1].hi.length, true);
+		});
+		out[0] = before.create();
+		EdgeKeys.sort(out[0].hi, out[0].lo, out[0].hi.length, true);
+		t.join();
+		return out;
+	}
+
+	private static GraphDiff compare(Snapshot b, Snapshot a, boolean ids) {
+		int mb = b.hi.length, ma = a.hi.length;
+		int[] rem = new int[mb], add = new int[ma];
+		int nr = 0, na = 0, i = 0, j = 0;
+		while (i < mb || j < ma) {
+			int c;
+			if (i == mb)
+				c = 1;
+			else if (j == ma)
+				c = -1;
+			else {
+				c = Long.compare(b.hi[i], a.hi[j]);
+				if (c == 0)
+					c = Integer.compare((int) (b.lo[i] >> 32), (int) (a.lo[j] >> 32));
+			}
+			if (c < 0)
+				rem[nr++] = i++;
+			else if (c > 0)
+				add[na++] = j++;
+			else {
+				i++;
+				j++;
+			}
+		}
+
+		int[] rn1 = new int[nr], rn2 = new int[nr], rc = new int[nr], an1 = new int[na], an2 = new int[na],
+				ac = new int[na];
+		int[] remIds = ids ? new int[nr] : null, addIds = ids ? new int[na] : null;
+		for (int k = 0; k < nr; k++) {
+			int p = rem[k];
+			rn1[k] = EdgeKeys.num1(b.hi[p]);
+			rn2[k] = EdgeKeys.num2(b.hi[p]);
+			rc[k] = (int) (b.lo[p] >> 32);
+			if (ids)
+				remIds[k] = (int) b.lo[p];
+		}
+		for (int k = 0; k < na; k++) {
+			int p = add[k];
+			an1[k] = EdgeKeys.num1(a.hi[p]);
+			an2[k] = EdgeKeys.num2(a.hi[p]);
+			ac[k] = (int) (a.lo[p] >> 32);
+			if (ids)
+				addIds[k] = (int) a.lo[p];
+		}
+		if (ids) {
+			Arrays.sort(remIds);
+			Arrays.sort(addIds);
+		}
+
+		Patch patch = new Patch(rn1, rn2, rc, an1, an2, ac, minus(a.isolated, b.isolated),
+				minus(b.isolated, a.isolated));
+		return new GraphDiff(minus(a.vertices, b.vertices), minus(b.vertices, a.vertices), addIds, remIds, patch);
+	}
+
+	/**
+	 * Função que retorna os elementos de um vetor ordenado que não pertencem a
+	 * outro
+	 */
+	private static int[] minus(int[] x, int[] y) {
+		int[] out = new int[x.length];
+		int n = 0, j = 0;
+		for (int v : x) {
+			while (j < y.length && y[j] < v)
+				j++;
+			if (j == y.length || y[j] != v)
+				out[n++] = v;
+		}
+		return Arrays.copyOf(out, n);
+	}
+
+	private static int[] unique(int[] x) {
+		Arrays.sort(x);
+		int n = 0;
+		for (int i = 0; i < x.length; i++)
+			if (n == 0 || x[i] != x[n - 1])
+				x[n++] = x[i];
+		return Arrays.copyOf(x, n);
+	}
+
+	@Override
+	public String toString() {
+		return "+" + addedVertices.length + " -" + removedVertices.length + " vértices, " + patch;
+	}
+}
@@ -0,0 +1,897 @@
+package br.com.pereiraeng.graph.numbered;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classe com as funções que calculam a impressão digital de um grafo numerado
+ * (ou de uma parte dele, como uma ilha ou um alimentador radial), invariante à
+ * numeração dos vértices: grafos isomorfos têm a mesma impressão digital, de
+ * modo que os resultados de análises caras (bases de ciclos, cortes,
+ * ordenações) podem ser guardados e reaproveitados entre partes estruturalmente
+ * idênticas.
+ * <p>
+ * A impressão digital é obtida pelo refinamento de cores de Weisfeiler-Lehman:
+ * a cor inicial de cada vértice depende do seu grau (e do seu rótulo, se
+ * houver), e a cada rodada a cor é recalculada a partir das cores dos vizinhos
+ * (e dos rótulos das arestas), até que a partição dos vértices se estabilize.
+ * Grafos com impressões distintas certamente não são isomorfos; a igualdade
+ * pode ser confirmada pela {@link #canonicalForm(AdjacencyN, int[], int[],
+ * int[], int) forma canônica} exata, que também fornece a correspondência entre
+ * os vértices das partes.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public final class GraphFingerprint {
+
+	private GraphFingerprint() {
+	}
+
+	/**
+	 * Número máximo padrão de folhas da árvore de busca da forma canônica
+	 */
+	public static final int DEFAULT_MAX_LEAVES = 100000;
+
+	/**
+	 * Número máximo padrão de operações elementares (visitas às adjacências e
+	 * posições do certificado) da busca da forma canônica
+	 */
+	public static final long DEFAULT_MAX_WORK = 200000000L;
+
+	// ---------------- impressão digital ----------------
+
+	public static long of(GraphN g) {
+		return of(CompactGraphN.of(g));
+	}
+
+	public static long of(AdjacencyN g) {
+		return of(g, null, null, null);
+	}
+
+	/**
+	 * Função que calcula a impressão digital de um grafo (ou subgrafo)
+	 *
+	 * @param g            grafo
+	 * @param vertices     índices densos dos vértices do subgrafo (ou
+	 *                     <code>null</code> para o grafo todo); somente as arestas
+	 *                     entre eles são consideradas
+	 * @param vertexLabels rótulo de cada vértice, indexado pelo índice denso (ou
+	 *                     <code>null</code>)
+	 * @param edgeLabels   rótulo de cada aresta, indexado pelo identificador (ou
+	 *                     <code>null</code>)
+	 * @return impressão digital
+	 */
+	public static long of(AdjacencyN g, int[] vertices, int[] vertexLabels, int[] edgeLabels) {
+		int[] local = new int[g.getVertexCount()];
+		Arrays.fill(local, -1);
+		return new Sub(g, vertices, vertexLabels, edgeLabels, local).fingerprint();
+	}
+
+	/**
+	 * Função que agrupa as componentes conexas de um grafo pela sua impressão
+	 * digital
+	 *
+	 * @param g            grafo
+	 * @param vertexLabels rótulo de cada vértice (ou <code>null</code>)
+	 * @param edgeLabels   rótulo de cada aresta (ou <code>null</code>)
+	 * @return componentes (índices densos dos seus vértices) de cada impressão
+	 *         digital, na ordem em que foram encontradas
+	 */
+	public static Map<Long, List<int[]>> groupComponents(AdjacencyN g, int[] vertexLabels, int[] edgeLabels) {
+		int n = g.getVertexCount();
+		int[] local = new int[n], queue = new int[n];
+		Arrays.fill(local, -1);
+		boolean[] seen = new boolean[n];
+		Map<Long, List<int[]>> out = new LinkedHashMap<>();
+		for (int s = 0; s < n; s++) {
+			if (seen[s])
+				continue;
+			seen[s] = true;
+			queue[0] = s;
+			int head = 0, tail = 1;
+			while (head < tail) {
+				int v = queue[head++];
+				for (int k = 0; k < g.getDegree(v); k++) {
+					int w = g.getNeighbor(v, k);
+					if (!seen[w]) {
+						seen[w] = true;
+						queue[tail++] = w;
+					}
+				}
+			}
+			int[] comp = Arrays.copyOf(queue, tail);
+			long h = new Sub(g, comp, vertexLabels, edgeLabels, local).fingerprint();
+			out.computeIfAbsent(h, x -> new ArrayList<>()).add(comp);
+		}
+		return out;
+	}
+
+	// ---------------- forma canônica ----------------
+
+	/**
+	 * Função que calcula a forma canônica exata de um grafo (ou subgrafo), pela
+	 * busca com individualização e refinamento de cores, podando os ramos
+	 * equivalentes pelos automorfismos encontrados. Dois grafos são isomorfos se e
+	 * somente se têm formas canônicas iguais.
+	 *
+	 * @param g            grafo
+	 * @param vertices     índices densos dos vértices do subgrafo (ou
+	 *                     <code>null</code> para o grafo todo)
+	 * @param vertexLabels rótulo de cada vértice (ou <code>null</code>)
+	 * @param edgeLabels   rótulo de cada aresta (ou <code>null</code>)
+	 * @param maxLeaves    número máximo de folhas da árvore de busca
+	 * @return forma canônica, ou <code>null</code> se o limite de folhas ou o
+	 *         {@link #DEFAULT_MAX_WORK limite padrão de operações} for atingido
+	 *         (grafos muito simétricos)
+	 */
+	public static CanonicalForm canonicalForm(AdjacencyN g, int[] vertices, int[] vertexLabels, int[] edgeLabels,
+			int maxLeaves) {
+		return canonicalForm(g, vertices, vertexLabels, edgeLabels, maxLeaves, DEFAULT_MAX_WORK);
+	}
+
+	/**
+	 * Função que calcula a forma canônica exata de um grafo (ou subgrafo), com
+	 * limites de folhas e de operações
+	 *
+	 * @param g            grafo
+	 * @param vertices     índices densos dos vértices do subgrafo (ou
+	 *                     <code>null</code> para o grafo todo)
+	 * @param vertexLabels rótulo de cada vértice (ou <code>null</code>)
+	 * @param edgeLabels   rótulo de cada aresta (ou <code>null</code>)
+	 * @param maxLeaves    número máximo de folhas da árvore de busca
+	 * @param maxWork      número máximo de operações elementares
+	 * @return forma canônica, ou <code>null</code> se algum dos limites for
+	 *         atingido
+	 */
+	public static CanonicalForm canonicalForm(AdjacencyN g, int[] vertices, int[] vertexLabels, int[] edgeLabels,
+			int maxLeaves, long maxWork) {
+		int[] local = new int[g.getVertexCount()];
+		Arrays.fill(local, -1);
+		Sub s = new Sub(g, vertices, vertexLabels, edgeLabels, local);
+		Search search = new Search(s, maxLeaves, maxWork);
+		if (!search.run())
+			return null;
+		int[] order = new int[s.n];
+		for (int i = 0; i < s.n; i++)
+			order[search.bestLab[i]] = s.verts[i];
+		return new CanonicalForm(search.best, s.vertexLabelValues, s.edgeLabelValues, order);
+	}
+
+	public static CanonicalForm canonicalForm(AdjacencyN g) {
+		return canonicalForm(g, null, null, null, DEFAULT_MAX_LEAVES);
+	}
+
+	/**
+	 * Forma canônica de um grafo: certificado independente da numeração e ordem
+	 * canônica dos vértices
+	 */
+	public static final class CanonicalForm {
+
+		private final long[] certificate;
+
+		private final int[] vertexLabelValues, edgeLabelValues;
+
+		private final int[] order;
+
+		private CanonicalForm(long[] certificate, int[] vertexLabelValues, int[] edgeLabelValues, int[] order) {
+			this.certificate = certificate;
+			this.vertexLabelValues = vertexLabelValues;
+			this.edgeLabelValues = edgeLabelValues;
+			this.order = order;
+		}
+
+		/**
+		 * Função que retorna a ordem canônica dos vértices: vértices em posições
+		 * iguais de formas canônicas iguais se correspondem no isomorfismo
+		 *
+		 * @return índice denso (no grafo de origem) do vértice de cada posição
+		 */
+		public int[] getOrder() {
+			return order.clone();
+		}
+
+		public int getVertexCount() {
+			return order.length;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o)
+				return true;
+			if (!(o instanceof CanonicalForm))
+				return false;
+			CanonicalForm c = (CanonicalForm) o;
+			return Arrays.equals(certificate, c.certificate) && Arrays.equals(vertexLabelValues, c.vertexLabelValues)
+					&& Arrays.equals(edgeLabelValues, c.edgeLabelValues);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * Arrays.hashCode(certificate) + Arrays.hashCode(vertexLabelValues))
+					+ Arrays.hashCode(edgeLabelValues);
+		}
+
+		@Override
+		public String toString() {
+			return "vértices=" + order.length + ", certificado=" + certificate.length;
+		}
+	}
+
+	// ---------------- AUXILIAR ----------------
+
+	/**
+	 * Subgrafo com numeração local (de 0 a k-1) e rótulos substituídos pela sua
+	 * posição entre os valores distintos
+	 */
+	private static class Sub {
+		private final int n, m;
+		private final int[] verts, off, adj, elab, vlab;
+		private final int[] vertexLabelValues, edgeLabelValues;
+
+		private Sub(AdjacencyN g, int[] vertices, int[] vertexLabels, int[] edgeLabels, int[] local) {
+			if (vertices == null) {
+				vertices = new int[g.getVertexCount()];
+				for (int v = 0; v < vertices.length; v++)
+					vertices[v] = v;
+			}
+			this.verts = vertices;
+			this.n = vertices.length;
+			for (int i = 0; i < n; i++)
+				local[vertices[i]] = i;
+			try {
+				this.off = new int[n + 1];
+				for (int i = 0; i < n; i++) {
+					int v = vertices[i], c = 0;
+					for (int k = 0; k < g.getDegree(v); k++)
+						if (local[g.getNeighbor(v, k)] >= 0)
+							c++;
+					off[i + 1] = off[i] + c;
+				}
+				this.adj = new int[off[n]];
+				this.elab = new int[off[n]];
+				int p = 0;
+				for (int i = 0; i < n; i++) {
+					int v = vertices[i];
+					for (int k = 0; k < g.getDegree(v); k++) {
+						int u = local[g.getNeighbor(v, k)];
+						if (u >= 0) {
+							adj[p] = u;
+							elab[p++] = edgeLabels == null ? 0 : edgeLabels[g.getEdgeId(v, k)];
+						}
+					}
+				}
+			} finally {
+				for (int v : vertices)
+					local[v] = -1;
+			}
+			this.m = adj.length / 2;
+			this.edgeLabelValues = rank(elab);
+			int[] vl = new int[n];
+			if (vertexLabels != null)
+				for (int i = 0; i < n; i++)
+					vl[i] = vertexLabels[vertices[i]];
+			this.vlab = vl;
+			this.vertexLabelValues = rank(vlab);
+		}
+
+		/**
+		 * Cores iniciais (grau e rótulo)
+		 */
+		private long[] initial() {
+			long[] col = new long[n];
+			for (int i = 0; i < n; i++)
+				col[i] = mix((off[i + 1] - off[i]) * 0x9E3779B97F4A7C15L + vlab[i]);
+			return col;
+		}
+
+		/**
+		 * Função que refina as cores até a estabilização da partição
+		 *
+		 * @return número de cores distintas
+		 */
+		private int refine(long[] col) {
+			long[] next = new long[n], tmp = new long[n];
+			int classes = distinct(col, tmp);
+			while (true) {
+				for (int i = 0; i < n; i++) {
+					long s = 0;
+					for (int p = off[i]; p < off[i + 1]; p++)
+						s += mix(col[adj[p]] + (elab[p] + 1) * 0xC2B2AE3D27D4EB4FL);
+					next[i] = mix(col[i] * 0x9E3779B97F4A7C15L + s);
+				}
+				int c = distinct(next, tmp);
+				System.arraycopy(next, 0, col, 0, n);
+				if (c == classes)
+					return c;
+				classes = c;
+			}
+		}
+
+		private long fingerprint() {
+			long[] col = initial();
+			refine(col);
+			Arrays.sort(col);
+			long h = mix(n * 0x9E3779B97F4A7C15L + m);
+			for (long c : col)
+				h = mix(h * 31 + c);
+			for (int v : vertexLabelValues)
+				h = mix(h * 31 + v);
+			for (int v : edgeLabelValues)
+				h = mix(h * 31 + v);
+			return h;
+		}
+	}
+
+	/**
+	 * Busca da forma canônica por individualização e refinamento. A partição
+	 * ordenada dos vértices é mantida numa pilha: cada célula ocupa um intervalo
+	 * contíguo de posições e é refinada pela divisão das células tocadas pelas
+	 * células divisoras (refinamento equitativo), sendo as divisões registradas
+	 * num rastro para serem desfeitas no retorno. A busca é iterativa (a
+	 * profundidade não depende da pilha de chamadas) e limitada pelo número de
+	 * folhas e de operações.
+	 */
+	private static class Search {
+		private final Sub s;
+		private final int n;
+		private final int maxLeaves;
+		private final long maxWork;
+		private int leaves;
+		private long work;
+		private long[] best, first;
+		private int[] bestLab, bestInv, firstInv, bestPath, firstPath;
+
+		/**
+		 * Automorfismos encontrados, guardados pelos vértices que eles movem e pelas
+		 * suas imagens
+		 */
+		private final List<int[][]> automorphisms = new ArrayList<>();
+
+		// partição ordenada: lab[p] = vértice da posição p, pos[v] = posição do
+		// vértice v, cellOf[v] = início da célula de v, size[c] = tamanho da célula
+		// que começa em c
+		private final int[] lab, pos, cellOf, size;
+		private int cells;
+
+		// rastro das divisões (célula anterior e nova célula)
+		private final int[] trailOld, trailNew;
+		private int trail;
+
+		// fila das células divisoras
+		private final int[] queue;
+		private final boolean[] inQueue;
+		private int qHead, qSize;
+
+		// auxiliares do refinamento
+		private final long[] ew, cnt, keys;
+		private final int[] tcount, touched, snapshot, tmp;
+
+		// estado de cada nível da árvore de busca
+		private final int[] prefix, mark, target;
+		private final boolean[] inPrefix;
+		private final int[][] cand, parent;
+		private final boolean[][] explored;
+		private final int[] next, seen;
+
+		/**
+		 * Nível de cada vértice no primeiro caminho (-1 se ele não foi
+		 * individualizado nele)
+		 */
+		private final int[] firstLevel;
+
+		/**
+		 * Nível para o qual a busca deve retornar após encontrar um automorfismo
+		 * (-1 se não houver)
+		 */
+		private int jump = -1;
+
+		private Search(Sub s, int maxLeaves, long maxWork) {
+			this.s = s;
+			this.n = s.n;
+			this.maxLeaves = maxLeaves;
+			this.maxWork = maxWork;
+			this.lab = new int[n];
+			this.pos = new int[n];
+			this.cellOf = new int[n];
+			this.size = new int[n];
+			this.trailOld = new int[n];
+			this.trailNew = new int[n];
+			this.queue = new int[n];
+			this.inQueue = new boolean[n];
+			// pesos das arestas: unitários sem rótulos, espalhados (e positivos) com
+			// rótulos, de modo que as somas identifiquem os multiconjuntos
+			this.ew = new long[s.adj.length];
+			boolean labelled = s.edgeLabelValues.length > 1;
+			for (int p = 0; p < ew.length; p++)
+				ew[p] = labelled ? (mix(s.elab[p] + 1L) >>> 20) | 1L : 1L;
+			this.cnt = new long[n];
+			this.keys = new long[n];
+			this.tcount = new int[n];
+			this.touched = new int[n];
+			this.snapshot = new int[n];
+			this.tmp = new int[n];
+			this.prefix = new int[n];
+			this.mark = new int[n];
+			this.target = new int[n];
+			this.inPrefix = new boolean[n];
+			this.cand = new int[n][];
+			this.parent = new int[n][];
+			this.explored = new boolean[n][];
+			this.next = new int[n];
+			this.seen = new int[n];
+			this.firstLevel = new int[n];
+		}
+
+		/**
+		 * @return <code>false</code> se o limite de folhas ou de operações foi
+		 *         atingido
+		 */
+		private boolean run() {
+			if (n == 0) {
+				best = new long[0];
+				bestLab = new int[0];
+				return true;
+			}
+			// partição inicial: células pelos rótulos dos vértices (já substituídos
+			// pela sua posição entre os valores distintos)
+			int k = s.vertexLabelValues.length;
+			int[] start = new int[k + 1];
+			for (int v = 0; v < n; v++)
+				start[s.vlab[v] + 1]++;
+			for (int i = 0; i < k; i++)
+				start[i + 1] += start[i];
+			int[] fill = Arrays.copyOf(start, k);
+			for (int v = 0; v < n; v++) {
+				int p = fill[s.vlab[v]]++;
+				lab[p] = v;
+				pos[v] = p;
+				cellOf[v] = start[s.vlab[v]];
+			}
+			for (int i = 0; i < k; i++) {
+				size[start[i]] = start[i + 1] - start[i];
+				cells++;
+				enqueue(start[i]);
+			}
+			refine();
+
+			int d = 0;
+			boolean down = true;
+			while (true) {
+				if (work > maxWork)
+					return false;
+				int v;
+				if (down) {
+					if (cells == n) {
+						// folha
+						if (!leaf(d))
+							return false;
+						if (--d < 0)
+							return true;
+						down = false;
+						continue;
+					}
+					// célula alvo: a primeira não unitária (as anteriores à do nível
+					// pai continuam unitárias)
+					int c = d == 0 ? 0 : target[d - 1];
+					while (size[c] == 1)
+						c++;
+					target[d] = c;
+					mark[d] = trail;
+					v = firstChild(c, d);
+				} else {
+					// retorno de um filho: desfaz a sua partição
+					undo(mark[d]);
+					inPrefix[prefix[d]] = false;
+					if (jump >= 0) {
+						// a subárvore é imagem de uma já explorada: volta ao nível em que
+						// o caminho atual se separou do caminho da folha equivalente
+						if (d > jump) {
+							release(d);
+							d--;
+							continue;
+						}
+						jump = -1;
+					}
+					v = nextCandidate(d);
+					if (v < 0) {
+						release(d);
+						if (--d < 0)
+							return true;
+						continue;
+					}
+				}
+				prefix[d] = v;
+				inPrefix[v] = true;
+				individualize(v);
+				refine();
+				d++;
+				down = true;
+			}
+		}
+
+		/**
+		 * Função que retorna o próximo vértice da célula alvo de um nível que não
+		 * está na órbita de um já explorado (pelos automorfismos que fixam os
+		 * vértices individualizados nos níveis anteriores)
+		 *
+		 * @return vértice, ou -1 se não houver
+		 */
+		private int nextCandidate(int d) {
+			int[] par = parent[d];
+			boolean[] ex = explored[d];
+			if (cand[d] == null) {
+				int c = target[d];
+				cand[d] = Arrays.copyOfRange(lab, c, c + size[c]);
+				par = parent[d] = new int[n];
+				for (int i = 0; i < n; i++)
+					par[i] = i;
+				ex = explored[d] = new boolean[n];
+				next[d] = 0;
+				seen[d] = 0;
+			}
+			ex[find(par, prefix[d])] = true;
+			for (; seen[d] < automorphisms.size(); seen[d]++) {
+				int[][] a = automorphisms.get(seen[d]);
+				int[] mv = a[0], im = a[1];
+				boolean fixes = true;
+				for (int v : mv)
+					if (inPrefix[v]) {
+						fixes = false;
+						break;
+					}
+				if (!fixes)
+					continue;
+				for (int i = 0; i < mv.length; i++) {
+					int r1 = find(par, mv[i]), r2 = find(par, im[i]);
+					if (r1 != r2) {
+						int lo = Math.min(r1, r2), hi = Math.max(r1, r2);
+						par[hi] = lo;
+						ex[lo] |= ex[hi];
+					}
+				}
+				work += mv.length;
+			}
+			int[] cs = cand[d];
+			while (next[d] < cs.length) {
+				int v = cs[next[d]++];
+				if (!ex[find(par, v)])
+					return v;
+			}
+			return -1;
+		}
+
+		/**
+		 * Função que escolhe o primeiro filho de um nó: o vértice do primeiro
+		 * caminho no mesmo nível, se ele estiver na célula alvo, ou um vértice do
+		 * primeiro caminho que ainda não foi individualizado, de modo que as folhas
+		 * equivalentes à primeira se distingam dela pelo menor número possível de
+		 * vértices (automorfismos esparsos)
+		 */
+		private int firstChild(int c, int d) {
+			if (firstPath == null)
+				return lab[c];
+			if (d < firstPath.length && cellOf[firstPath[d]] == c)
+				return firstPath[d];
+			for (int p = c, e = c + size[c]; p < e; p++) {
+				int l = firstLevel[lab[p]];
+				if (l >= 0 && l < d)
+					return lab[p];
+			}
+			return lab[c];
+		}
+
+		private void release(int d) {
+			cand[d] = null;
+			parent[d] = null;
+			explored[d] = null;
+		}
+
+		// ---------------- partição ----------------
+
+		/**
+		 * Função que separa um vértice da sua célula, colocando-o na última posição
+		 * dela
+		 */
+		private void individualize(int v) {
+			int c = cellOf[v], e = c + size[c] - 1;
+			swap(pos[v], e);
+			size[c]--;
+			size[e] = 1;
+			cellOf[v] = e;
+			split(c, e);
+			enqueue(e);
+		}
+
+		/**
+		 * Função que refina a partição até que ela se torne equitativa
+		 */
+		private void refine() {
+			while (qSize > 0 && cells < n) {
+				int w = queue[qHead];
+				qHead = (qHead + 1) % n;
+				qSize--;
+				inQueue[w] = false;
+				int ws = size[w];
+				System.arraycopy(lab, w, snapshot, 0, ws);
+				int nt = 0;
+				for (int i = 0; i < ws; i++) {
+					int x = snapshot[i];
+					for (int p = s.off[x]; p < s.off[x + 1]; p++) {
+						int u = s.adj[p], c = cellOf[u];
+						if (size[c] == 1)
+							continue;
+						if (cnt[u] == 0) {
+							// primeiro toque: o vértice vai para o fim da sua célula
+							int t = tcount[c]++;
+							if (t == 0)
+								touched[nt++] = c;
+							swap(pos[u], c + size[c] - 1 - t);
+						}
+						cnt[u] += ew[p];
+					}
+					work += s.off[x + 1] - s.off[x];
+				}
+				// divisões na ordem das posições, para que a fila não dependa da
+				// numeração
+				Arrays.sort(touched, 0, nt);
+				for (int i = 0; i < nt; i++)
+					splitTouched(touched[i]);
+			}
+			// partição discreta: as divisoras restantes são descartadas
+			while (qSize > 0) {
+				inQueue[queue[qHead]] = false;
+				qHead = (qHead + 1) % n;
+				qSize--;
+			}
+		}
+
+		/**
+		 * Função que divide uma célula pelas contagens dos seus vértices tocados
+		 * (que estão no fim da célula)
+		 */
+		private void splitTouched(int c) {
+			int sz = size[c], e = c + sz, t = tcount[c], from = e - t;
+			tcount[c] = 0;
+			work += t;
+			boolean uniform = true;
+			for (int p = from + 1; p < e && uniform; p++)
+				uniform = cnt[lab[p]] == cnt[lab[from]];
+			if (t == sz && uniform) {
+				for (int p = from; p < e; p++)
+					cnt[lab[p]] = 0;
+				return;
+			}
+			sortByCount(from, e);
+			boolean queued = inQueue[c];
+			// fragmentos: os não tocados (se houver) e os tocados por contagem
+			// crescente
+			int largest = c, largestSize = 0, prev = c, last = c;
+			for (int q = from > c ? from : from + 1; q <= e; q++) {
+				if (q < e && q != from && cnt[lab[q]] == cnt[lab[q - 1]])
+					continue;
+				int fs = q - prev;
+				size[prev] = fs;
+				if (prev != c) {
+					for (int r = prev; r < q; r++)
+						cellOf[lab[r]] = prev;
+					split(last, prev);
+					if (queued)
+						enqueue(prev);
+				}
+				if (fs > largestSize) {
+					largest = prev;
+					largestSize = fs;
+				}
+				last = prev;
+				prev = q;
+			}
+			if (!queued)
+				// todos os fragmentos exceto o maior (regra de Hopcroft)
+				for (int f = c; f < e; f += size[f])
+					if (f != largest)
+						enqueue(f);
+			for (int q = from; q < e; q++)
+				cnt[lab[q]] = 0;
+		}
+
+		/**
+		 * Função que registra a divisão de uma célula
+		 */
+		private void split(int old, int fresh) {
+			trailOld[trail] = old;
+			trailNew[trail++] = fresh;
+			cells++;
+		}
+
+		/**
+		 * Função que desfaz as divisões até um dado ponto do rastro
+		 */
+		private void undo(int to) {
+			while (trail > to) {
+				int old = trailOld[--trail], fresh = trailNew[trail];
+				for (int p = fresh, e = fresh + size[fresh]; p < e; p++)
+					cellOf[lab[p]] = old;
+				size[old] += size[fresh];
+				cells--;
+			}
+		}
+
+		private void enqueue(int c) {
+			if (inQueue[c])
+				return;
+			inQueue[c] = true;
+			queue[(qHead + qSize++) % n] = c;
+		}
+
+		private void swap(int p, int q) {
+			int a = lab[p], b = lab[q];
+			lab[p] = b;
+			pos[b] = p;
+			lab[q] = a;
+			pos[a] = q;
+		}
+
+		/**
+		 * Função que ordena um intervalo de posições pela contagem dos vértices
+		 */
+		private void sortByCount(int from, int to) {
+			int t = to - from;
+			if (t < 16) {
+				for (int i = from + 1; i < to; i++) {
+					int v = lab[i];
+					long k = cnt[v];
+					int j = i - 1;
+					while (j >= from && cnt[lab[j]] > k) {
+						lab[j + 1] = lab[j];
+						j--;
+					}
+					lab[j + 1] = v;
+				}
+			} else {
+				// ordenação por contagem das posições dos valores distintos
+				for (int i = 0; i < t; i++)
+					keys[i] = cnt[lab[from + i]];
+				Arrays.sort(keys, 0, t);
+				int dv = 0;
+				for (int i = 0; i < t; i++)
+					if (dv == 0 || keys[i] != keys[dv - 1])
+						keys[dv++] = keys[i];
+				int[] count = new int[dv + 1];
+				for (int i = 0; i < t; i++)
+					count[Arrays.binarySearch(keys, 0, dv, cnt[lab[from + i]]) + 1]++;
+				for (int i = 0; i < dv; i++)
+					count[i + 1] += count[i];
+				for (int i = 0; i < t; i++) {
+					int v = lab[from + i];
+					tmp[count[Arrays.binarySearch(keys, 0, dv, cnt[v])]++] = v;
+				}
+				System.arraycopy(tmp, 0, lab, from, t);
+			}
+			for (int i = from; i < to; i++)
+				pos[lab[i]] = i;
+		}
+
+		// ---------------- folhas ----------------
+
+		private boolean leaf(int depth) {
+			if (++leaves > maxLeaves)
+				return false;
+			// certificado: rótulos dos vértices na ordem canônica e adjacências
+			// codificadas e ordenadas
+			long[] cert = new long[n + s.adj.length];
+			for (int i = 0; i < n; i++)
+				cert[pos[i]] = s.vlab[i];
+			int p = n;
+			long nn = n, ne = s.edgeLabelValues.length;
+			for (int i = 0; i < n; i++)
+				for (int q = s.off[i]; q < s.off[i + 1]; q++)
+					cert[p++] = (pos[i] * nn + pos[s.adj[q]]) * ne + s.elab[q];
+			Arrays.sort(cert, n, cert.length);
+			work += cert.length;
+
+			if (best == null) {
+				best = first = cert;
+				bestLab = pos.clone();
+				bestInv = firstInv = lab.clone();
+				bestPath = firstPath = Arrays.copyOf(prefix, depth);
+				Arrays.fill(firstLevel, -1);
+				for (int l = 0; l < depth; l++)
+					firstLevel[firstPath[l]] = l;
+				return true;
+			}
+			if (compare(cert, first) == 0)
+				automorphism(firstInv, firstPath, depth);
+			else {
+				int c = compare(cert, best);
+				if (c == 0)
+					automorphism(bestInv, bestPath, depth);
+				else if (c < 0) {
+					best = cert;
+					bestLab = pos.clone();
+					bestInv = lab.clone();
+					bestPath = Arrays.copyOf(prefix, depth);
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Função que guarda o automorfismo entre a folha atual e uma folha
+		 * equivalente e marca o retorno da busca
+		 */
+		private void automorphism(int[] inv, int[] path, int depth) {
+			// vértice -> vértice de mesma posição na folha equivalente
+			int moved = 0;
+			for (int i = 0; i < n; i++)
+				if (inv[pos[i]] != i)
+					moved++;
+			int[] mv = new int[moved], im = new int[moved];
+			moved = 0;
+			for (int i = 0; i < n; i++)
+				if (inv[pos[i]] != i) {
+					mv[moved] = i;
+					im[moved++] = inv[pos[i]];
+				}
+			automorphisms.add(new int[][] { mv, im });
+			work += n;
+			int l = 0;
+			while (l < depth && l < path.length && prefix[l] == path[l])
+				l++;
+			jump = l;
+		}
+	}
+
+	private static int compare(long[] a, long[] b) {
+		for (int i = 0; i < a.length; i++)
+			if (a[i] != b[i])
+				return Long.compare(a[i], b[i]);
+		return 0;
+	}
+
+	private static int find(int[] parent, int i) {
+		while (parent[i] != i)
+			i = parent[i] = parent[parent[i]];
+		return i;
+	}
+
+	/**
+	 * Função que substitui os valores pela sua posição entre os valores distintos
+	 *
+	 * @return valores distintos em ordem crescente
+	 */
+	private static int[] rank(int[] values) {
+		int[] sorted = values.clone();
+		Arrays.sort(sorted);
+		int d = 0;
+		for (int i = 0; i < sorted.length; i++)
+			if (d == 0 || sorted[i] != sorted[d - 1])
+				sorted[d++] = sorted[i];
+		int[] out = Arrays.copyOf(sorted, d);
+		for (int i = 0; i < values.length; i++)
+			values[i] = Arrays.binarySearch(out, values[i]);
+		return out;
+	}
+
+	private static int distinct(long[] col, long[] tmp) {
+		System.arraycopy(col, 0, tmp, 0, col.length);
+		Arrays.sort(tmp);
+		int d = 0;
+		for (int i = 0; i < tmp.length; i++)
+			if (i == 0 || tmp[i] != tmp[i - 1])
+				d++;
+		return d;
+	}
+
+	/**
+	 * Função de espalhamento de 64 bits (finalizador do SplitMix64)
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -1,8 +1,10 @@
 package br.com.pereiraeng.graph.numbered;
 
+import java.util.AbstractSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
@@ -11,6 +13,7 @@ import br.com.pereiraeng.graph.EdgeObject;
 import br.com.pereiraeng.graph.GraphUtils;
 import br.com.pereiraeng.graph.Vertex;
 import br.com.pereiraeng.graph.VertexObject;
+import br.com.pereiraeng.graph.sparse.NodalOrdering;
 import br.com.pereiraeng.math.DuplaEmeio;
 
 /**
@@ -29,6 +32,11 @@ public class GraphN {
 
 	protected Set<Integer> isolated;
 
+	/**
+	 * Contador de modificações do grafo (ver {@link #getEpoch()})
+	 */
+	private long epoch;
+
 	public GraphN() {
 		this(new HashSet<DuplaEmeio>());
 	}
@@ -62,6 +70,7 @@ public class GraphN {
 		this.isolated = new HashSet<>();
 		for (DuplaEmeio d : ens)
 			add(d);
+		modified();
 	}
 
 	public void setEns(Collection<? extends EdgeN> ensf) {
@@ -69,30 +78,83 @@ public class GraphN {
 		for (EdgeN e : ensf)
 			ens.put(e.getNums(), e);
 		this.ens = ens;
+		modified();
 	}
 
+	/**
+	 * Função que retorna as arestas do grafo
+	 * 
+	 * @return conjunto das arestas, ligado ao grafo (as remoções feitas por ele
+	 *         alteram o grafo e atualizam a {@link #getEpoch() época})
+	 */
 	public Set<DuplaEmeio> getEns() {
-		return this.ens.keySet();
+		return new Tracked<>(this.ens.keySet());
 	}
 
 	public void add(DuplaEmeio e) {
 		this.ens.put(e, null);
 		this.isolated.remove(e.get1());
 		this.isolated.remove(e.get2());
+		modified();
 	}
 
 	public void add(int num) {
-		if (!contains(num))
+		if (!contains(num)) {
 			this.isolated.add(num);
+			modified();
+		}
+	}
+
+	/**
+	 * Função que remove uma aresta (os seus vértices são mantidos somente se
+	 * pertencerem a outras arestas)
+	 * 
+	 * @param e aresta
+	 * @return <code>true</code> se a aresta pertencia ao grafo
+	 */
+	public boolean remove(DuplaEmeio e) {
+		if (!this.ens.containsKey(e))
+			return false;
+		this.ens.remove(e);
+		modified();
+		return true;
 	}
 
+	/**
+	 * Função que retorna os vértices isolados do grafo
+	 * 
+	 * @return conjunto dos vértices isolados, ligado ao grafo (as alterações
+	 *         feitas por ele atualizam a {@link #getEpoch() época})
+	 */
 	public Set<Integer> getIsolated() {
-		return this.isolated;
+		return new Tracked<>(this.isolated);
 	}
 
 	public void clear() {
 		this.ens.clear();
 		this.isolated.clear();
+		modified();
+	}
+
+	/**
+	 * Função que retorna a época do grafo, i.e., um número que muda toda vez que
+	 * o grafo é alterado pelos seus métodos. Resultados calculados numa época
+	 * diferente da atual devem ser descartados (ver
+	 * {@link br.com.pereiraeng.graph.AnalysisCache AnalysisCache})
+	 * 
+	 * @return época do grafo
+	 */
+	public long getEpoch() {
+		return epoch;
+	}
+
+	/**
+	 * Função que registra uma modificação no grafo. Deve ser chamada pelas
+	 * subclasses que alteram diretamente o conjunto de arestas ou de vértices
+	 * isolados
+	 */
+	protected void modified() {
+		this.epoch++;
 	}
 
 	public boolean contains(int num) {
@@ -114,9 +176,20 @@ public class GraphN {
 		return out;
 	}
 
+	/**
+	 * Função que retorna os vértices do grafo ordenados para a fatoração de
+	 * matrizes esparsas (esquema 2 de Tinney, i.e., grau mínimo). A ordem segue
+	 * somente o grau no grafo parcialmente eliminado; os vértices isolados e os
+	 * radiais tendem a sair primeiro, mas não há nenhuma separação por ilhas.
+	 * 
+	 * @return vértices na ordem de eliminação
+	 * @see NodalOrdering
+	 */
 	public Set<Integer> getOrderedVs() {
 		Set<Integer> out = new LinkedHashSet<>();
-		// TODO tem de ter critério de ordenação (i.e., Fronteira-Ilha-Radial)
+		NodalOrdering o = NodalOrdering.compute(CompactGraphN.of(this), NodalOrdering.Method.TINNEY_2);
+		for (int num : o.getOrderedNums())
+			out.add(num);
 		return out;
 	}
 
@@ -195,4 +268,75 @@ public class GraphN {
 		}
 		return out;
 	}
+
+	/**
+	 * Vista de um dos conjuntos do grafo cujas alterações atualizam a
+	 * {@link #getEpoch() época} (inclusive as feitas pelo iterador, por onde
+	 * passam também {@link #removeAll(Collection) removeAll},
+	 * {@link #retainAll(Collection) retainAll} e
+	 * {@link #removeIf(java.util.function.Predicate) removeIf})
+	 */
+	private class Tracked<E> extends AbstractSet<E> {
+		private final Set<E> set;
+
+		private Tracked(Set<E> set) {
+			this.set = set;
+		}
+
+		@Override
+		public int size() {
+			return set.size();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return set.contains(o);
+		}
+
+		@Override
+		public boolean add(E e) {
+			boolean added = set.add(e);
+			if (added)
+				modified();
+			return added;
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			boolean removed = set.remove(o);
+			if (removed)
+				modified();
+			return removed;
+		}
+
+		@Override
+		public void clear() {
+			if (!set.isEmpty()) {
+				set.clear();
+				modified();
+			}
+		}
+
+		@Override
+		public Iterator<E> iterator() {
+			Iterator<E> it = set.iterator();
+			return new Iterator<E>() {
+				@Override
+				public boolean hasNext() {
+					return it.hasNext();
+				}
+
+				@Override
+				public E next() {
+					return it.next();
+				}
+
+				@Override
+				public void remove() {
+					it.remove();
+					modified();
+				}
+			};
+		}
+	}
 }
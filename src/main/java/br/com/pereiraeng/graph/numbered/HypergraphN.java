@@ -0,0 +1,570 @@
+package br.com.pereiraeng.graph.numbered;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import br.com.pereiraeng.graph.Edge;
+import br.com.pereiraeng.graph.Hyperedge;
+import br.com.pereiraeng.graph.Vertex;
+
+/**
+ * Classe do objeto que representa um hipergrafo numerado de forma compacta
+ * (e.g., subestações ou equipamentos de vários terminais ligando diversas
+ * barras). Os vértices são renumerados densamente como no
+ * {@link CompactGraphN} e as hiperarestas são identificadas pela sua posição
+ * (de 0 a h-1). As incidências ('pinos') são guardadas no formato CSR nos dois
+ * sentidos: hiperaresta para vértices e vértice para hiperarestas.
+ * <p>
+ * Os vértices e as hiperarestas podem ser acessados através das interfaces
+ * {@link VertexN} e {@link Hyperedge} por meio de objetos leves que apenas
+ * apontam para este hipergrafo (não é possível alterá-lo por eles).
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public class HypergraphN {
+
+	/**
+	 * Número de cada vértice (em ordem crescente)
+	 */
+	private final int[] nums;
+
+	/**
+	 * Número de cada hiperaresta (e.g., número da subestação)
+	 */
+	private final int[] hyperNums;
+
+	/**
+	 * Pinos de cada hiperaresta (índices densos dos vértices)
+	 */
+	private final int[] ePtr, ePins;
+
+	/**
+	 * Hiperarestas incidentes em cada vértice
+	 */
+	private final int[] vPtr, vPins;
+
+	/**
+	 * Construtor do hipergrafo
+	 *
+	 * @param hyperNums número de cada hiperaresta (ou <code>null</code>, e nesse
+	 *                  caso o número é a posição)
+	 * @param ptr       posição inicial dos pinos de cada hiperaresta (h+1
+	 *                  posições)
+	 * @param pinNums   números dos vértices de cada hiperaresta, em sequência
+	 */
+	public HypergraphN(int[] hyperNums, int[] ptr, int[] pinNums) {
+		int h = ptr.length - 1;
+		if (hyperNums == null) {
+			hyperNums = new int[h];
+			for (int i = 0; i < h; i++)
+				hyperNums[i] = i;
+		} else if (hyperNums.length != h)
+			throw new IllegalArgumentException("Número de hiperarestas incompatível com os ponteiros");
+		this.hyperNums = hyperNums;
+
+		int[] sorted = Arrays.copyOfRange(pinNums, ptr[0], ptr[h]);
+		Arrays.sort(sorted);
+		int n = 0;
+		for (int i = 0; i < sorted.length; i++)
+			if (i == 0 || sorted[i] != sorted[i - 1])
+				sorted[n++] = sorted[i];
+		this.nums = Arrays.copyOf(sorted, n);
+
+		// hiperaresta -> vértices (sem pinos repetidos)
+		this.ePtr = new int[h + 1];
+		int[] pins = new int[ptr[h] - ptr[0]];
+		int[] mark = new int[n];
+		Arrays.fill(mark, -1);
+		int len = 0;
+		for (int e = 0; e < h; e++) {
+			for (int p = ptr[e]; p < ptr[e + 1]; p++) {
+				int v = Arrays.binarySearch(nums, pinNums[p]);
+				if (mark[v] != e) {
+					mark[v] = e;
+					pins[len++] = v;
+				}
+			}
+			ePtr[e + 1] = len;
+		}
+		this.ePins = Arrays.copyOf(pins, len);
+
+		// vértice -> hiperarestas (transposição)
+		this.vPtr = new int[n + 1];
+		for (int p = 0; p < len; p++)
+			vPtr[ePins[p] + 1]++;
+		for (int v = 0; v < n; v++)
+			vPtr[v + 1] += vPtr[v];
+		this.vPins = new int[len];
+		int[] pos = Arrays.copyOf(vPtr, n);
+		for (int e = 0; e < h; e++)
+			for (int p = ePtr[e]; p < ePtr[e + 1]; p++)
+				vPins[pos[ePins[p]]++] = e;
+	}
+
+	/**
+	 * Função que gera o hipergrafo a partir dos vértices de cada hiperaresta
+	 *
+	 * @param pinNums vetor em que a posição i contém os números dos vértices da
+	 *                i-ésima hiperaresta
+	 * @return hipergrafo
+	 */
+	public static HypergraphN of(int[][] pinNums) {
+		int[] ptr = new int[pinNums.length + 1];
+		for (int e = 0; e < pinNums.length; e++)
+			ptr[e + 1] = ptr[e] + pinNums[e].length;
+		int[] pins = new int[ptr[pinNums.length]];
+		for (int e = 0; e < pinNums.length; e++)
+			System.arraycopy(pinNums[e], 0, pins, ptr[e], pinNums[e].length);
+		return new HypergraphN(null, ptr, pins);
+	}
+
+	// -------------- getter's --------------
+
+	public int getVertexCount() {
+		return nums.length;
+	}
+
+	public int getHyperedgeCount() {
+		return hyperNums.length;
+	}
+
+	public int getPinCount() {
+		return ePins.length;
+	}
+
+	public int getNum(int v) {
+		return nums[v];
+	}
+
+	public int getHyperedgeNum(int e) {
+		return hyperNums[e];
+	}
+
+	/**
+	 * Função que retorna o índice denso de um vértice a partir do seu número
+	 *
+	 * @param num número do vértice
+	 * @return índice denso, ou -1 se o vértice não pertencer ao hipergrafo
+	 */
+	public int indexOf(int num) {
+		int i = Arrays.binarySearch(nums, num);
+		return i < 0 ? -1 : i;
+	}
+
+	/**
+	 * Função que retorna o número de vértices de uma hiperaresta
+	 *
+	 * @param e hiperaresta
+	 * @return número de pinos
+	 */
+	public int getSize(int e) {
+		return ePtr[e + 1] - ePtr[e];
+	}
+
+	/**
+	 * Função que retorna o k-ésimo vértice de uma hiperaresta
+	 *
+	 * @param e hiperaresta
+	 * @param k posição (de 0 ao {@link #getSize(int) tamanho} - 1)
+	 * @return índice denso do vértice
+	 */
+	public int getPin(int e, int k) {
+		return ePins[ePtr[e] + k];
+	}
+
+	/**
+	 * Função que retorna o número de hiperarestas incidentes num vértice
+	 *
+	 * @param v índice denso do vértice
+	 * @return grau
+	 */
+	public int getDegree(int v) {
+		return vPtr[v + 1] - vPtr[v];
+	}
+
+	/**
+	 * Função que retorna a k-ésima hiperaresta incidente num vértice
+	 *
+	 * @param v índice denso do vértice
+	 * @param k posição (de 0 ao {@link #getDegree(int) grau} - 1)
+	 * @return hiperaresta
+	 */
+	public int getIncident(int v, int k) {
+		return vPins[vPtr[v] + k];
+	}
+
+	public int[] getHyperedgePointers() {
+		return ePtr;
+	}
+
+	public int[] getHyperedgePins() {
+		return ePins;
+	}
+
+	public int[] getVertexPointers() {
+		return vPtr;
+	}
+
+	public int[] getVertexPins() {
+		return vPins;
+	}
+
+	/**
+	 * Função que indica se um vértice pertence a uma hiperaresta
+	 *
+	 * @param e hiperaresta
+	 * @param v índice denso do vértice
+	 * @return <code>true</code> se o vértice for um dos pinos da hiperaresta
+	 */
+	public boolean contains(int e, int v) {
+		// percorre a menor das duas listas
+		if (getSize(e) <= getDegree(v)) {
+			for (int p = ePtr[e]; p < ePtr[e + 1]; p++)
+				if (ePins[p] == v)
+					return true;
+		} else
+			for (int p = vPtr[v]; p < vPtr[v + 1]; p++)
+				if (vPins[p] == e)
+					return true;
+		return false;
+	}
+
+	// ---------------- percurso ----------------
+
+	/**
+	 * Função que faz o percurso em largura do hipergrafo a partir de um vértice
+	 * (dois vértices são vizinhos se pertencem a uma mesma hiperaresta)
+	 *
+	 * @param v índice denso do vértice de partida
+	 * @return índices densos dos vértices visitados, na ordem de visita
+	 */
+	public int[] bfs(int v) {
+		int n = nums.length;
+		boolean[] seenV = new boolean[n], seenE = new boolean[hyperNums.length];
+		int[] queue = new int[n];
+		int head = 0, tail = 0;
+		queue[tail++] = v;
+		seenV[v] = true;
+		while (head < tail) {
+			int u = queue[head++];
+			for (int p = vPtr[u]; p < vPtr[u + 1]; p++) {
+				int e = vPins[p];
+				if (seenE[e])
+					continue;
+				seenE[e] = true; // cada hiperaresta é expandida uma única vez
+				for (int q = ePtr[e]; q < ePtr[e + 1]; q++) {
+					int w = ePins[q];
+					if (!seenV[w]) {
+						seenV[w] = true;
+						queue[tail++] = w;
+					}
+				}
+			}
+		}
+		return Arrays.copyOf(queue, tail);
+	}
+
+	/**
+	 * Função que identifica as ilhas (componentes conexas) do hipergrafo
+	 *
+	 * @return vetor indexado pelo índice denso do vértice com o número da ilha
+	 *         (de 0 ao número de ilhas - 1)
+	 */
+	public int[] getComponents() {
+		int n = nums.length, h = hyperNums.length;
+		// união-busca sobre vértices, unindo os pinos de cada hiperaresta
+		int[] parent = new int[n];
+		for (int v = 0; v < n; v++)
+			parent[v] = v;
+		for (int e = 0; e < h; e++) {
+			if (getSize(e) == 0)
+				continue;
+			int r = find(parent, ePins[ePtr[e]]);
+			for (int p = ePtr[e] + 1; p < ePtr[e + 1]; p++) {
+				int s = find(parent, ePins[p]);
+				if (s != r)
+					parent[s] = r;
+			}
+		}
+		int[] comp = new int[n];
+		Arrays.fill(comp, -1);
+		int c = 0;
+		for (int v = 0; v < n; v++) {
+			int r = find(parent, v);
+			if (comp[r] < 0)
+				comp[r] = c++;
+			comp[v] = comp[r];
+		}
+		return comp;
+	}
+
+	private static int find(int[] parent, int v) {
+		while (parent[v] != v) {
+			parent[v] = parent[parent[v]];
+			v = parent[v];
+		}
+		return v;
+	}
+
+	// ---------------- expansões ----------------
+
+	/**
+	 * Função que gera o grafo da expansão em cliques: cada hiperaresta é
+	 * substituída por arestas ligando todos os pares dos seus vértices. O número
+	 * de circuito de cada aresta é o {@link #getHyperedgeNum(int) número da
+	 * hiperaresta}, de modo que pares presentes em várias hiperarestas resultam em
+	 * circuitos paralelos.
+	 *
+	 * @return grafo numerado
+	 */
+	public CompactGraphN getCliqueExpansion() {
+		long m = 0;
+		for (int e = 0; e < hyperNums.length; e++) {
+			long s = getSize(e);
+			m += s * (s - 1) / 2;
+		}
+		if (m > Integer.MAX_VALUE)
+			throw new IllegalStateException("Expansão em cliques grande demais: " + m + " arestas");
+		int[] from = new int[(int) m], to = new int[(int) m], circ = new int[(int) m];
+		int k = 0;
+		for (int e = 0; e < hyperNums.length; e++)
+			for (int p = ePtr[e]; p < ePtr[e + 1]; p++)
+				for (int q = p + 1; q < ePtr[e + 1]; q++) {
+					from[k] = ePins[p];
+					to[k] = ePins[q];
+					circ[k++] = hyperNums[e];
+				}
+		return new CompactGraphN(nums, from, to, circ);
+	}
+
+	/**
+	 * Função que gera o grafo da expansão em estrelas: cada hiperaresta é
+	 * substituída por um vértice novo ligado a todos os seus vértices
+	 *
+	 * @param firstNum número do vértice que representa a primeira hiperaresta (os
+	 *                 seguintes recebem números consecutivos, que não podem
+	 *                 coincidir com os dos vértices do hipergrafo)
+	 * @return grafo numerado (bipartido)
+	 */
+	public CompactGraphN getStarExpansion(int firstNum) {
+		int n = nums.length, h = hyperNums.length;
+		int[] all = Arrays.copyOf(nums, n + h);
+		for (int e = 0; e < h; e++) {
+			all[n + e] = firstNum + e;
+			if (indexOf(firstNum + e) >= 0)
+				throw new IllegalArgumentException("Número já utilizado por um vértice: " + (firstNum + e));
+		}
+		int[] from = new int[ePins.length], to = new int[ePins.length];
+		for (int e = 0; e < h; e++)
+			for (int p = ePtr[e]; p < ePtr[e + 1]; p++) {
+				from[p] = n + e;
+				to[p] = ePins[p];
+			}
+		return new CompactGraphN(all, from, to, null);
+	}
+
+	// ---------------- objetos leves ----------------
+
+	/**
+	 * Função que retorna um vértice do hipergrafo como {@link VertexN}, cujas
+	 * {@link Vertex#getEdges() arestas} são as hiperarestas incidentes
+	 *
+	 * @param v índice denso do vértice
+	 * @return vértice
+	 */
+	public VertexN getVertex(int v) {
+		return new HVertex(v);
+	}
+
+	/**
+	 * Função que retorna uma hiperaresta como {@link Hyperedge}
+	 *
+	 * @param e hiperaresta
+	 * @return hiperaresta
+	 */
+	public Hyperedge getHyperedge(int e) {
+		return new HEdge(e);
+	}
+
+	private class HVertex implements VertexN {
+		private final int v;
+
+		private HVertex(int v) {
+			this.v = v;
+		}
+
+		@Override
+		public int getNum() {
+			return nums[v];
+		}
+
+		@Override
+		public Set<? extends Edge> getEdges() {
+			return new IdSet<HEdge>(vPins, vPtr[v], vPtr[v + 1]) {
+				@Override
+				HEdge get(int id) {
+					return new HEdge(id);
+				}
+
+				@Override
+				public boolean contains(Object o) {
+					return o instanceof HEdge && ((HEdge) o).owner() == HypergraphN.this
+							&& HypergraphN.this.contains(((HEdge) o).e, v);
+				}
+			};
+		}
+
+		@Override
+		public void remove(Edge e) {
+			throw new UnsupportedOperationException("Hipergrafo somente para leitura");
+		}
+
+		private HypergraphN owner() {
+			return HypergraphN.this;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof HVertex && ((HVertex) o).v == v && ((HVertex) o).owner() == owner();
+		}
+
+		@Override
+		public int hashCode() {
+			return v;
+		}
+
+		@Override
+		public String toString() {
+			return String.valueOf(nums[v]);
+		}
+	}
+
+	private class HEdge implements Hyperedge {
+		private final int e;
+
+		private HEdge(int e) {
+			this.e = e;
+		}
+
+		private HypergraphN owner() {
+			return HypergraphN.this;
+		}
+
+		private int indexOf(Vertex v) {
+			if (v instanceof HVertex && ((HVertex) v).owner() == owner())
+				return ((HVertex) v).v;
+			if (v instanceof VertexN)
+				return HypergraphN.this.indexOf(((VertexN) v).getNum());
+			return -1;
+		}
+
+		@Override
+		public boolean contains(Vertex v) {
+			int i = indexOf(v);
+			return i >= 0 && HypergraphN.this.contains(e, i);
+		}
+
+		/**
+		 * Retorna o primeiro vértice da hiperaresta diferente do indicado (para
+		 * hiperarestas de dois vértices, é o vértice oposto)
+		 */
+		@Override
+		public Vertex getOpposite(Vertex v) {
+			int i = indexOf(v);
+			for (int p = ePtr[e]; p < ePtr[e + 1]; p++)
+				if (ePins[p] != i)
+					return new HVertex(ePins[p]);
+			return null;
+		}
+
+		/**
+		 * Retorna as demais hiperarestas incidentes num vértice desta hiperaresta
+		 */
+		@Override
+		public Set<Edge> getEdges(Vertex v) {
+			int i = indexOf(v);
+			Set<Edge> out = new HashSet<>();
+			if (i >= 0)
+				for (int p = vPtr[i]; p < vPtr[i + 1]; p++)
+					if (vPins[p] != e)
+						out.add(new HEdge(vPins[p]));
+			return out;
+		}
+
+		@Override
+		public Set<? extends Vertex> getVertices() {
+			return new IdSet<HVertex>(ePins, ePtr[e], ePtr[e + 1]) {
+				@Override
+				HVertex get(int id) {
+					return new HVertex(id);
+				}
+
+				@Override
+				public boolean contains(Object o) {
+					return o instanceof Vertex && HEdge.this.contains((Vertex) o);
+				}
+			};
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof HEdge && ((HEdge) o).e == e && ((HEdge) o).owner() == owner();
+		}
+
+		@Override
+		public int hashCode() {
+			return e;
+		}
+
+		@Override
+		public String toString() {
+			return "(" + hyperNums[e] + ")";
+		}
+	}
+
+	/**
+	 * Conjunto somente para leitura sobre um trecho de um vetor de
+	 * identificadores, que cria os objetos leves à medida que são iterados
+	 */
+	private static abstract class IdSet<T> extends AbstractSet<T> {
+		private final int[] ids;
+		private final int from, to;
+
+		private IdSet(int[] ids, int from, int to) {
+			this.ids = ids;
+			this.from = from;
+			this.to = to;
+		}
+
+		abstract T get(int id);
+
+		@Override
+		public int size() {
+			return to - from;
+		}
+
+		@Override
+		public Iterator<T> iterator() {
+			return new Iterator<T>() {
+				private int p = from;
+
+				@Override
+				public boolean hasNext() {
+					return p < to;
+				}
+
+				@Override
+				public T next() {
+					if (p >= to)
+						throw new NoSuchElementException();
+					return get(ids[p++]);
+				}
+			};
+		}
+	}
+}
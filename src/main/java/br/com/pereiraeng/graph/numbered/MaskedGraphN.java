@@ -0,0 +1,443 @@
+package br.com.pereiraeng.graph.numbered;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Classe do objeto que representa um cenário sobre um {@link CompactGraphN
+ * grafo compacto} de base, definido por máscaras de bits que habilitam as
+ * arestas e os vértices (e.g., a topologia de base menos alguns circuitos em
+ * contingência). Os algoritmos desta classe (percurso, ilhas, caminhos e
+ * cortes) consultam as máscaras diretamente, sem construir um novo grafo nem
+ * conjuntos de elementos proibidos.
+ * <p>
+ * A máscara de arestas tem um bit por aresta da base (bit 1 = aresta
+ * habilitada) e a de vértices um bit por índice denso. Uma aresta só é
+ * percorrida se ela e os seus dois vértices estiverem habilitados. Um cenário
+ * ocupa (m+n)/8 bytes, e vários cenários podem ser avaliados em lote com
+ * {@link #evaluate(CompactGraphN, List, Function, boolean)}.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public class MaskedGraphN {
+
+	private final CompactGraphN base;
+
+	private final long[] edgeMask, vertexMask;
+
+	/**
+	 * Construtor do cenário
+	 *
+	 * @param base       grafo de base
+	 * @param edgeMask   máscara das arestas (ou <code>null</code> para todas
+	 *                   habilitadas)
+	 * @param vertexMask máscara dos vértices (ou <code>null</code> para todos
+	 *                   habilitados)
+	 */
+	public MaskedGraphN(CompactGraphN base, long[] edgeMask, long[] vertexMask) {
+		int m = base.getEdgeCount(), n = base.getVertexCount();
+		if (edgeMask != null && edgeMask.length != words(m))
+			throw new IllegalArgumentException("Máscara de arestas deve ter " + words(m) + " palavras");
+		if (vertexMask != null && vertexMask.length != words(n))
+			throw new IllegalArgumentException("Máscara de vértices deve ter " + words(n) + " palavras");
+		this.base = base;
+		this.edgeMask = edgeMask == null ? full(m) : edgeMask;
+		this.vertexMask = vertexMask == null ? full(n) : vertexMask;
+	}
+
+	/**
+	 * Função que gera o cenário da base sem algumas arestas
+	 *
+	 * @param base     grafo de base
+	 * @param disabled identificadores das arestas desabilitadas
+	 * @return cenário
+	 */
+	public static MaskedGraphN of(CompactGraphN base, int... disabled) {
+		MaskedGraphN out = new MaskedGraphN(base, null, null);
+		for (int e : disabled)
+			out.setEdgeEnabled(e, false);
+		return out;
+	}
+
+	/**
+	 * Função que gera um cenário com as mesmas máscaras deste (as alterações
+	 * posteriores de um não afetam o outro)
+	 *
+	 * @return cópia do cenário
+	 */
+	public MaskedGraphN copy() {
+		return new MaskedGraphN(base, edgeMask.clone(), vertexMask.clone());
+	}
+
+	// -------------- máscaras --------------
+
+	public CompactGraphN getBase() {
+		return base;
+	}
+
+	/**
+	 * Função que retorna a máscara das arestas (o próprio vetor interno)
+	 *
+	 * @return máscara das arestas
+	 */
+	public long[] getEdgeMask() {
+		return edgeMask;
+	}
+
+	/**
+	 * Função que retorna a máscara dos vértices (o próprio vetor interno)
+	 *
+	 * @return máscara dos vértices
+	 */
+	public long[] getVertexMask() {
+		return vertexMask;
+	}
+
+	public boolean isEdgeEnabled(int e) {
+		return (edgeMask[e >>> 6] & (1L << e)) != 0;
+	}
+
+	public boolean isVertexEnabled(int v) {
+		return (vertexMask[v >>> 6] & (1L << v)) != 0;
+	}
+
+	public void setEdgeEnabled(int e, boolean enabled) {
+		if (enabled)
+			edgeMask[e >>> 6] |= 1L << e;
+		else
+			edgeMask[e >>> 6] &= ~(1L << e);
+	}
+
+	public void setVertexEnabled(int v, boolean enabled) {
+		if (enabled)
+			vertexMask[v >>> 6] |= 1L << v;
+		else
+			vertexMask[v >>> 6] &= ~(1L << v);
+	}
+
+	/**
+	 * Função que indica se uma aresta pode ser percorrida neste cenário
+	 *
+	 * @param e identificador da aresta
+	 * @return <code>true</code> se a aresta e os seus vértices estão habilitados
+	 */
+	public boolean isActive(int e) {
+		return isEdgeEnabled(e) && isVertexEnabled(base.getFrom(e)) && isVertexEnabled(base.getTo(e));
+	}
+
+	/**
+	 * Função que retorna os identificadores das arestas desabilitadas (forma
+	 * compacta de guardar um cenário com poucas contingências)
+	 *
+	 * @return arestas desabilitadas
+	 */
+	public int[] getDisabledEdges() {
+		int m = base.getEdgeCount(), c = 0;
+		int[] out = new int[m - countEnabled(edgeMask, m)];
+		for (int e = 0; e < m; e++)
+			if (!isEdgeEnabled(e))
+				out[c++] = e;
+		return out;
+	}
+
+	// ---------------- algoritmos ----------------
+
+	/**
+	 * Função que faz o percurso em largura a partir de um vértice
+	 *
+	 * @param v índice denso do vértice de partida
+	 * @return índices densos dos vértices alcançados, na ordem de visita (vazio se
+	 *         o vértice estiver desabilitado)
+	 */
+	public int[] bfs(int v) {
+		if (!isVertexEnabled(v))
+			return new int[0];
+		int n = base.getVertexCount();
+		boolean[] seen = new boolean[n];
+		int[] queue = new int[n];
+		int tail = bfs(v, seen, queue, 0);
+		return Arrays.copyOf(queue, tail);
+	}
+
+	private int bfs(int v, boolean[] seen, int[] queue, int tail) {
+		int[] offsets = base.getOffsets(), adj = base.getAdjacency(), adjEdges = base.getAdjacentEdges();
+		int head = tail;
+		queue[tail++] = v;
+		seen[v] = true;
+		while (head < tail) {
+			int u = queue[head++];
+			for (int p = offsets[u]; p < offsets[u + 1]; p++) {
+				int w = adj[p];
+				if (!seen[w] && isEdgeEnabled(adjEdges[p]) && isVertexEnabled(w)) {
+					seen[w] = true;
+					queue[tail++] = w;
+				}
+			}
+		}
+		return tail;
+	}
+
+	/**
+	 * Função que identifica as ilhas do cenário
+	 *
+	 * @return vetor indexado pelo índice denso do vértice com o número da ilha (-1
+	 *         para vértices desabilitados)
+	 */
+	public int[] getComponents() {
+		int n = base.getVertexCount();
+		int[] comp = new int[n], queue = new int[n];
+		boolean[] seen = new boolean[n];
+		Arrays.fill(comp, -1);
+		int c = 0;
+		for (int v = 0; v < n; v++) {
+			if (seen[v] || !isVertexEnabled(v))
+				continue;
+			int tail = bfs(v, seen, queue, 0);
+			for (int i = 0; i < tail; i++)
+				comp[queue[i]] = c;
+			c++;
+		}
+		return comp;
+	}
+
+	/**
+	 * Função que conta as ilhas do cenário
+	 *
+	 * @return número de ilhas (componentes conexas entre vértices habilitados)
+	 */
+	public int getComponentCount() {
+		int max = -1;
+		for (int c : getComponents())
+			max = Math.max(max, c);
+		return max + 1;
+	}
+
+	/**
+	 * Função que indica se dois vértices estão ligados neste cenário
+	 *
+	 * @param num1 número do primeiro vértice
+	 * @param num2 número do segundo vértice
+	 * @return <code>true</code> se há um caminho entre os vértices
+	 */
+	public boolean isConnected(int num1, int num2) {
+		return getPath(num1, num2) != null;
+	}
+
+	/**
+	 * Função que calcula o caminho com o menor número de arestas entre dois
+	 * vértices
+	 *
+	 * @param num1 número do vértice de partida
+	 * @param num2 número do vértice de chegada
+	 * @return identificadores das arestas do caminho, em ordem, ou
+	 *         <code>null</code> se não houver caminho
+	 */
+	public int[] getPath(int num1, int num2) {
+		int s = base.indexOf(num1), t = base.indexOf(num2);
+		if (s < 0 || t < 0 || !isVertexEnabled(s) || !isVertexEnabled(t))
+			return null;
+		if (s == t)
+			return new int[0];
+		int n = base.getVertexCount();
+		int[] offsets = base.getOffsets(), adj = base.getAdjacency(), adjEdges = base.getAdjacentEdges();
+		int[] via = new int[n], queue = new int[n];
+		Arrays.fill(via, -1);
+		boolean[] seen = new boolean[n];
+		int head = 0, tail = 0;
+		queue[tail++] = s;
+		seen[s] = true;
+		while (head < tail && !seen[t]) {
+			int u = queue[head++];
+			for (int p = offsets[u]; p < offsets[u + 1]; p++) {
+				int w = adj[p];
+				if (!seen[w] && isEdgeEnabled(adjEdges[p]) && isVertexEnabled(w)) {
+					seen[w] = true;
+					via[w] = adjEdges[p];
+					queue[tail++] = w;
+				}
+			}
+		}
+		if (!seen[t])
+			return null;
+		int len = 0;
+		for (int v = t; v != s; v = base.getFrom(via[v]) == v ? base.getTo(via[v]) : base.getFrom(via[v]))
+			len++;
+		int[] out = new int[len];
+		for (int v = t; v != s; v = base.getFrom(via[v]) == v ? base.getTo(via[v]) : base.getFrom(via[v]))
+			out[--len] = via[v];
+		return out;
+	}
+
+	/**
+	 * Função que indica se a remoção de um conjunto de arestas aumenta o número de
+	 * ilhas deste cenário
+	 *
+	 * @param edges identificadores das arestas
+	 * @return <code>true</code> se as arestas definem um corte
+	 */
+	public boolean isCut(int... edges) {
+		int before = getComponentCount();
+		MaskedGraphN c = copy();
+		for (int e : edges)
+			c.setEdgeEnabled(e, false);
+		return c.getComponentCount() > before;
+	}
+
+	/**
+	 * Função que identifica as pontes do cenário (arestas cuja remoção divide uma
+	 * ilha), pelo algoritmo de Tarjan em versão iterativa
+	 *
+	 * @return identificadores das pontes
+	 */
+	public int[] getBridges() {
+		int n = base.getVertexCount();
+		int[] offsets = base.getOffsets(), adj = base.getAdjacency(), adjEdges = base.getAdjacentEdges();
+		int[] disc = new int[n], low = new int[n], viaEdge = new int[n], next = new int[n], stack = new int[n];
+		int[] out = new int[Math.min(n, base.getEdgeCount())];
+		int nb = 0, time = 0;
+		for (int r = 0; r < n; r++) {
+			if (disc[r] != 0 || !isVertexEnabled(r))
+				continue;
+			int sp = 0;
+			stack[sp++] = r;
+			disc[r] = low[r] = ++time;
+			viaEdge[r] = -1;
+			next[r] = offsets[r];
+			while (sp > 0) {
+				int u = stack[sp - 1];
+				if (next[u] < offsets[u + 1]) {
+					int p = next[u]++, w = adj[p], e = adjEdges[p];
+					if (e == viaEdge[u] || !isEdgeEnabled(e) || !isVertexEnabled(w))
+						continue;
+					if (disc[w] == 0) {
+						disc[w] = low[w] = ++time;
+						viaEdge[w] = e;
+						next[w] = offsets[w];
+						stack[sp++] = w;
+					} else
+						low[u] = Math.min(low[u], disc[w]);
+				} else {
+					sp--;
+					if (sp > 0) {
+						int parent = stack[sp - 1];
+						low[parent] = Math.min(low[parent], low[u]);
+						if (low[u] > disc[parent])
+							out[nb++] = viaEdge[u];
+					}
+				}
+			}
+		}
+		return Arrays.copyOf(out, nb);
+	}
+
+	/**
+	 * Função que gera o grafo compacto com as arestas e vértices habilitados
+	 *
+	 * @return grafo compacto
+	 */
+	public CompactGraphN toCompactGraphN() {
+		int m = base.getEdgeCount(), k = 0;
+		int[] n1 = new int[m], n2 = new int[m], c = new int[m];
+		for (int e = 0; e < m; e++)
+			if (isActive(e)) {
+				n1[k] = base.getNum(base.getFrom(e));
+				n2[k] = base.getNum(base.getTo(e));
+				c[k++] = base.getCircuit(e);
+			}
+		List<Integer> iso = new ArrayList<>();
+		for (int v = 0; v < base.getVertexCount(); v++)
+			if (isVertexEnabled(v)) {
+				boolean linked = false;
+				for (int j = 0; j < base.getDegree(v) && !linked; j++)
+					linked = isActive(base.getEdgeId(v, j));
+				if (!linked)
+					iso.add(base.getNum(v));
+			}
+		int[] isolated = new int[iso.size()];
+		for (int i = 0; i < isolated.length; i++)
+			isolated[i] = iso.get(i);
+		return CompactGraphN.of(Arrays.copyOf(n1, k), Arrays.copyOf(n2, k), Arrays.copyOf(c, k), isolated);
+	}
+
+	// ---------------- avaliação em lote ----------------
+
+	/**
+	 * Função que avalia uma função sobre vários cenários de contingência de uma
+	 * mesma base
+	 *
+	 * @param base      grafo de base
+	 * @param outages   lista de cenários, cada um descrito pelos identificadores
+	 *                  das arestas desabilitadas
+	 * @param f         função avaliada em cada cenário
+	 * @param parallel  <code>true</code> para avaliar os cenários em paralelo
+	 * @return resultado de cada cenário, na ordem da lista
+	 */
+	public static <T> List<T> evaluate(CompactGraphN base, List<int[]> outages, Function<MaskedGraphN, T> f,
+			boolean parallel) {
+		Object[] out = new Object[outages.size()];
+		IntStream is = IntStream.range(0, out.length);
+		if (parallel)
+			is = is.parallel();
+		is.forEach(i -> out[i] = f.apply(of(base, outages.get(i))));
+		List<T> list = new ArrayList<>(out.length);
+		for (Object o : out) {
+			@SuppressWarnings("unchecked")
+			T t = (T) o;
+			list.add(t);
+		}
+		return list;
+	}
+
+	/**
+	 * Função que conta as ilhas de vários cenários de contingência de uma mesma
+	 * base
+	 *
+	 * @param base     grafo de base
+	 * @param outages  lista de cenários, cada um descrito pelos identificadores das
+	 *                 arestas desabilitadas
+	 * @param parallel <code>true</code> para avaliar os cenários em paralelo
+	 * @return número de ilhas de cada cenário
+	 */
+	public static int[] getComponentCounts(CompactGraphN base, List<int[]> outages, boolean parallel) {
+		int[] out = new int[outages.size()];
+		IntStream is = IntStream.range(0, out.length);
+		if (parallel)
+			is = is.parallel();
+		is.forEach(i -> out[i] = of(base, outages.get(i)).getComponentCount());
+		return out;
+	}
+
+	// ---------------- AUXILIAR ----------------
+
+	private static int words(int bits) {
+		return (bits + 63) >>> 6;
+	}
+
+	private static long[] full(int bits) {
+		long[] out = new long[words(bits)];
+		Arrays.fill(out, -1L);
+		if ((bits & 63) != 0)
+			out[out.length - 1] = (1L << bits) - 1;
+		return out;
+	}
+
+	private static int countEnabled(long[] mask, int bits) {
+		int c = 0, last = words(bits) - 1;
+		for (int i = 0; i < last; i++)
+			c += Long.bitCount(mask[i]);
+		if (last >= 0)
+			c += Long.bitCount((bits & 63) == 0 ? mask[last] : mask[last] & ((1L << bits) - 1));
+		return c;
+	}
+
+	@Override
+	public String toString() {
+		int m = base.getEdgeCount(), n = base.getVertexCount();
+		return "arestas=" + countEnabled(edgeMask, m) + "/" + m + ", vértices=" + countEnabled(vertexMask, n) + "/"
+				+ n;
+	}
+}
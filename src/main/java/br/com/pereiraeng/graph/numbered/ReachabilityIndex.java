@@ -0,0 +1,473 @@
+package br.com.pereiraeng.graph.numbered;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Classe do objeto que responde, sem percorrer o grafo, se dois vértices estão
+ * ligados e a que distância (em número de arestas) eles estão. O índice é
+ * construído uma única vez para um instantâneo da topologia por rotulagem de
+ * marcos podada (<i>pruned landmark labeling</i>): os vértices são visitados em
+ * ordem decrescente de grau e, a partir de cada um, é feita uma busca em
+ * largura que deixa de expandir os vértices cuja distância já é coberta pelos
+ * rótulos anteriores. Cada vértice recebe assim um rótulo com pares (marco,
+ * distância) ordenados pelo marco, e a distância entre dois vértices é o menor
+ * valor de d1 + d2 entre os marcos comuns aos dois rótulos.
+ * <p>
+ * Como o grafo não é orientado, dois vértices estão ligados se, e somente se,
+ * pertencem à mesma componente conexa, o que é verificado em tempo constante;
+ * os rótulos só são percorridos para o cálculo da distância. As componentes
+ * são independentes entre si e podem ser rotuladas em paralelo; a rotulagem de
+ * uma mesma componente é sequencial (cada busca depende dos rótulos deixados
+ * pelas anteriores), de modo que o paralelismo só traz ganho para grafos com
+ * várias componentes de tamanho comparável.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public final class ReachabilityIndex {
+
+	/**
+	 * Assinatura do arquivo ("PGRL")
+	 */
+	public static final int MAGIC = 0x5047524C;
+
+	public static final int VERSION = 2;
+
+	private final int[] nums;
+
+	/**
+	 * Números dos vértices em ordem crescente e seus respectivos índices (somente
+	 * se {@link #nums} não estiver ordenado)
+	 */
+	private final int[] sortedNums, sortedIdx;
+
+	private final int edges;
+
+	/**
+	 * Soma de verificação da tabela de arestas (extremos e circuito de cada
+	 * aresta)
+	 */
+	private final long checksum;
+
+	/**
+	 * Componente conexa de cada vértice
+	 */
+	private final int[] comp;
+
+	/**
+	 * Início do rótulo de cada vértice em {@link #hubs} e {@link #dists} (n+1
+	 * posições)
+	 */
+	private final int[] start;
+
+	/**
+	 * Marcos (posição na ordem de rotulagem) e distâncias até eles
+	 */
+	private final int[] hubs, dists;
+
+	private ReachabilityIndex(int[] nums, int edges, long checksum, int[] comp, int[] start, int[] hubs,
+			int[] dists) {
+		this.nums = nums;
+		this.edges = edges;
+		this.checksum = checksum;
+		this.comp = comp;
+		this.start = start;
+		this.hubs = hubs;
+		this.dists = dists;
+
+		int[][] index = EdgeKeys.numIndex(nums);
+		this.sortedNums = index[0];
+		this.sortedIdx = index[1];
+	}
+
+	/**
+	 * Função que constrói o índice de um grafo
+	 *
+	 * @param graph    grafo (compacto ou mapeado)
+	 * @param parallel <code>true</code> para rotular as componentes conexas em
+	 *                 paralelo (cada componente é rotulada por uma única thread)
+	 * @return índice
+	 */
+	public static ReachabilityIndex build(AdjacencyN graph, boolean parallel) {
+		if (graph == null)
+			throw new IllegalArgumentException("Grafo não pode ser nulo");
+		int n = graph.getVertexCount();
+		int[] nums = new int[n];
+		for (int v = 0; v < n; v++)
+			nums[v] = graph.getNum(v);
+
+		// 1) componentes conexas, com os vértices de cada uma contíguos em 'order'
+		int[] comp = new int[n], order = new int[n];
+		Arrays.fill(comp, -1);
+		int count = 0, tail = 0;
+		int[] bounds = new int[16];
+		for (int s = 0; s < n; s++) {
+			if (comp[s] >= 0)
+				continue;
+			if (count + 1 >= bounds.length)
+				bounds = Arrays.copyOf(bounds, 2 * bounds.length);
+			bounds[count] = tail;
+			comp[s] = count;
+			order[tail++] = s;
+			for (int head = bounds[count]; head < tail; head++) {
+				int u = order[head];
+				for (int k = 0, deg = graph.getDegree(u); k < deg; k++) {
+					int w = graph.getNeighbor(u, k);
+					if (comp[w] < 0) {
+						comp[w] = count;
+						order[tail++] = w;
+					}
+				}
+			}
+			count++;
+		}
+		bounds[count] = tail;
+
+		// 2) rotulagem de cada componente (os vértices só são tocados pela tarefa da
+		// sua componente)
+		Labels labels = new Labels(n);
+		int[] local = new int[n];
+		final int[] b = bounds;
+		IntStream cs = IntStream.range(0, count);
+		if (parallel)
+			cs = cs.parallel();
+		cs.forEach(c -> label(graph, order, b[c], b[c + 1], local, labels));
+
+		// 3) rótulos contíguos
+		int[] start = new int[n + 1];
+		for (int v = 0; v < n; v++)
+			start[v + 1] = start[v] + labels.size[v];
+		int[] hubs = new int[start[n]], dists = new int[start[n]];
+		for (int v = 0; v < n; v++) {
+			System.arraycopy(labels.hubs[v], 0, hubs, start[v], labels.size[v]);
+			System.arraycopy(labels.dists[v], 0, dists, start[v], labels.size[v]);
+		}
+		return new ReachabilityIndex(nums, graph.getEdgeCount(), checksum(graph), comp, start, hubs, dists);
+	}
+
+	// -------------- consultas --------------
+
+	/**
+	 * Função que verifica se dois vértices estão ligados por algum caminho
+	 *
+	 * @param num1 número do primeiro vértice
+	 * @param num2 número do segundo vértice
+	 * @return <code>true</code> se os vértices pertencerem ao grafo e à mesma
+	 *         componente conexa
+	 */
+	public boolean isReachable(int num1, int num2) {
+		int v = indexOf(num1), w = indexOf(num2);
+		return v >= 0 && w >= 0 && comp[v] == comp[w];
+	}
+
+	/**
+	 * Função que retorna a distância entre dois vértices
+	 *
+	 * @param num1 número do primeiro vértice
+	 * @param num2 número do segundo vértice
+	 * @return número de arestas do menor caminho entre os vértices, ou -1 se eles
+	 *         não estiverem ligados
+	 */
+	public int getDistance(int num1, int num2) {
+		int v = indexOf(num1), w = indexOf(num2);
+		if (v < 0 || w < 0)
+			return -1;
+		return distance(v, w);
+	}
+
+	/**
+	 * Função que retorna a distância entre dois vértices a partir dos seus índices
+	 * densos
+	 *
+	 * @param v índice denso do primeiro vértice
+	 * @param w índice denso do segundo vértice
+	 * @return número de arestas do menor caminho entre os vértices, ou -1 se eles
+	 *         não estiverem ligados
+	 */
+	public int distance(int v, int w) {
+		if (comp[v] != comp[w])
+			return -1;
+		int i = start[v], ie = start[v + 1], j = start[w], je = start[w + 1];
+		int best = Integer.MAX_VALUE;
+		while (i < ie && j < je) {
+			int hi = hubs[i], hj = hubs[j];
+			if (hi == hj) {
+				int d = dists[i++] + dists[j++];
+				if (d < best)
+					best = d;
+			} else if (hi < hj)
+				i++;
+			else
+				j++;
+		}
+		return best;
+	}
+
+	// -------------- getter's --------------
+
+	public int getVertexCount() {
+		return nums.length;
+	}
+
+	public int getNum(int v) {
+		return nums[v];
+	}
+
+	/**
+	 * Função que retorna o índice denso de um vértice a partir do seu número
+	 *
+	 * @param num número do vértice
+	 * @return índice denso, ou -1 se o vértice não pertencer ao grafo
+	 */
+	public int indexOf(int num) {
+		return EdgeKeys.indexOf(sortedNums, sortedIdx, num);
+	}
+
+	/**
+	 * Função que retorna a componente conexa de um vértice
+	 *
+	 * @param v índice denso do vértice
+	 * @return número da componente
+	 */
+	public int getComponent(int v) {
+		return comp[v];
+	}
+
+	/**
+	 * Função que retorna o tamanho do rótulo de um vértice
+	 *
+	 * @param v índice denso do vértice
+	 * @return número de pares (marco, distância)
+	 */
+	public int getLabelSize(int v) {
+		return start[v + 1] - start[v];
+	}
+
+	/**
+	 * Função que retorna o número total de pares (marco, distância) do índice
+	 *
+	 * @return soma dos tamanhos dos rótulos
+	 */
+	public int getLabelCount() {
+		return hubs.length;
+	}
+
+	/**
+	 * Função que verifica se o índice foi construído para um grafo (mesmos
+	 * vértices, na mesma ordem, e mesma tabela de arestas, comparada pela
+	 * {@link #checksum(AdjacencyN) soma de verificação})
+	 *
+	 * @param graph grafo
+	 * @return <code>true</code> se o índice corresponder ao grafo
+	 */
+	public boolean isBuiltFor(AdjacencyN graph) {
+		if (graph.getVertexCount() != nums.length || graph.getEdgeCount() != edges)
+			return false;
+		for (int v = 0; v < nums.length; v++)
+			if (graph.getNum(v) != nums[v])
+				return false;
+		return checksum(graph) == checksum;
+	}
+
+	/**
+	 * Função que calcula a soma de verificação da tabela de arestas de um grafo,
+	 * que muda com qualquer troca de extremos ou de circuito (mesmo que o número
+	 * de arestas seja mantido)
+	 *
+	 * @param graph grafo
+	 * @return soma de verificação
+	 */
+	public static long checksum(AdjacencyN graph) {
+		long h = graph.getEdgeCount();
+		for (int e = 0; e < graph.getEdgeCount(); e++) {
+			h = mix(h + graph.getNum(graph.getFrom(e)));
+			h = mix(h + graph.getNum(graph.getTo(e)));
+			h = mix(h + graph.getCircuit(e));
+		}
+		return h;
+	}
+
+	// -------------- leitura e escrita --------------
+
+	/**
+	 * Função que grava o índice, de modo a ser guardado junto com o grafo
+	 *
+	 * @param os fluxo de saída (não é fechado)
+	 * @throws IOException erro de escrita
+	 */
+	public void write(OutputStream os) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os, 1 << 16));
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(nums.length);
+		out.writeInt(edges);
+		out.writeLong(checksum);
+		out.writeInt(hubs.length);
+		for (int v = 0; v < nums.length; v++) {
+			out.writeInt(nums[v]);
+			out.writeInt(comp[v]);
+			out.writeInt(start[v + 1] - start[v]);
+		}
+		for (int i = 0; i < hubs.length; i++) {
+			out.writeInt(hubs[i]);
+			out.writeInt(dists[i]);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Função que lê um índice gravado por {@link #write(OutputStream)}
+	 *
+	 * @param is fluxo de entrada (não é fechado)
+	 * @return índice
+	 * @throws IOException erro de leitura ou arquivo inválido
+	 */
+	public static ReachabilityIndex read(InputStream is) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(is, 1 << 16));
+		if (in.readInt() != MAGIC)
+			throw new IOException("Arquivo não é um índice de alcançabilidade");
+		int version = in.readInt();
+		if (version != VERSION)
+			throw new IOException("Versão não suportada: " + version);
+		int n = in.readInt(), edges = in.readInt();
+		long checksum = in.readLong();
+		int size = in.readInt();
+		if (n < 0 || edges < 0 || size < 0)
+			throw new IOException("Cabeçalho inválido");
+		int[] nums = new int[n], comp = new int[n], start = new int[n + 1];
+		for (int v = 0; v < n; v++) {
+			nums[v] = in.readInt();
+			comp[v] = in.readInt();
+			start[v + 1] = start[v] + in.readInt();
+		}
+		if (start[n] != size)
+			throw new IOException("Rótulos inconsistentes com o cabeçalho");
+		int[] hubs = new int[size], dists = new int[size];
+		for (int i = 0; i < size; i++) {
+			hubs[i] = in.readInt();
+			dists[i] = in.readInt();
+		}
+		return new ReachabilityIndex(nums, edges, checksum, comp, start, hubs, dists);
+	}
+
+	// ---------------- AUXILIAR ----------------
+
+	/**
+	 * Função de espalhamento de 64 bits (finalizador do SplitMix64)
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Função que rotula os vértices de uma componente conexa
+	 *
+	 * @param graph grafo
+	 * @param order vértices agrupados por componente
+	 * @param from  início da componente em <code>order</code>
+	 * @param to    fim (exclusivo) da componente em <code>order</code>
+	 * @param local vetor (compartilhado) do índice de cada vértice na componente
+	 * @param l     rótulos em construção
+	 */
+	private static void label(AdjacencyN graph, int[] order, int from, int to, int[] local, Labels l) {
+		int size = to - from;
+		if (size == 1) {
+			l.add(order[from], from, 0);
+			return;
+		}
+		// ordem de rotulagem: grau decrescente (os marcos são as posições nessa ordem)
+		long[] keys = new long[size];
+		for (int i = 0; i < size; i++) {
+			int v = order[from + i];
+			keys[i] = ((long) -graph.getDegree(v) << 32) | v;
+		}
+		Arrays.sort(keys);
+		for (int i = 0; i < size; i++) {
+			int v = (int) keys[i];
+			order[from + i] = v;
+			local[v] = i;
+		}
+
+		int[] dist = new int[size], hubDist = new int[size], queue = new int[size];
+		Arrays.fill(dist, -1);
+		Arrays.fill(hubDist, -1);
+		for (int r = 0; r < size; r++) {
+			int h = order[from + r];
+			int[] hh = l.hubs[h], hd = l.dists[h];
+			for (int k = 0, s = l.size[h]; k < s; k++)
+				hubDist[hh[k] - from] = hd[k];
+
+			int head = 0, tail = 0;
+			queue[tail++] = r;
+			dist[r] = 0;
+			while (head < tail) {
+				int u = queue[head++], v = order[from + u], d = dist[u];
+				// poda: a distância já é coberta por um marco anterior
+				if (covered(l, v, from, hubDist, d))
+					continue;
+				l.add(v, from + r, d);
+				for (int k = 0, deg = graph.getDegree(v); k < deg; k++) {
+					int w = local[graph.getNeighbor(v, k)];
+					if (dist[w] < 0) {
+						dist[w] = d + 1;
+						queue[tail++] = w;
+					}
+				}
+			}
+			for (int i = 0; i < tail; i++)
+				dist[queue[i]] = -1;
+			hh = l.hubs[h];
+			for (int k = 0, s = l.size[h]; k < s; k++)
+				hubDist[hh[k] - from] = -1;
+		}
+	}
+
+	private static boolean covered(Labels l, int v, int from, int[] hubDist, int d) {
+		int[] vh = l.hubs[v], vd = l.dists[v];
+		for (int k = 0, s = l.size[v]; k < s; k++) {
+			int hd = hubDist[vh[k] - from];
+			if (hd >= 0 && hd + vd[k] <= d)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Rótulos em construção (vetores crescentes por vértice)
+	 */
+	private static class Labels {
+		private final int[][] hubs, dists;
+
+		private final int[] size;
+
+		private Labels(int n) {
+			this.hubs = new int[n][];
+			this.dists = new int[n][];
+			this.size = new int[n];
+		}
+
+		private void add(int v, int hub, int d) {
+			int s = size[v];
+			if (hubs[v] == null) {
+				hubs[v] = new int[4];
+				dists[v] = new int[4];
+			} else if (s == hubs[v].length) {
+				hubs[v] = Arrays.copyOf(hubs[v], 2 * s);
+				dists[v] = Arrays.copyOf(dists[v], 2 * s);
+			}
+			hubs[v][s] = hub;
+			dists[v][s] = d;
+			size[v] = s + 1;
+		}
+	}
+}
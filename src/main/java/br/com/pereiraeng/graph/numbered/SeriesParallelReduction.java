@@ -0,0 +1,397 @@
+package br.com.pereiraeng.graph.numbered;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import br.com.pereiraeng.math.DuplaEmeio;
+
+/**
+ * Classe do objeto que representa a redução série-paralelo de um
+ * {@link CompactGraphN grafo numerado}: os circuitos paralelos (mesmas
+ * extremidades, números de circuito distintos) são fundidos num só e os
+ * vértices de grau 2 são eliminados, com as duas arestas substituídas por uma
+ * aresta equivalente, repetidamente até que nada mais mude.
+ * <p>
+ * Cada aresta do grafo reduzido guarda a sua proveniência: os identificadores
+ * das arestas do grafo original que ela substitui e a sequência de operações
+ * série/paralelo que a formou (ver
+ * {@link #combine(int, IntFunction, Combiner)}).
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public class SeriesParallelReduction {
+
+	/**
+	 * Interface das funções que calculam o parâmetro equivalente de uma aresta
+	 * reduzida (e.g., impedância) a partir dos parâmetros das arestas originais
+	 *
+	 * @param <T> tipo do parâmetro
+	 */
+	public interface Combiner<T> {
+
+		/**
+		 * Função que retorna o parâmetro equivalente de duas arestas em série
+		 */
+		public T series(T a, T b);
+
+		/**
+		 * Função que retorna o parâmetro equivalente de duas arestas em paralelo
+		 */
+		public T parallel(T a, T b);
+	}
+
+	private static final byte LEAF = 0, SERIES = 1, PARALLEL = 2;
+
+	private final CompactGraphN original;
+
+	private final CompactGraphN reduced;
+
+	/**
+	 * Para cada aresta do grafo reduzido, o identificador interno correspondente
+	 * (menor que m para as arestas originais)
+	 */
+	private final int[] reducedToInternal;
+
+	/**
+	 * Operação que formou cada aresta interna e as duas arestas que ela combina
+	 */
+	private final byte[] op;
+	private final int[] left, right;
+
+	private final int[] removed;
+
+	private int seriesCount, parallelCount;
+
+	private SeriesParallelReduction(CompactGraphN g, boolean[] keep) {
+		this.original = g;
+		int n = g.getVertexCount(), m = g.getEdgeCount();
+
+		// arestas internas (crescem com as reduções)
+		Edges es = new Edges(m);
+		for (int e = 0; e < m; e++)
+			es.add(g.getFrom(e), g.getTo(e), g.getCircuit(e), LEAF, -1, -1);
+
+		// arestas incidentes em cada vértice (os laços não participam das reduções
+		// e os seus vértices são preservados)
+		int[][] inc = new int[n][];
+		int[] len = new int[n];
+		for (int v = 0; v < n; v++) {
+			inc[v] = new int[g.getDegree(v)];
+			for (int k = 0; k < inc[v].length; k++) {
+				int e = g.getEdgeId(v, k);
+				if (g.getFrom(e) == g.getTo(e))
+					keep[v] = true;
+				else
+					inc[v][len[v]++] = e;
+			}
+		}
+
+		boolean[] dead = new boolean[n];
+		int[] queue = new int[n];
+		boolean[] queued = new boolean[n];
+		int head = 0, tail = 0, size = n; // fila circular, inicialmente cheia
+		for (int v = 0; v < n; v++) {
+			queue[v] = v;
+			queued[v] = true;
+		}
+		int[] slot = new int[n];
+		Arrays.fill(slot, -1);
+
+		while (size > 0) {
+			int v = queue[head];
+			head = (head + 1) % n;
+			size--;
+			queued[v] = false;
+			if (dead[v])
+				continue;
+
+			// 1) circuitos paralelos incidentes em v
+			int l = 0;
+			for (int k = 0; k < len[v]; k++) {
+				int e = inc[v][k];
+				if (!es.alive[e])
+					continue;
+				int u = es.a[e] == v ? es.b[e] : es.a[e];
+				if (slot[u] >= 0) {
+					int f = inc[v][slot[u]];
+					int p = es.add(es.a[f], es.b[f], Math.min(es.c[f], es.c[e]), PARALLEL, f, e);
+					es.alive[f] = es.alive[e] = false;
+					inc[v][slot[u]] = p;
+					append(inc, len, u, p);
+					parallelCount++;
+					if (!queued[u] && !dead[u]) {
+						queue[tail] = u;
+						tail = (tail + 1) % n;
+						queued[u] = true;
+						size++;
+					}
+				} else {
+					slot[u] = l;
+					inc[v][l++] = e;
+				}
+			}
+			len[v] = l;
+			for (int k = 0; k < l; k++) {
+				int e = inc[v][k];
+				slot[es.a[e] == v ? es.b[e] : es.a[e]] = -1;
+			}
+
+			// 2) vértice de grau 2 em série
+			if (keep[v] || l != 2)
+				continue;
+			int e1 = inc[v][0], e2 = inc[v][1];
+			int a = es.a[e1] == v ? es.b[e1] : es.a[e1];
+			int b = es.a[e2] == v ? es.b[e2] : es.a[e2];
+			if (a == b)
+				continue;
+			int s = es.add(a, b, Math.min(es.c[e1], es.c[e2]), SERIES, e1, e2);
+			es.alive[e1] = es.alive[e2] = false;
+			dead[v] = true;
+			len[v] = 0;
+			append(inc, len, a, s);
+			append(inc, len, b, s);
+			seriesCount++;
+			for (int u : new int[] { a, b })
+				if (!queued[u]) {
+					queue[tail] = u;
+					tail = (tail + 1) % n;
+					queued[u] = true;
+					size++;
+				}
+		}
+
+		this.op = Arrays.copyOf(es.op, es.size);
+		this.left = Arrays.copyOf(es.l, es.size);
+		this.right = Arrays.copyOf(es.r, es.size);
+
+		// 3) grafo reduzido
+		int nr = 0;
+		int[] newIdx = new int[n];
+		for (int v = 0; v < n; v++)
+			newIdx[v] = dead[v] ? -1 : nr++;
+		int[] nums = new int[nr];
+		this.removed = new int[n - nr];
+		for (int v = 0, r = 0; v < n; v++)
+			if (dead[v])
+				removed[r++] = g.getNum(v);
+			else
+				nums[newIdx[v]] = g.getNum(v);
+		int mr = 0;
+		for (int e = 0; e < es.size; e++)
+			if (es.alive[e])
+				mr++;
+		int[] from = new int[mr], to = new int[mr], circ = new int[mr];
+		this.reducedToInternal = new int[mr];
+		for (int e = 0, r = 0; e < es.size; e++)
+			if (es.alive[e]) {
+				from[r] = newIdx[es.a[e]];
+				to[r] = newIdx[es.b[e]];
+				circ[r] = es.c[e];
+				reducedToInternal[r++] = e;
+			}
+		this.reduced = new CompactGraphN(nums, from, to, circ);
+	}
+
+	private static void append(int[][] inc, int[] len, int v, int e) {
+		if (len[v] == inc[v].length)
+			inc[v] = Arrays.copyOf(inc[v], 2 * len[v] + 2);
+		inc[v][len[v]++] = e;
+	}
+
+	/**
+	 * Função que reduz um grafo, preservando todos os vértices de grau diferente
+	 * de 2
+	 *
+	 * @param graph grafo
+	 * @return redução
+	 */
+	public static SeriesParallelReduction reduce(CompactGraphN graph) {
+		return reduce(graph, null);
+	}
+
+	/**
+	 * Função que reduz um grafo
+	 *
+	 * @param graph     grafo
+	 * @param terminals números dos vértices que não podem ser eliminados mesmo
+	 *                  tendo grau 2 (e.g., barras com carga ou geração), ou
+	 *                  <code>null</code>
+	 * @return redução
+	 */
+	public static SeriesParallelReduction reduce(CompactGraphN graph, int[] terminals) {
+		boolean[] keep = new boolean[graph.getVertexCount()];
+		if (terminals != null)
+			for (int num : terminals) {
+				int v = graph.indexOf(num);
+				if (v >= 0)
+					keep[v] = true;
+			}
+		return new SeriesParallelReduction(graph, keep);
+	}
+
+	// -------------- getter's --------------
+
+	public CompactGraphN getOriginal() {
+		return original;
+	}
+
+	/**
+	 * Função que retorna o grafo reduzido. As arestas originais que não foram
+	 * reduzidas mantêm as suas trincas; as arestas equivalentes ligam as
+	 * extremidades da cadeia ou do grupo de circuitos e recebem o menor número de
+	 * circuito entre as arestas que substituem.
+	 *
+	 * @return grafo reduzido
+	 */
+	public CompactGraphN getReduced() {
+		return reduced;
+	}
+
+	/**
+	 * Função que retorna os números dos vértices eliminados pelas reduções série
+	 *
+	 * @return números dos vértices eliminados
+	 */
+	public int[] getRemovedVertices() {
+		return removed;
+	}
+
+	public int getSeriesCount() {
+		return seriesCount;
+	}
+
+	public int getParallelCount() {
+		return parallelCount;
+	}
+
+	/**
+	 * Função que retorna as arestas originais substituídas por uma aresta do grafo
+	 * reduzido
+	 *
+	 * @param e identificador da aresta no grafo reduzido
+	 * @return identificadores das arestas no grafo original
+	 */
+	public int[] getProvenance(int e) {
+		int[] out = new int[4], stack = new int[16];
+		int n = 0, top = 0;
+		stack[top++] = reducedToInternal[e];
+		while (top > 0) {
+			int x = stack[--top];
+			if (op[x] == LEAF) {
+				if (n == out.length)
+					out = Arrays.copyOf(out, 2 * n);
+				out[n++] = x;
+			} else {
+				if (top + 2 > stack.length)
+					stack = Arrays.copyOf(stack, 2 * stack.length);
+				stack[top++] = right[x];
+				stack[top++] = left[x];
+			}
+		}
+		return Arrays.copyOf(out, n);
+	}
+
+	/**
+	 * Função que associa para cada aresta do grafo reduzido as arestas originais
+	 * que ela substitui
+	 *
+	 * @return tabela de dispersão que associa para cada {@link DuplaEmeio trinca}
+	 *         do grafo reduzido os identificadores das arestas no grafo original
+	 */
+	public Map<DuplaEmeio, int[]> getProvenance() {
+		Map<DuplaEmeio, int[]> out = new HashMap<>(2 * reduced.getEdgeCount());
+		for (int e = 0; e < reduced.getEdgeCount(); e++)
+			out.put(reduced.getNums(e), getProvenance(e));
+		return out;
+	}
+
+	/**
+	 * Função que calcula o parâmetro equivalente de uma aresta do grafo reduzido,
+	 * percorrendo (sem recursão) as operações série/paralelo que a formaram
+	 *
+	 * @param e        identificador da aresta no grafo reduzido
+	 * @param leaf     função que retorna o parâmetro de uma aresta original a
+	 *                 partir do seu identificador
+	 * @param combiner funções de combinação série e paralelo
+	 * @return parâmetro equivalente
+	 */
+	public <T> T combine(int e, IntFunction<T> leaf, Combiner<T> combiner) {
+		int root = reducedToInternal[e];
+		List<T> values = new ArrayList<>();
+		int[] stack = new int[16];
+		int top = 0;
+		stack[top++] = root;
+		// pós-ordem: nós positivos a expandir, negativos (~id) a combinar
+		while (top > 0) {
+			int x = stack[--top];
+			if (x >= 0 && op[x] == LEAF)
+				values.add(leaf.apply(x));
+			else if (x >= 0) {
+				if (top + 3 > stack.length)
+					stack = Arrays.copyOf(stack, 2 * stack.length);
+				stack[top++] = ~x;
+				stack[top++] = right[x];
+				stack[top++] = left[x];
+			} else {
+				int id = ~x;
+				T b = values.remove(values.size() - 1);
+				T a = values.remove(values.size() - 1);
+				values.add(op[id] == SERIES ? combiner.series(a, b) : combiner.parallel(a, b));
+			}
+		}
+		return values.get(0);
+	}
+
+	@Override
+	public String toString() {
+		return original.getVertexCount() + "/" + original.getEdgeCount() + " -> " + reduced.getVertexCount() + "/"
+				+ reduced.getEdgeCount() + " (série: " + seriesCount + ", paralelo: " + parallelCount + ")";
+	}
+
+	/**
+	 * Tabela de arestas internas
+	 */
+	private static class Edges {
+		private int[] a, b, c, l, r;
+		private byte[] op;
+		private boolean[] alive;
+		private int size;
+
+		private Edges(int capacity) {
+			capacity = Math.max(capacity, 4);
+			a = new int[capacity];
+			b = new int[capacity];
+			c = new int[capacity];
+			l = new int[capacity];
+			r = new int[capacity];
+			op = new byte[capacity];
+			alive = new boolean[capacity];
+		}
+
+		private int add(int from, int to, int circ, byte kind, int left, int right) {
+			if (size == a.length) {
+				int cap = 2 * size;
+				a = Arrays.copyOf(a, cap);
+				b = Arrays.copyOf(b, cap);
+				c = Arrays.copyOf(c, cap);
+				l = Arrays.copyOf(l, cap);
+				r = Arrays.copyOf(r, cap);
+				op = Arrays.copyOf(op, cap);
+				alive = Arrays.copyOf(alive, cap);
+			}
+			a[size] = from;
+			b[size] = to;
+			c[size] = circ;
+			l[size] = left;
+			r[size] = right;
+			op[size] = kind;
+			alive[size] = true;
+			return size++;
+		}
+	}
+}
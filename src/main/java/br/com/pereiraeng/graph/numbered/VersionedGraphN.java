@@ -0,0 +1,358 @@
+package br.com.pereiraeng.graph.numbered;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import br.com.pereiraeng.graph.io.VarInt;
+import br.com.pereiraeng.math.DuplaEmeio;
+
+/**
+ * Classe do objeto que guarda o histórico da topologia de uma rede ao longo do
+ * tempo. Todas as versões compartilham um {@link CompactGraphN grafo universo}
+ * com todos os circuitos que podem existir, e cada versão é descrita apenas
+ * pelas arestas cujo estado mudou em relação à versão anterior (manobras). As
+ * mudanças são guardadas como diferenças entre identificadores consecutivos
+ * codificadas em {@link VarInt tamanho variável}, e a cada
+ * {@link #getCheckpointInterval() intervalo} de versões é guardada a máscara
+ * completa das arestas, de modo que a topologia de um instante qualquer é
+ * reconstruída aplicando no máximo esse número de deltas.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public class VersionedGraphN {
+
+	private final CompactGraphN universe;
+
+	private final int interval;
+
+	/**
+	 * Instante de cada versão (em ordem crescente)
+	 */
+	private long[] times;
+
+	/**
+	 * Posição inicial dos deltas de cada versão (versões+1 posições)
+	 */
+	private int[] deltaPtr;
+
+	private byte[] deltas;
+
+	/**
+	 * Máscara das arestas nas versões 0, intervalo, 2*intervalo, ...
+	 */
+	private long[][] checkpoints;
+
+	private int versions;
+
+	/**
+	 * Máscara das arestas na última versão
+	 */
+	private final long[] current;
+
+	/**
+	 * Identificadores das arestas do universo para cada par de vértices (criado
+	 * somente quando são gravados grafos completos)
+	 */
+	private Map<Long, int[]> index;
+
+	/**
+	 * Construtor do histórico
+	 *
+	 * @param universe           grafo com todas as arestas que podem existir
+	 * @param time               instante da versão inicial
+	 * @param initialMask        máscara das arestas ativas na versão inicial (ou
+	 *                           <code>null</code> para todas ativas)
+	 * @param checkpointInterval número de versões entre duas máscaras completas
+	 */
+	public VersionedGraphN(CompactGraphN universe, long time, long[] initialMask, int checkpointInterval) {
+		if (checkpointInterval < 1)
+			throw new IllegalArgumentException("Intervalo entre máscaras completas deve ser positivo");
+		this.universe = universe;
+		this.interval = checkpointInterval;
+		this.current = new MaskedGraphN(universe, initialMask == null ? null : initialMask.clone(), null)
+				.getEdgeMask();
+		this.times = new long[16];
+		this.deltaPtr = new int[17];
+		this.deltas = new byte[64];
+		this.checkpoints = new long[4][];
+		this.times[0] = time;
+		this.checkpoints[0] = current.clone();
+		this.versions = 1;
+	}
+
+	/**
+	 * Construtor do histórico a partir do grafo da versão inicial (as arestas do
+	 * universo que não pertencem a ele ficam inativas)
+	 *
+	 * @param universe           grafo com todas as arestas que podem existir
+	 * @param time               instante da versão inicial
+	 * @param initial            grafo da versão inicial
+	 * @param checkpointInterval número de versões entre duas máscaras completas
+	 */
+	public VersionedGraphN(CompactGraphN universe, long time, GraphN initial, int checkpointInterval) {
+		this(universe, time, toMask(universe, getIndex(universe), initial), checkpointInterval);
+	}
+
+	// -------------- gravação --------------
+
+	/**
+	 * Função que grava uma nova versão a partir das arestas que mudaram de estado
+	 *
+	 * @param time    instante da versão (posterior ao da última versão)
+	 * @param toggled identificadores das arestas do universo que mudaram de estado
+	 *                (ligadas ou desligadas)
+	 */
+	public void record(long time, int... toggled) {
+		if (time <= times[versions - 1])
+			throw new IllegalArgumentException("Instante anterior à última versão: " + time);
+		int[] ids = toggled.clone();
+		Arrays.sort(ids);
+		// validação completa antes de alterar o estado atual
+		if (ids.length > 0 && ids[0] < 0)
+			throw new IllegalArgumentException("Aresta inexistente no universo: " + ids[0]);
+		if (ids.length > 0 && ids[ids.length - 1] >= universe.getEdgeCount())
+			throw new IllegalArgumentException("Aresta inexistente no universo: " + ids[ids.length - 1]);
+
+		// diferenças entre identificadores (toggles repetidos se cancelam)
+		ensureDeltaCapacity(5 * ids.length + 5);
+		int pos = deltaPtr[versions], prev = -1, count = 0, countPos = pos;
+		pos += 5; // reserva para a quantidade, ajustada ao final
+		for (int i = 0; i < ids.length; i++) {
+			int e = ids[i];
+			int rep = 1;
+			while (i + 1 < ids.length && ids[i + 1] == e) {
+				i++;
+				rep++;
+			}
+			if ((rep & 1) == 0)
+				continue;
+			current[e >>> 6] ^= 1L << e;
+			pos = VarInt.write(deltas, pos, e - prev - 1);
+			prev = e;
+			count++;
+		}
+		int s = VarInt.size(count);
+		System.arraycopy(deltas, countPos + 5, deltas, countPos + s, pos - countPos - 5);
+		VarInt.write(deltas, countPos, count);
+		pos -= 5 - s;
+
+		if (versions == times.length) {
+			times = Arrays.copyOf(times, 2 * versions);
+			deltaPtr = Arrays.copyOf(deltaPtr, 2 * versions + 1);
+		}
+		times[versions] = time;
+		deltaPtr[versions + 1] = pos;
+		if (versions % interval == 0) {
+			int c = versions / interval;
+			if (c == checkpoints.length)
+				checkpoints = Arrays.copyOf(checkpoints, 2 * c);
+			checkpoints[c] = current.clone();
+		}
+		versions++;
+	}
+
+	/**
+	 * Função que grava uma nova versão a partir do grafo completo do instante
+	 * (somente as diferenças em relação à última versão são guardadas)
+	 *
+	 * @param time  instante da versão
+	 * @param graph grafo do instante (todas as suas arestas devem pertencer ao
+	 *              universo)
+	 */
+	public void record(long time, GraphN graph) {
+		if (index == null)
+			index = getIndex(universe);
+		long[] mask = toMask(universe, index, graph);
+		int[] toggled = new int[universe.getEdgeCount()];
+		int c = 0;
+		for (int w = 0; w < mask.length; w++) {
+			long diff = mask[w] ^ current[w];
+			while (diff != 0) {
+				toggled[c++] = (w << 6) + Long.numberOfTrailingZeros(diff);
+				diff &= diff - 1;
+			}
+		}
+		record(time, Arrays.copyOf(toggled, c));
+	}
+
+	// -------------- consultas --------------
+
+	public CompactGraphN getUniverse() {
+		return universe;
+	}
+
+	public int getVersionCount() {
+		return versions;
+	}
+
+	public int getCheckpointInterval() {
+		return interval;
+	}
+
+	public long getTime(int version) {
+		return times[version];
+	}
+
+	/**
+	 * Função que retorna a versão vigente num instante
+	 *
+	 * @param time instante
+	 * @return última versão gravada até o instante, ou -1 se o instante for
+	 *         anterior à versão inicial
+	 */
+	public int getVersion(long time) {
+		int i = Arrays.binarySearch(times, 0, versions, time);
+		return i >= 0 ? i : -i - 2;
+	}
+
+	/**
+	 * Função que retorna as arestas que mudaram de estado numa versão
+	 *
+	 * @param version versão (a partir de 1)
+	 * @return identificadores das arestas, em ordem crescente
+	 */
+	public int[] getChanges(int version) {
+		if (version == 0)
+			return new int[0];
+		int pos = deltaPtr[version];
+		int count = VarInt.read(deltas, pos);
+		pos = VarInt.skip(deltas, pos);
+		int[] out = new int[count];
+		int prev = -1;
+		for (int i = 0; i < count; i++) {
+			prev += VarInt.read(deltas, pos) + 1;
+			pos = VarInt.skip(deltas, pos);
+			out[i] = prev;
+		}
+		return out;
+	}
+
+	/**
+	 * Função que reconstrói a máscara das arestas ativas num instante
+	 *
+	 * @param time instante
+	 * @return máscara das arestas (nova a cada chamada)
+	 */
+	public long[] getEdgeMask(long time) {
+		int v = getVersion(time);
+		if (v < 0)
+			throw new IllegalArgumentException("Instante anterior à versão inicial: " + time);
+		long[] mask = checkpoints[v / interval].clone();
+		for (int i = (v / interval) * interval + 1; i <= v; i++) {
+			int pos = deltaPtr[i];
+			int count = VarInt.read(deltas, pos), prev = -1;
+			pos = VarInt.skip(deltas, pos);
+			for (int k = 0; k < count; k++) {
+				prev += VarInt.read(deltas, pos) + 1;
+				pos = VarInt.skip(deltas, pos);
+				mask[prev >>> 6] ^= 1L << prev;
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * Função que retorna o cenário (grafo universo com a máscara das arestas
+	 * ativas) de um instante, sobre o qual podem ser feitas as consultas de
+	 * conectividade
+	 *
+	 * @param time instante
+	 * @return cenário do instante
+	 */
+	public MaskedGraphN getScenario(long time) {
+		return new MaskedGraphN(universe, getEdgeMask(time), null);
+	}
+
+	/**
+	 * Função que gera o grafo numerado de um instante (somente com as arestas
+	 * ativas e seus vértices)
+	 *
+	 * @param time instante
+	 * @return grafo numerado
+	 */
+	public GraphN getGraph(long time) {
+		long[] mask = getEdgeMask(time);
+		Set<DuplaEmeio> ens = new HashSet<>();
+		for (int e = 0; e < universe.getEdgeCount(); e++)
+			if ((mask[e >>> 6] & (1L << e)) != 0)
+				ens.add(universe.getNums(e));
+		return new GraphN(ens);
+	}
+
+	/**
+	 * Função que indica se dois vértices estavam ligados num instante
+	 *
+	 * @param time instante
+	 * @param num1 número do primeiro vértice
+	 * @param num2 número do segundo vértice
+	 * @return <code>true</code> se havia um caminho entre os vértices
+	 */
+	public boolean isConnected(long time, int num1, int num2) {
+		return getScenario(time).isConnected(num1, num2);
+	}
+
+	/**
+	 * Função que estima a memória ocupada pelo histórico (sem o universo)
+	 *
+	 * @return número aproximado de bytes
+	 */
+	public long getMemoryFootprint() {
+		long cp = (versions + interval - 1) / interval;
+		return 8L * versions + 4L * versions + deltaPtr[versions] + cp * 8L * current.length;
+	}
+
+	// ---------------- AUXILIAR ----------------
+
+	private void ensureDeltaCapacity(int extra) {
+		int need = deltaPtr[versions] + extra;
+		if (need > deltas.length)
+			deltas = Arrays.copyOf(deltas, Math.max(need, 2 * deltas.length));
+	}
+
+	private static long key(int num1, int num2) {
+		return EdgeKeys.key(Math.min(num1, num2), Math.max(num1, num2));
+	}
+
+	private static Map<Long, int[]> getIndex(CompactGraphN universe) {
+		Map<Long, int[]> index = new HashMap<>(2 * universe.getEdgeCount());
+		for (int e = 0; e < universe.getEdgeCount(); e++) {
+			long k = key(universe.getNum(universe.getFrom(e)), universe.getNum(universe.getTo(e)));
+			int[] ids = index.get(k);
+			if (ids == null)
+				ids = new int[] { e };
+			else {
+				ids = Arrays.copyOf(ids, ids.length + 1);
+				ids[ids.length - 1] = e;
+			}
+			index.put(k, ids);
+		}
+		return index;
+	}
+
+	private static long[] toMask(CompactGraphN universe, Map<Long, int[]> index, GraphN graph) {
+		long[] mask = new long[(universe.getEdgeCount() + 63) >>> 6];
+		for (DuplaEmeio d : graph.getEns()) {
+			int found = -1;
+			int[] ids = index.get(key(d.get1(), d.get2()));
+			if (ids != null)
+				for (int e : ids)
+					if (universe.getCircuit(e) == d.get3()) {
+						found = e;
+						break;
+					}
+			if (found < 0)
+				throw new IllegalArgumentException("Aresta inexistente no universo: " + d);
+			mask[found >>> 6] |= 1L << found;
+		}
+		return mask;
+	}
+
+	@Override
+	public String toString() {
+		return "versões=" + versions + ", bytes=" + getMemoryFootprint();
+	}
+}
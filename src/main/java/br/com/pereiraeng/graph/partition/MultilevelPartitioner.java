@@ -0,0 +1,436 @@
+package br.com.pereiraeng.graph.partition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import br.com.pereiraeng.graph.numbered.CompactGraphN;
+
+/**
+ * Classe do objeto que divide um {@link CompactGraphN grafo numerado} em k
+ * partes de pesos equilibrados minimizando o peso das arestas cortadas, pelo
+ * esquema multinível:
+ * <ol>
+ * <li>contração sucessiva do grafo pelo emparelhamento das arestas mais
+ * pesadas (<i>heavy-edge matching</i>);</li>
+ * <li>partição inicial do grafo mais contraído por crescimento guloso das
+ * partes;</li>
+ * <li>projeção da partição em cada nível, seguida de refinamento k-vias
+ * (variante gulosa de Fiduccia-Mattheyses, que move os vértices da fronteira
+ * para a parte vizinha de maior ganho sem violar o equilíbrio).</li>
+ * </ol>
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public class MultilevelPartitioner {
+
+	private final int k;
+
+	/**
+	 * Razão máxima entre o peso de uma parte e o peso médio
+	 */
+	private double imbalance = 1.03;
+
+	/**
+	 * Número de vértices por parte abaixo do qual a contração é interrompida
+	 */
+	private int coarsenTo = 30;
+
+	private int refinementPasses = 10;
+
+	private int initialTrials = 4;
+
+	private long seed = 1L;
+
+	/**
+	 * Construtor do particionador
+	 *
+	 * @param k número de partes
+	 */
+	public MultilevelPartitioner(int k) {
+		if (k < 1)
+			throw new IllegalArgumentException("O número de partes deve ser positivo");
+		this.k = k;
+	}
+
+	// -------------- getter's n setter's --------------
+
+	public int getPartCount() {
+		return k;
+	}
+
+	public double getImbalance() {
+		return imbalance;
+	}
+
+	public void setImbalance(double imbalance) {
+		if (imbalance < 1.)
+			throw new IllegalArgumentException("O desbalanço máximo não pode ser inferior a 1");
+		this.imbalance = imbalance;
+	}
+
+	public void setCoarsenTo(int coarsenTo) {
+		this.coarsenTo = coarsenTo;
+	}
+
+	public void setRefinementPasses(int refinementPasses) {
+		this.refinementPasses = refinementPasses;
+	}
+
+	public void setInitialTrials(int initialTrials) {
+		this.initialTrials = initialTrials;
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	// ---------------- partição ----------------
+
+	/**
+	 * Função que divide um grafo em partes de mesmo número de vértices
+	 *
+	 * @param graph grafo
+	 * @return partição
+	 */
+	public Partition partition(CompactGraphN graph) {
+		return partition(graph, null, null);
+	}
+
+	/**
+	 * Função que divide um grafo em partes de pesos equilibrados
+	 *
+	 * @param graph         grafo
+	 * @param vertexWeights peso de cada vértice, indexado pelo índice denso (ou
+	 *                      <code>null</code> para peso unitário)
+	 * @param edgeWeights   peso de cada aresta, indexado pelo identificador da
+	 *                      aresta (ou <code>null</code> para peso unitário)
+	 * @return partição
+	 */
+	public Partition partition(CompactGraphN graph, int[] vertexWeights, int[] edgeWeights) {
+		int n = graph.getVertexCount();
+		if (n < k)
+			throw new IllegalArgumentException("Grafo com menos vértices (" + n + ") do que partes (" + k + ")");
+		if (vertexWeights != null)
+			for (int w : vertexWeights)
+				if (w < 0)
+					throw new IllegalArgumentException("Os pesos dos vértices não podem ser negativos: " + w);
+		if (edgeWeights != null)
+			for (int w : edgeWeights)
+				if (w < 0)
+					throw new IllegalArgumentException("Os pesos das arestas não podem ser negativos: " + w);
+		Random rnd = new Random(seed);
+
+		// 1) contração
+		List<WGraph> levels = new ArrayList<>();
+		List<int[]> maps = new ArrayList<>();
+		WGraph g = WGraph.of(graph, vertexWeights, edgeWeights);
+		levels.add(g);
+		int limit = Math.max(coarsenTo * k, 2 * k);
+		while (g.n > limit) {
+			int[] cmap = new int[g.n];
+			int cn = g.match(cmap, (long) Math.ceil(1.5 * g.totalWeight / limit), rnd);
+			if (cn > 0.95 * g.n)
+				break;
+			g = g.contract(cmap, cn);
+			levels.add(g);
+			maps.add(cmap);
+		}
+
+		// 2) partição inicial
+		int[] part = null;
+		long best = Long.MAX_VALUE;
+		for (int t = 0; t < Math.max(1, initialTrials); t++) {
+			int[] p = g.grow(k, rnd);
+			g.refine(p, k, imbalance, refinementPasses, rnd);
+			long cut = g.cut(p);
+			if (cut < best) {
+				best = cut;
+				part = p;
+			}
+		}
+
+		// 3) projeção e refinamento
+		for (int l = levels.size() - 2; l >= 0; l--) {
+			WGraph fine = levels.get(l);
+			int[] cmap = maps.get(l);
+			int[] p = new int[fine.n];
+			for (int v = 0; v < fine.n; v++)
+				p[v] = part[cmap[v]];
+			fine.refine(p, k, imbalance, refinementPasses, rnd);
+			part = p;
+		}
+		return new Partition(graph, k, part, vertexWeights, edgeWeights);
+	}
+
+	// ======================== grafo ponderado ========================
+
+	/**
+	 * Grafo ponderado no formato CSR, sem arestas paralelas nem laços
+	 */
+	private static class WGraph {
+
+		private final int n;
+		private final int[] xadj, adj, ew, vw;
+		private final long totalWeight;
+
+		private WGraph(int n, int[] xadj, int[] adj, int[] ew, int[] vw) {
+			this.n = n;
+			this.xadj = xadj;
+			this.adj = adj;
+			this.ew = ew;
+			this.vw = vw;
+			long t = 0;
+			for (int w : vw)
+				t += w;
+			this.totalWeight = t;
+		}
+
+		private static WGraph of(CompactGraphN g, int[] vertexWeights, int[] edgeWeights) {
+			int n = g.getVertexCount();
+			int[] xadj = new int[n + 1], adj = new int[g.getAdjacency().length], ew = new int[adj.length];
+			int[] slot = new int[n];
+			Arrays.fill(slot, -1);
+			int len = 0;
+			for (int v = 0; v < n; v++) {
+				int start = len;
+				for (int j = 0; j < g.getDegree(v); j++) {
+					int u = g.getNeighbor(v, j);
+					if (u == v)
+						continue;
+					int w = edgeWeights == null ? 1 : edgeWeights[g.getEdgeId(v, j)];
+					if (slot[u] >= start)
+						ew[slot[u]] += w; // circuitos paralelos
+					else {
+						slot[u] = len;
+						adj[len] = u;
+						ew[len++] = w;
+					}
+				}
+				xadj[v + 1] = len;
+			}
+			int[] vw = new int[n];
+			for (int v = 0; v < n; v++)
+				vw[v] = vertexWeights == null ? 1 : vertexWeights[v];
+			return new WGraph(n, xadj, Arrays.copyOf(adj, len), Arrays.copyOf(ew, len), vw);
+		}
+
+		private static int[] shuffled(int n, Random rnd) {
+			int[] order = new int[n];
+			for (int i = 0; i < n; i++)
+				order[i] = i;
+			for (int i = n - 1; i > 0; i--) {
+				int j = rnd.nextInt(i + 1);
+				int t = order[i];
+				order[i] = order[j];
+				order[j] = t;
+			}
+			return order;
+		}
+
+		/**
+		 * Emparelhamento pelas arestas mais pesadas
+		 *
+		 * @return número de vértices do grafo contraído (com o vértice contraído de
+		 *         cada vértice em cmap)
+		 */
+		private int match(int[] cmap, long maxWeight, Random rnd) {
+			int[] match = new int[n];
+			Arrays.fill(match, -1);
+			for (int v : shuffled(n, rnd)) {
+				if (match[v] >= 0)
+					continue;
+				int best = v, bw = -1;
+				for (int p = xadj[v]; p < xadj[v + 1]; p++) {
+					int u = adj[p];
+					if (match[u] < 0 && ew[p] > bw && vw[v] + vw[u] <= maxWeight) {
+						best = u;
+						bw = ew[p];
+					}
+				}
+				match[v] = best;
+				match[best] = v;
+			}
+			Arrays.fill(cmap, -1);
+			int cn = 0;
+			for (int v = 0; v < n; v++)
+				if (cmap[v] < 0) {
+					cmap[v] = cn;
+					cmap[match[v]] = cn++;
+				}
+			return cn;
+		}
+
+		private WGraph contract(int[] cmap, int cn) {
+			int[] first = new int[cn], second = new int[cn];
+			Arrays.fill(first, -1);
+			Arrays.fill(second, -1);
+			int[] cvw = new int[cn];
+			for (int v = 0; v < n; v++) {
+				int c = cmap[v];
+				cvw[c] += vw[v];
+				if (first[c] < 0)
+					first[c] = v;
+				else
+					second[c] = v;
+			}
+			int[] cxadj = new int[cn + 1], cadj = new int[adj.length], cew = new int[adj.length];
+			int[] slot = new int[cn];
+			Arrays.fill(slot, -1);
+			int len = 0;
+			for (int c = 0; c < cn; c++) {
+				int start = len;
+				for (int s = 0; s < 2; s++) {
+					int v = s == 0 ? first[c] : second[c];
+					if (v < 0)
+						continue;
+					for (int p = xadj[v]; p < xadj[v + 1]; p++) {
+						int cu = cmap[adj[p]];
+						if (cu == c)
+							continue;
+						if (slot[cu] >= start)
+							cew[slot[cu]] += ew[p];
+						else {
+							slot[cu] = len;
+							cadj[len] = cu;
+							cew[len++] = ew[p];
+						}
+					}
+				}
+				cxadj[c + 1] = len;
+			}
+			return new WGraph(cn, cxadj, Arrays.copyOf(cadj, len), Arrays.copyOf(cew, len), cvw);
+		}
+
+		/**
+		 * Partição inicial por crescimento guloso: cada parte cresce a partir de uma
+		 * semente, incorporando o vértice mais conectado a ela, até atingir o peso
+		 * médio
+		 */
+		private int[] grow(int k, Random rnd) {
+			int[] part = new int[n];
+			Arrays.fill(part, -1);
+			long[] gain = new long[n];
+			int[] order = shuffled(n, rnd);
+			int next = 0;
+			// fila de prioridade preguiçosa: (ganho << 32) | vértice
+			PriorityQueue<Long> queue = new PriorityQueue<>(Collections.reverseOrder());
+			long assigned = 0;
+			for (int p = 0; p < k - 1; p++) {
+				long target = (totalWeight - assigned) / (k - p);
+				long w = 0;
+				Arrays.fill(gain, 0);
+				queue.clear();
+				while (w < target) {
+					int best = -1;
+					while (best < 0 && !queue.isEmpty()) {
+						long key = queue.poll();
+						int v = (int) key;
+						if (part[v] < 0 && gain[v] == key >>> 32)
+							best = v;
+					}
+					// semente (ou nova semente, se a parte ficou isolada)
+					while (best < 0 && next < n)
+						if (part[order[next++]] < 0)
+							best = order[next - 1];
+					if (best < 0)
+						break;
+					part[best] = p;
+					w += vw[best];
+					for (int q = xadj[best]; q < xadj[best + 1]; q++) {
+						int u = adj[q];
+						if (part[u] < 0) {
+							gain[u] += ew[q];
+							queue.add((gain[u] << 32) | u);
+						}
+					}
+				}
+				assigned += w;
+			}
+			for (int v = 0; v < n; v++)
+				if (part[v] < 0)
+					part[v] = k - 1;
+			return part;
+		}
+
+		private long cut(int[] part) {
+			long c = 0;
+			for (int v = 0; v < n; v++)
+				for (int p = xadj[v]; p < xadj[v + 1]; p++)
+					if (part[v] != part[adj[p]])
+						c += ew[p];
+			return c / 2;
+		}
+
+		/**
+		 * Refinamento k-vias: cada vértice da fronteira é movido para a parte
+		 * vizinha com a qual tem a maior conexão, se o corte diminuir (ou se
+		 * permanecer igual mas o equilíbrio melhorar) sem que a parte de destino
+		 * exceda o peso máximo. Vértices de partes acima do peso máximo são movidos
+		 * mesmo que o corte aumente.
+		 */
+		private void refine(int[] part, int k, double imbalance, int passes, Random rnd) {
+			long[] pw = new long[k];
+			int maxVw = 0;
+			for (int v = 0; v < n; v++) {
+				pw[part[v]] += vw[v];
+				maxVw = Math.max(maxVw, vw[v]);
+			}
+			long maxPw = Math.max((long) Math.ceil(imbalance * totalWeight / k), (totalWeight + k - 1) / k + maxVw);
+			long[] conn = new long[k];
+			// partes vizinhas do vértice corrente (marcadas com o carimbo do vértice,
+			// pois a conexão pode ser nula com arestas de peso zero)
+			int[] touched = new int[k], mark = new int[k];
+			int stamp = 0;
+			for (int pass = 0; pass < passes; pass++) {
+				int moves = 0;
+				for (int v : shuffled(n, rnd)) {
+					int from = part[v], nt = 0;
+					stamp++;
+					boolean boundary = false;
+					for (int p = xadj[v]; p < xadj[v + 1]; p++) {
+						int q = part[adj[p]];
+						if (q != from)
+							boundary = true;
+						if (mark[q] != stamp) {
+							mark[q] = stamp;
+							touched[nt++] = q;
+						}
+						conn[q] += ew[p];
+					}
+					boolean overweight = pw[from] > maxPw;
+					int to = -1;
+					if (boundary || overweight) {
+						for (int i = 0; i < nt; i++) {
+							int q = touched[i];
+							if (q != from && pw[q] + vw[v] <= maxPw
+									&& (to < 0 || conn[q] > conn[to] || (conn[q] == conn[to] && pw[q] < pw[to])))
+								to = q;
+						}
+						if (to < 0 && overweight) // parte mais leve, mesmo sem conexão
+							for (int q = 0; q < k; q++)
+								if (q != from && (to < 0 || pw[q] < pw[to]))
+									to = q;
+					}
+					if (to >= 0) {
+						long gain = conn[to] - conn[from];
+						if (gain > 0 || (gain == 0 && pw[to] + vw[v] < pw[from]) || overweight) {
+							part[v] = to;
+							pw[from] -= vw[v];
+							pw[to] += vw[v];
+							moves++;
+						}
+					}
+					for (int i = 0; i < nt; i++)
+						conn[touched[i]] = 0;
+				}
+				if (moves == 0)
+					break;
+			}
+		}
+	}
+}
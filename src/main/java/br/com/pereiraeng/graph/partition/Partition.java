@@ -0,0 +1,205 @@
+package br.com.pereiraeng.graph.partition;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import br.com.pereiraeng.graph.numbered.CompactGraphN;
+import br.com.pereiraeng.graph.numbered.CutN;
+import br.com.pereiraeng.graph.numbered.GraphN;
+import br.com.pereiraeng.math.DuplaEmeio;
+
+/**
+ * Classe do objeto que representa a divisão dos vértices de um
+ * {@link CompactGraphN grafo numerado} em k partes (áreas)
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public class Partition {
+
+	private final CompactGraphN graph;
+
+	private final int k;
+
+	/**
+	 * part[v] = parte do vértice de índice denso v
+	 */
+	private final int[] part;
+
+	private final long[] weights;
+
+	private final long edgeCut;
+
+	/**
+	 * Construtor da partição
+	 *
+	 * @param graph         grafo
+	 * @param k             número de partes
+	 * @param part          parte de cada vértice (indexado pelo índice denso)
+	 * @param vertexWeights peso de cada vértice (ou <code>null</code> para peso
+	 *                      unitário)
+	 * @param edgeWeights   peso de cada aresta (ou <code>null</code> para peso
+	 *                      unitário)
+	 */
+	public Partition(CompactGraphN graph, int k, int[] part, int[] vertexWeights, int[] edgeWeights) {
+		if (part.length != graph.getVertexCount())
+			throw new IllegalArgumentException("Todos os vértices devem pertencer a uma parte");
+		this.graph = graph;
+		this.k = k;
+		this.part = part;
+		this.weights = new long[k];
+		for (int v = 0; v < part.length; v++)
+			weights[part[v]] += vertexWeights == null ? 1 : vertexWeights[v];
+		long cut = 0;
+		for (int e = 0; e < graph.getEdgeCount(); e++)
+			if (part[graph.getFrom(e)] != part[graph.getTo(e)])
+				cut += edgeWeights == null ? 1 : edgeWeights[e];
+		this.edgeCut = cut;
+	}
+
+	// -------------- getter's --------------
+
+	public CompactGraphN getGraph() {
+		return graph;
+	}
+
+	public int getPartCount() {
+		return k;
+	}
+
+	/**
+	 * Função que retorna a parte de cada vértice
+	 *
+	 * @return vetor indexado pelo índice denso do vértice
+	 */
+	public int[] getParts() {
+		return part;
+	}
+
+	/**
+	 * Função que retorna a parte de um vértice a partir do seu número
+	 *
+	 * @param num número do vértice
+	 * @return parte, ou -1 se o vértice não pertencer ao grafo
+	 */
+	public int getPart(int num) {
+		int v = graph.indexOf(num);
+		return v < 0 ? -1 : part[v];
+	}
+
+	public long[] getPartWeights() {
+		return weights;
+	}
+
+	/**
+	 * Função que retorna a soma dos pesos das arestas que ligam partes distintas
+	 *
+	 * @return corte
+	 */
+	public long getEdgeCut() {
+		return edgeCut;
+	}
+
+	/**
+	 * Função que retorna o desbalanço da partição (razão entre o peso da parte
+	 * mais pesada e o peso médio)
+	 *
+	 * @return desbalanço (1 para uma partição perfeitamente balanceada)
+	 */
+	public double getImbalance() {
+		long total = 0, max = 0;
+		for (long w : weights) {
+			total += w;
+			max = Math.max(max, w);
+		}
+		return total == 0 ? 1. : max * (double) k / total;
+	}
+
+	/**
+	 * Função que retorna os índices densos dos vértices de uma parte
+	 *
+	 * @param p parte
+	 * @return vértices da parte
+	 */
+	public int[] getVertices(int p) {
+		int c = 0;
+		for (int x : part)
+			if (x == p)
+				c++;
+		int[] out = new int[c];
+		c = 0;
+		for (int v = 0; v < part.length; v++)
+			if (part[v] == p)
+				out[c++] = v;
+		return out;
+	}
+
+	/**
+	 * Função que retorna o subgrafo induzido pelos vértices de uma parte
+	 *
+	 * @param p parte
+	 * @return subgrafo numerado
+	 */
+	public GraphN getSubgraph(int p) {
+		Set<DuplaEmeio> ens = new HashSet<>();
+		boolean[] linked = new boolean[part.length];
+		for (int e = 0; e < graph.getEdgeCount(); e++) {
+			int a = graph.getFrom(e), b = graph.getTo(e);
+			if (part[a] == p && part[b] == p) {
+				ens.add(graph.getNums(e));
+				linked[a] = linked[b] = true;
+			}
+		}
+		GraphN out = new GraphN(ens);
+		for (int v = 0; v < part.length; v++)
+			if (part[v] == p && !linked[v])
+				out.add(graph.getNum(v));
+		return out;
+	}
+
+	/**
+	 * Função que retorna o {@link CutN#isOrdered() corte orientado} que separa uma
+	 * parte do restante do grafo. As primeiras posições das {@link DuplaEmeio
+	 * arestas} são ocupadas pelos vértices da parte.
+	 *
+	 * @param p parte
+	 * @return corte da parte
+	 */
+	public CutN getCut(int p) {
+		CutN c = new CutN();
+		for (int e = 0; e < graph.getEdgeCount(); e++) {
+			int a = graph.getFrom(e), b = graph.getTo(e);
+			if ((part[a] == p) == (part[b] == p))
+				continue;
+			if (part[a] != p) {
+				int t = a;
+				a = b;
+				b = t;
+			}
+			DuplaEmeio d = new DuplaEmeio(graph.getNum(a), graph.getNum(b), graph.getCircuit(e));
+			d.setOrdered(true);
+			c.add(d);
+		}
+		return c;
+	}
+
+	/**
+	 * Função que associa o corte de cada parte ao subgrafo correspondente, no
+	 * mesmo formato de {@link CutN#getOrderedCuts(GraphN, Set)}
+	 *
+	 * @return tabela de dispersão que associa para cada corte o subgrafo da parte
+	 */
+	public Map<CutN, GraphN> getCuts() {
+		Map<CutN, GraphN> out = new LinkedHashMap<>();
+		for (int p = 0; p < k; p++)
+			out.put(getCut(p), getSubgraph(p));
+		return out;
+	}
+
+	@Override
+	public String toString() {
+		return "k=" + k + ", corte=" + edgeCut + ", desbalanço=" + getImbalance();
+	}
+}
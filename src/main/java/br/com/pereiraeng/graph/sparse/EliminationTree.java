@@ -0,0 +1,274 @@
+package br.com.pereiraeng.graph.sparse;
+
+import java.util.Arrays;
+
+import br.com.pereiraeng.graph.numbered.CompactGraphN;
+
+/**
+ * Classe do objeto que representa a árvore de eliminação de um
+ * {@link CompactGraphN grafo numerado} segundo uma {@link NodalOrdering
+ * ordenação}, junto com a fatoração simbólica correspondente (número de
+ * elementos não nulos por linha e por coluna do fator L, pós-ordem e
+ * supernós fundamentais).
+ * <p>
+ * Todos os vetores são indexados pela posição de eliminação (i.e., pela coluna
+ * do fator), e não pelo índice denso do vértice. As contagens não incluem o
+ * elemento da diagonal.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public class EliminationTree {
+
+	private final NodalOrdering ordering;
+
+	/**
+	 * parent[j] = coluna pai da coluna j, ou -1 se j for uma raiz
+	 */
+	private final int[] parent;
+
+	/**
+	 * postorder[k] = k-ésima coluna na pós-ordem
+	 */
+	private final int[] postorder;
+
+	/**
+	 * Número de elementos não nulos abaixo da diagonal em cada coluna e em cada
+	 * linha de L
+	 */
+	private final int[] colCounts, rowCounts;
+
+	/**
+	 * Primeira coluna de cada supernó fundamental (com a posição n ao final)
+	 */
+	private final int[] supernodes;
+
+	private EliminationTree(NodalOrdering ordering) {
+		this.ordering = ordering;
+		CompactGraphN g = ordering.getGraph();
+		int[] perm = ordering.getPermutation(), iperm = ordering.getInversePermutation();
+		int n = perm.length;
+		int[] offsets = g.getOffsets(), adj = g.getAdjacency();
+
+		// 1) algoritmo de Liu, com compressão de caminhos
+		this.parent = new int[n];
+		int[] ancestor = new int[n];
+		Arrays.fill(parent, -1);
+		Arrays.fill(ancestor, -1);
+		for (int k = 0; k < n; k++) {
+			int v = perm[k];
+			for (int p = offsets[v]; p < offsets[v + 1]; p++) {
+				int i = iperm[adj[p]];
+				while (i >= 0 && i < k) {
+					int next = ancestor[i];
+					ancestor[i] = k;
+					if (next < 0)
+						parent[i] = k;
+					i = next;
+				}
+			}
+		}
+
+		// 2) contagens por linha e por coluna (subárvores das linhas)
+		this.colCounts = new int[n];
+		this.rowCounts = new int[n];
+		int[] mark = ancestor; // reaproveitado
+		Arrays.fill(mark, -1);
+		for (int k = 0; k < n; k++) {
+			mark[k] = k;
+			int v = perm[k];
+			for (int p = offsets[v]; p < offsets[v + 1]; p++) {
+				int i = iperm[adj[p]];
+				if (i > k)
+					continue;
+				for (; mark[i] != k; i = parent[i]) {
+					mark[i] = k;
+					rowCounts[k]++;
+					colCounts[i]++;
+				}
+			}
+		}
+
+		// 3) pós-ordem (sem recursão)
+		int[] head = new int[n], next = new int[n], nChildren = new int[n];
+		Arrays.fill(head, -1);
+		for (int j = n - 1; j >= 0; j--) {
+			int p = parent[j];
+			if (p >= 0) {
+				next[j] = head[p];
+				head[p] = j;
+				nChildren[p]++;
+			}
+		}
+		this.postorder = new int[n];
+		int[] stack = new int[n];
+		int k = 0;
+		for (int r = 0; r < n; r++) {
+			if (parent[r] >= 0)
+				continue;
+			int top = 0;
+			stack[0] = r;
+			while (top >= 0) {
+				int j = stack[top];
+				int c = head[j];
+				if (c < 0) {
+					top--;
+					postorder[k++] = j;
+				} else {
+					head[j] = next[c];
+					stack[++top] = c;
+				}
+			}
+		}
+
+		// 4) supernós fundamentais
+		int[] sn = new int[n + 1];
+		int ns = 0;
+		for (int j = 0; j < n; j++)
+			if (j == 0 || parent[j - 1] != j || nChildren[j] != 1 || colCounts[j - 1] != colCounts[j] + 1)
+				sn[ns++] = j;
+		sn[ns++] = n;
+		this.supernodes = Arrays.copyOf(sn, ns);
+	}
+
+	/**
+	 * Função que constrói a árvore de eliminação e a fatoração simbólica a partir
+	 * de uma ordenação
+	 *
+	 * @param ordering ordenação dos vértices do grafo
+	 * @return árvore de eliminação
+	 */
+	public static EliminationTree of(NodalOrdering ordering) {
+		return new EliminationTree(ordering);
+	}
+
+	/**
+	 * Função que constrói a árvore de eliminação e a fatoração simbólica a partir
+	 * de uma permutação qualquer dos vértices
+	 *
+	 * @param graph grafo
+	 * @param perm  índices densos dos vértices na ordem de eliminação
+	 * @return árvore de eliminação
+	 */
+	public static EliminationTree of(CompactGraphN graph, int[] perm) {
+		return new EliminationTree(NodalOrdering.of(graph, perm));
+	}
+
+	// -------------- getter's --------------
+
+	public NodalOrdering getOrdering() {
+		return ordering;
+	}
+
+	public int size() {
+		return parent.length;
+	}
+
+	/**
+	 * Função que retorna a árvore de eliminação
+	 *
+	 * @return vetor em que a posição j contém a coluna pai da coluna j (ou -1 se j
+	 *         for uma raiz)
+	 */
+	public int[] getParents() {
+		return parent;
+	}
+
+	/**
+	 * Função que retorna as colunas na pós-ordem da árvore de eliminação (os
+	 * filhos antes dos pais, e cada subárvore em posições contíguas)
+	 *
+	 * @return colunas em pós-ordem
+	 */
+	public int[] getPostorder() {
+		return postorder;
+	}
+
+	/**
+	 * Função que retorna o número de elementos não nulos abaixo da diagonal em
+	 * cada coluna de L
+	 *
+	 * @return contagens por coluna
+	 */
+	public int[] getColumnCounts() {
+		return colCounts;
+	}
+
+	/**
+	 * Função que retorna o número de elementos não nulos à esquerda da diagonal em
+	 * cada linha de L
+	 *
+	 * @return contagens por linha
+	 */
+	public int[] getRowCounts() {
+		return rowCounts;
+	}
+
+	/**
+	 * Função que retorna os supernós fundamentais (conjuntos de colunas contíguas
+	 * com a mesma estrutura abaixo do bloco diagonal, formando uma cadeia na
+	 * árvore de eliminação)
+	 *
+	 * @return primeira coluna de cada supernó, com o número de colunas na última
+	 *         posição (o supernó s compreende as colunas de sn[s] a sn[s+1] - 1)
+	 */
+	public int[] getSupernodes() {
+		return supernodes;
+	}
+
+	/**
+	 * Função que retorna os ponteiros de coluna para o armazenamento de L no
+	 * formato CSC, já com o elemento da diagonal
+	 *
+	 * @return vetor com n+1 posições, em que a coluna j ocupa as posições de p[j]
+	 *         a p[j+1] - 1
+	 */
+	public int[] getColumnPointers() {
+		int n = colCounts.length;
+		int[] p = new int[n + 1];
+		long nnz = 0;
+		for (int j = 0; j < n; j++) {
+			nnz += colCounts[j] + 1;
+			if (nnz > Integer.MAX_VALUE)
+				throw new IllegalStateException("Fator com mais elementos do que um vetor pode indexar");
+			p[j + 1] = (int) nnz;
+		}
+		return p;
+	}
+
+	/**
+	 * Função que retorna o caminho de uma coluna até a raiz da sua árvore
+	 *
+	 * @param j coluna (posição de eliminação)
+	 * @return colunas do caminho, começando por j
+	 */
+	public int[] getPath(int j) {
+		int len = 0;
+		for (int i = j; i >= 0; i = parent[i])
+			len++;
+		int[] out = new int[len];
+		len = 0;
+		for (int i = j; i >= 0; i = parent[i])
+			out[len++] = i;
+		return out;
+	}
+
+	/**
+	 * Função que retorna as colunas do fator que precisam ser recalculadas quando
+	 * os parâmetros de um ramo (ou de uma barra, se os dois números forem iguais)
+	 * são alterados sem mudança da estrutura: é o caminho, na árvore de
+	 * eliminação, da coluna da extremidade eliminada primeiro até a raiz
+	 *
+	 * @param num1 número de um dos vértices do ramo
+	 * @param num2 número do outro vértice do ramo
+	 * @return colunas a serem refatoradas, em ordem crescente
+	 */
+	public int[] getRefactorizationPath(int num1, int num2) {
+		CompactGraphN g = ordering.getGraph();
+		int v1 = g.indexOf(num1), v2 = g.indexOf(num2);
+		if (v1 < 0 || v2 < 0)
+			throw new IllegalArgumentException("Vértice não pertence ao grafo: " + (v1 < 0 ? num1 : num2));
+		int[] iperm = ordering.getInversePermutation();
+		return getPath(Math.min(iperm[v1], iperm[v2]));
+	}
+}
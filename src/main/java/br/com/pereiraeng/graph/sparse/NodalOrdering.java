@@ -0,0 +1,498 @@
+package br.com.pereiraeng.graph.sparse;
+
+import java.util.Arrays;
+
+import br.com.pereiraeng.graph.numbered.CompactGraphN;
+
+/**
+ * Classe do objeto que representa uma ordenação dos vértices de um
+ * {@link CompactGraphN grafo numerado} para a fatoração de matrizes esparsas
+ * de estrutura simétrica (matrizes de admitância, jacobianas, etc.), junto com
+ * o número de elementos não nulos previstos no fator triangular.
+ * <p>
+ * As ordenações dinâmicas são calculadas pela eliminação no grafo quociente
+ * (cada vértice eliminado vira um 'elemento' que representa a clique formada
+ * pelos seus vizinhos), de modo que a memória utilizada nunca excede a do grafo
+ * original. Vértices indistinguíveis não são agrupados em supervariáveis, o que
+ * é aceitável para as redes elétricas, cujo grau médio é baixo.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public class NodalOrdering {
+
+	/**
+	 * Critérios de ordenação
+	 */
+	public enum Method {
+		/**
+		 * Esquema 1 de Tinney: ordenação estática pelo grau inicial de cada vértice
+		 */
+		TINNEY_1,
+		/**
+		 * Esquema 2 de Tinney (grau mínimo): a cada passo elimina-se o vértice com o
+		 * menor grau externo exato no grafo quociente
+		 */
+		TINNEY_2,
+		/**
+		 * Grau mínimo aproximado (AMD): o grau exato é substituído por um limite
+		 * superior calculado em tempo proporcional ao tamanho das listas de
+		 * adjacência
+		 */
+		AMD;
+	}
+
+	private final CompactGraphN graph;
+
+	/**
+	 * perm[k] = índice denso do k-ésimo vértice eliminado
+	 */
+	private final int[] perm;
+
+	/**
+	 * iperm[v] = posição de eliminação do vértice v
+	 */
+	private final int[] iperm;
+
+	/**
+	 * Número de elementos não nulos abaixo da diagonal no fator L
+	 */
+	private final long factorNonZeros;
+
+	/**
+	 * Número de pares distintos de vértices adjacentes (elementos não nulos abaixo
+	 * da diagonal na matriz original)
+	 */
+	private final long originalNonZeros;
+
+	private NodalOrdering(CompactGraphN graph, int[] perm, long factorNonZeros, long originalNonZeros) {
+		this.graph = graph;
+		this.perm = perm;
+		this.iperm = new int[perm.length];
+		for (int k = 0; k < perm.length; k++)
+			this.iperm[perm[k]] = k;
+		this.factorNonZeros = factorNonZeros;
+		this.originalNonZeros = originalNonZeros;
+	}
+
+	/**
+	 * Função que calcula uma ordenação dos vértices de um grafo
+	 *
+	 * @param graph  grafo
+	 * @param method critério de ordenação
+	 * @return ordenação e enchimento previsto
+	 */
+	public static NodalOrdering compute(CompactGraphN graph, Method method) {
+		QuotientGraph qg = new QuotientGraph(graph);
+		int[] perm;
+		switch (method) {
+		case TINNEY_1:
+			perm = staticOrder(qg);
+			qg.eliminate(perm);
+			break;
+		case TINNEY_2:
+			perm = qg.minimumDegree(false);
+			break;
+		case AMD:
+			perm = qg.minimumDegree(true);
+			break;
+		default:
+			throw new IllegalArgumentException("Critério de ordenação desconhecido: " + method);
+		}
+		return new NodalOrdering(graph, perm, qg.nnzL, qg.nnzA);
+	}
+
+	/**
+	 * Função que avalia uma ordenação já conhecida (e.g., fornecida por outro
+	 * programa), calculando o seu enchimento
+	 *
+	 * @param graph grafo
+	 * @param perm  índices densos dos vértices na ordem de eliminação
+	 * @return ordenação e enchimento previsto
+	 */
+	public static NodalOrdering of(CompactGraphN graph, int[] perm) {
+		if (perm.length != graph.getVertexCount())
+			throw new IllegalArgumentException("A permutação deve conter todos os vértices");
+		boolean[] seen = new boolean[perm.length];
+		for (int v : perm) {
+			if (seen[v])
+				throw new IllegalArgumentException("Vértice repetido na permutação: " + v);
+			seen[v] = true;
+		}
+		QuotientGraph qg = new QuotientGraph(graph);
+		qg.eliminate(perm);
+		return new NodalOrdering(graph, perm.clone(), qg.nnzL, qg.nnzA);
+	}
+
+	private static int[] staticOrder(QuotientGraph qg) {
+		int n = qg.n;
+		// ordenação estável por contagem do grau (número de vizinhos distintos, que
+		// não passa de n - 1, ao contrário do número de circuitos)
+		int[] count = new int[n + 1];
+		for (int v = 0; v < n; v++)
+			count[qg.lenV[v] + 1]++;
+		for (int d = 0; d < n; d++)
+			count[d + 1] += count[d];
+		int[] perm = new int[n];
+		for (int v = 0; v < n; v++)
+			perm[count[qg.lenV[v]]++] = v;
+		return perm;
+	}
+
+	// -------------- getter's --------------
+
+	public CompactGraphN getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Função que retorna os índices densos dos vértices na ordem de eliminação
+	 *
+	 * @return vetor em que a k-ésima posição contém o k-ésimo vértice eliminado
+	 */
+	public int[] getPermutation() {
+		return perm;
+	}
+
+	/**
+	 * Função que retorna a posição de eliminação de cada vértice
+	 *
+	 * @return vetor indexado pelo índice denso do vértice
+	 */
+	public int[] getInversePermutation() {
+		return iperm;
+	}
+
+	/**
+	 * Função que retorna os {@link CompactGraphN#getNum(int) números} dos vértices
+	 * na ordem de eliminação
+	 *
+	 * @return números dos vértices
+	 */
+	public int[] getOrderedNums() {
+		int[] out = new int[perm.length];
+		for (int k = 0; k < perm.length; k++)
+			out[k] = graph.getNum(perm[k]);
+		return out;
+	}
+
+	/**
+	 * Função que retorna o número de elementos não nulos abaixo da diagonal do
+	 * fator triangular L (ou acima da diagonal de U)
+	 *
+	 * @return número de elementos não nulos
+	 */
+	public long getFactorNonZeros() {
+		return factorNonZeros;
+	}
+
+	/**
+	 * Função que retorna o número de elementos criados pela fatoração (i.e., que
+	 * são nulos na matriz original e não nulos no fator)
+	 *
+	 * @return enchimento
+	 */
+	public long getFillIn() {
+		return factorNonZeros - originalNonZeros;
+	}
+
+	@Override
+	public String toString() {
+		return "n=" + perm.length + ", nnz(A)=" + originalNonZeros + ", nnz(L)=" + factorNonZeros + ", fill="
+				+ getFillIn();
+	}
+
+	// ======================== grafo quociente ========================
+
+	/**
+	 * Grafo quociente: cada vértice é uma variável (ainda não eliminada), um
+	 * elemento (eliminado) ou um elemento absorvido por outro. Cada variável
+	 * guarda as variáveis adjacentes e os elementos aos quais pertence, e cada
+	 * elemento guarda as variáveis da sua clique.
+	 */
+	private static class QuotientGraph {
+
+		private static final byte VARIABLE = 0, ELEMENT = 1, ABSORBED = 2;
+
+		private final int n;
+
+		private final byte[] status;
+
+		/**
+		 * variáveis adjacentes a cada variável
+		 */
+		private final int[][] adjV;
+		private final int[] lenV;
+
+		/**
+		 * elementos aos quais cada variável pertence
+		 */
+		private final int[][] elems;
+		private final int[] lenE;
+
+		/**
+		 * variáveis de cada elemento (a clique criada pela sua eliminação)
+		 */
+		private final int[][] clique;
+
+		private final int[] mark;
+		private int tag;
+
+		private long nnzL, nnzA;
+
+		// listas de grau (baldes duplamente encadeados)
+		private int[] deg, head, next, prev, w;
+
+		private QuotientGraph(CompactGraphN g) {
+			this.n = g.getVertexCount();
+			this.status = new byte[n];
+			this.adjV = new int[n][];
+			this.lenV = new int[n];
+			this.elems = new int[n][];
+			this.lenE = new int[n];
+			this.clique = new int[n][];
+			this.mark = new int[n];
+			Arrays.fill(mark, -1);
+
+			int[] offsets = g.getOffsets(), adj = g.getAdjacency();
+			for (int v = 0; v < n; v++) {
+				int t = nextTag();
+				mark[v] = t;
+				int[] a = new int[offsets[v + 1] - offsets[v]];
+				int len = 0;
+				for (int p = offsets[v]; p < offsets[v + 1]; p++) {
+					int u = adj[p];
+					if (mark[u] != t) { // arestas paralelas e laços
+						mark[u] = t;
+						a[len++] = u;
+					}
+				}
+				adjV[v] = a;
+				lenV[v] = len;
+				elems[v] = new int[2];
+				nnzA += len;
+			}
+			nnzA /= 2;
+		}
+
+		private int nextTag() {
+			if (tag == Integer.MAX_VALUE) {
+				Arrays.fill(mark, -1);
+				tag = 0;
+			}
+			return tag++;
+		}
+
+		/**
+		 * Elimina os vértices numa ordem dada
+		 */
+		private void eliminate(int[] perm) {
+			for (int p : perm)
+				pivot(p);
+		}
+
+		/**
+		 * Elimina os vértices pelo critério do grau mínimo (exato ou aproximado)
+		 */
+		private int[] minimumDegree(boolean approximate) {
+			deg = new int[n];
+			head = new int[n];
+			next = new int[n];
+			prev = new int[n];
+			if (approximate) {
+				w = new int[n];
+				Arrays.fill(w, -1);
+			}
+			Arrays.fill(head, -1);
+			for (int v = n - 1; v >= 0; v--) {
+				deg[v] = lenV[v];
+				insert(v);
+			}
+
+			int[] perm = new int[n];
+			int minDeg = 0;
+			for (int k = 0; k < n; k++) {
+				while (head[minDeg] < 0)
+					minDeg++;
+				int p = head[minDeg];
+				remove(p);
+
+				int[] lp = pivot(p);
+				for (int i : lp)
+					remove(i);
+				if (approximate)
+					approximateDegrees(p, lp, n - k - 2);
+				else
+					for (int i : lp)
+						deg[i] = externalDegree(i);
+				for (int i : lp) {
+					insert(i);
+					if (deg[i] < minDeg)
+						minDeg = deg[i];
+				}
+				perm[k] = p;
+			}
+			return perm;
+		}
+
+		/**
+		 * Elimina a variável p, transformando-a num elemento que absorve os elementos
+		 * aos quais ela pertencia
+		 *
+		 * @return variáveis do novo elemento (Lp)
+		 */
+		private int[] pivot(int p) {
+			status[p] = ELEMENT;
+
+			// 1) Lp = (Ap U Le, para e em Ep) \ p
+			int t = nextTag();
+			mark[p] = t;
+			int cap = lenV[p];
+			for (int k = 0; k < lenE[p]; k++) {
+				int e = elems[p][k];
+				if (status[e] == ELEMENT)
+					cap += clique[e].length;
+			}
+			int[] lp = new int[cap];
+			int len = 0;
+			for (int k = 0; k < lenV[p]; k++) {
+				int j = adjV[p][k];
+				if (status[j] == VARIABLE && mark[j] != t) {
+					mark[j] = t;
+					lp[len++] = j;
+				}
+			}
+			for (int k = 0; k < lenE[p]; k++) {
+				int e = elems[p][k];
+				if (status[e] != ELEMENT)
+					continue;
+				for (int j : clique[e])
+					if (status[j] == VARIABLE && mark[j] != t) {
+						mark[j] = t;
+						lp[len++] = j;
+					}
+				status[e] = ABSORBED;
+				clique[e] = null;
+			}
+			if (len < lp.length)
+				lp = Arrays.copyOf(lp, len);
+			clique[p] = lp;
+			adjV[p] = null;
+			elems[p] = null;
+			nnzL += len;
+
+			// 2) atualizar as listas das variáveis de Lp
+			for (int i : lp) {
+				// elementos: retirar os absorvidos e incluir p
+				int[] ei = elems[i];
+				int le = 0;
+				for (int k = 0; k < lenE[i]; k++)
+					if (status[ei[k]] == ELEMENT)
+						ei[le++] = ei[k];
+				if (le == ei.length)
+					elems[i] = ei = Arrays.copyOf(ei, 2 * le + 2);
+				ei[le++] = p;
+				lenE[i] = le;
+
+				// variáveis: retirar p e as que já estão em Lp (cobertas pelo elemento p)
+				int[] ai = adjV[i];
+				int la = 0;
+				for (int k = 0; k < lenV[i]; k++) {
+					int j = ai[k];
+					if (status[j] == VARIABLE && mark[j] != t)
+						ai[la++] = j;
+				}
+				lenV[i] = la;
+			}
+			return lp;
+		}
+
+		/**
+		 * Grau externo exato: |Ai U (Le, para e em Ei)| \ i
+		 */
+		private int externalDegree(int i) {
+			int t = nextTag();
+			mark[i] = t;
+			int d = 0;
+			for (int k = 0; k < lenV[i]; k++) {
+				int j = adjV[i][k];
+				if (mark[j] != t) {
+					mark[j] = t;
+					d++;
+				}
+			}
+			for (int k = 0; k < lenE[i]; k++)
+				for (int j : clique[elems[i][k]])
+					if (mark[j] != t) {
+						mark[j] = t;
+						d++;
+					}
+			return d;
+		}
+
+		/**
+		 * Grau aproximado do AMD, com absorção dos elementos contidos em Lp. O grau
+		 * de cada variável i de Lp é limitado por min(variáveis restantes, grau
+		 * anterior + |Lp \ i|, |Ai| + |Lp \ i| + soma de |Le \ Lp|)
+		 */
+		private void approximateDegrees(int p, int[] lp, int remaining) {
+			int len = lp.length;
+			// w(e) = |Le \ Lp|
+			int t = nextTag();
+			for (int i : lp)
+				for (int k = 0; k < lenE[i]; k++) {
+					int e = elems[i][k];
+					if (e == p)
+						continue;
+					if (mark[e] != t) {
+						mark[e] = t;
+						w[e] = clique[e].length;
+					}
+					w[e]--;
+				}
+			for (int i : lp) {
+				int[] ei = elems[i];
+				int le = 0;
+				long d = lenV[i] + len - 1;
+				for (int k = 0; k < lenE[i]; k++) {
+					int e = ei[k];
+					if (e != p && w[e] == 0) { // Le contido em Lp
+						status[e] = ABSORBED;
+						continue;
+					}
+					if (status[e] == ABSORBED)
+						continue;
+					if (e != p)
+						d += w[e];
+					ei[le++] = e;
+				}
+				lenE[i] = le;
+				deg[i] = (int) Math.min(remaining, Math.min(deg[i] + len - 1, d));
+			}
+			for (int i : lp)
+				for (int k = 0; k < lenE[i]; k++) {
+					int e = elems[i][k];
+					if (status[e] == ABSORBED)
+						clique[e] = null;
+				}
+		}
+
+		private void insert(int v) {
+			int d = deg[v];
+			next[v] = head[d];
+			prev[v] = -1;
+			if (head[d] >= 0)
+				prev[head[d]] = v;
+			head[d] = v;
+		}
+
+		private void remove(int v) {
+			if (prev[v] >= 0)
+				next[prev[v]] = next[v];
+			else
+				head[deg[v]] = next[v];
+			if (next[v] >= 0)
+				prev[next[v]] = prev[v];
+		}
+	}
+}
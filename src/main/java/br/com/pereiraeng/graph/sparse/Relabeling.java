@@ -0,0 +1,303 @@
+package br.com.pereiraeng.graph.sparse;
+
+import java.util.Arrays;
+
+import br.com.pereiraeng.graph.numbered.CompactGraphN;
+
+/**
+ * Classe do objeto que representa uma renumeração densa dos vértices de um
+ * {@link CompactGraphN grafo numerado}, escolhida para que vértices próximos no
+ * grafo fiquem próximos na memória (e, nas matrizes, próximos da diagonal).
+ * <p>
+ * O grafo renumerado tem como {@link CompactGraphN#getNum(int) números} os
+ * próprios rótulos novos (de 0 a n-1) e mantém os identificadores das arestas
+ * do grafo original, de modo que atributos indexados por aresta continuam
+ * válidos.
+ *
+ * @author Philipe PEREIRA
+ *
+ */
+public class Relabeling {
+
+	/**
+	 * Critérios de renumeração
+	 */
+	public enum Method {
+		/**
+		 * Busca em largura a partir de um vértice pseudo-periférico de cada ilha
+		 */
+		BFS,
+		/**
+		 * Cuthill-McKee reverso: busca em largura visitando os vizinhos em ordem
+		 * crescente de grau, com a ordem final invertida (reduz a banda e o perfil
+		 * da matriz)
+		 */
+		REVERSE_CUTHILL_MCKEE,
+		/**
+		 * Ordem decrescente de grau (os vértices mais conectados ficam juntos no
+		 * começo dos vetores)
+		 */
+		DEGREE;
+	}
+
+	private final CompactGraphN original;
+
+	private final CompactGraphN relabeled;
+
+	/**
+	 * newToOld[k] = índice denso (no grafo original) do vértice de rótulo k
+	 */
+	private final int[] newToOld;
+
+	/**
+	 * oldToNew[v] = rótulo novo do vértice de índice denso v no grafo original
+	 */
+	private final int[] oldToNew;
+
+	private Relabeling(CompactGraphN original, int[] newToOld) {
+		this.original = original;
+		this.newToOld = newToOld;
+		int n = newToOld.length;
+		this.oldToNew = new int[n];
+		for (int k = 0; k < n; k++)
+			this.oldToNew[newToOld[k]] = k;
+
+		int m = original.getEdgeCount();
+		int[] nums = new int[n], from = new int[m], to = new int[m], circ = new int[m];
+		for (int k = 0; k < n; k++)
+			nums[k] = k;
+		for (int e = 0; e < m; e++) {
+			from[e] = oldToNew[original.getFrom(e)];
+			to[e] = oldToNew[original.getTo(e)];
+			circ[e] = original.getCircuit(e);
+		}
+		this.relabeled = new CompactGraphN(nums, from, to, circ);
+	}
+
+	/**
+	 * Função que calcula uma renumeração dos vértices de um grafo
+	 *
+	 * @param graph  grafo
+	 * @param method critério de renumeração
+	 * @return renumeração
+	 */
+	public static Relabeling compute(CompactGraphN graph, Method method) {
+		switch (method) {
+		case BFS:
+			return new Relabeling(graph, breadthFirst(graph, false));
+		case REVERSE_CUTHILL_MCKEE:
+			int[] cm = breadthFirst(graph, true);
+			for (int i = 0, j = cm.length - 1; i < j; i++, j--) {
+				int t = cm[i];
+				cm[i] = cm[j];
+				cm[j] = t;
+			}
+			return new Relabeling(graph, cm);
+		case DEGREE:
+			int n = graph.getVertexCount();
+			long[] keys = new long[n];
+			for (int v = 0; v < n; v++)
+				keys[v] = ((long) -graph.getDegree(v) << 32) | v;
+			Arrays.sort(keys);
+			int[] order = new int[n];
+			for (int k = 0; k < n; k++)
+				order[k] = (int) keys[k];
+			return new Relabeling(graph, order);
+		default:
+			throw new IllegalArgumentException("Critério de renumeração desconhecido: " + method);
+		}
+	}
+
+	/**
+	 * Percurso em largura de todas as ilhas do grafo, cada uma a partir de um
+	 * vértice pseudo-periférico
+	 *
+	 * @param byDegree se os vizinhos de cada vértice devem ser visitados em ordem
+	 *                 crescente de grau (Cuthill-McKee)
+	 */
+	private static int[] breadthFirst(CompactGraphN g, boolean byDegree) {
+		int n = g.getVertexCount();
+		int[] order = new int[n], level = new int[n + 1], mark = new int[n];
+		Arrays.fill(mark, -1);
+		boolean[] visited = new boolean[n];
+
+		// raízes candidatas em ordem crescente de grau
+		long[] keys = new long[n];
+		for (int v = 0; v < n; v++)
+			keys[v] = ((long) g.getDegree(v) << 32) | v;
+		Arrays.sort(keys);
+
+		int k = 0, tag = 0;
+		for (long key : keys) {
+			int r = (int) key;
+			if (visited[r])
+				continue;
+
+			// vértice pseudo-periférico (George & Liu): repetem-se buscas a partir
+			// do vértice de menor grau do último nível enquanto a excentricidade
+			// aumentar
+			int ecc = levels(g, r, order, k, level, mark, tag++);
+			while (ecc > 0) {
+				int best = -1;
+				for (int i = level[0] - 1; i >= 0 && level[1 + i] == ecc; i--)
+					if (best < 0 || g.getDegree(order[k + i]) < g.getDegree(best))
+						best = order[k + i];
+				int e = levels(g, best, order, k, level, mark, tag++);
+				if (e <= ecc)
+					break;
+				ecc = e;
+				r = best;
+			}
+
+			// percurso definitivo
+			int head = k;
+			order[k++] = r;
+			visited[r] = true;
+			while (head < k) {
+				int v = order[head++];
+				int first = k;
+				for (int j = 0; j < g.getDegree(v); j++) {
+					int u = g.getNeighbor(v, j);
+					if (!visited[u]) {
+						visited[u] = true;
+						order[k++] = u;
+					}
+				}
+				if (byDegree)
+					sortByDegree(g, order, first, k);
+			}
+		}
+		return order;
+	}
+
+	/**
+	 * Busca em largura que registra o nível de cada vértice alcançado
+	 *
+	 * @return excentricidade da raiz (com o número de vértices alcançados em
+	 *         level[0] e os níveis dos vértices em order[k + i] em level[1 + i])
+	 */
+	private static int levels(CompactGraphN g, int r, int[] order, int k, int[] level, int[] mark, int tag) {
+		int head = k, tail = k;
+		order[tail++] = r;
+		mark[r] = tag;
+		level[1] = 0;
+		int ecc = 0;
+		while (head < tail) {
+			int v = order[head];
+			int lv = level[1 + head - k];
+			head++;
+			for (int j = 0; j < g.getDegree(v); j++) {
+				int u = g.getNeighbor(v, j);
+				if (mark[u] != tag) {
+					mark[u] = tag;
+					level[1 + tail - k] = lv + 1;
+					order[tail++] = u;
+					ecc = lv + 1;
+				}
+			}
+		}
+		level[0] = tail - k;
+		return ecc;
+	}
+
+	private static void sortByDegree(CompactGraphN g, int[] a, int from, int to) {
+		for (int i = from + 1; i < to; i++) {
+			int v = a[i], d = g.getDegree(v);
+			int j = i - 1;
+			for (; j >= from && g.getDegree(a[j]) > d; j--)
+				a[j + 1] = a[j];
+			a[j + 1] = v;
+		}
+	}
+
+	// -------------- getter's --------------
+
+	public CompactGraphN getOriginal() {
+		return original;
+	}
+
+	/**
+	 * Função que retorna o grafo renumerado, cujos números dos vértices são os
+	 * rótulos novos
+	 *
+	 * @return grafo renumerado
+	 */
+	public CompactGraphN getGraph() {
+		return relabeled;
+	}
+
+	/**
+	 * Função que retorna os índices densos (no grafo original) dos vértices na
+	 * ordem dos rótulos novos
+	 *
+	 * @return vetor em que a posição k contém o vértice de rótulo k
+	 */
+	public int[] getPermutation() {
+		return newToOld;
+	}
+
+	/**
+	 * Função que retorna o rótulo novo de cada vértice do grafo original
+	 *
+	 * @return vetor indexado pelo índice denso no grafo original
+	 */
+	public int[] getInversePermutation() {
+		return oldToNew;
+	}
+
+	/**
+	 * Função que retorna o número original do vértice de um dado rótulo
+	 *
+	 * @param label rótulo novo
+	 * @return número do vértice no grafo original
+	 */
+	public int getOldNum(int label) {
+		return original.getNum(newToOld[label]);
+	}
+
+	/**
+	 * Função que retorna o rótulo novo de um vértice a partir do seu número
+	 * original
+	 *
+	 * @param num número do vértice no grafo original
+	 * @return rótulo novo, ou -1 se o vértice não pertencer ao grafo
+	 */
+	public int getLabel(int num) {
+		int v = original.indexOf(num);
+		return v < 0 ? -1 : oldToNew[v];
+	}
+
+	// ---------------- AUXILIAR ----------------
+
+	/**
+	 * Função que retorna a banda da matriz de adjacência de um grafo (maior
+	 * distância entre os índices densos de dois vértices adjacentes)
+	 *
+	 * @param g grafo
+	 * @return banda
+	 */
+	public static int getBandwidth(CompactGraphN g) {
+		int b = 0;
+		for (int e = 0; e < g.getEdgeCount(); e++)
+			b = Math.max(b, Math.abs(g.getFrom(e) - g.getTo(e)));
+		return b;
+	}
+
+	/**
+	 * Função que retorna o perfil da matriz de adjacência de um grafo (soma, para
+	 * cada linha, da distância entre a diagonal e o primeiro elemento não nulo)
+	 *
+	 * @param g grafo
+	 * @return perfil
+	 */
+	public static long getProfile(CompactGraphN g) {
+		long p = 0;
+		for (int v = 0; v < g.getVertexCount(); v++) {
+			int min = v;
+			for (int j = 0; j < g.getDegree(v); j++)
+				min = Math.min(min, g.getNeighbor(v, j));
+			p += v - min;
+		}
+		return p;
+	}
+}